@@ -41,6 +41,7 @@ import gama.core.util.GamaMapFactory;
 import gama.core.util.file.GenericFile;
 import gama.core.util.file.IGamaFile;
 import gama.core.util.file.csv.AbstractCSVManipulator;
+import gama.core.util.graph.PathCache;
 import gama.gaml.compilation.GAML;
 import gama.gaml.compilation.kernel.GamaMetaModel;
 import gama.gaml.operators.Strings;
@@ -515,6 +516,16 @@ public class GamaPreferences {
 		public static final Pref<Boolean> CORE_MEMORY_ACTION = create("pref_memory_action",
 				"If true, when running out of memory, GAMA will try to close the experiment, otherwise it exits", true,
 				IType.BOOL, true).in(NAME, MEMORY);
+
+		/** The Constant CORE_HISTORY_MEMORY. */
+		public static final Pref<Integer> CORE_HISTORY_MEMORY = create("pref_history_memory",
+				"Memory (in MB) used to keep the recent states of simulations that can step back (older ones are written to disk)",
+				256, IType.INT, true).in(NAME, MEMORY).between(1, null);
+
+		/** The Constant CORE_HISTORY_KEYFRAMES. */
+		public static final Pref<Integer> CORE_HISTORY_KEYFRAMES = create("pref_history_keyframes",
+				"Interval (in cycles) between two complete states of simulations that can step back (only the agents that have changed are recorded in between)",
+				50, IType.INT, true).in(NAME, MEMORY).between(1, null);
 		/**
 		 * Errors & warnings
 		 */
@@ -852,6 +863,16 @@ public class GamaPreferences {
 				"Optimize the path computation operators and goto action (but with possible 'jump' issues)", false,
 				IType.BOOL, true).in(NAME, OPTIMIZATIONS);
 
+		/** The Constant PATH_CACHE_CAPACITY. */
+		public static final Pref<Integer> PATH_CACHE_CAPACITY = create("pref_path_cache_capacity",
+				"Maximum number of edges stored in the shortest path cache of each graph (0 for no limit)", 2000000,
+				IType.INT, true).in(NAME, OPTIMIZATIONS);
+
+		/** The Constant PATH_CACHE_POLICY. */
+		public static final Pref<String> PATH_CACHE_POLICY =
+				create("pref_path_cache_policy", "Eviction policy of the shortest path cache", PathCache.LRU,
+						IType.STRING, true).among(PathCache.LRU, PathCache.LFU).in(NAME, OPTIMIZATIONS);
+
 		/** The Constant TOLERANCE_POINTS. */
 		public static final Pref<Double> TOLERANCE_POINTS =
 				create("pref_point_tolerance", "Tolerance for the comparison of points", 0.0, IType.FLOAT, true)
@@ -862,6 +883,36 @@ public class GamaPreferences {
 				"In-memory shapefile mapping (optimizes access to shapefile data in exchange for increased memory usage)",
 				true, IType.BOOL, true).in(NAME, OPTIMIZATIONS);
 
+		/** The Constant SHAPEFILES_CACHE. */
+		public static final Pref<Boolean> SHAPEFILES_CACHE = create("pref_shapefiles_cache",
+				"Cache the projected geometries and attributes of shapefiles in a hidden file next to them, to load them faster afterwards",
+				false, IType.BOOL, true).in(NAME, OPTIMIZATIONS);
+
+		/** The Constant SAVE_BUFFERED. */
+		public static final Pref<Boolean> SAVE_BUFFERED = create("pref_save_buffered",
+				"Keep the text, CSV and JSON files written by 'save' open and flush them at the end of each step",
+				false, IType.BOOL, true).activates("pref_save_async").in(NAME, OPTIMIZATIONS);
+
+		/** The Constant SAVE_ASYNC. */
+		public static final Pref<Boolean> SAVE_ASYNC = create("pref_save_async",
+				"...and write their contents in the background while the simulation goes on", false, IType.BOOL, true)
+						.in(NAME, OPTIMIZATIONS);
+
+		/** The Constant GRAPH_COMPACT. */
+		public static final Pref<Boolean> GRAPH_COMPACT = create("pref_graph_compact",
+				"Compute the shortest paths (Dijkstra, A*, bidirectional Dijkstra and contraction hierarchies) on a compact copy of the graphs (among paths of equal cost, the one returned may differ from the one computed by JGraphT)",
+				false, IType.BOOL, true).activates("pref_graph_shared_routes").in(NAME, OPTIMIZATIONS);
+
+		/** The Constant GRAPH_SHARED_ROUTES. */
+		public static final Pref<Boolean> GRAPH_SHARED_ROUTES = create("pref_graph_shared_routes",
+				"...and compute a single shortest path tree for the targets requested by several agents in a cycle (among paths of equal cost, the one returned may then depend on the requests of the other agents)",
+				false, IType.BOOL, true).in(NAME, OPTIMIZATIONS);
+
+		/** The Constant PRIMITIVE_LISTS. */
+		public static final Pref<Boolean> PRIMITIVE_LISTS = create("pref_primitive_lists",
+				"Store the values of the lists of int, float and bool in arrays of primitives rather than of objects",
+				false, IType.BOOL, true).in(NAME, OPTIMIZATIONS);
+
 		/**
 		 * Paths to libraries
 		 */
@@ -922,6 +973,13 @@ public class GamaPreferences {
 				.create("pref_csv_separator", "Default separator for fields",
 						String.valueOf(AbstractCSVManipulator.Letters.COMMA), IType.STRING, true)
 				.in(GamaPreferences.External.NAME, "CSV Files");
+
+		/** The Constant CSV_STREAMING_THRESHOLD. */
+		public static final Pref<Integer> CSV_STREAMING_THRESHOLD = GamaPreferences
+				.create("pref_csv_streaming_threshold",
+						"Size (in MB) above which CSV files used to create agents or in loops are read row by row, without loading their contents in memory (0 to always load them)",
+						0, IType.INT, true)
+				.between(0, null).in(GamaPreferences.External.NAME, "CSV Files");
 	}
 
 	/**
@@ -957,6 +1015,21 @@ public class GamaPreferences {
 				"Forces the spatial index to synchronize its operations. Useful for interactive models where the users interfere or parallel models with concurrency errors. Note that it may slow down simulations with a lot of mobile agents",
 				true, IType.BOOL, true).in(NAME, CATEGORY);
 
+		/** The Constant QUADTREE_CONCURRENT. */
+		public static final Pref<Boolean> QUADTREE_CONCURRENT = create("pref_concurrent_quadtree",
+				"Use a lock-striped spatial index when agents are scheduled in parallel. Spatial queries do not block each other and moves only lock the region of the environment they affect",
+				true, IType.BOOL, true).in(NAME, CATEGORY);
+
+		/** The Constant PROFILER. */
+		public static final Pref<Boolean> PROFILER = create("pref_profiler",
+				"Profile experiments continuously: the time and memory spent in each species, reflex, action, statement and operator are written as flame graph stacks in the 'profiles' folder of the model",
+				false, IType.BOOL, true).in(NAME, CATEGORY);
+
+		/** The Constant SHARED_MODEL_DESCRIPTIONS. */
+		public static final Pref<Boolean> SHARED_MODEL_DESCRIPTIONS = create("pref_shared_model_descriptions",
+				"In headless mode, validate each model only once and share its description between the jobs that run it (as long as the model and its imports are not modified)",
+				true, IType.BOOL, true).in(NAME, CATEGORY);
+
 		/** The Constant CONSTANT_OPTIMIZATION. */
 		public static final Pref<Boolean> CONSTANT_OPTIMIZATION = create("pref_optimize_constant_expressions",
 				"Optimize constant expressions (experimental, performs a rebuild of models)", false, IType.BOOL, true)
@@ -19,7 +19,9 @@ import java.util.Random;
 
 import gama.core.common.interfaces.IKeyword;
 import gama.core.common.preferences.GamaPreferences;
+import gama.core.metamodel.agent.IAgent;
 import gama.core.metamodel.shape.GamaPoint;
+import gama.core.util.random.CounterRNG;
 import gama.core.util.random.IGamaRNG;
 import gama.core.util.random.JavaRNG;
 import gama.core.util.random.MersenneTwisterRNG;
@@ -39,7 +41,7 @@ public class RandomUtils {
 
 	/** The Constant DOC. */
 	public static final String DOC =
-			"The random number generator to use. Four different ones are at the disposal of the modeler: " + "'"
+			"The random number generator to use. Five different ones are at the disposal of the modeler: " + "'"
 					+ IKeyword.MERSENNE + "'"
 					+ " represents the default generator, based on the Mersenne-Twister algorithm. Very reliable, fast and deterministic (that is, using the same seed and the same sequence of calls, it will return the same stream of pseudo-random numbers). This algorithm is however not safe to use in simulations where agents can behave in parallel; "
 					+ "'threaded'"
@@ -47,7 +49,9 @@ public class RandomUtils {
 					+ "'" + IKeyword.PARALLEL + "'"
 					+ " is a version of the Mersenne-Twister algorithm that can be safely used in parallel simulations by preventing a concurrent access to its internal state. Determinism is guaranteed (in terms of generation, but not in terms of execution, as the sequence in which the threads will access it cannot be determined) and it performs a bit slower than its base version."
 					+ "'" + IKeyword.JAVA + "'"
-					+ " invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones";
+					+ " invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones; "
+					+ "'counter'"
+					+ " is a counter-based generator (derived from SplitMix64) that gives each agent its own stream of numbers at each cycle, derived from the seed, the agent and the cycle. It is lock-free and guarantees that simulations where agents behave in parallel are reproducible, whatever the number of threads";
 
 	/**
 	 * The Enum GeneratorNames.
@@ -64,7 +68,10 @@ public class RandomUtils {
 				" invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones; "),
 		/** The threaded. */
 		THREADED("threaded",
-				" is a very fast generator, based on the DotMix algorithm, that can be safely used in parallel simulations as it creates one instance per thread. However, determinism cannot be guaranteed and this algorithm does not accept a seed as each instance will compute its own; ");
+				" is a very fast generator, based on the DotMix algorithm, that can be safely used in parallel simulations as it creates one instance per thread. However, determinism cannot be guaranteed and this algorithm does not accept a seed as each instance will compute its own; "),
+		/** The counter. */
+		COUNTER("counter",
+				" is a counter-based generator (derived from SplitMix64) that gives each agent its own stream of numbers at each cycle, derived from the seed, the agent and the cycle. It is lock-free and guarantees that simulations where agents behave in parallel are reproducible, whatever the number of threads; ");
 
 		/** The name. */
 		private String name;
@@ -158,11 +165,27 @@ public class RandomUtils {
 			case JAVA -> new JavaRNG(this);
 			case THREADED -> new ThreadLocalRNG(this);
 			case PARALLEL -> new ParallelMersenneTwisterRNG(this);
+			case COUNTER -> new CounterRNG(this);
 			default -> new MersenneTwisterRNG(this);
 		};
 
 	}
 
+	/**
+	 * Binds the agent that is going to draw numbers, and the current cycle, to the current thread. Only used by the
+	 * generators that give each agent its own stream (see {@link CounterRNG}).
+	 *
+	 * @param agent
+	 *            the agent
+	 * @param cycle
+	 *            the cycle
+	 * @return this
+	 */
+	public RandomUtils bind(final IAgent agent, final int cycle) {
+		generator.bind(agent, cycle);
+		return this;
+	}
+
 	/**
 	 * Sets the usage.
 	 *
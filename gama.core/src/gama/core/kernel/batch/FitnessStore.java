@@ -0,0 +1,232 @@
+/*******************************************************************************************************
+ *
+ * FitnessStore.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.kernel.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import gama.core.common.util.StringUtils;
+import gama.core.kernel.experiment.ParametersSet;
+import gama.dev.DEBUG;
+
+/**
+ * A persistent memory of the fitness of the simulations run by a calibration experiment, keyed by a canonical hash of
+ * the version of the model and of their parameters and seed. Optimization algorithms often revisit the same solutions: the simulations already run are
+ * then not run again. As the memory is kept on disk (and flushed after each simulation), an interrupted calibration
+ * that is restarted quickly replays the solutions already evaluated and resumes where it stopped. The fitness values
+ * recorded for a previous version of the model are kept in the file but never match.
+ *
+ * The file is a sequence of records made of the hash (a long) and of the fitness (a double). The memory itself is an
+ * open-addressing table of primitive values.
+ */
+public class FitnessStore {
+
+	/** The Constant EMPTY: 0 is used as the marker of empty cells (and never returned as a hash). */
+	private static final long EMPTY = 0L;
+
+	/** The keys. */
+	private long[] keys = new long[64];
+
+	/** The fitness values. */
+	private double[] values = new double[64];
+
+	/** The number of entries. */
+	private int size;
+
+	/** The output, or null if the store is not persistent. */
+	private DataOutputStream output;
+
+	/** The version of the model, part of the hash of each simulation. */
+	private final String version;
+
+	/**
+	 * Opens (or creates) a store.
+	 *
+	 * @param file
+	 *            the file, or null for a memory kept only while the experiment runs
+	 * @param version
+	 *            the version of the model (see BatchAgent#getModelVersion())
+	 */
+	public FitnessStore(final File file, final String version) {
+		this.version = version;
+		if (file == null) return;
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				while (true) {
+					final long key = in.readLong();
+					final double value = in.readDouble();
+					insert(key, value);
+				}
+			} catch (final EOFException e) {
+				// End of the file (possibly truncated by a crash)
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to read " + file.getName() + ": " + e.getMessage());
+			}
+			if (size > 0) { DEBUG.LOG("Resuming from " + size + " fitness values recorded in " + file.getName()); }
+		} else {
+			file.getParentFile().mkdirs();
+		}
+		try {
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (final IOException e) {
+			DEBUG.LOG("Impossible to write " + file.getName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Computes the canonical hash of a simulation: a 64-bit FNV-1a hash of the version of the model, of its parameters,
+	 * sorted by name and written in GAML, and of its seed.
+	 *
+	 * @param version
+	 *            the version of the model
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @return the hash (never 0)
+	 */
+	public static long hash(final String version, final ParametersSet parameters, final Double seed) {
+		final StringBuilder sb = new StringBuilder().append(version).append('|');
+		for (final Map.Entry<String, Object> e : new TreeMap<>(parameters).entrySet()) {
+			sb.append(e.getKey()).append('=').append(StringUtils.toGaml(e.getValue(), false)).append(';');
+		}
+		sb.append(seed);
+		long h = 0xcbf29ce484222325L;
+		for (final byte b : sb.toString().getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h == EMPTY ? 1 : h;
+	}
+
+	/**
+	 * Returns the fitness of a simulation, or null if it is unknown.
+	 *
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @return the fitness or null
+	 */
+	public synchronized Double get(final ParametersSet parameters, final Double seed) {
+		final int i = indexOf(hash(version, parameters, seed));
+		return keys[i] == EMPTY ? null : values[i];
+	}
+
+	/**
+	 * Records the fitness of a simulation.
+	 *
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @param fitness
+	 *            the fitness
+	 */
+	public synchronized void put(final ParametersSet parameters, final Double seed, final double fitness) {
+		final long key = hash(version, parameters, seed);
+		if (!insert(key, fitness) || output == null) return;
+		try {
+			output.writeLong(key);
+			output.writeDouble(fitness);
+			output.flush();
+		} catch (final IOException e) {
+			DEBUG.LOG("Impossible to record a fitness: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Inserts a value if the key is not present.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return true, if the value has been inserted
+	 */
+	private boolean insert(final long key, final double value) {
+		int i = indexOf(key);
+		if (keys[i] != EMPTY) return false;
+		if ((size + 1) * 4 > keys.length * 3) {
+			grow();
+			i = indexOf(key);
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Returns the index of a key, or of the empty cell where it would be inserted (linear probing).
+	 *
+	 * @param key
+	 *            the key
+	 * @return the index
+	 */
+	private int indexOf(final long key) {
+		final int mask = keys.length - 1;
+		int i = (int) (key ^ key >>> 32) & mask;
+		while (keys[i] != EMPTY && keys[i] != key) { i = i + 1 & mask; }
+		return i;
+	}
+
+	/**
+	 * Doubles the capacity of the table.
+	 */
+	private void grow() {
+		final long[] oldKeys = keys;
+		final double[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new double[oldKeys.length * 2];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != EMPTY) {
+				final int i = indexOf(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of fitness values known.
+	 *
+	 * @return the int
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Forgets everything (but does not erase the file) and closes the store.
+	 */
+	public synchronized void close() {
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+		if (output == null) return;
+		try {
+			output.close();
+		} catch (final IOException e) {} finally {
+			output = null;
+		}
+	}
+
+}
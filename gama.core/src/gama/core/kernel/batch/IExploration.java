@@ -11,6 +11,7 @@
 package gama.core.kernel.batch;
 
 import java.util.List;
+import java.util.Map;
 
 import gama.core.kernel.batch.exploration.Exploration;
 import gama.core.kernel.batch.exploration.betadistribution.BetaExploration;
@@ -25,6 +26,7 @@ import gama.core.kernel.batch.optimization.TabuSearchReactive;
 import gama.core.kernel.batch.optimization.genetic.GeneticAlgorithm;
 import gama.core.kernel.experiment.BatchAgent;
 import gama.core.kernel.experiment.IParameter;
+import gama.core.kernel.experiment.ParametersSet;
 import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.gaml.compilation.ISymbol;
@@ -76,6 +78,17 @@ public interface IExploration extends ISymbol {// , Runnable {
 	 */
 	public boolean isFitnessBased();
 	
+	/**
+	 * Called by the batch agent each time a simulation is over, with the outputs it produced, before the results of
+	 * all the simulations launched together are returned. Does nothing by default.
+	 *
+	 * @param point
+	 *            the point of the parameter space explored by the simulation
+	 * @param outputs
+	 *            the outputs of the simulation (or its fitness)
+	 */
+	default void resultReceived(final ParametersSet point, final Map<String, Object> outputs) {}
+
 	/**
 	 * The expression that represents the requested outputs
 	 * 
@@ -0,0 +1,452 @@
+/*******************************************************************************************************
+ *
+ * BatchFarm.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.kernel.batch.farm;
+
+import static gama.core.runtime.concurrent.GamaExecutorService.BATCH_FARM_COMMAND;
+import static gama.core.runtime.concurrent.GamaExecutorService.BATCH_FARM_TIMEOUT;
+import static gama.core.runtime.concurrent.GamaExecutorService.BATCH_FARM_WORKERS;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.ProcessBuilder.Redirect;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import gama.core.kernel.experiment.ParametersSet;
+import gama.core.runtime.IScope;
+import gama.core.runtime.concurrent.GamaExecutorService;
+import gama.core.util.IMap;
+import gama.core.util.file.json.Json;
+import gama.core.util.file.json.JsonObject;
+import gama.core.util.file.json.JsonValue;
+import gama.dev.DEBUG;
+
+/**
+ * A farm of local headless GAMA processes ("workers") to which a batch experiment delegates its simulations. Each
+ * worker opens the same model and batch experiment (see the '-batchworker' option of the headless application) and runs
+ * the simulations it receives one after the other. Isolating the simulations in several JVMs means that a garbage
+ * collection pause, a memory leak or a crash only affects one worker: the simulations of a worker that dies, or that
+ * does not answer within the time allowed (see {@link GamaExecutorService#BATCH_FARM_TIMEOUT}), are sent again to the
+ * others and the worker is restarted.
+ *
+ * The protocol is made of JSON objects, one per line, exchanged on a local socket: the farm sends
+ * <code>{"id":..., "parameters":{...}, "seed":...}</code> and the worker answers
+ * <code>{"id":..., "outputs":{...}}</code> or <code>{"id":..., "error":"..."}</code>.
+ *
+ * The completed simulations are recorded in a {@link BatchJournal}, which allows a long exploration to resume where it
+ * stopped.
+ */
+public class BatchFarm implements AutoCloseable {
+
+	/** The option of the headless application that starts a worker. */
+	public static final String WORKER_OPTION = "-batchworker";
+
+	/** The key of the messages. */
+	public static final String ID = "id", PARAMETERS = "parameters", SEED = "seed", OUTPUTS = "outputs",
+			ERROR = "error";
+
+	/** The number of times a simulation is sent to a worker before being abandoned. */
+	private static final int MAX_ATTEMPTS = 3;
+
+	/** The number of times a worker is restarted before being abandoned. */
+	private static final int MAX_RESTARTS = 5;
+
+	/** The time given to a worker to connect to the farm, in ms. */
+	private static final int CONNECTION_TIMEOUT = 120_000;
+
+	/**
+	 * A simulation to run.
+	 *
+	 * @param id
+	 *            the identifier of the job
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @param attempts
+	 *            the number of times it has been sent to a worker
+	 */
+	record Job(int id, ParametersSet parameters, Double seed, int attempts) {
+
+		/**
+		 * Returns the same job, with one more attempt.
+		 *
+		 * @return the job
+		 */
+		Job retry() {
+			return new Job(id, parameters, seed, attempts + 1);
+		}
+	}
+
+	/**
+	 * The result of a simulation (outputs is null if it has failed).
+	 *
+	 * @param job
+	 *            the job
+	 * @param outputs
+	 *            the outputs
+	 */
+	record Result(Job job, IMap<String, Object> outputs) {}
+
+	/** The scope of the batch experiment. */
+	final IScope scope;
+
+	/** The model file and the name of the experiment. */
+	final String model, experiment;
+
+	/** The journal. */
+	final BatchJournal journal;
+
+	/** The workers. */
+	final List<Worker> workers = new ArrayList<>();
+
+	/** The jobs waiting for a worker. */
+	final BlockingQueue<Job> pending = new LinkedBlockingQueue<>();
+
+	/** The results waiting to be consumed. */
+	final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+
+	/** Whether the farm is closed. */
+	volatile boolean closed;
+
+	/**
+	 * Whether simulations should be run by a farm of processes.
+	 *
+	 * @return true, if successful
+	 */
+	public static boolean isEnabled() { return BATCH_FARM_WORKERS.getValue() > 0; }
+
+	/**
+	 * Instantiates a new farm and starts its workers.
+	 *
+	 * @param scope
+	 *            the scope of the batch experiment
+	 * @param model
+	 *            the path to the model file
+	 * @param experiment
+	 *            the name of the batch experiment
+	 * @param journal
+	 *            the journal where completed simulations are recorded (can be null)
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public BatchFarm(final IScope scope, final String model, final String experiment, final BatchJournal journal)
+			throws IOException {
+		this.scope = scope;
+		this.model = model;
+		this.experiment = experiment;
+		this.journal = journal;
+		for (int i = 0; i < BATCH_FARM_WORKERS.getValue(); i++) {
+			final Worker w = new Worker(i);
+			workers.add(w);
+			w.start();
+		}
+	}
+
+	/**
+	 * Runs the simulations (each pair of parameters and seed) and passes their outputs to the consumer, on the calling
+	 * thread, as they arrive. The ones already recorded in the journal are not run again. Returns when all the
+	 * simulations are over, when the farm is closed, or when all the workers have been abandoned: the simulations not
+	 * run are then passed to the fallback.
+	 *
+	 * @param simulations
+	 *            the parameters and seed of each simulation
+	 * @param consumer
+	 *            the consumer of the parameters and seed, and of the outputs, of each simulation
+	 * @param fallback
+	 *            the consumer of the parameters and seed of the simulations that no worker can run
+	 * @return the number of simulations that have failed
+	 */
+	public int run(final List<Map.Entry<ParametersSet, Double>> simulations,
+			final BiConsumer<Map.Entry<ParametersSet, Double>, IMap<String, Object>> consumer,
+			final Consumer<Map.Entry<ParametersSet, Double>> fallback) {
+		int expected = 0, failed = 0;
+		for (final Map.Entry<ParametersSet, Double> sim : simulations) {
+			final IMap<String, Object> done =
+					journal == null ? null : journal.get(scope, sim.getKey(), sim.getValue());
+			if (done != null) {
+				consumer.accept(sim, done);
+			} else {
+				pending.add(new Job(expected++, sim.getKey(), sim.getValue(), 0));
+			}
+		}
+		while (expected > 0 && !closed) {
+			final Result r;
+			try {
+				r = results.poll(100, TimeUnit.MILLISECONDS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if (r == null) {
+				if (scope.interrupted()) { break; }
+				if (workers.stream().noneMatch(Thread::isAlive)) {
+					DEBUG.LOG("All the workers of the batch farm have been abandoned");
+					// No worker is left to take or give back a job: the pending ones are all those not run
+					final List<Job> left = new ArrayList<>();
+					pending.drainTo(left);
+					for (final Job job : left) { fallback.accept(Map.entry(job.parameters(), job.seed())); }
+					return failed + expected - left.size();
+				}
+				continue;
+			}
+			expected--;
+			if (r.outputs() == null) {
+				failed++;
+				continue;
+			}
+			if (journal != null) { journal.record(r.job().parameters(), r.job().seed(), r.outputs()); }
+			consumer.accept(Map.entry(r.job().parameters(), r.job().seed()), r.outputs());
+		}
+		return failed;
+	}
+
+	/**
+	 * Closes the farm and stops the workers.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		pending.clear();
+		for (final Worker w : workers) { w.stopProcess(); }
+		if (journal != null) { journal.close(); }
+	}
+
+	/**
+	 * Builds the command that launches a worker. If the preference is empty, the command is derived from the current
+	 * process (same java executable, launcher and memory settings) by switching to the headless application.
+	 *
+	 * @param workspace
+	 *            the workspace of the worker
+	 * @param port
+	 *            the port of the farm
+	 * @return the command
+	 */
+	List<String> command(final File workspace, final int port) {
+		final List<String> command = new ArrayList<>();
+		final String custom = BATCH_FARM_COMMAND.getValue().strip();
+		if (!custom.isEmpty()) {
+			command.addAll(Arrays.asList(custom.split("\\s+")));
+		} else {
+			command.add(ProcessHandle.current().info().command()
+					.orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			for (final String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+				// Memory settings and system properties, but not the agents (debuggers, profilers)
+				if (arg.startsWith("-X") || arg.startsWith("-D")) { command.add(arg); }
+			}
+			command.add("org.eclipse.core.launcher.Main");
+			final String configuration = System.getProperty("osgi.configuration.area");
+			if (configuration != null) {
+				command.add("-configuration");
+				command.add(configuration);
+			}
+			command.add("-application");
+			command.add("gama.headless.product");
+		}
+		command.add("-data");
+		command.add(workspace.getAbsolutePath());
+		command.add(WORKER_OPTION);
+		command.add(String.valueOf(port));
+		command.add(experiment);
+		command.add(model);
+		return command;
+	}
+
+	/**
+	 * A worker process, and the thread that feeds it with simulations.
+	 */
+	class Worker extends Thread {
+
+		/** The process. */
+		volatile Process process;
+
+		/** The server socket to which the process connects. */
+		ServerSocket server;
+
+		/** The workspace of the process. */
+		File workspace;
+
+		/** The json encoder/decoder of this thread. */
+		final Json json = Json.getNew();
+
+		/**
+		 * Instantiates a new worker.
+		 *
+		 * @param index
+		 *            the index
+		 */
+		Worker(final int index) {
+			super("Batch farm worker " + index);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			int restarts = 0;
+			while (!closed && restarts <= MAX_RESTARTS) {
+				try (Socket socket = launch()) {
+					serve(socket);
+				} catch (final IOException e) {
+					if (closed) return;
+					DEBUG.LOG(getName() + " lost: " + e.getMessage() + ". Restarting it.");
+					restarts++;
+				} finally {
+					stopProcess();
+					deleteWorkspace();
+				}
+			}
+			try {
+				if (server != null) { server.close(); }
+			} catch (final IOException e) {}
+		}
+
+		/**
+		 * Launches the process and waits for its connection.
+		 *
+		 * @return the socket
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Socket launch() throws IOException {
+			if (server == null) {
+				// One server per worker, so that a process always connects to the thread that has launched it
+				server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+				server.setSoTimeout(CONNECTION_TIMEOUT);
+			}
+			workspace = Files.createTempDirectory("gama_worker").toFile();
+			final ProcessBuilder builder = new ProcessBuilder(command(workspace, server.getLocalPort()));
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(Redirect.appendTo(new File(workspace, "worker.log")));
+			process = builder.start();
+			try {
+				return server.accept();
+			} catch (final SocketTimeoutException e) {
+				throw new IOException("the worker did not connect in time", e);
+			}
+		}
+
+		/**
+		 * Sends the pending simulations to the worker, one at a time, and collects their outputs.
+		 *
+		 * @param socket
+		 *            the socket
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void serve(final Socket socket) throws IOException {
+			final BufferedWriter out =
+					new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			final BufferedReader in =
+					new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			// A worker that does not answer in time is considered as lost (SocketTimeoutException)
+			socket.setSoTimeout(BATCH_FARM_TIMEOUT.getValue() * 1000);
+			while (!closed) {
+				final Job job;
+				try {
+					job = pending.poll(100, TimeUnit.MILLISECONDS);
+				} catch (final InterruptedException e) {
+					return;
+				}
+				if (job == null) { continue; }
+				try {
+					final JsonObject request = json.object(ID, job.id(), PARAMETERS, job.parameters(), SEED, job.seed());
+					out.write(request.toString());
+					out.newLine();
+					out.flush();
+					final String line = in.readLine();
+					if (line == null) throw new IOException("the worker has closed the connection");
+					results.add(decode(job, line));
+				} catch (final IOException | RuntimeException e) {
+					// The worker has crashed or sent garbage: the simulation is given to another worker
+					if (job.attempts() + 1 < MAX_ATTEMPTS) {
+						pending.add(job.retry());
+					} else {
+						DEBUG.LOG("Simulation " + job.parameters() + " abandoned after " + MAX_ATTEMPTS + " attempts");
+						results.add(new Result(job, null));
+					}
+					throw e instanceof IOException io ? io : new IOException(e);
+				}
+			}
+		}
+
+		/**
+		 * Decodes the answer of a worker.
+		 *
+		 * @param job
+		 *            the job
+		 * @param line
+		 *            the line
+		 * @return the result
+		 */
+		@SuppressWarnings ("unchecked")
+		Result decode(final Job job, final String line) {
+			final JsonObject answer = json.parse(line).asObject();
+			final JsonValue error = answer.get(ERROR);
+			if (error != null) {
+				DEBUG.LOG("Simulation " + job.parameters() + " failed: " + error.asString());
+				return new Result(job, null);
+			}
+			return new Result(job, (IMap<String, Object>) answer.get(OUTPUTS).toGamlValue(scope));
+		}
+
+		/**
+		 * Stops the process and waits (a little) for its end.
+		 */
+		void stopProcess() {
+			final Process p = process;
+			process = null;
+			if (p == null) return;
+			p.destroy();
+			try {
+				if (!p.waitFor(5, TimeUnit.SECONDS)) { p.destroyForcibly().waitFor(5, TimeUnit.SECONDS); }
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Deletes the workspace of the process, once it is stopped.
+		 */
+		void deleteWorkspace() {
+			final File dir = workspace;
+			workspace = null;
+			if (dir == null) return;
+			try (Stream<Path> files = Files.walk(dir.toPath())) {
+				files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to delete " + dir + ": " + e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************************************
+ *
+ * BatchJournal.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.kernel.batch.farm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import gama.core.kernel.experiment.ParametersSet;
+import gama.core.runtime.IScope;
+import gama.core.util.IMap;
+import gama.core.util.file.json.Json;
+import gama.core.util.file.json.JsonObject;
+import gama.dev.DEBUG;
+
+/**
+ * The journal of the simulations completed by a batch experiment: one JSON object per line, made of the key of the
+ * simulation (the version of the model, its parameters, sorted by name, and its seed) and of its outputs. The file is
+ * flushed after each simulation, so that an exploration interrupted (or crashed) can be resumed: when the journal is
+ * reopened, the simulations it contains are not run again. The simulations recorded with another version of the model
+ * (i.e. before the model or its outputs were modified) are ignored. Deleting the file restarts the exploration from
+ * scratch.
+ */
+public class BatchJournal {
+
+	/** The keys of the lines. */
+	private static final String KEY = "key", OUTPUTS = "outputs";
+
+	/** The json encoder/decoder. */
+	private final Json json = Json.getNew();
+
+	/** The version of the model, which prefixes the keys. */
+	private final String version;
+
+	/** The outputs of the completed simulations (still encoded), by key. */
+	private final Map<String, JsonObject> completed = new HashMap<>();
+
+	/** The writer. */
+	private BufferedWriter writer;
+
+	/**
+	 * Opens (or creates) a journal.
+	 *
+	 * @param file
+	 *            the file
+	 * @param version
+	 *            the version of the model (e.g. a hash of its files and of its outputs)
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public BatchJournal(final File file, final String version) throws IOException {
+		this.version = version;
+		if (file.exists()) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isBlank()) { continue; }
+					try {
+						final JsonObject entry = json.parse(line).asObject();
+						final String key = entry.get(KEY).asString();
+						if (key.startsWith(version + "|")) { completed.put(key, entry.get(OUTPUTS).asObject()); }
+					} catch (final RuntimeException e) {
+						// The last line may have been truncated by a crash
+						DEBUG.LOG("Ignoring a malformed line of the journal " + file.getName());
+					}
+				}
+			}
+			if (!completed.isEmpty()) {
+				DEBUG.LOG("Resuming from " + completed.size() + " simulations recorded in " + file.getName());
+			}
+		} else {
+			file.getParentFile().mkdirs();
+		}
+		writer = new BufferedWriter(new FileWriter(file, true));
+	}
+
+	/**
+	 * Returns the canonical key of a simulation: the version of the model, its parameters sorted by name and its seed.
+	 *
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @return the string
+	 */
+	String keyOf(final ParametersSet parameters, final Double seed) {
+		return version + "|" + json.valueOf(new TreeMap<>(parameters)).toString() + "@" + seed;
+	}
+
+	/**
+	 * Returns the outputs of a simulation recorded in the journal, or null.
+	 *
+	 * @param scope
+	 *            the scope used to decode the outputs
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @return the outputs or null
+	 */
+	public synchronized IMap<String, Object> get(final IScope scope, final ParametersSet parameters,
+			final Double seed) {
+		final JsonObject outputs = completed.get(keyOf(parameters, seed));
+		return outputs == null ? null : outputs.toGamlValue(scope);
+	}
+
+	/**
+	 * Records the outputs of a simulation.
+	 *
+	 * @param parameters
+	 *            the parameters
+	 * @param seed
+	 *            the seed
+	 * @param outputs
+	 *            the outputs
+	 */
+	public synchronized void record(final ParametersSet parameters, final Double seed,
+			final Map<String, Object> outputs) {
+		if (writer == null) return;
+		final String key = keyOf(parameters, seed);
+		final JsonObject encoded = json.valueOf(outputs).asObject();
+		completed.put(key, encoded);
+		try {
+			writer.write(json.object(KEY, key, OUTPUTS, encoded).toString());
+			writer.newLine();
+			writer.flush();
+		} catch (final IOException e) {
+			DEBUG.LOG("Impossible to write in the journal: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes the journal.
+	 */
+	public synchronized void close() {
+		if (writer == null) return;
+		try {
+			writer.close();
+		} catch (final IOException e) {} finally {
+			writer = null;
+		}
+	}
+
+}
@@ -12,7 +12,9 @@ package gama.core.kernel.batch.optimization;
 
 import static gama.gaml.operators.Cast.asFloat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +77,9 @@ public abstract class AOptimizationAlgorithm extends Symbol implements IExplorat
 	/** The combination. */
 	protected short combination;
 
+	/** The fitness values received for the solutions whose replications are not all over yet. */
+	private final Map<ParametersSet, List<Double>> receivedFitness = new HashMap<>();
+
 	/**
 	 * Find best solution.
 	 *
@@ -137,6 +142,7 @@ public abstract class AOptimizationAlgorithm extends Symbol implements IExplorat
 
 	@Override
 	public void run(final IScope scope) {
+		receivedFitness.clear();
 		try {
 			findBestSolution(scope);
 		} catch (final GamaRuntimeException e) {
@@ -330,6 +336,26 @@ public abstract class AOptimizationAlgorithm extends Symbol implements IExplorat
 		}
 	}
 
+	/**
+	 * Updates the best solution as soon as all the replications of a solution are over, instead of waiting for all
+	 * the solutions launched together. The fitness of the solution is combined as in
+	 * {@link BatchAgent#launchSimulationsWithSolution(List)}, which gives the same result later.
+	 */
+	@Override
+	public void resultReceived(final ParametersSet point, final Map<String, Object> outputs) {
+		if (!(outputs.get(IKeyword.FITNESS) instanceof Number fitness)) return;
+		final BatchAgent batch = getCurrentExperiment();
+		if (batch == null) return;
+		final List<Double> values = receivedFitness.computeIfAbsent(point, p -> new ArrayList<>());
+		values.add(fitness.doubleValue());
+		if (values.size() < batch.getSeeds().length) return;
+		receivedFitness.remove(point);
+		final DoubleSummaryStatistics stats = values.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+		updateBestFitness(point, combination == C_MAX ? stats.getMax()
+				: combination == C_MIN ? stats.getMin() : stats.getAverage());
+		batch.getScope().getGui().updateParameters();
+	}
+
 	/**
 	 * Gets the current experiment.
 	 *
@@ -9,14 +9,29 @@
  ********************************************************************************************************/
 package gama.core.kernel.experiment;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 import java.util.stream.DoubleStream;
 
 import org.jfree.data.statistics.Statistics;
@@ -26,6 +41,9 @@ import gama.annotations.precompiler.GamlAnnotations.experiment;
 import gama.core.common.interfaces.IKeyword;
 import gama.core.common.interfaces.IScopedStepable;
 import gama.core.kernel.batch.exploration.AExplorationAlgorithm;
+import gama.core.kernel.batch.FitnessStore;
+import gama.core.kernel.batch.farm.BatchFarm;
+import gama.core.kernel.batch.farm.BatchJournal;
 import gama.core.kernel.batch.optimization.AOptimizationAlgorithm;
 import gama.core.kernel.experiment.IParameter.Batch;
 import gama.core.kernel.simulation.SimulationAgent;
@@ -37,6 +55,7 @@ import gama.core.outputs.FileOutput;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IExperimentStateListener;
 import gama.core.runtime.IScope;
+import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
 import gama.core.util.GamaMapFactory;
@@ -97,6 +116,15 @@ public class BatchAgent extends ExperimentAgent {
 	/** Keep simulations between ''runs'' */
 	private boolean simDispose;
 
+	/** The farm of processes running the simulations, if any. */
+	private BatchFarm farm;
+
+	/** The memory of the fitness of the simulations already run (created the first time it is needed). */
+	private FitnessStore fitnessStore;
+
+	/** Whether the simulations run asynchronously must stop, as their outputs will not be collected. */
+	private volatile boolean abandoned;
+
 	/**
 	 * Instantiates a new batch agent.
 	 *
@@ -187,6 +215,22 @@ public class BatchAgent extends ExperimentAgent {
 	 */
 	private IMap<String, Object> manageOutputAndCloseSimulation(final IAgent sim, final ParametersSet sol,
 			final boolean memorize, final boolean dispose) {
+		final IMap<String, Object> out = collectOutputs(sim, memorize);
+		writeOutputs(sol, out);
+		if (dispose && sim instanceof AbstractAgent agent) { agent.primDie(sim.getScope()); }
+		return out;
+	}
+
+	/**
+	 * Computes the outputs of interest of a simulation: its fitness or the variables listed in the 'outputs' facet.
+	 *
+	 * @param sim
+	 *            the simulation
+	 * @param memorize
+	 *            whether to memorize the fitness
+	 * @return the outputs
+	 */
+	private IMap<String, Object> collectOutputs(final IAgent sim, final boolean memorize) {
 		IMap<String, Object> out = GamaMapFactory.create();
 		if (getSpecies().getExplorationAlgorithm().isFitnessBased()) {
 			final IExpression fitness =
@@ -197,8 +241,6 @@ public class BatchAgent extends ExperimentAgent {
 				if (memorize) { fitnessValues.add(lastFitnessValue); }
 			}
 			out.put(IKeyword.FITNESS, lastFitnessValue);
-			final FileOutput output = getSpecies().getLog();
-			if (output != null) { getSpecies().getLog().doRefreshWriteAndClose(sol, out); }
 		} else {
 			AExplorationAlgorithm exp = (AExplorationAlgorithm) getSpecies().getExplorationAlgorithm();
 			final IExpression outputs = exp.getOutputs();
@@ -210,18 +252,33 @@ public class BatchAgent extends ExperimentAgent {
 					trackedValues.put(s, v);
 					out.put(s, v);
 				}
-				final FileOutput output = getSpecies().getLog();
-				if (output != null) {
-					getSpecies().getLog().doRefreshWriteAndClose(sol, out);
-					if (!"".equals(exp.getReport())) { getSpecies().getLog().doWriteReportAndClose(exp.getReport()); }
-				}
 			}
 		}
-
-		if (dispose && sim instanceof AbstractAgent agent) { agent.primDie(sim.getScope()); }
 		return out;
 	}
 
+	/**
+	 * Writes the outputs of a simulation in the log of the experiment, if any.
+	 *
+	 * @param sol
+	 *            the parameters of the simulation
+	 * @param out
+	 *            the outputs
+	 */
+	private void writeOutputs(final ParametersSet sol, final IMap<String, Object> out) {
+		final FileOutput output = getSpecies().getLog();
+		if (output == null) return;
+		if (getSpecies().getExplorationAlgorithm().isFitnessBased()) {
+			output.doRefreshWriteAndClose(sol, out);
+		} else {
+			AExplorationAlgorithm exp = (AExplorationAlgorithm) getSpecies().getExplorationAlgorithm();
+			if (exp.getOutputs() != null) {
+				output.doRefreshWriteAndClose(sol, out);
+				if (!"".equals(exp.getReport())) { output.doWriteReportAndClose(exp.getReport()); }
+			}
+		}
+	}
+
 	/**
 	 *
 	 * Method step()
@@ -320,6 +377,17 @@ public class BatchAgent extends ExperimentAgent {
 			}
 		}
 
+		// The simulations whose fitness is already known are not run again
+		if (getSpecies().getExplorationAlgorithm().isFitnessBased()) { reuseKnownFitness(sims, res); }
+
+		// With a farm of processes or in asynchronous mode, the simulations are run (and removed from sims) before
+		// reaching the lockstep loop, which only runs those the farm could not run
+		if (BatchFarm.isEnabled()) {
+			runInFarm(sims, res);
+		} else if (GamaExecutorService.CONCURRENCY_BATCH_ASYNCHRONOUS.getValue()) {
+			runAsynchronously(pop, sims, numberOfCores, res);
+		}
+
 		int nb = Math.min(sims.size(), numberOfCores);
 
 		List<Map<String, Object>> simsToRun = new Vector<>();
@@ -347,13 +415,10 @@ public class BatchAgent extends ExperimentAgent {
 				if (mustStop) {
 					pop.unscheduleSimulation(agent);
 					// pop.remove(agent);
+					final Double seed = agent.getSeed();
 					IMap<String, Object> localRes = manageOutputAndCloseSimulation(agent, ps, false, simDispose);
 
-					if (!res.containsKey(ps)) { res.put(ps, GamaMapFactory.create()); }
-					for (String output : localRes.keySet()) {
-						if (!res.get(ps).containsKey(output)) { res.get(ps).put(output, GamaListFactory.create()); }
-						res.get(ps).get(output).add(localRes.get(output));
-					}
+					addResult(res, ps, seed, localRes);
 
 					if (!sims.isEmpty()) { createSimulation(sims.remove(0), simToParameter); }
 
@@ -386,8 +451,8 @@ public class BatchAgent extends ExperimentAgent {
 
 			for (ParametersSet p : res.keySet()) {
 				lastSolution = p;
-				try (DoubleStream fit =
-						res.get(p).get(IKeyword.FITNESS).stream().mapToDouble(o -> Double.parseDouble(o.toString()))) {
+				try (DoubleStream fit = res.get(p).get(IKeyword.FITNESS).stream()
+						.mapToDouble(o -> o instanceof Number n ? n.doubleValue() : Double.parseDouble(o.toString()))) {
 					lastFitness = fitnessCombination == AOptimizationAlgorithm.C_MAX ? fit.max().getAsDouble()
 							: fitnessCombination == AOptimizationAlgorithm.C_MIN ? fit.min().getAsDouble()
 							: fit.average().getAsDouble();
@@ -405,6 +470,334 @@ public class BatchAgent extends ExperimentAgent {
 
 	}
 
+	/**
+	 * Runs the simulations in the farm of processes (created the first time) and collects their outputs as they
+	 * arrive. The simulations that the farm cannot run, because it cannot be created or because all its processes have
+	 * been abandoned, are left in the list of simulations, which are then run in GAMA.
+	 *
+	 * @param sims
+	 *            the simulations to run (parameters and seed)
+	 * @param res
+	 *            the results, filled as the simulations finish
+	 */
+	private void runInFarm(final List<Map<String, Object>> sims,
+			final IMap<ParametersSet, Map<String, List<Object>>> res) {
+		if (farm == null) {
+			try {
+				final String name = getSpecies().getName();
+				final File file =
+						new File(getModel().getWorkingPath(), "batch_journals/" + name.replaceAll("\\W", "_") + ".jsonl");
+				final BatchJournal journal = GamaExecutorService.BATCH_FARM_JOURNAL.getValue()
+						? new BatchJournal(file, getModelVersion()) : null;
+				farm = new BatchFarm(getScope(), getModel().getFilePath(), name, journal);
+			} catch (final IOException e) {
+				GAMA.reportError(getScope(), GamaRuntimeException.create(e, getScope()), false);
+				return;
+			}
+		}
+		final List<Map.Entry<ParametersSet, Double>> jobs = new ArrayList<>();
+		for (final Map<String, Object> sim : sims) {
+			jobs.add(Map.entry((ParametersSet) sim.get("parameters"), (Double) sim.get("seed")));
+		}
+		sims.clear();
+		final int total = jobs.size();
+		final int[] done = { 0 };
+		final int failed = farm.run(jobs, (job, out) -> {
+			final ParametersSet ps = job.getKey();
+			currentSolution = new ParametersSet(ps);
+			writeOutputs(ps, out);
+			addResult(res, ps, job.getValue(), out);
+			getScope().getGui().getStatus().setStatus(getScope(),
+					"Run " + runNumber + " | " + ++done[0] + "/" + total + " simulations (using "
+							+ GamaExecutorService.BATCH_FARM_WORKERS.getValue() + " processes)",
+					"overlays/small.exp.batch.white");
+		}, job -> {
+			final Map<String, Object> sim = new HashMap<>();
+			sim.put("parameters", job.getKey());
+			sim.put("seed", job.getValue());
+			sims.add(sim);
+		});
+		if (failed > 0) {
+			GAMA.reportError(getScope(),
+					GamaRuntimeException.warning(failed + " simulations have failed in the batch farm", getScope()),
+					false);
+		}
+	}
+
+	/**
+	 * Computes the version of the model recorded with the simulations in the journal of the farm and in the fitness
+	 * store: a hash of the files of the model (the main one and the imported ones), of its outputs (or fitness) and of
+	 * the stop condition. The simulations recorded with another version are run again.
+	 *
+	 * @return the version
+	 */
+	private String getModelVersion() {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			final Set<String> files = new TreeSet<>(getModel().getImportedPaths());
+			files.add(getModel().getFilePath());
+			for (final String file : files) {
+				digest.update(file.getBytes(UTF_8));
+				try {
+					digest.update(Files.readAllBytes(Path.of(file)));
+				} catch (final IOException e) {
+					// A file that cannot be read only contributes its path
+				}
+			}
+			final IExpression outputs = getSpecies().getExplorationAlgorithm().getOutputs();
+			if (outputs != null) { digest.update(outputs.serializeToGaml(false).getBytes(UTF_8)); }
+			if (stopCondition != null) { digest.update(stopCondition.serializeToGaml(false).getBytes(UTF_8)); }
+			return HexFormat.of().formatHex(digest.digest(), 0, 8);
+		} catch (final NoSuchAlgorithmException e) {
+			return "";
+		}
+	}
+
+	/**
+	 * Runs one simulation to its end and returns its outputs, without logging them. Used by the processes of a batch
+	 * farm (see {@link BatchFarm}), which run the simulations sent by another GAMA.
+	 *
+	 * @param sol
+	 *            the parameters of the simulation
+	 * @param seed
+	 *            the seed of the simulation
+	 * @return the outputs of the simulation
+	 */
+	public IMap<String, Object> runSimulation(final ParametersSet sol, final Double seed) {
+		runNumber++;
+		final Map<String, Object> sim = new HashMap<>();
+		sim.put("parameters", sol);
+		sim.put("seed", seed);
+		final SimulationAgent agent = createSimulation(sim, new HashMap<>());
+		getSimulationPopulation().unscheduleSimulation(agent);
+		runToCompletion(agent);
+		final IMap<String, Object> out = collectOutputs(agent, false);
+		agent.primDie(agent.getScope());
+		return out;
+	}
+
+	/**
+	 * Runs the simulations without stepping them together: each simulation runs to its end on its own thread and, as
+	 * soon as one is over, its outputs are collected and a pending simulation takes its place. Simulations are still
+	 * created (and initialized) by the batch agent, one at a time.
+	 *
+	 * @param pop
+	 *            the population of simulations
+	 * @param sims
+	 *            the simulations to run (parameters and seed)
+	 * @param slots
+	 *            the maximum number of simulations running at the same time
+	 * @param res
+	 *            the results, filled as the simulations finish
+	 */
+	private void runAsynchronously(final SimulationPopulation pop, final List<Map<String, Object>> sims,
+			final int slots, final IMap<ParametersSet, Map<String, List<Object>>> res) {
+		final Map<IAgent, ParametersSet> simToParameter = GamaMapFactory.create();
+		final Map<Future<SimulationAgent>, SimulationAgent> running = new HashMap<>();
+		final CompletionService<SimulationAgent> completion = new ExecutorCompletionService<>(pop::execute);
+		final int total = sims.size();
+		int done = 0;
+		abandoned = false;
+		while (running.size() < slots && !sims.isEmpty() && !dead) {
+			submitSimulation(completion, pop, sims.remove(0), simToParameter, running);
+		}
+		while (!running.isEmpty()) {
+			final Future<SimulationAgent> future;
+			try {
+				future = completion.take();
+			} catch (final InterruptedException e) {
+				abandonSimulations(running, simToParameter);
+				Thread.currentThread().interrupt();
+				break;
+			}
+			final SimulationAgent agent = running.remove(future);
+			try {
+				future.get();
+			} catch (final InterruptedException | ExecutionException e) {
+				// Should not happen as errors are reported by the simulations themselves
+				disposeSimulation(agent, simToParameter);
+				continue;
+			}
+			done++;
+			final ParametersSet ps = simToParameter.remove(agent);
+			currentSolution = new ParametersSet(ps);
+			final Double seed = agent.getSeed();
+			addResult(res, ps, seed, manageOutputAndCloseSimulation(agent, ps, false, simDispose));
+			if (!dead && !sims.isEmpty()) { submitSimulation(completion, pop, sims.remove(0), simToParameter, running); }
+			if (!dead) {
+				getScope().getGui().getStatus().setStatus(getScope(),
+						"Run " + runNumber + " | " + done + "/" + total + " simulations (using "
+								+ pop.getNumberOfActiveThreads() + " threads)",
+						"overlays/small.exp.batch.white");
+			}
+		}
+	}
+
+	/**
+	 * Creates a simulation and submits its run to the completion service.
+	 *
+	 * @param completion
+	 *            the completion service
+	 * @param pop
+	 *            the population of simulations
+	 * @param sim
+	 *            the parameters and seed of the simulation
+	 * @param simToParameter
+	 *            the sim to parameter
+	 * @param running
+	 *            the simulations running, by task
+	 */
+	private void submitSimulation(final CompletionService<SimulationAgent> completion, final SimulationPopulation pop,
+			final Map<String, Object> sim, final Map<IAgent, ParametersSet> simToParameter,
+			final Map<Future<SimulationAgent>, SimulationAgent> running) {
+		final SimulationAgent agent = createSimulation(sim, simToParameter);
+		// The simulation is run by the task, not by the steps of the population
+		pop.unscheduleSimulation(agent);
+		running.put(completion.submit(() -> {
+			try {
+				runToCompletion(agent);
+			} catch (final Throwable t) {
+				GamaExecutorService.EXCEPTION_HANDLER.uncaughtException(Thread.currentThread(), t);
+			}
+			return agent;
+		}), agent);
+	}
+
+	/**
+	 * Stops the simulations still running when the batch agent stops waiting for them, and disposes of them once their
+	 * tasks are over.
+	 *
+	 * @param running
+	 *            the simulations running, by task
+	 * @param simToParameter
+	 *            the sim to parameter
+	 */
+	private void abandonSimulations(final Map<Future<SimulationAgent>, SimulationAgent> running,
+			final Map<IAgent, ParametersSet> simToParameter) {
+		abandoned = true;
+		for (final Map.Entry<Future<SimulationAgent>, SimulationAgent> entry : running.entrySet()) {
+			final Future<SimulationAgent> future = entry.getKey();
+			// A task that has not started yet is simply cancelled; the others stop at their next step
+			if (!future.cancel(false)) {
+				boolean done = false;
+				while (!done) {
+					try {
+						future.get();
+						done = true;
+					} catch (final InterruptedException e) {
+						// We are already stopping: wait until the simulation has seen the request
+					} catch (final ExecutionException e) {
+						done = true;
+					}
+				}
+			}
+			disposeSimulation(entry.getValue(), simToParameter);
+		}
+		running.clear();
+	}
+
+	/**
+	 * Disposes of a simulation whose outputs will not be collected.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @param simToParameter
+	 *            the sim to parameter
+	 */
+	private void disposeSimulation(final SimulationAgent agent, final Map<IAgent, ParametersSet> simToParameter) {
+		if (agent == null) return;
+		simToParameter.remove(agent);
+		if (!agent.dead()) { agent.primDie(agent.getScope()); }
+	}
+
+	/**
+	 * Steps a simulation until its stop condition is met, it dies or the batch is over.
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	private void runToCompletion(final SimulationAgent agent) {
+		final IScope scope = agent.getScope();
+		while (!dead && !abandoned && !agent.dead() && !scope.interrupted()) {
+			agent.step();
+			if (dead || abandoned || agent.dead() || Cast.asBool(scope, scope.evaluate(stopCondition, agent).getValue())) return;
+			// We then verify that the front scheduler has not been paused
+			while (getSpecies().getController().isPaused() && !dead && !abandoned) { THREADS.WAIT(100); }
+		}
+	}
+
+	/**
+	 * Returns the memory of the fitness of the simulations already run, kept on disk next to the model. Only used if
+	 * the corresponding preference is set, as reusing a fitness is wrong for the models whose simulations are not
+	 * entirely determined by their parameters and seed, or that have side effects.
+	 *
+	 * @return the fitness store, or null if the fitness of simulations is not remembered
+	 */
+	private FitnessStore getFitnessStore() {
+		if (!GamaExecutorService.BATCH_FITNESS_STORE.getValue()) return null;
+		if (fitnessStore == null) {
+			fitnessStore = new FitnessStore(new File(getModel().getWorkingPath(),
+					"batch_journals/" + getSpecies().getName().replaceAll("\\W", "_") + ".fitness"),
+					getModelVersion());
+		}
+		return fitnessStore;
+	}
+
+	/**
+	 * Removes from the simulations to run those whose fitness is already known, and adds this fitness to the results
+	 * and to the log of the experiment.
+	 *
+	 * @param sims
+	 *            the simulations to run (parameters and seed)
+	 * @param res
+	 *            the results
+	 */
+	private void reuseKnownFitness(final List<Map<String, Object>> sims,
+			final IMap<ParametersSet, Map<String, List<Object>>> res) {
+		final FitnessStore store = getFitnessStore();
+		if (store == null) return;
+		final Iterator<Map<String, Object>> it = sims.iterator();
+		while (it.hasNext()) {
+			final Map<String, Object> sim = it.next();
+			final ParametersSet ps = (ParametersSet) sim.get("parameters");
+			final Double fitness = store.get(ps, (Double) sim.get("seed"));
+			if (fitness != null) {
+				it.remove();
+				final IMap<String, Object> known = GamaMapFactory.create();
+				known.put(IKeyword.FITNESS, fitness);
+				writeOutputs(ps, known);
+				addResult(res, ps, null, known);
+			}
+		}
+	}
+
+	/**
+	 * Adds the outputs of a simulation to the results and passes them to the exploration algorithm. The fitness, if
+	 * any, is remembered.
+	 *
+	 * @param res
+	 *            the results
+	 * @param ps
+	 *            the parameters of the simulation
+	 * @param seed
+	 *            the seed of the simulation, or null if its outputs are already known
+	 * @param localRes
+	 *            the outputs of the simulation
+	 */
+	private void addResult(final IMap<ParametersSet, Map<String, List<Object>>> res, final ParametersSet ps,
+			final Double seed, final IMap<String, Object> localRes) {
+		final FitnessStore store = getSpecies().getExplorationAlgorithm().isFitnessBased() ? getFitnessStore() : null;
+		if (store != null && seed != null && localRes.get(IKeyword.FITNESS) instanceof Number fitness) {
+			store.put(ps, seed, fitness.doubleValue());
+		}
+		if (!res.containsKey(ps)) { res.put(ps, GamaMapFactory.create()); }
+		for (String output : localRes.keySet()) {
+			if (!res.get(ps).containsKey(output)) { res.get(ps).put(output, GamaListFactory.create()); }
+			res.get(ps).get(output).add(localRes.get(output));
+		}
+		getSpecies().getExplorationAlgorithm().resultReceived(ps, localRes);
+	}
+
 	/**
 	 * Launch simulations with solution.
 	 *
@@ -439,12 +832,25 @@ public class BatchAgent extends ExperimentAgent {
 		int numberOfCores = pop.getMaxNumberOfConcurrentSimulations();
 		if (numberOfCores == 0) { numberOfCores = 1; }
 		int repeatIndex = 0;
+		final FitnessStore store = getSpecies().getExplorationAlgorithm().isFitnessBased() ? getFitnessStore() : null;
+		final Map<IAgent, Double> simToSeed = new HashMap<>();
 		while (repeatIndex < getSeeds().length && !dead) {
 			for (int coreIndex = 0; coreIndex < numberOfCores; coreIndex++) {
+				// The seeds whose fitness is already known are not run again
+				Double known;
+				while (store != null && repeatIndex < getSeeds().length
+						&& (known = store.get(currentSolution, getSeeds()[repeatIndex])) != null) {
+					fitnessValues.add(known);
+					final IMap<String, Object> out = GamaMapFactory.create();
+					out.put(IKeyword.FITNESS, known);
+					writeOutputs(currentSolution, out);
+					repeatIndex++;
+				}
+				if (repeatIndex == getSeeds().length) { break; }
 				runNumber = runNumber + 1;
 
 				setSeed(getSeeds()[repeatIndex]);
-				createSimulation(currentSolution, true);
+				simToSeed.put(createSimulation(currentSolution, true), getSeeds()[repeatIndex]);
 				repeatIndex++;
 				if (repeatIndex == getSeeds().length || dead) { break; }
 			}
@@ -469,6 +875,10 @@ public class BatchAgent extends ExperimentAgent {
 						pop.unscheduleSimulation(agent);
 						Map<String, Object> out =
 								manageOutputAndCloseSimulation(agent, currentSolution, true, simDispose);
+						final Double seed = simToSeed.remove(agent);
+						if (store != null && seed != null && out.get(IKeyword.FITNESS) instanceof Number fitness) {
+							store.put(currentSolution, seed, fitness.doubleValue());
+						}
 						for (String out_vars : out.keySet()) {
 							if (!outputs.containsKey(out_vars)) { outputs.put(out_vars, GamaListFactory.create()); }
 							outputs.get(out_vars).add(out.get(out_vars));
@@ -611,6 +1021,14 @@ public class BatchAgent extends ExperimentAgent {
 		// We interrupt the simulation scope directly (as it cannot be
 		// interrupted by the global scheduler)
 		if (getSimulation() != null) { getSimulation().getScope().setDisposeStatus(); }
+		if (farm != null) {
+			farm.close();
+			farm = null;
+		}
+		if (fitnessStore != null) {
+			fitnessStore.close();
+			fitnessStore = null;
+		}
 	}
 
 }
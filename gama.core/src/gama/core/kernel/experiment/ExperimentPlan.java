@@ -719,6 +719,8 @@ public class ExperimentPlan extends GamlSpecies implements IExperimentPlan {
 		prepareGui();
 		IScope scope = agent.getScope();
 		agent.schedule(scope);
+		// Experiments opened from the UI are benchmarked by GAMA.runGuiExperiment()
+		if (isHeadless()) { GAMA.startBenchmark(this); }
 
 		// showParameters();
 
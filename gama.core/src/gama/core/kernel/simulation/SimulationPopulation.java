@@ -245,6 +245,17 @@ public class SimulationPopulation extends GamaPopulation<SimulationAgent> {
 		runner.remove(sim);
 	}
 
+	/**
+	 * Runs a task with the executor of the simulations. Used by the batch experiments that let their simulations run
+	 * asynchronously, outside of the steps of the population.
+	 *
+	 * @param task
+	 *            the task
+	 */
+	public void execute(final Runnable task) {
+		runner.execute(task);
+	}
+
 	/**
 	 * Gets the number of active stepables.
 	 *
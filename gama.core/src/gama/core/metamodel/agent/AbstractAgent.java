@@ -22,6 +22,7 @@ import gama.annotations.precompiler.GamlAnnotations.doc;
 import gama.core.common.interfaces.IKeyword;
 import gama.core.kernel.model.IModel;
 import gama.core.kernel.simulation.SimulationAgent;
+import gama.core.metamodel.population.ColumnarPopulation;
 import gama.core.metamodel.population.IPopulation;
 import gama.core.metamodel.shape.GamaPoint;
 import gama.core.metamodel.shape.IShape;
@@ -34,6 +35,7 @@ import gama.core.util.GamaMapFactory;
 import gama.core.util.IList;
 import gama.core.util.IMap;
 import gama.gaml.descriptions.ModelDescription;
+import gama.gaml.descriptions.SpeciesDescription;
 import gama.gaml.operators.Cast;
 import gama.gaml.species.ISpecies;
 import gama.gaml.types.IType;
@@ -127,6 +129,7 @@ public abstract class AbstractAgent implements IAgent {
 		if (s != null) { s.dispose(); }
 		if (attributes != null) {
 			attributes.clear();
+			if (attributes instanceof AgentAttributes aa) { aa.release(); }
 			attributes = null;
 		}
 	}
@@ -195,10 +198,57 @@ public abstract class AbstractAgent implements IAgent {
 	 */
 	@Override
 	public IMap<String, Object> getAttributes(final boolean createIfNeeded) {
-		if (attributes == null && createIfNeeded) { attributes = GamaMapFactory.create(Types.STRING, Types.NO_TYPE); }
+		if (attributes == null && createIfNeeded) { attributes = createAttributes(); }
 		return attributes;
 	}
 
+	/**
+	 * Creates the attributes of the agent. When the species is known, the declared attributes are stored in slots (see
+	 * {@link AgentAttributes}), or in the columns of the population if it is a {@link ColumnarPopulation}
+	 *
+	 * @return the attributes
+	 */
+	protected IMap<String, Object> createAttributes() {
+		final IPopulation<? extends IAgent> pop = getPopulation();
+		if (pop instanceof ColumnarPopulation cp && !dead) return cp.createAttributes();
+		final ISpecies species = pop == null ? null : pop.getSpecies();
+		final SpeciesDescription sd = species == null ? null : species.getDescription();
+		if (sd == null) return GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+		return new AgentAttributes(sd.getAttributeLayout());
+	}
+
+	/**
+	 * Returns the value of the attribute stored in the slot passed (see {@link SpeciesDescription#getAttributeSlot}),
+	 * or {@link AgentAttributes#UNSET} if the attribute has no value or is not stored in this slot for this agent.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param name
+	 *            the name of the attribute
+	 * @return the value or {@link AgentAttributes#UNSET}
+	 */
+	public final Object getSlot(final int slot, final String name) {
+		if (attributes instanceof AgentAttributes aa) return aa.getSlot(slot, name);
+		return AgentAttributes.UNSET;
+	}
+
+	/**
+	 * Sets the value of the attribute stored in the slot passed (see {@link SpeciesDescription#getAttributeSlot})
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value
+	 */
+	public final void setSlot(final int slot, final String name, final Object value) {
+		final IMap<String, Object> attr = getAttributes(true);
+		if (attr instanceof AgentAttributes aa) {
+			aa.setSlot(slot, name, value);
+		} else if (attr != null) { attr.put(name, value); }
+	}
+
 	/**
 	 * Compare to.
 	 *
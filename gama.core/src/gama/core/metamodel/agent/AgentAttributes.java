@@ -0,0 +1,594 @@
+/*******************************************************************************************************
+ *
+ * AgentAttributes.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.agent;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IMap;
+import gama.gaml.types.IContainerType;
+import gama.gaml.types.Types;
+
+/**
+ * The attributes of an agent. The attributes declared by its species (and not computed by a getter or a function) are
+ * stored in a flat array of slots, whose indices are assigned once per species by the compiler (see
+ * {@link gama.gaml.descriptions.SpeciesDescription#getAttributeLayout()}). The slots of the attributes inherited from a
+ * parent species keep the same index in all its sub-species, which allows variables and expressions to access them
+ * directly with {@link #getSlot(int, String)} and {@link #setSlot(int, String, Object)}. All the other keys (e.g.
+ * attributes added dynamically to the agent or read from a GIS file) are stored in a regular map, only allocated when
+ * the first of them is added.
+ *
+ * Seen from the outside, this class behaves like a regular ordered map (declared attributes first, in slot order, then
+ * the other keys in insertion order). Subclasses can store the slots elsewhere by redefining {@link #read(int)} and
+ * {@link #write(int, Object)} (see {@link ColumnarAttributes}).
+ */
+@SuppressWarnings ("unchecked")
+public class AgentAttributes extends AbstractMap<String, Object> implements IMap<String, Object> {
+
+	/** The value of the slots that have not been set (or have been removed). */
+	public static final Object UNSET = new Object() {
+		@Override
+		public String toString() {
+			return "unset";
+		}
+	};
+
+	/**
+	 * The correspondence between the names of the attributes of a species and their slot. Immutable once built.
+	 */
+	public static final class Layout {
+
+		/** The empty layout. */
+		public static final Layout EMPTY = new Layout(Collections.emptyList());
+
+		/** The names, in slot order. A null name denotes a slot inherited from the parent species but not used. */
+		final String[] names;
+
+		/** The indices. */
+		final Map<String, Integer> indices;
+
+		/**
+		 * Instantiates a new layout.
+		 *
+		 * @param names
+		 *            the names of the attributes, in slot order
+		 */
+		public Layout(final Collection<String> names) {
+			this.names = names.toArray(new String[names.size()]);
+			indices = new HashMap<>(this.names.length * 2);
+			for (int i = 0; i < this.names.length; i++) { if (this.names[i] != null) { indices.put(this.names[i], i); } }
+		}
+
+		/**
+		 * Index of.
+		 *
+		 * @param name
+		 *            the name
+		 * @return the slot of the attribute, or -1 if it is not stored in a slot
+		 */
+		public int indexOf(final Object name) {
+			final Integer i = indices.get(name);
+			return i == null ? -1 : i;
+		}
+
+		/**
+		 * Name at.
+		 *
+		 * @param slot
+		 *            the slot
+		 * @return the name of the attribute stored in this slot, or null if the slot is not used
+		 */
+		public String nameAt(final int slot) {
+			return names[slot];
+		}
+
+		/**
+		 * Size.
+		 *
+		 * @return the number of slots
+		 */
+		public int size() {
+			return names.length;
+		}
+
+	}
+
+	/** The type. */
+	private static final IContainerType TYPE = Types.MAP.of(Types.STRING, Types.NO_TYPE);
+
+	/** The layout. */
+	final Layout layout;
+
+	/** The slots (null if they are stored elsewhere). */
+	final Object[] slots;
+
+	/** The number of slots. */
+	final int slotLength;
+
+	/** The number of slots currently set. */
+	int slotCount;
+
+	/** The other keys, in insertion order (null until the first one is added). */
+	private IMap<String, Object> others;
+
+	/**
+	 * Instantiates new attributes for an agent.
+	 *
+	 * @param layout
+	 *            the layout of the species of the agent
+	 */
+	public AgentAttributes(final Layout layout) {
+		this(layout, true);
+	}
+
+	/**
+	 * Instantiates new attributes for an agent.
+	 *
+	 * @param layout
+	 *            the layout of the species of the agent
+	 * @param withSlots
+	 *            whether the slots are stored in this object or by a subclass
+	 */
+	protected AgentAttributes(final Layout layout, final boolean withSlots) {
+		this.layout = layout;
+		slotLength = layout.size();
+		if (withSlots) {
+			slots = new Object[slotLength];
+			Arrays.fill(slots, UNSET);
+		} else {
+			slots = null;
+		}
+	}
+
+	/**
+	 * Reads the value of a slot.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @return the value or {@link #UNSET}
+	 */
+	protected Object read(final int slot) {
+		return slots[slot];
+	}
+
+	/**
+	 * Writes the value of a slot.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param value
+	 *            the value or {@link #UNSET}
+	 */
+	protected void write(final int slot, final Object value) {
+		slots[slot] = value;
+	}
+
+	/**
+	 * Returns the map of the other keys.
+	 *
+	 * @return the map, created when first needed
+	 */
+	private IMap<String, Object> others() {
+		if (others == null) { others = GamaMapFactory.create(Types.STRING, Types.NO_TYPE); }
+		return others;
+	}
+
+	/**
+	 * Releases the resources used by these attributes once their agent is dead. Does nothing by default.
+	 */
+	public void release() {}
+
+	/**
+	 * Gets the layout.
+	 *
+	 * @return the layout
+	 */
+	public Layout getLayout() { return layout; }
+
+	/**
+	 * Returns the value stored in the slot, provided it corresponds to the name passed. Returns {@link #UNSET} if the
+	 * attribute has no value or is not stored in this slot for this agent (in which case callers are expected to use
+	 * the regular access to attributes).
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param name
+	 *            the name of the attribute (used to verify the slot)
+	 * @return the value or {@link #UNSET}
+	 */
+	public Object getSlot(final int slot, final String name) {
+		if (slot < slotLength && name.equals(layout.names[slot])) return read(slot);
+		return UNSET;
+	}
+
+	/**
+	 * Sets the value stored in the slot, provided it corresponds to the name passed.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param name
+	 *            the name of the attribute (used to verify the slot)
+	 * @param value
+	 *            the value
+	 */
+	public void setSlot(final int slot, final String name, final Object value) {
+		if (slot < slotLength && name.equals(layout.names[slot])) {
+			if (read(slot) == UNSET) { slotCount++; }
+			write(slot, value);
+		} else {
+			put(name, value);
+		}
+	}
+
+	@Override
+	public Object get(final Object key) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others == null ? null : others.get(key);
+		final Object v = read(i);
+		return v == UNSET ? null : v;
+	}
+
+	@Override
+	public Object getOrDefault(final Object key, final Object defaultValue) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others == null ? defaultValue : others.getOrDefault(key, defaultValue);
+		final Object v = read(i);
+		return v == UNSET ? defaultValue : v;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others != null && others.containsKey(key);
+		return read(i) != UNSET;
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+		if (slotCount > 0) {
+			for (int i = 0; i < slotLength; i++) {
+				final Object v = read(i);
+				if (v != UNSET && Objects.equals(v, value)) return true;
+			}
+		}
+		return others != null && others.containsValue(value);
+	}
+
+	@Override
+	public Object put(final String key, final Object value) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others().put(key, value);
+		final Object previous = read(i);
+		write(i, value);
+		if (previous != UNSET) return previous;
+		slotCount++;
+		return null;
+	}
+
+	@Override
+	public Object putIfAbsent(final String key, final Object value) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others().putIfAbsent(key, value);
+		final Object previous = read(i);
+		if (previous != UNSET && previous != null) return previous;
+		if (previous == UNSET) { slotCount++; }
+		write(i, value);
+		return null;
+	}
+
+	@Override
+	public void putAll(final Map<? extends String, ? extends Object> m) {
+		m.forEach(this::put);
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final int i = layout.indexOf(key);
+		if (i < 0) return others == null ? null : others.remove(key);
+		return removeSlot(i);
+	}
+
+	/**
+	 * Removes the value stored in a slot.
+	 *
+	 * @param i
+	 *            the slot
+	 * @return the previous value
+	 */
+	Object removeSlot(final int i) {
+		final Object previous = read(i);
+		if (previous == UNSET) return null;
+		write(i, UNSET);
+		slotCount--;
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return slotCount + (others == null ? 0 : others.size());
+	}
+
+	@Override
+	public boolean isEmpty() { return size() == 0; }
+
+	@Override
+	public void clear() {
+		if (slotCount > 0) { for (int i = 0; i < slotLength; i++) { write(i, UNSET); } }
+		slotCount = 0;
+		others = null;
+	}
+
+	@Override
+	public void forEach(final BiConsumer<? super String, ? super Object> action) {
+		if (slotCount > 0) {
+			for (int i = 0; i < slotLength; i++) {
+				final Object v = read(i);
+				if (v != UNSET) { action.accept(layout.names[i], v); }
+			}
+		}
+		if (others != null) { others.forEach(action); }
+	}
+
+	@Override
+	public IContainerType<?> getGamlType() { return TYPE; }
+
+	@Override
+	public boolean isOrdered() { return true; }
+
+	@Override
+	public boolean equals(final Object o) {
+		if (o == this) return true;
+		if (!(o instanceof IMap)) return false;
+		return GamaMapFactory.equals(this, (IMap) o);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new AbstractSet<>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return AgentAttributes.this.size();
+			}
+
+			@Override
+			public void clear() {
+				AgentAttributes.this.clear();
+			}
+		};
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return new AbstractSet<>() {
+
+			@Override
+			public Iterator<String> iterator() {
+				final EntryIterator it = new EntryIterator();
+				return new Iterator<>() {
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public String next() {
+						return it.next().getKey();
+					}
+
+					@Override
+					public void remove() {
+						it.remove();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return AgentAttributes.this.size();
+			}
+
+			@Override
+			public boolean contains(final Object o) {
+				return containsKey(o);
+			}
+
+			@Override
+			public boolean remove(final Object o) {
+				if (!containsKey(o)) return false;
+				AgentAttributes.this.remove(o);
+				return true;
+			}
+
+			@Override
+			public void clear() {
+				AgentAttributes.this.clear();
+			}
+		};
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return new AbstractCollection<>() {
+
+			@Override
+			public Iterator<Object> iterator() {
+				final EntryIterator it = new EntryIterator();
+				return new Iterator<>() {
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public Object next() {
+						return it.next().getValue();
+					}
+
+					@Override
+					public void remove() {
+						it.remove();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return AgentAttributes.this.size();
+			}
+
+			@Override
+			public void clear() {
+				AgentAttributes.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Iterates first over the slots that are set, then over the entries of the map.
+	 */
+	class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		/** The next slot to return, or slotLength when the slots are exhausted. */
+		int next = advance(0);
+
+		/** The last slot returned, or -1. */
+		int last = -1;
+
+		/** The iterator over the other entries (created once the slots are exhausted). */
+		Iterator<Map.Entry<String, Object>> others;
+
+		/**
+		 * Advance.
+		 *
+		 * @param from
+		 *            the from
+		 * @return the index of the first slot set from this index
+		 */
+		int advance(final int from) {
+			int i = from;
+			while (i < slotLength && read(i) == UNSET) { i++; }
+			return i;
+		}
+
+		/**
+		 * Others.
+		 *
+		 * @return the iterator
+		 */
+		Iterator<Map.Entry<String, Object>> others() {
+			if (others == null) {
+				others = AgentAttributes.this.others == null ? Collections.emptyIterator()
+						: AgentAttributes.this.others.entrySet().iterator();
+			}
+			return others;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < slotLength || others().hasNext();
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (next < slotLength) {
+				last = next;
+				next = advance(next + 1);
+				return new SlotEntry(last);
+			}
+			last = -1;
+			if (!others().hasNext()) throw new NoSuchElementException();
+			return others.next();
+		}
+
+		@Override
+		public void remove() {
+			if (last >= 0) {
+				removeSlot(last);
+				last = -1;
+			} else {
+				if (others == null) throw new IllegalStateException();
+				others.remove();
+			}
+		}
+	}
+
+	/**
+	 * An entry backed by a slot.
+	 */
+	class SlotEntry implements Map.Entry<String, Object> {
+
+		/** The slot. */
+		final int slot;
+
+		/**
+		 * Instantiates a new slot entry.
+		 *
+		 * @param slot
+		 *            the slot
+		 */
+		SlotEntry(final int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public String getKey() { return layout.names[slot]; }
+
+		@Override
+		public Object getValue() {
+			final Object v = read(slot);
+			return v == UNSET ? null : v;
+		}
+
+		@Override
+		public Object setValue(final Object value) {
+			final Object previous = getValue();
+			if (read(slot) == UNSET) { slotCount++; }
+			write(slot, value);
+			return previous;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Map.Entry e)) return false;
+			return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+}
@@ -0,0 +1,349 @@
+/*******************************************************************************************************
+ *
+ * AttributeColumns.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.agent;
+
+import java.util.Arrays;
+
+import gama.gaml.descriptions.SpeciesDescription;
+import gama.gaml.descriptions.VariableDescription;
+import gama.gaml.types.IType;
+
+/**
+ * The declared attributes of all the agents of a population, stored by columns rather than by agent: each slot of the
+ * layout of the species corresponds to a column, and each agent to a row. The columns of the attributes of type float,
+ * int and bool store their values in primitive arrays (values of another type, like nil, are kept aside), the other
+ * ones in arrays of objects.
+ *
+ * Columns are made of chunks of fixed size, so that growing them never moves the rows already allocated: agents can
+ * read and write their rows concurrently while new agents are created. Rows freed by dead agents are reused.
+ */
+public class AttributeColumns {
+
+	/** The Constant CHUNK_BITS. */
+	static final int CHUNK_BITS = 12;
+
+	/** The Constant CHUNK_SIZE. */
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	/** The Constant CHUNK_MASK. */
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** The states of a cell. */
+	static final byte EMPTY = 0, PRIMITIVE = 1, BOXED = 2;
+
+	/**
+	 * A column. Keeps the state of each cell and the values that cannot be stored in primitive form.
+	 */
+	static class Column {
+
+		/** The states. */
+		volatile byte[][] states = new byte[0][];
+
+		/** The boxed values, allocated per chunk when needed. */
+		volatile Object[][] boxed = new Object[0][];
+
+		/**
+		 * Grows the column to the number of chunks passed. Holds the same lock as {@link #allocateBoxed(int)}, so that a
+		 * chunk of boxed values allocated concurrently is never lost in the copy.
+		 *
+		 * @param chunks
+		 *            the chunks
+		 */
+		final synchronized void grow(final int chunks) {
+			final int from = states.length;
+			growValues(from, chunks);
+			final byte[][] s = Arrays.copyOf(states, chunks);
+			for (int c = from; c < chunks; c++) { s[c] = new byte[CHUNK_SIZE]; }
+			boxed = Arrays.copyOf(boxed, chunks);
+			states = s;
+		}
+
+		/**
+		 * Grows the primitive values of the column. Called by {@link #grow(int)} before the new chunks become visible.
+		 *
+		 * @param from
+		 *            the current number of chunks
+		 * @param chunks
+		 *            the new number of chunks
+		 */
+		void growValues(final int from, final int chunks) {}
+
+		/**
+		 * Gets the value of a row.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the value or {@link AgentAttributes#UNSET}
+		 */
+		Object get(final int row) {
+			final int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+			return switch (states[c][i]) {
+				case PRIMITIVE -> getPrimitive(c, i);
+				case BOXED -> boxed[c][i];
+				default -> AgentAttributes.UNSET;
+			};
+		}
+
+		/**
+		 * Sets the value of a row.
+		 *
+		 * @param row
+		 *            the row
+		 * @param value
+		 *            the value or {@link AgentAttributes#UNSET}
+		 */
+		void set(final int row, final Object value) {
+			final int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+			final byte[] s = states[c];
+			if (s[i] == BOXED) { boxed[c][i] = null; }
+			if (value == AgentAttributes.UNSET) {
+				s[i] = EMPTY;
+			} else if (setPrimitive(c, i, value)) {
+				s[i] = PRIMITIVE;
+			} else {
+				Object[] b = boxed[c];
+				if (b == null) { b = allocateBoxed(c); }
+				b[i] = value;
+				s[i] = BOXED;
+			}
+		}
+
+		/**
+		 * Allocates the chunk of boxed values.
+		 *
+		 * @param c
+		 *            the chunk
+		 * @return the object[]
+		 */
+		private synchronized Object[] allocateBoxed(final int c) {
+			Object[] b = boxed[c];
+			if (b == null) {
+				b = new Object[CHUNK_SIZE];
+				boxed[c] = b;
+			}
+			return b;
+		}
+
+		/**
+		 * Gets the primitive value of a cell. Only called if the cell is in the PRIMITIVE state.
+		 *
+		 * @param c
+		 *            the chunk
+		 * @param i
+		 *            the index in the chunk
+		 * @return the object
+		 */
+		Object getPrimitive(final int c, final int i) {
+			return null;
+		}
+
+		/**
+		 * Tries to store the value in primitive form.
+		 *
+		 * @param c
+		 *            the chunk
+		 * @param i
+		 *            the index in the chunk
+		 * @param value
+		 *            the value
+		 * @return true, if the value has been stored
+		 */
+		boolean setPrimitive(final int c, final int i, final Object value) {
+			return false;
+		}
+	}
+
+	/**
+	 * A column of floats.
+	 */
+	static class DoubleColumn extends Column {
+
+		/** The values. */
+		volatile double[][] values = new double[0][];
+
+		@Override
+		void growValues(final int from, final int chunks) {
+			final double[][] v = Arrays.copyOf(values, chunks);
+			for (int c = from; c < chunks; c++) { v[c] = new double[CHUNK_SIZE]; }
+			values = v;
+		}
+
+		@Override
+		Object getPrimitive(final int c, final int i) {
+			return values[c][i];
+		}
+
+		@Override
+		boolean setPrimitive(final int c, final int i, final Object value) {
+			if (!(value instanceof Double d)) return false;
+			values[c][i] = d;
+			return true;
+		}
+	}
+
+	/**
+	 * A column of integers.
+	 */
+	static class IntColumn extends Column {
+
+		/** The values. */
+		volatile int[][] values = new int[0][];
+
+		@Override
+		void growValues(final int from, final int chunks) {
+			final int[][] v = Arrays.copyOf(values, chunks);
+			for (int c = from; c < chunks; c++) { v[c] = new int[CHUNK_SIZE]; }
+			values = v;
+		}
+
+		@Override
+		Object getPrimitive(final int c, final int i) {
+			return values[c][i];
+		}
+
+		@Override
+		boolean setPrimitive(final int c, final int i, final Object value) {
+			if (!(value instanceof Integer n)) return false;
+			values[c][i] = n;
+			return true;
+		}
+	}
+
+	/**
+	 * A column of booleans. The value is encoded in the state of the cell.
+	 */
+	static class BoolColumn extends Column {
+
+		/** The state of a true value. */
+		static final byte TRUE = 3;
+
+		@Override
+		Object get(final int row) {
+			final byte s = states[row >>> CHUNK_BITS][row & CHUNK_MASK];
+			if (s == TRUE) return Boolean.TRUE;
+			if (s == PRIMITIVE) return Boolean.FALSE;
+			return super.get(row);
+		}
+
+		@Override
+		void set(final int row, final Object value) {
+			if (value instanceof Boolean b) {
+				super.set(row, AgentAttributes.UNSET);
+				states[row >>> CHUNK_BITS][row & CHUNK_MASK] = b ? TRUE : PRIMITIVE;
+			} else {
+				super.set(row, value);
+			}
+		}
+	}
+
+	/** The columns, one per slot (null for the slots not used). */
+	final Column[] columns;
+
+	/** The number of rows allocated. */
+	private int rows;
+
+	/** The number of chunks. */
+	private int chunks;
+
+	/** The rows freed by dead agents. */
+	private int[] free = new int[16];
+
+	/** The number of free rows. */
+	private int freeCount;
+
+	/**
+	 * Instantiates new columns for the agents of a species.
+	 *
+	 * @param species
+	 *            the species
+	 */
+	public AttributeColumns(final SpeciesDescription species) {
+		final AgentAttributes.Layout layout = species.getAttributeLayout();
+		columns = new Column[layout.size()];
+		for (int i = 0; i < columns.length; i++) {
+			final String name = layout.nameAt(i);
+			if (name == null) { continue; }
+			final VariableDescription vd = species.getAttribute(name);
+			final int type = vd == null ? IType.NONE : vd.getGamlType().id();
+			columns[i] = switch (type) {
+				case IType.FLOAT -> new DoubleColumn();
+				case IType.INT -> new IntColumn();
+				case IType.BOOL -> new BoolColumn();
+				default -> new Column();
+			};
+		}
+	}
+
+	/**
+	 * Allocates a row, with all its cells unset.
+	 *
+	 * @return the row
+	 */
+	public synchronized int allocate() {
+		if (freeCount > 0) return free[--freeCount];
+		final int row = rows++;
+		if (row >>> CHUNK_BITS >= chunks) {
+			chunks++;
+			for (final Column c : columns) { if (c != null) { c.grow(chunks); } }
+		}
+		return row;
+	}
+
+	/**
+	 * Releases a row, which will be reused by another agent.
+	 *
+	 * @param row
+	 *            the row
+	 */
+	public synchronized void release(final int row) {
+		for (final Column c : columns) { if (c != null) { c.set(row, AgentAttributes.UNSET); } }
+		if (freeCount == free.length) { free = Arrays.copyOf(free, freeCount * 2); }
+		free[freeCount++] = row;
+	}
+
+	/**
+	 * Gets the value of a cell.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param row
+	 *            the row
+	 * @return the value or {@link AgentAttributes#UNSET}
+	 */
+	public Object get(final int slot, final int row) {
+		final Column c = columns[slot];
+		return c == null ? AgentAttributes.UNSET : c.get(row);
+	}
+
+	/**
+	 * Sets the value of a cell.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param row
+	 *            the row
+	 * @param value
+	 *            the value or {@link AgentAttributes#UNSET}
+	 */
+	public void set(final int slot, final int row, final Object value) {
+		final Column c = columns[slot];
+		if (c != null) { c.set(row, value); }
+	}
+
+	/**
+	 * Returns the number of rows in use.
+	 *
+	 * @return the int
+	 */
+	public synchronized int size() {
+		return rows - freeCount;
+	}
+
+}
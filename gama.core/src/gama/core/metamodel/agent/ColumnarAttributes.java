@@ -0,0 +1,58 @@
+/*******************************************************************************************************
+ *
+ * ColumnarAttributes.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.agent;
+
+/**
+ * The attributes of an agent whose declared attributes are stored in a row of the columns of its population (see
+ * {@link AttributeColumns}) rather than in its own array of slots. The other keys are stored in a separate map, only
+ * allocated when needed, as in {@link AgentAttributes}. An agent that only uses its declared attributes therefore only
+ * keeps this small object and its row.
+ */
+public class ColumnarAttributes extends AgentAttributes {
+
+	/** The columns. */
+	final AttributeColumns columns;
+
+	/** The row of the agent, or -1 once released. */
+	int row;
+
+	/**
+	 * Instantiates new columnar attributes.
+	 *
+	 * @param layout
+	 *            the layout of the species of the agent
+	 * @param columns
+	 *            the columns of the population
+	 */
+	public ColumnarAttributes(final Layout layout, final AttributeColumns columns) {
+		super(layout, false);
+		this.columns = columns;
+		row = columns.allocate();
+	}
+
+	@Override
+	protected Object read(final int slot) {
+		return row < 0 ? UNSET : columns.get(slot, row);
+	}
+
+	@Override
+	protected void write(final int slot, final Object value) {
+		if (row >= 0) { columns.set(slot, row, value); }
+	}
+
+	@Override
+	public void release() {
+		if (row < 0) return;
+		columns.release(row);
+		row = -1;
+		slotCount = 0;
+	}
+
+}
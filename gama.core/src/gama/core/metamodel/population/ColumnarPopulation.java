@@ -0,0 +1,80 @@
+/*******************************************************************************************************
+ *
+ * ColumnarPopulation.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.population;
+
+import gama.core.metamodel.agent.AgentAttributes;
+import gama.core.metamodel.agent.AttributeColumns;
+import gama.core.metamodel.agent.ColumnarAttributes;
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.agent.IMacroAgent;
+import gama.core.runtime.IScope;
+import gama.gaml.operators.Cast;
+import gama.gaml.species.ISpecies;
+
+/**
+ * A population that stores the declared attributes of its agents by columns (see {@link AttributeColumns}) instead of
+ * storing them in each agent. Attributes of type float, int and bool are kept in primitive arrays, which removes the
+ * per-agent array of slots and the boxing of their values. Chosen with the facet 'use_columnar_attributes' of species.
+ *
+ * @param <T>
+ *            the type of agents
+ */
+public class ColumnarPopulation<T extends IAgent> extends GamaPopulation<T> {
+
+	/** The name of the facet. */
+	public static final String FACET = "use_columnar_attributes";
+
+	/** The columns. */
+	private final AttributeColumns columns;
+
+	/**
+	 * Whether the population of this species should be columnar.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param species
+	 *            the species
+	 * @return true, if successful
+	 */
+	public static boolean isRequired(final IScope scope, final ISpecies species) {
+		return species.hasFacet(FACET) && Cast.asBool(scope, species.getFacet(FACET).value(scope));
+	}
+
+	/**
+	 * Instantiates a new columnar population.
+	 *
+	 * @param host
+	 *            the host
+	 * @param species
+	 *            the species
+	 */
+	public ColumnarPopulation(final IMacroAgent host, final ISpecies species) {
+		super(host, species);
+		columns = new AttributeColumns(species.getDescription());
+	}
+
+	/**
+	 * Creates the attributes of an agent of this population, stored in a row of the columns.
+	 *
+	 * @return the agent attributes
+	 */
+	public AgentAttributes createAttributes() {
+		return new ColumnarAttributes(species.getDescription().getAttributeLayout(), columns);
+	}
+
+	/**
+	 * Gets the columns.
+	 *
+	 * @return the columns
+	 */
+	public AttributeColumns getColumns() { return columns; }
+
+}
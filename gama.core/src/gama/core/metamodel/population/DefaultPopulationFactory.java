@@ -27,6 +27,7 @@ public class DefaultPopulationFactory implements IPopulationFactory {
 	@Override
 	public <E extends IAgent> IPopulation<E> createRegularPopulation(final IScope scope, final IMacroAgent host,
 			final ISpecies species) {
+		if (ColumnarPopulation.isRequired(scope, species)) return new ColumnarPopulation<>(host, species);
 		return new GamaPopulation<>(host, species);
 	}
 
@@ -56,6 +56,7 @@ import gama.core.runtime.FlowStatus;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
 import gama.core.runtime.benchmark.StopWatch;
+import gama.core.runtime.concurrent.AgentScheduler;
 import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaList;
@@ -124,6 +125,9 @@ public class GamaPopulation<T extends IAgent> extends GamaList<T> implements IPo
 	 */
 	private final PopulationNotifier notifier = new PopulationNotifier();
 
+	/** The scheduler of the agents, kept from one step to the next. */
+	private final AgentScheduler scheduler = new AgentScheduler();
+
 	/** The ordered var names. */
 	public final LinkedHashSet<String> orderedVarNames = new LinkedHashSet<>();
 
@@ -345,7 +349,7 @@ public class GamaPopulation<T extends IAgent> extends GamaList<T> implements IPo
 	 * @return true, if successful
 	 */
 	protected boolean stepAgents(final IScope scope) {
-		return GamaExecutorService.step(scope, this, getSpecies());
+		return GamaExecutorService.step(scope, this, getSpecies(), scheduler);
 	}
 
 	// @Override
@@ -457,6 +461,7 @@ public class GamaPopulation<T extends IAgent> extends GamaList<T> implements IPo
 	public void dispose() {
 		killMembers();
 		clear();
+		scheduler.clear();
 		final IScope scope = getHost() == null ? GAMA.getRuntimeScope() : getHost().getScope();
 		firePopulationCleared(scope);
 		if (topology != null) {
@@ -0,0 +1,241 @@
+/*******************************************************************************************************
+ *
+ * ConcurrentQuadTree.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.topology;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.locationtech.jts.geom.Envelope;
+
+import gama.core.common.geometry.Envelope3D;
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.shape.GamaPoint;
+import gama.core.metamodel.shape.IShape;
+import gama.core.metamodel.topology.filter.IAgentFilter;
+import gama.core.runtime.IScope;
+import gama.core.util.Collector;
+import gama.core.util.GamaListFactory;
+import gama.core.util.ICollector;
+
+/**
+ * A spatial index for species scheduled in parallel. Instead of serializing all the operations on a single monitor
+ * (like {@link GamaQuadTree.QuadTreeSynchronizer}), the envelope is divided into a regular grid of stripes, each
+ * holding its own (unsynchronized) quadtree protected by a read/write lock. Queries only acquire the read locks of the
+ * stripes they intersect, and therefore never block each other ; insertions and removals (i.e. moves) only acquire the
+ * write locks of the stripes covered by the envelope of the agent.
+ *
+ * The filtering and shuffling of the results, as well as the distance computations, are inherited from
+ * {@link GamaQuadTree}, so that the semantics of the queries remain the same.
+ */
+public class ConcurrentQuadTree extends GamaQuadTree {
+
+	/** The number of stripes along each axis. */
+	final static int STRIPES_PER_SIDE = 8;
+
+	/** The stripes. */
+	final Stripe[] stripes;
+
+	/** The origin and dimensions of the stripes. */
+	final double minX, minY, stripeWidth, stripeHeight;
+
+	/**
+	 * A stripe of the environment, with its own quadtree and lock.
+	 */
+	static class Stripe {
+
+		/** The tree. */
+		final GamaQuadTree tree;
+
+		/** The lock. */
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+		/**
+		 * Instantiates a new stripe.
+		 *
+		 * @param bounds
+		 *            the bounds
+		 */
+		Stripe(final Envelope bounds) {
+			tree = new GamaQuadTree(bounds, false);
+		}
+
+		/**
+		 * Inserts the agent under the write lock.
+		 *
+		 * @param agent
+		 *            the agent
+		 */
+		void insert(final IAgent agent) {
+			lock.writeLock().lock();
+			try {
+				tree.insert(agent);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		/**
+		 * Removes the agent under the write lock.
+		 *
+		 * @param previous
+		 *            the previous envelope of the agent (will be disposed)
+		 * @param agent
+		 *            the agent
+		 */
+		void remove(final Envelope3D previous, final IAgent agent) {
+			lock.writeLock().lock();
+			try {
+				tree.remove(previous, agent);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		/**
+		 * Collects the agents intersecting the envelope under the read lock.
+		 *
+		 * @param r
+		 *            the envelope
+		 * @param result
+		 *            the result
+		 */
+		void collectIntersects(final Envelope r, final Collection<IAgent> result) {
+			lock.readLock().lock();
+			try {
+				tree.collectIntersects(r, result);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * Dispose.
+		 */
+		void dispose() {
+			lock.writeLock().lock();
+			try {
+				tree.dispose();
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Instantiates a new concurrent quad tree.
+	 *
+	 * @param bounds
+	 *            the bounds
+	 */
+	ConcurrentQuadTree(final Envelope bounds) {
+		super(bounds, false);
+		minX = bounds.getMinX();
+		minY = bounds.getMinY();
+		stripeWidth = bounds.getWidth() / STRIPES_PER_SIDE;
+		stripeHeight = bounds.getHeight() / STRIPES_PER_SIDE;
+		stripes = new Stripe[STRIPES_PER_SIDE * STRIPES_PER_SIDE];
+		for (int j = 0; j < STRIPES_PER_SIDE; j++) {
+			for (int i = 0; i < STRIPES_PER_SIDE; i++) {
+				final double x = minX + i * stripeWidth;
+				final double y = minY + j * stripeHeight;
+				stripes[j * STRIPES_PER_SIDE + i] = new Stripe(new Envelope(x, x + stripeWidth, y, y + stripeHeight));
+			}
+		}
+	}
+
+	/**
+	 * Column of the stripe containing the abscissa, clamped to the bounds.
+	 *
+	 * @param x
+	 *            the x
+	 * @return the int
+	 */
+	private int column(final double x) {
+		if (stripeWidth <= 0d) return 0;
+		final int i = (int) ((x - minX) / stripeWidth);
+		return i < 0 ? 0 : i >= STRIPES_PER_SIDE ? STRIPES_PER_SIDE - 1 : i;
+	}
+
+	/**
+	 * Row of the stripe containing the ordinate, clamped to the bounds.
+	 *
+	 * @param y
+	 *            the y
+	 * @return the int
+	 */
+	private int row(final double y) {
+		if (stripeHeight <= 0d) return 0;
+		final int j = (int) ((y - minY) / stripeHeight);
+		return j < 0 ? 0 : j >= STRIPES_PER_SIDE ? STRIPES_PER_SIDE - 1 : j;
+	}
+
+	@Override
+	public void dispose() {
+		for (final Stripe stripe : stripes) { stripe.dispose(); }
+		super.dispose();
+	}
+
+	@Override
+	public void insert(final IAgent agent) {
+		if (agent == null) return;
+		if (agent.isPoint()) {
+			final GamaPoint p = agent.getLocation();
+			stripes[row(p.y) * STRIPES_PER_SIDE + column(p.x)].insert(agent);
+			return;
+		}
+		final Envelope3D e = agent.getEnvelope();
+		if (e == null) return;
+		try {
+			final int i1 = column(e.getMinX()), i2 = column(e.getMaxX());
+			final int j1 = row(e.getMinY()), j2 = row(e.getMaxY());
+			for (int j = j1; j <= j2; j++) {
+				for (int i = i1; i <= i2; i++) { stripes[j * STRIPES_PER_SIDE + i].insert(agent); }
+			}
+		} finally {
+			e.dispose();
+		}
+	}
+
+	@Override
+	public void remove(final Envelope3D previous, final IAgent agent) {
+		final Envelope3D current = previous == null ? agent.getEnvelope() : previous;
+		if (current == null) return;
+		try {
+			final int i1 = column(current.getMinX()), i2 = column(current.getMaxX());
+			final int j1 = row(current.getMinY()), j2 = row(current.getMaxY());
+			for (int j = j1; j <= j2; j++) {
+				for (int i = i1; i <= i2; i++) {
+					// Each tree disposes the envelope it receives, so we pass a copy
+					stripes[j * STRIPES_PER_SIDE + i].remove(Envelope3D.of(current), agent);
+				}
+			}
+		} finally {
+			current.dispose();
+		}
+	}
+
+	@Override
+	protected Collection<IAgent> findIntersects(final IScope scope, final IShape source, final Envelope r,
+			final IAgentFilter filter) {
+		try (final ICollector<IAgent> list = Collector.getOrderedSet()) {
+			final int i1 = column(r.getMinX()), i2 = column(r.getMaxX());
+			final int j1 = row(r.getMinY()), j2 = row(r.getMaxY());
+			for (int j = j1; j <= j2; j++) {
+				for (int i = i1; i <= i2; i++) { stripes[j * STRIPES_PER_SIDE + i].collectIntersects(r, list); }
+			}
+			if (list.isEmpty()) return GamaListFactory.create();
+			filter.filter(scope, source, list);
+			list.shuffleInPlaceWith(scope.getRandom());
+			return list.items();
+		}
+	}
+
+}
@@ -66,7 +66,8 @@ public class GamaQuadTree implements ISpatialIndex {
 	final boolean parallel;
 
 	/**
-	 * Creates the spatial index. Returns a synchronized quadtree if necessary (cf. #3576)
+	 * Creates the spatial index. Returns a lock-striped concurrent quadtree when agents are scheduled in parallel and
+	 * the corresponding preference is set, or a synchronized quadtree if necessary (cf. #3576)
 	 *
 	 * @param envelope
 	 *            the envelope
@@ -75,6 +76,8 @@ public class GamaQuadTree implements ISpatialIndex {
 	 * @return the gama quad tree
 	 */
 	public static ISpatialIndex create(final Envelope envelope, final boolean parallel) {
+		if (parallel && GamaPreferences.Experimental.QUADTREE_CONCURRENT.getValue())
+			return new ConcurrentQuadTree(envelope);
 		ISpatialIndex qt = new GamaQuadTree(envelope, parallel);
 		if (GamaPreferences.Experimental.QUADTREE_SYNCHRONIZATION.getValue())
 			return new QuadTreeSynchronizer(qt);
@@ -148,7 +151,7 @@ public class GamaQuadTree implements ISpatialIndex {
 	 * @param sync
 	 *            the sync
 	 */
-	private GamaQuadTree(final Envelope bounds, final boolean sync) {
+	protected GamaQuadTree(final Envelope bounds, final boolean sync) {
 		// AD To address Issue 804, explictely converts the bounds to an
 		// Envelope 2D, so that all computations are made
 		// in 2D in the QuadTree
@@ -185,6 +188,18 @@ public class GamaQuadTree implements ISpatialIndex {
 		current.dispose();
 	}
 
+	/**
+	 * Collects, without filtering nor shuffling them, the agents whose envelope intersects the envelope passed.
+	 *
+	 * @param r
+	 *            the envelope
+	 * @param result
+	 *            the collection to fill
+	 */
+	void collectIntersects(final Envelope r, final Collection<IAgent> result) {
+		root.findIntersects(r, result);
+	}
+
 	/**
 	 * Find intersects.
 	 *
@@ -0,0 +1,487 @@
+/*******************************************************************************************************
+ *
+ * DiffusionKernel.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.metamodel.topology.grid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import gama.core.runtime.concurrent.GamaExecutorService;
+
+/**
+ * The computation shared by {@link FieldDiffuser} and {@link GridDiffuser}: applies a diffusion matrix to an input
+ * array and accumulates the result in an output array (both indexed by <code>row * nbCols + col</code>).
+ *
+ * Whenever the value of each output cell only depends on the input (i.e. unless "avoid_mask" has to redistribute
+ * values to the neighbours of masked cells), the output cells are computed independently, by bands of rows dispatched
+ * to {@link GamaExecutorService#AGENT_PARALLEL_EXECUTOR}. Each cell accumulates its contributions in exactly the same
+ * order as the sequential algorithm, so the results are identical whatever the number of threads. Dedicated loops are
+ * used for the common case of a non-torus environment without mask, where the bounds of the kernel are clipped once
+ * per cell instead of being tested for each contribution. The buffers are kept from one diffusion to the next.
+ */
+class DiffusionKernel {
+
+	/** The minimal number of cells computed by a task. */
+	static final int MIN_CELLS_PER_TASK = 16384;
+
+	/**
+	 * A range of output rows to compute.
+	 */
+	@FunctionalInterface
+	private interface RowRange {
+
+		/**
+		 * Computes the output rows between from (inclusive) and to (exclusive).
+		 *
+		 * @param from
+		 *            the first row
+		 * @param to
+		 *            the last row (excluded)
+		 */
+		void compute(int from, int to);
+	}
+
+	/**
+	 * A band of output rows, split recursively until it is small enough.
+	 */
+	private static class Band extends RecursiveAction {
+
+		/** The kernel. */
+		final RowRange kernel;
+
+		/** The bounds of the band and the minimal number of rows of a task. */
+		final int from, to, grain;
+
+		/**
+		 * Instantiates a new band.
+		 *
+		 * @param kernel
+		 *            the kernel
+		 * @param from
+		 *            the from
+		 * @param to
+		 *            the to
+		 * @param grain
+		 *            the grain
+		 */
+		Band(final RowRange kernel, final int from, final int to, final int grain) {
+			this.kernel = kernel;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				kernel.compute(from, to);
+			} else {
+				final int mid = from + to >>> 1;
+				invokeAll(new Band(kernel, from, mid, grain), new Band(kernel, mid, to, grain));
+			}
+		}
+	}
+
+	/** The input and output arrays. */
+	double[] input, output;
+
+	/** The weights of the matrix, flattened (and flipped for the convolution). */
+	double[] weights = new double[0];
+
+	/** The coordinates of the non masked cells that receive the values to redistribute (avoid_mask). */
+	int[] cells = new int[0];
+
+	/** The mask. */
+	double[][] mask;
+
+	/** The dimensions of the grid and of the matrix. */
+	int nbRows, nbCols, kRows, kCols, kCenterX, kCenterY;
+
+	/** Whether the environment is a torus. */
+	boolean isTorus;
+
+	/** Whether the diffusion is a gradient. */
+	boolean isGradient;
+
+	/** Whether the values diffused to masked cells are redistributed. */
+	boolean avoidMask;
+
+	/** The proportion (sum of the matrix, used by avoid_mask). */
+	double proportion;
+
+	/**
+	 * Loads the parameters of a diffusion.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @param rows
+	 *            the nb rows
+	 * @param cols
+	 *            the nb cols
+	 * @param torus
+	 *            whether the environment is a torus
+	 * @param matrix
+	 *            the diffusion matrix
+	 * @param theMask
+	 *            the mask (can be null)
+	 * @param gradient
+	 *            whether the diffusion is a gradient
+	 * @param avoid
+	 *            whether to avoid the mask
+	 * @param prop
+	 *            the proportion
+	 * @param flip
+	 *            whether to flip the matrix (convolution)
+	 */
+	private void load(final double[] in, final double[] out, final int rows, final int cols, final boolean torus,
+			final double[][] matrix, final double[][] theMask, final boolean gradient, final boolean avoid,
+			final double prop, final boolean flip) {
+		input = in;
+		output = out;
+		nbRows = rows;
+		nbCols = cols;
+		isTorus = torus;
+		mask = theMask;
+		isGradient = gradient;
+		avoidMask = avoid;
+		proportion = prop;
+		kRows = matrix.length;
+		kCols = matrix[0].length;
+		kCenterX = kCols / 2;
+		kCenterY = kRows / 2;
+		final int size = kRows * kCols;
+		if (weights.length != size) { weights = new double[size]; }
+		if (cells.length < 2 * size) { cells = new int[2 * size]; }
+		for (int m = 0; m < kRows; m++) {
+			for (int n = 0; n < kCols; n++) {
+				weights[m * kCols + n] = flip ? matrix[kRows - m - 1][kCols - n - 1] : matrix[m][n];
+			}
+		}
+	}
+
+	/**
+	 * Releases the references to the arrays of the last diffusion.
+	 */
+	private void unload() {
+		input = null;
+		output = null;
+		mask = null;
+	}
+
+	/**
+	 * Whether the values of the output cells depend on each other (i.e. some values have to be redistributed)
+	 *
+	 * @return true, if the cells have to be computed sequentially
+	 */
+	private boolean redistributes() {
+		return avoidMask && mask != null;
+	}
+
+	/**
+	 * Accumulates a contribution into the value of an output cell.
+	 *
+	 * @param current
+	 *            the current value of the cell (-Double.MAX_VALUE if not yet computed)
+	 * @param value
+	 *            the contribution
+	 * @param gradient
+	 *            whether the diffusion is a gradient
+	 * @return the new value of the cell
+	 */
+	private static double combine(final double current, final double value, final boolean gradient) {
+		if (current == -Double.MAX_VALUE) return value;
+		if (gradient) return current < value ? value : current;
+		return current + value;
+	}
+
+	/**
+	 * Computes the rows of the output, in parallel if the grid is large enough.
+	 *
+	 * @param kernel
+	 *            the kernel
+	 */
+	private void computeRows(final RowRange kernel) {
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		final int grain = Math.max(1, MIN_CELLS_PER_TASK / Math.max(1, nbCols));
+		if (pool == null || pool.getParallelism() < 2 || nbRows <= grain
+				|| !GamaExecutorService.CONCURRENCY_DIFFUSION.getValue()) {
+			kernel.compute(0, nbRows);
+		} else {
+			pool.invoke(new Band(kernel, 0, nbRows, grain));
+		}
+	}
+
+	/**
+	 * Diffusion with convolution: each output cell gathers the values of its neighbours.
+	 *
+	 * @see #load(double[], double[], int, int, boolean, double[][], double[][], boolean, boolean, double, boolean)
+	 */
+	void convolution(final double[] in, final double[] out, final int rows, final int cols, final boolean torus,
+			final double[][] matrix, final double[][] theMask, final boolean gradient, final boolean avoid,
+			final double prop) {
+		load(in, out, rows, cols, torus, matrix, theMask, gradient, avoid, prop, true);
+		try {
+			if (redistributes()) {
+				convolutionWithRedistribution();
+			} else if (!isTorus && mask == null) {
+				computeRows(this::clippedConvolution);
+			} else {
+				computeRows(this::convolution);
+			}
+		} finally {
+			unload();
+		}
+	}
+
+	/**
+	 * Diffusion with dot product: each input cell spreads its value to its neighbours. Outside of a torus, and unless
+	 * values have to be redistributed, it is computed as a gather on the output cells (visiting the contributions in
+	 * the order in which they would have been spread).
+	 *
+	 * @see #load(double[], double[], int, int, boolean, double[][], double[][], boolean, boolean, double, boolean)
+	 */
+	void dotProduct(final double[] in, final double[] out, final int rows, final int cols, final boolean torus,
+			final double[][] matrix, final double[][] theMask, final boolean gradient, final boolean avoid,
+			final double prop) {
+		load(in, out, rows, cols, torus, matrix, theMask, gradient, avoid, prop, false);
+		try {
+			if (redistributes() || isTorus) {
+				dotProductScatter();
+			} else {
+				computeRows(this::dotProductGather);
+			}
+		} finally {
+			unload();
+		}
+	}
+
+	/**
+	 * Convolution of the output rows, outside of a torus and without mask. The ranges of the kernel that fall inside
+	 * the grid are computed once per cell.
+	 *
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the last row (excluded)
+	 */
+	private void clippedConvolution(final int from, final int to) {
+		final double[] in = input, out = output, w = weights;
+		final int cols = nbCols, kc = kCols, cx = kCenterX, cy = kCenterY;
+		final boolean gradient = isGradient;
+		for (int j = from; j < to; j++) {
+			final int mFrom = Math.max(0, cy - j), mTo = Math.min(kRows, nbRows - j + cy);
+			for (int i = 0; i < cols; i++) {
+				final int nFrom = Math.max(0, cx - i), nTo = Math.min(kc, cols - i + cx);
+				final int o = j * cols + i;
+				double acc = out[o];
+				for (int m = mFrom; m < mTo; m++) {
+					final int base = (j + m - cy) * cols + i - cx;
+					final int wBase = m * kc;
+					for (int n = nFrom; n < nTo; n++) { acc = combine(acc, in[base + n] * w[wBase + n], gradient); }
+				}
+				out[o] = acc;
+			}
+		}
+	}
+
+	/**
+	 * Convolution of the output rows, in a torus and/or with a mask (but without redistribution).
+	 *
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the last row (excluded)
+	 */
+	private void convolution(final int from, final int to) {
+		final double[] in = input, out = output, w = weights;
+		final double[][] theMask = mask;
+		final int rows = nbRows, cols = nbCols, kr = kRows, kc = kCols;
+		final boolean gradient = isGradient;
+		final int[] jjs = new int[kr], iis = new int[kc];
+		for (int j = from; j < to; j++) {
+			for (int m = 0; m < kr; m++) {
+				int jj = j + m - kCenterY;
+				if (isTorus) {
+					if (jj < 0) {
+						jj = cols + jj;
+					} else if (jj >= cols) { jj = jj - cols; }
+				}
+				jjs[m] = jj >= 0 && jj < rows ? jj : -1;
+			}
+			for (int i = 0; i < cols; i++) {
+				for (int n = 0; n < kc; n++) {
+					int ii = i + n - kCenterX;
+					if (isTorus) {
+						if (ii < 0) {
+							ii = rows + ii;
+						} else if (ii >= rows) { ii = ii - rows; }
+					}
+					iis[n] = ii >= 0 && ii < cols ? ii : -1;
+				}
+				final int o = j * cols + i;
+				double acc = out[o];
+				for (int m = 0; m < kr; m++) {
+					final int jj = jjs[m];
+					if (jj < 0) { continue; }
+					for (int n = 0; n < kc; n++) {
+						final int ii = iis[n];
+						if (ii < 0 || theMask != null && theMask[ii][jj] != 1) { continue; }
+						acc = combine(acc, in[jj * cols + ii] * w[m * kc + n], gradient);
+					}
+				}
+				out[o] = acc;
+			}
+		}
+	}
+
+	/**
+	 * Dot product computed on the output rows, outside of a torus and without redistribution. The contributions are
+	 * visited by decreasing kernel columns, then decreasing kernel rows, which corresponds to the increasing order of
+	 * the input cells that spread them.
+	 *
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the last row (excluded)
+	 */
+	private void dotProductGather(final int from, final int to) {
+		final double[] in = input, out = output, w = weights;
+		final double[][] theMask = mask;
+		final int rows = nbRows, cols = nbCols, kc = kCols, cx = kCenterX, cy = kCenterY;
+		final boolean gradient = isGradient;
+		for (int j = from; j < to; j++) {
+			for (int i = 0; i < cols; i++) {
+				final int o = j * cols + i;
+				double acc = out[o];
+				for (int n = kc - 1; n >= 0; n--) {
+					final int ii = i - n + cx;
+					if (ii < 0 || ii >= rows) { continue; }
+					for (int m = kRows - 1; m >= 0; m--) {
+						final int jj = j - m + cy;
+						if (jj < 0 || jj >= cols || theMask != null && theMask[ii][jj] != 1) { continue; }
+						acc = combine(acc, in[jj * cols + ii] * w[m * kc + n], gradient);
+					}
+				}
+				out[o] = acc;
+			}
+		}
+	}
+
+	/**
+	 * Sequential convolution, used when the values diffused to masked cells are redistributed to their neighbours.
+	 */
+	private void convolutionWithRedistribution() {
+		for (int i = 0; i < nbCols; ++i) {
+			for (int j = 0; j < nbRows; ++j) {
+				double valueToRedistribute = 0;
+				int nbCells = 0;
+				final int o = j * nbCols + i;
+				for (int m = 0; m < kRows; ++m) {
+					for (int n = 0; n < kCols; ++n) {
+						// index of input signal, used for checking boundary
+						int ii = i + n - kCenterX;
+						int jj = j + m - kCenterY;
+						if (isTorus) {
+							if (ii < 0) {
+								ii = nbRows + ii;
+							} else if (ii >= nbRows) { ii = ii - nbRows; }
+							if (jj < 0) {
+								jj = nbCols + jj;
+							} else if (jj >= nbCols) { jj = jj - nbCols; }
+						}
+						// diffuse if the input value is in the grid, and if the cell is not masked
+						if (ii >= 0 && ii < nbCols && jj >= 0 && jj < nbRows && mask[ii][jj] == 1) {
+							final double valueBeforeChange = output[o];
+							output[o] = combine(output[o], input[jj * nbCols + ii] * weights[m * kCols + n], isGradient);
+							// undo the changes if the output cell is masked.
+							if (mask[i][j] != 1) {
+								valueToRedistribute += output[o];
+								output[o] = valueBeforeChange;
+								cells[2 * nbCells] = ii;
+								cells[2 * nbCells + 1] = jj;
+								nbCells++;
+							}
+						}
+					}
+				}
+				if (valueToRedistribute != 0) { redistribute(valueToRedistribute, nbCells); }
+			}
+		}
+	}
+
+	/**
+	 * Sequential dot product, used in a torus or when the values diffused to masked cells are redistributed to their
+	 * neighbours.
+	 */
+	private void dotProductScatter() {
+		final boolean redistributes = redistributes();
+		for (int ii = 0; ii < nbRows; ++ii) {
+			for (int jj = 0; jj < nbCols; ++jj) {
+				// diffuse only if the input is not masked
+				if (mask != null && mask[ii][jj] != 1) { continue; }
+				double valueToRedistribute = 0;
+				int nbCells = 0;
+				final int inputIndex = jj * nbCols + ii;
+				for (int m = 0; m < kRows; ++m) {
+					for (int n = 0; n < kCols; ++n) {
+						// index of output signal, used for checking boundary
+						int i = ii + n - kCenterX;
+						int j = jj + m - kCenterY;
+						if (isTorus) {
+							if (i < 0) {
+								i = nbRows + i;
+							} else if (i >= nbRows) { i = i - nbRows; }
+							if (j < 0) {
+								j = nbCols + j;
+							} else if (j >= nbCols) { j = j - nbCols; }
+						}
+						// diffuse if the output value is in the grid
+						if (i >= 0 && i < nbCols && j >= 0 && j < nbRows) {
+							final int outputIndex = j * nbCols + i;
+							final double valueBeforeChange = output[outputIndex];
+							output[outputIndex] = combine(output[outputIndex],
+									input[inputIndex] * weights[m * kCols + n], isGradient);
+							// undo the changes if "avoid_mask" and if the output cell is masked.
+							if (redistributes && mask[i][j] != 1) {
+								valueToRedistribute += output[outputIndex];
+								output[outputIndex] = valueBeforeChange;
+								cells[2 * nbCells] = ii;
+								cells[2 * nbCells + 1] = jj;
+								nbCells++;
+							}
+						}
+					}
+				}
+				if (valueToRedistribute != 0) { redistribute(valueToRedistribute, nbCells); }
+			}
+		}
+	}
+
+	/**
+	 * Redistributes a value to the non masked cells collected in {@link #cells}.
+	 *
+	 * @param value
+	 *            the value to redistribute
+	 * @param nbCells
+	 *            the number of cells collected
+	 */
+	private void redistribute(final double value, final int nbCells) {
+		final double valueToAdd = value * proportion / nbCells;
+		for (int k = 0; k < nbCells; k++) {
+			final int index = cells[2 * k + 1] * nbCols + cells[2 * k];
+			if (output[index] == -Double.MAX_VALUE) {
+				output[index] = valueToAdd;
+			} else if (!isGradient) { output[index] += valueToAdd; }
+		}
+	}
+
+}
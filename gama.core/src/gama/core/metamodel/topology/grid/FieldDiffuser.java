@@ -10,7 +10,6 @@
  ********************************************************************************************************/
 package gama.core.metamodel.topology.grid;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -95,6 +94,9 @@ public class FieldDiffuser {
 	/** The output. */
 	double[] input, output;
 
+	/** The kernel. */
+	final DiffusionKernel kernel = new DiffusionKernel();
+
 	/**
 	 * The Class DiffusionContext.
 	 */
@@ -350,164 +352,16 @@ public class FieldDiffuser {
 	 * Diffusion with convolution.
 	 */
 	public void diffusionWithConvolution() {
-		// default method : convolution
-
-		final int kRows = diffusion.diffusionMatrix.length;
-		final int kCols = diffusion.diffusionMatrix[0].length;
-
-		final int kCenterX = kCols / 2;
-		final int kCenterY = kRows / 2;
-
-		for (int i = 0; i < context.nbCols; ++i) // output rows
-		{
-			for (int j = 0; j < context.nbRows; ++j) // output columns
-			{
-				double value_to_redistribute = 0;
-				final ArrayList<int[]> non_masked_cells = new ArrayList<>();
-				for (int m = 0; m < kRows; ++m) // kernel rows
-				{
-					for (int n = 0; n < kCols; ++n) // kernel columns
-					{
-						// index of input signal, used for checking boundary
-						int ii = i + n - kCenterX;
-						int jj = j + m - kCenterY;
-						// ignore input samples which are out of bound
-						if (context.isTorus) {
-							if (ii < 0) {
-								ii = context.nbRows + ii;
-							} else if (ii >= context.nbRows) { ii = ii - context.nbRows; }
-
-							if (jj < 0) {
-								jj = context.nbCols + jj;
-							} else if (jj >= context.nbCols) { jj = jj - context.nbCols; }
-						}
-						// diffuse if the input value is in the grid, and if the
-						// cell is not masked
-						if (ii >= 0 && ii < context.nbCols && jj >= 0 && jj < context.nbRows
-								&& (diffusion.mask == null || diffusion.mask[ii][jj] == 1)) {
-							final double value_before_change = output[j * context.nbCols + i];
-							if (output[j * context.nbCols + i] == -Double.MAX_VALUE) {
-								output[j * context.nbCols + i] = input[jj * context.nbCols + ii]
-										* diffusion.diffusionMatrix[kRows - m - 1][kCols - n - 1];
-							} else if (diffusion.isGradient) {
-								if (output[j * context.nbCols + i] < input[jj * context.nbCols + ii]
-										* diffusion.diffusionMatrix[kRows - m - 1][kCols - n - 1]) {
-									output[j * context.nbCols + i] = input[jj * context.nbCols + ii]
-											* diffusion.diffusionMatrix[kRows - m - 1][kCols - n - 1];
-								}
-							} else {
-								output[j * context.nbCols + i] += input[jj * context.nbCols + ii]
-										* diffusion.diffusionMatrix[kRows - m - 1][kCols - n - 1];
-							}
-
-							// undo the changes if "avoid_mask" and if the
-							// output cell is masked.
-							if (diffusion.avoidMask && (diffusion.mask == null ? false : diffusion.mask[i][j] != 1)) {
-								value_to_redistribute += output[j * context.nbCols + i];
-								output[j * context.nbCols + i] = value_before_change;
-								if (diffusion.mask[ii][jj] == 1) {
-									// input cell not masked
-									non_masked_cells.add(new int[] { ii, jj });
-								}
-							}
-						}
-					}
-				}
-				if (value_to_redistribute != 0) {
-					final double value_to_add = value_to_redistribute * proportion / non_masked_cells.size();
-					for (final int[] coord : non_masked_cells) {
-						if (output[coord[1] * context.nbCols + coord[0]] == -Double.MAX_VALUE) {
-							output[coord[1] * context.nbCols + coord[0]] = value_to_add;
-						} else if (!diffusion.isGradient) {
-							output[coord[1] * context.nbCols + coord[0]] += value_to_add;
-						}
-					}
-				}
-			}
-		}
+		kernel.convolution(input, output, context.nbRows, context.nbCols, context.isTorus, diffusion.diffusionMatrix,
+				diffusion.mask, diffusion.isGradient, diffusion.avoidMask, proportion);
 	}
 
 	/**
 	 * Diffusion with dot product.
 	 */
 	public void diffusionWithDotProduct() {
-		// dot product
-
-		final int kRows = diffusion.diffusionMatrix.length;
-		final int kCols = diffusion.diffusionMatrix[0].length;
-
-		final int kCenterX = kCols / 2;
-		final int kCenterY = kRows / 2;
-
-		for (int ii = 0; ii < context.nbRows; ++ii) // input rows
-		{
-			for (int jj = 0; jj < context.nbCols; ++jj) // input columns
-			{
-				if (diffusion.mask == null || diffusion.mask[ii][jj] == 1) {
-					// diffuse only if the input is not masked
-					double value_to_redistribute = 0;
-					final ArrayList<int[]> non_masked_cells = new ArrayList<>();
-					for (int m = 0; m < kRows; ++m) // kernel rows
-					{
-						for (int n = 0; n < kCols; ++n) // kernel columns
-						{
-							// index of output signal, used for checking
-							// boundary
-							int i = ii + n - kCenterX;
-							int j = jj + m - kCenterY;
-							// ignore output samples which are out of bound
-							if (context.isTorus) {
-								if (i < 0) {
-									i = context.nbRows + i;
-								} else if (i >= context.nbRows) { i = i - context.nbRows; }
-
-								if (j < 0) {
-									j = context.nbCols + j;
-								} else if (j >= context.nbCols) { j = j - context.nbCols; }
-							}
-							// diffuse if the output value is in the grid
-							if (i >= 0 && i < context.nbCols && j >= 0 && j < context.nbRows) {
-								final double value_before_change = output[j * context.nbCols + i];
-								final int outputIndex = j * context.nbCols + i;
-								final int inputIndex = jj * context.nbCols + ii;
-								final double matrixValue = diffusion.diffusionMatrix[m][n];
-								if (output[outputIndex] == -Double.MAX_VALUE) {
-									output[outputIndex] = input[inputIndex] * matrixValue;
-								} else if (diffusion.isGradient) {
-									if (output[outputIndex] < input[inputIndex] * matrixValue) {
-										output[outputIndex] = input[inputIndex] * matrixValue;
-									}
-								} else {
-									output[outputIndex] += input[inputIndex] * matrixValue;
-								}
-
-								// undo the changes if "avoid_mask" and if the
-								// output cell is masked.
-								if (diffusion.avoidMask
-										&& (diffusion.mask == null ? false : diffusion.mask[i][j] != 1)) {
-									value_to_redistribute += output[outputIndex];
-									output[outputIndex] = value_before_change;
-									if (diffusion.mask[ii][jj] == 1) {
-										// input cell not masked
-										non_masked_cells.add(new int[] { ii, jj });
-									}
-								}
-							}
-						}
-					}
-					if (value_to_redistribute != 0) {
-						final double value_to_add = value_to_redistribute * proportion / non_masked_cells.size();
-						for (final int[] coord : non_masked_cells) {
-							if (output[coord[1] * context.nbCols + coord[0]] == -Double.MAX_VALUE) {
-								output[coord[1] * context.nbCols + coord[0]] = value_to_add;
-							} else if (!diffusion.isGradient) {
-								output[coord[1] * context.nbCols + coord[0]] += value_to_add;
-							}
-						}
-					}
-				}
-			}
-		}
+		kernel.dotProduct(input, output, context.nbRows, context.nbCols, context.isTorus, diffusion.diffusionMatrix,
+				diffusion.mask, diffusion.isGradient, diffusion.avoidMask, proportion);
 	}
 
 	/**
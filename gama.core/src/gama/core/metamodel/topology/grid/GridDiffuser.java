@@ -303,6 +303,9 @@ public class GridDiffuser {
 	/** The output. */
 	double[] input, output;
 
+	/** The kernel. */
+	final DiffusionKernel kernel = new DiffusionKernel();
+
 	/** The nb cols. */
 	int nbRows, nbCols;
 
@@ -370,158 +373,16 @@ public class GridDiffuser {
 	 * Do diffusion with convolution.
 	 */
 	public void doDiffusion_with_convolution() {
-		// default method : convolution
-
-		final int kRows = mat_diffu.length;
-		final int kCols = mat_diffu[0].length;
-
-		final int kCenterX = kCols / 2;
-		final int kCenterY = kRows / 2;
-
-		for (int i = 0; i < nbCols; ++i) // output rows
-		{
-			for (int j = 0; j < nbRows; ++j) // output columns
-			{
-				double value_to_redistribute = 0;
-				final ArrayList<int[]> non_masked_cells = new ArrayList<>();
-				for (int m = 0; m < kRows; ++m) // kernel rows
-				{
-					for (int n = 0; n < kCols; ++n) // kernel columns
-					{
-						// index of input signal, used for checking boundary
-						int ii = i + n - kCenterX;
-						int jj = j + m - kCenterY;
-						// ignore input samples which are out of bound
-						if (is_torus) {
-							if (ii < 0) {
-								ii = nbRows + ii;
-							} else if (ii >= nbRows) { ii = ii - nbRows; }
-
-							if (jj < 0) {
-								jj = nbCols + jj;
-							} else if (jj >= nbCols) { jj = jj - nbCols; }
-						}
-						// diffuse if the input value is in the grid, and if the
-						// cell is not masked
-						if (ii >= 0 && ii < nbCols && jj >= 0 && jj < nbRows && (mask == null || mask[ii][jj] == 1)) {
-							final double value_before_change = output[j * nbCols + i];
-							if (output[j * nbCols + i] == -Double.MAX_VALUE) {
-								output[j * nbCols + i] =
-										input[jj * nbCols + ii] * mat_diffu[kRows - m - 1][kCols - n - 1];
-							} else if (is_gradient) {
-								if (output[j * nbCols + i] < input[jj * nbCols + ii]
-										* mat_diffu[kRows - m - 1][kCols - n - 1]) {
-									output[j * nbCols + i] =
-											input[jj * nbCols + ii] * mat_diffu[kRows - m - 1][kCols - n - 1];
-								}
-							} else {
-								output[j * nbCols + i] +=
-										input[jj * nbCols + ii] * mat_diffu[kRows - m - 1][kCols - n - 1];
-							}
-
-							// undo the changes if "avoid_mask" and if the
-							// output cell is masked.
-							if (avoid_mask && (mask == null ? false : mask[i][j] != 1)) {
-								value_to_redistribute += output[j * nbCols + i];
-								output[j * nbCols + i] = value_before_change;
-								if (mask[ii][jj] == 1) {
-									// input cell not masked
-									non_masked_cells.add(new int[] { ii, jj });
-								}
-							}
-						}
-					}
-				}
-				if (value_to_redistribute != 0) {
-					final double value_to_add = value_to_redistribute * proportion / non_masked_cells.size();
-					for (final int[] coord : non_masked_cells) {
-						if (output[coord[1] * nbCols + coord[0]] == -Double.MAX_VALUE) {
-							output[coord[1] * nbCols + coord[0]] = value_to_add;
-						} else if (!is_gradient) { output[coord[1] * nbCols + coord[0]] += value_to_add; }
-					}
-				}
-			}
-		}
+		kernel.convolution(input, output, nbRows, nbCols, is_torus, mat_diffu, mask, is_gradient, avoid_mask,
+				proportion);
 	}
 
 	/**
 	 * Do diffusion with dot product.
 	 */
 	public void doDiffusion_with_dotProduct() {
-		// dot product
-
-		final int kRows = mat_diffu.length;
-		final int kCols = mat_diffu[0].length;
-
-		final int kCenterX = kCols / 2;
-		final int kCenterY = kRows / 2;
-
-		for (int ii = 0; ii < nbRows; ++ii) // input rows
-		{
-			for (int jj = 0; jj < nbCols; ++jj) // input columns
-			{
-				if (mask == null || mask[ii][jj] == 1) {
-					// diffuse only if the input is not masked
-					double value_to_redistribute = 0;
-					final ArrayList<int[]> non_masked_cells = new ArrayList<>();
-					for (int m = 0; m < kRows; ++m) // kernel rows
-					{
-						for (int n = 0; n < kCols; ++n) // kernel columns
-						{
-							// index of output signal, used for checking
-							// boundary
-							int i = ii + n - kCenterX;
-							int j = jj + m - kCenterY;
-							// ignore output samples which are out of bound
-							if (is_torus) {
-								if (i < 0) {
-									i = nbRows + i;
-								} else if (i >= nbRows) { i = i - nbRows; }
-
-								if (j < 0) {
-									j = nbCols + j;
-								} else if (j >= nbCols) { j = j - nbCols; }
-							}
-							// diffuse if the output value is in the grid
-							if (i >= 0 && i < nbCols && j >= 0 && j < nbRows) {
-								final double value_before_change = output[j * nbCols + i];
-								final int outputIndex = j * nbCols + i;
-								final int inputIndex = jj * nbCols + ii;
-								final double matrixValue = mat_diffu[m][n];
-								if (output[outputIndex] == -Double.MAX_VALUE) {
-									output[outputIndex] = input[inputIndex] * matrixValue;
-								} else if (is_gradient) {
-									if (output[outputIndex] < input[inputIndex] * matrixValue) {
-										output[outputIndex] = input[inputIndex] * matrixValue;
-									}
-								} else {
-									output[outputIndex] += input[inputIndex] * matrixValue;
-								}
-
-								// undo the changes if "avoid_mask" and if the
-								// output cell is masked.
-								if (avoid_mask && (mask == null ? false : mask[i][j] != 1)) {
-									value_to_redistribute += output[outputIndex];
-									output[outputIndex] = value_before_change;
-									if (mask[ii][jj] == 1) {
-										// input cell not masked
-										non_masked_cells.add(new int[] { ii, jj });
-									}
-								}
-							}
-						}
-					}
-					if (value_to_redistribute != 0) {
-						final double value_to_add = value_to_redistribute * proportion / non_masked_cells.size();
-						for (final int[] coord : non_masked_cells) {
-							if (output[coord[1] * nbCols + coord[0]] == -Double.MAX_VALUE) {
-								output[coord[1] * nbCols + coord[0]] = value_to_add;
-							} else if (!is_gradient) { output[coord[1] * nbCols + coord[0]] += value_to_add; }
-						}
-					}
-				}
-			}
-		}
+		kernel.dotProduct(input, output, nbRows, nbCols, is_torus, mat_diffu, mask, is_gradient, avoid_mask,
+				proportion);
 	}
 
 	/**
@@ -578,8 +439,11 @@ public class GridDiffuser {
 		for (PairVarGrid pairVarGrid : keySet) {
 			final List<GridDiffusion> listGridDiffu = m_diffusions.get(pairVarGrid);
 			loadGridProperties(pairVarGrid);
-			input = new double[pairVarGrid.NbCols * pairVarGrid.NbRows];
-			output = new double[pairVarGrid.NbCols * pairVarGrid.NbRows];
+			final int length = pairVarGrid.NbCols * pairVarGrid.NbRows;
+			if (input == null || input.length != length) {
+				input = new double[length];
+				output = new double[length];
+			}
 			Arrays.fill(output, -Double.MAX_VALUE);
 			for (GridDiffusion gridDiffusion : listGridDiffu) {
 				final boolean success = loadDiffProperties(gridDiffusion);
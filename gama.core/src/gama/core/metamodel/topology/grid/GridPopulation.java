@@ -50,6 +50,7 @@ import gama.core.metamodel.topology.ITopology;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
 import gama.core.runtime.benchmark.StopWatch;
+import gama.core.runtime.concurrent.AgentScheduler;
 import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
@@ -163,6 +164,9 @@ public class GridPopulation implements IPopulation<IGridAgent> {
 	 */
 	private final PopulationNotifier notifier = new PopulationNotifier();
 
+	/** The scheduler of the agents, kept from one step to the next. */
+	private final AgentScheduler scheduler = new AgentScheduler();
+
 	/** The grid. */
 	GamaSpatialMatrix grid;
 	/**
@@ -357,7 +361,7 @@ public class GridPopulation implements IPopulation<IGridAgent> {
 	 */
 	// @Override
 	protected boolean stepAgents(final IScope scope) {
-		return GamaExecutorService.step(scope, grid.matrix, getSpecies());
+		return GamaExecutorService.step(scope, grid.matrix, getSpecies(), scheduler);
 	}
 
 	/**
@@ -451,6 +455,7 @@ public class GridPopulation implements IPopulation<IGridAgent> {
 	public void dispose() {
 		killMembers();
 		clear();
+		scheduler.clear();
 		if (topology != null) {
 			topology.dispose();
 			topology = null;
@@ -34,8 +34,8 @@ public class Projection implements IProjection {
 	/** The factory. */
 	private final ProjectionFactory factory;
 	
-	/** The inverse transformer. */
-	private GeometryCoordinateSequenceTransformer transformer, inverseTransformer;
+	/** The transformers. They are not thread-safe, hence one for each thread that transforms geometries. */
+	private ThreadLocal<GeometryCoordinateSequenceTransformer> transformer, inverseTransformer;
 	
 	/** The initial CRS. */
 	CoordinateReferenceSystem initialCRS;
@@ -84,20 +84,30 @@ public class Projection implements IProjection {
 	@Override
 	public void createTransformation(final MathTransform t) {
 		if (t != null) {
-			transformer = new GeometryCoordinateSequenceTransformer(new DefaultCoordinateSequenceTransformer(
-					GeometryUtils.GEOMETRY_FACTORY.getCoordinateSequenceFactory()));
 			// TODO see ConcatenatedTransformDirect2D
-			transformer.setMathTransform(t);
+			transformer = ThreadLocal.withInitial(() -> createTransformer(t));
 			try {
-				inverseTransformer = new GeometryCoordinateSequenceTransformer(new DefaultCoordinateSequenceTransformer(
-						GeometryUtils.GEOMETRY_FACTORY.getCoordinateSequenceFactory()));
-				inverseTransformer.setMathTransform(t.inverse());
+				final MathTransform inverse = t.inverse();
+				inverseTransformer = ThreadLocal.withInitial(() -> createTransformer(inverse));
 			} catch (final NoninvertibleTransformException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
+	/**
+	 * Creates a transformer.
+	 *
+	 * @param t the math transform
+	 * @return the geometry coordinate sequence transformer
+	 */
+	private static GeometryCoordinateSequenceTransformer createTransformer(final MathTransform t) {
+		final GeometryCoordinateSequenceTransformer result = new GeometryCoordinateSequenceTransformer(
+				new DefaultCoordinateSequenceTransformer(GeometryUtils.GEOMETRY_FACTORY.getCoordinateSequenceFactory()));
+		result.setMathTransform(t);
+		return result;
+	}
+
 	@Override
 	public Geometry transform(final Geometry g) {
 		// Remove uselessly complicated multigeometries
@@ -116,7 +126,7 @@ public class Projection implements IProjection {
 		Geometry geom = GeometryUtils.GEOMETRY_FACTORY.createGeometry(g);
 		if (transformer != null) {
 			try {
-				geom = transformer.transform(geom);
+				geom = transformer.get().transform(geom);
 			} catch (final TransformException e) {
 				e.printStackTrace();
 			}
@@ -146,7 +156,7 @@ public class Projection implements IProjection {
 		inverseTranslate(geom);
 		if (inverseTransformer != null) {
 			try {
-				geom = inverseTransformer.transform(geom);
+				geom = inverseTransformer.get().transform(geom);
 			} catch (final TransformException e) {
 				e.printStackTrace();
 			}
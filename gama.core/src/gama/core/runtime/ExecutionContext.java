@@ -10,14 +10,22 @@
  ********************************************************************************************************/
 package gama.core.runtime;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import gama.gaml.compilation.ISymbol;
 
 /**
- * The Class ExecutionContext.
+ * The Class ExecutionContext. Holds the temporary variables declared by a statement in a small array-backed frame, and
+ * looks up the variables of the enclosing statements by walking the chain of outer contexts.
+ *
+ * Variables are found by name rather than by a (depth, slot) position resolved when the model is compiled: the chain of
+ * contexts is only known at runtime (it depends on push() and pop(), on the copies of contexts made by parallel asks and
+ * by {@link #createCopy(ISymbol)}, and on the statements that declare their variables conditionally), so that a
+ * position computed by the compiler could designate another variable. Frames are not pooled either, as a popped context
+ * can still be referenced by the scopes copied from it.
  */
 public class ExecutionContext implements IExecutionContext {
 
@@ -62,8 +70,21 @@ public class ExecutionContext implements IExecutionContext {
 		return result;
 	}
 
-	/** The local. */
-	Map<String, Object> local;
+	/** The initial capacity of the frames of local variables. */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * The names and values of the local variables, interleaved (the name of the i-th variable is at 2*i, its value at
+	 * 2*i+1). Local variables are stored in a small array-backed frame instead of a map: statements rarely declare more
+	 * than a handful of them, and a linear scan (names are most of the time the same String instances) avoids both
+	 * hashing and the allocation of map entries on the hot path. As a frame can be read by several threads (e.g. the
+	 * outer frame of a parallel ask), the array is never shrunk or shifted in place: a larger or shorter copy is
+	 * published instead, so that a reader always sees a consistent array.
+	 */
+	volatile Object[] slots;
+
+	/** The number of local variables. */
+	volatile int size;
 
 	/** The outer. */
 	IExecutionContext outer;
@@ -76,7 +97,8 @@ public class ExecutionContext implements IExecutionContext {
 
 	@Override
 	public void dispose() {
-		local = null;
+		slots = null;
+		size = 0;
 		outer = null;
 		scope = null;
 	}
@@ -94,19 +116,52 @@ public class ExecutionContext implements IExecutionContext {
 	@Override
 	public final IExecutionContext getOuterContext() { return outer; }
 
+	/**
+	 * Returns the position of the value of a local variable in an array of slots, or -1 if it is not defined there.
+	 *
+	 * @param s
+	 *            the slots
+	 * @param n
+	 *            the number of variables
+	 * @param name
+	 *            the name
+	 * @return the index of the value in the slots
+	 */
+	private static int indexOf(final Object[] s, final int n, final String name) {
+		if (s == null) return -1;
+		final int last = Math.min(n, s.length / 2) * 2 - 2;
+		for (int i = last; i >= 0; i -= 2) { if (s[i] == name) return i + 1; }
+		if (name == null) return -1;
+		for (int i = last; i >= 0; i -= 2) { if (name.equals(s[i])) return i + 1; }
+		return -1;
+	}
+
 	@Override
 	public void setTempVar(final String name, final Object value) {
-		if (local == null || !local.containsKey(name)) {
-			if (outer != null) { outer.setTempVar(name, value); }
-		} else {
-			local.put(name, value);
+		IExecutionContext context = this;
+		// Iterative walk of the chain of contexts, as long as they are instances of ExecutionContext
+		while (context instanceof ExecutionContext ec) {
+			final Object[] s = ec.slots;
+			final int i = indexOf(s, ec.size, name);
+			if (i >= 0) {
+				s[i] = value;
+				return;
+			}
+			context = ec.outer;
 		}
+		if (context != null) { context.setTempVar(name, value); }
 	}
 
 	@Override
 	public Object getTempVar(final String name) {
-		if (local == null || !local.containsKey(name)) return outer == null ? null : outer.getTempVar(name);
-		return local.get(name);
+		IExecutionContext context = this;
+		while (context instanceof ExecutionContext ec) {
+			final Object[] s = ec.slots;
+			final int i = indexOf(s, ec.size, name);
+			if (i >= 0) return s[i];
+			context = ec.outer;
+		}
+		return context == null ? null : context.getTempVar(name);
 	}
 
 	/**
@@ -118,13 +173,14 @@ public class ExecutionContext implements IExecutionContext {
 	 * @return the execution context
 	 * @date 3 août 2023
 	 */
-	@SuppressWarnings ("unchecked")
 	@Override
 	public ExecutionContext createCopy(final ISymbol command) {
 		final ExecutionContext r = create(scope, outer, command);
-		if (local != null) {
-			r.local = Collections.synchronizedMap(new HashMap<>());
-			if (local != null) { r.local.putAll(local); }
+		final Object[] s = slots;
+		final int n = size;
+		if (s != null && n > 0) {
+			r.slots = Arrays.copyOf(s, s.length);
+			r.size = Math.min(n, s.length / 2);
 		}
 		return r;
 	}
@@ -145,41 +201,69 @@ public class ExecutionContext implements IExecutionContext {
 
 	@Override
 	public Map<? extends String, ? extends Object> getLocalVars() {
-		return local == null ? Collections.EMPTY_MAP : local;
+		final Object[] s = slots;
+		final int n = s == null ? 0 : Math.min(size, s.length / 2);
+		if (n == 0) return Collections.EMPTY_MAP;
+		final Map<String, Object> result = new LinkedHashMap<>();
+		for (int i = 0; i < n; i++) { result.put((String) s[2 * i], s[2 * i + 1]); }
+		return result;
 	}
 
 	@Override
-	public void clearLocalVars() {
-		local = null;
+	public synchronized void clearLocalVars() {
+		// A new (empty) array is published, as readers may still be using the current one
+		if (size > 0) { slots = new Object[slots.length]; }
+		size = 0;
 	}
 
 	@Override
-	public void putLocalVar(final String varName, final Object val) {
-		if (local == null) { local = Collections.synchronizedMap(new HashMap<>()); }
-		local.put(varName, val);
+	public synchronized void putLocalVar(final String varName, final Object val) {
+		Object[] s = slots;
+		final int n = size;
+		final int i = indexOf(s, n, varName);
+		if (i >= 0) {
+			s[i] = val;
+			return;
+		}
+		if (s == null) {
+			s = new Object[INITIAL_CAPACITY * 2];
+		} else if (n * 2 == s.length) { s = Arrays.copyOf(s, s.length * 2); }
+		s[2 * n] = varName;
+		s[2 * n + 1] = val;
+		// The array is published before the size, so that readers never see a size larger than their array
+		slots = s;
+		size = n + 1;
 	}
 
 	@Override
 	public Object getLocalVar(final String string) {
-		if (local == null) return null;
-		return local.get(string);
+		final Object[] s = slots;
+		final int i = indexOf(s, size, string);
+		return i < 0 ? null : s[i];
 	}
 
 	@Override
 	public boolean hasLocalVar(final String name) {
-		if (local == null) return false;
-		return local.containsKey(name);
+		return indexOf(slots, size, name) >= 0;
 	}
 
 	@Override
-	public void removeLocalVar(final String name) {
-		if (local == null) return;
-		local.remove(name);
+	public synchronized void removeLocalVar(final String name) {
+		final Object[] s = slots;
+		final int n = size;
+		final int i = indexOf(s, n, name) - 1;
+		if (i < 0) return;
+		// The remaining variables are copied in a new array instead of being shifted in place
+		final Object[] r = new Object[s.length];
+		System.arraycopy(s, 0, r, 0, i);
+		System.arraycopy(s, i + 2, r, i, 2 * n - i - 2);
+		slots = r;
+		size = n - 1;
 	}
 
 	@Override
 	public String toString() {
-		return "execution context " + local;
+		return "execution context " + getLocalVars();
 	}
 
 	@Override
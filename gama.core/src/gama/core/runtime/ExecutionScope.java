@@ -1052,7 +1052,8 @@ public class ExecutionScope implements IScope {
 	public RandomUtils getRandom() {
 		final ITopLevelAgent root = getRoot();
 		if (root == null) return new RandomUtils();
-		return root.getRandomGenerator();
+		final SimulationClock clock = root.getClock();
+		return root.getRandomGenerator().bind(getAgent(), clock == null ? 0 : clock.getCycle());
 	}
 
 	@Override
@@ -12,6 +12,7 @@ package gama.core.runtime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import gama.core.common.interfaces.IBenchmarkable;
@@ -34,6 +35,7 @@ import gama.core.kernel.root.PlatformAgent;
 import gama.core.kernel.simulation.SimulationAgent;
 import gama.core.runtime.IExperimentStateListener.State;
 import gama.core.runtime.benchmark.Benchmark;
+import gama.core.runtime.benchmark.Profiler;
 import gama.core.runtime.benchmark.StopWatch;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.runtime.exceptions.GamaRuntimeException.GamaRuntimeFileException;
@@ -70,6 +72,9 @@ public class GAMA {
 	/** The benchmark agent. */
 	private static Benchmark benchmarkAgent;
 
+	/** The profilers of the experiments being profiled. */
+	private static final Map<IExperimentPlan, Profiler> profilers = new ConcurrentHashMap<>();
+
 	/** The is in headless mode. */
 	private static boolean isInHeadlessMode;
 
@@ -683,7 +688,12 @@ public class GAMA {
 	 *
 	 */
 	public static StopWatch benchmark(final IScope scope, final Object symbol) {
-		if (benchmarkAgent == null || symbol == null || scope == null) return StopWatch.NULL;
+		if (symbol == null || scope == null) return StopWatch.NULL;
+		if (!profilers.isEmpty()) {
+			final Profiler p = getProfiler(scope);
+			if (p != null) return p.enter(scope, symbol);
+		}
+		if (benchmarkAgent == null) return StopWatch.NULL;
 		if (symbol instanceof IBenchmarkable ib) return benchmarkAgent.record(scope, ib);
 		if (symbol instanceof ISymbol is) return benchmarkAgent.record(scope, is.getDescription());
 		return StopWatch.NULL;
@@ -696,7 +706,13 @@ public class GAMA {
 	 *            the experiment
 	 */
 	public static void startBenchmark(final IExperimentPlan experiment) {
-		if (experiment.shouldBeBenchmarked()) { benchmarkAgent = new Benchmark(experiment); }
+		if (experiment.shouldBeBenchmarked()) {
+			// Opening again an experiment (e.g. when it is reloaded) keeps its records
+			if (benchmarkAgent == null) { benchmarkAgent = new Benchmark(experiment); }
+		} else if (GamaPreferences.Experimental.PROFILER.getValue()) {
+			// The experiments that explicitly ask to be benchmarked are left to the benchmark agent
+			profilers.computeIfAbsent(experiment, Profiler::new);
+		}
 	}
 
 	/**
@@ -708,6 +724,32 @@ public class GAMA {
 	public static void stopBenchmark(final IExperimentPlan experiment) {
 		if (benchmarkAgent != null) { benchmarkAgent.saveAndDispose(experiment); }
 		benchmarkAgent = null;
+		final Profiler p = experiment == null ? null : profilers.remove(experiment);
+		if (p != null) { p.saveAndDispose(experiment); }
+	}
+
+	/**
+	 * Gets the profiler of an experiment.
+	 *
+	 * @param experiment
+	 *            the experiment
+	 * @return the profiler, or null if the experiment is not profiled
+	 */
+	public static Profiler getProfiler(final IExperimentPlan experiment) {
+		return experiment == null ? null : profilers.get(experiment);
+	}
+
+	/**
+	 * Gets the profiler of the experiment in which a scope is executed.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the profiler, or null if the experiment is not profiled
+	 */
+	public static Profiler getProfiler(final IScope scope) {
+		if (scope == null || profilers.isEmpty()) return null;
+		final IExperimentAgent agent = scope.getExperiment();
+		return agent == null ? null : profilers.get(agent.getSpecies());
 	}
 
 	/**
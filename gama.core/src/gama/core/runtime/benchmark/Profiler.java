@@ -0,0 +1,550 @@
+/*******************************************************************************************************
+ *
+ * Profiler.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.runtime.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import gama.core.common.interfaces.IBenchmarkable;
+import gama.core.common.util.FileUtils;
+import gama.core.kernel.experiment.IExperimentPlan;
+import gama.core.kernel.experiment.ITopLevelAgent;
+import gama.core.kernel.simulation.SimulationAgent;
+import gama.core.runtime.GAMA;
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.core.util.GamaListFactory;
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IList;
+import gama.core.util.IMap;
+import gama.dev.DEBUG;
+import gama.gaml.compilation.ISymbol;
+import gama.gaml.operators.Files;
+import gama.gaml.types.Types;
+
+/**
+ * A continuous profiler, enabled by {@link gama.core.common.preferences.GamaPreferences.Experimental#PROFILER}.
+ * Contrary to {@link Benchmark}, which records flat timings per symbol, it attributes the wall time and the bytes
+ * allocated to a call tree (species -> reflex/action -> statement -> operator), built from the nested calls to
+ * {@link GAMA#benchmark(IScope, Object)}. The work done by other threads (e.g. agents scheduled in parallel) is
+ * attached to the root of the tree.
+ *
+ * Each step of the simulations is sampled (cycle, duration, allocated bytes) and written to a CSV file as the
+ * experiment runs. When the experiment is closed, the tree is exported as collapsed stacks (one for the time, in
+ * microseconds, one for the allocations, in bytes) that can be loaded in the usual flame graph tools. A summary of the
+ * profile is available while the experiment runs with {@link #getSummary(int)}.
+ *
+ * The balance of the work between the threads when the agents of a species are stepped in parallel (see
+ * {@link gama.core.runtime.concurrent.AgentScheduler}) is also recorded and reported in the summary.
+ */
+public class Profiler {
+
+	/** The Constant EXPORT_FOLDER. */
+	private static final String EXPORT_FOLDER = "profiles";
+
+	/** The number of steps kept for the summary. */
+	private static final int STEPS_KEPT = 100;
+
+	/** The handle on ThreadMXBean.getCurrentThreadAllocatedBytes(), or null if it is not available. */
+	private static final MethodHandle ALLOCATED_BYTES = findAllocatedBytes();
+
+	/**
+	 * Find the method returning the bytes allocated by the current thread, if the VM supports it.
+	 *
+	 * @return the method handle or null
+	 */
+	private static MethodHandle findAllocatedBytes() {
+		try {
+			final Object bean = ManagementFactory.getThreadMXBean();
+			final Class<?> type =
+					Class.forName("com.sun.management.ThreadMXBean", false, ClassLoader.getPlatformClassLoader());
+			if (!type.isInstance(bean)) return null;
+			final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			final boolean supported = (boolean) lookup
+					.findVirtual(type, "isThreadAllocatedMemoryEnabled", MethodType.methodType(boolean.class))
+					.invoke(bean);
+			if (!supported) return null;
+			return lookup.findVirtual(type, "getCurrentThreadAllocatedBytes", MethodType.methodType(long.class))
+					.bindTo(bean);
+		} catch (final Throwable e) {
+			DEBUG.LOG("Allocations cannot be profiled in this virtual machine");
+			return null;
+		}
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread.
+	 *
+	 * @return the number of bytes, or 0 if it cannot be measured
+	 */
+	static long allocatedBytes() {
+		if (ALLOCATED_BYTES == null) return 0;
+		try {
+			return (long) ALLOCATED_BYTES.invokeExact();
+		} catch (final Throwable e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * A node of the call tree.
+	 */
+	public static class Node {
+
+		/** The symbol. */
+		public final IBenchmarkable symbol;
+
+		/** The parent. */
+		public final Node parent;
+
+		/** The children. */
+		final Map<IBenchmarkable, Node> children = new ConcurrentHashMap<>();
+
+		/** The total time (in nanoseconds), bytes allocated and number of calls. */
+		final LongAdder nanos = new LongAdder(), bytes = new LongAdder(), calls = new LongAdder();
+
+		/**
+		 * Instantiates a new node.
+		 *
+		 * @param symbol
+		 *            the symbol
+		 * @param parent
+		 *            the parent
+		 */
+		Node(final IBenchmarkable symbol, final Node parent) {
+			this.symbol = symbol;
+			this.parent = parent;
+		}
+
+		/**
+		 * Returns the child of this node corresponding to the symbol, creating it if necessary.
+		 *
+		 * @param s
+		 *            the symbol
+		 * @return the node
+		 */
+		Node child(final IBenchmarkable s) {
+			Node child = children.get(s);
+			if (child == null) { child = children.computeIfAbsent(s, k -> new Node(k, this)); }
+			return child;
+		}
+
+		/**
+		 * The time spent in this node but not in its children.
+		 *
+		 * @return the nanoseconds
+		 */
+		long selfNanos() {
+			long self = nanos.sum();
+			for (final Node child : children.values()) { self -= child.nanos.sum(); }
+			return Math.max(0, self);
+		}
+
+		/**
+		 * The bytes allocated in this node but not in its children.
+		 *
+		 * @return the bytes
+		 */
+		long selfBytes() {
+			long self = bytes.sum();
+			for (final Node child : children.values()) { self -= child.bytes.sum(); }
+			return Math.max(0, self);
+		}
+
+		/**
+		 * The stack leading to this node, in the collapsed format (frames separated by semicolons).
+		 *
+		 * @return the string
+		 */
+		String stack() {
+			if (parent == null) return frameName(symbol);
+			return parent.stack() + ";" + frameName(symbol);
+		}
+
+		/**
+		 * Visits this node and its descendants.
+		 *
+		 * @param visitor
+		 *            the visitor
+		 */
+		void visit(final Consumer<Node> visitor) {
+			visitor.accept(this);
+			for (final Node child : children.values()) { child.visit(visitor); }
+		}
+	}
+
+	/**
+	 * The name of a frame in the collapsed stacks (semicolons and line breaks are not allowed).
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @return the string
+	 */
+	static String frameName(final IBenchmarkable symbol) {
+		final String name = symbol.getNameForBenchmarks();
+		return name == null ? "unknown" : name.replace(';', ',').replace('\n', ' ').replace('\r', ' ');
+	}
+
+	/**
+	 * The stack of the frames opened by one thread. Returned by {@link Profiler#enter(IScope, Object)} and closed (in
+	 * the reverse order of their opening) by the try-with-resources blocks of the callers.
+	 */
+	class Frames extends StopWatch {
+
+		/** The nodes. */
+		Node[] nodes = new Node[32];
+
+		/** The start times and allocations. */
+		long[] starts = new long[32], bytes = new long[32];
+
+		/** The cycles of the simulations stepped (-1 if the frame is not a simulation step). */
+		long[] cycles = new long[32];
+
+		/** The depth. */
+		int depth;
+
+		/**
+		 * Instantiates new frames.
+		 */
+		Frames() {
+			super(BenchmarkRecord.NULL, BenchmarkRecord.NULL);
+		}
+
+		/**
+		 * Opens a frame.
+		 *
+		 * @param symbol
+		 *            the symbol
+		 * @param cycle
+		 *            the cycle if the frame is a simulation step, -1 otherwise
+		 * @return this
+		 */
+		Frames push(final IBenchmarkable symbol, final long cycle) {
+			if (depth == nodes.length) {
+				final int length = depth * 2;
+				nodes = Arrays.copyOf(nodes, length);
+				starts = Arrays.copyOf(starts, length);
+				bytes = Arrays.copyOf(bytes, length);
+				cycles = Arrays.copyOf(cycles, length);
+			}
+			nodes[depth] = (depth == 0 ? root : nodes[depth - 1]).child(symbol);
+			cycles[depth] = cycle;
+			bytes[depth] = allocatedBytes();
+			starts[depth] = System.nanoTime();
+			depth++;
+			return this;
+		}
+
+		@Override
+		public StopWatch start() {
+			return this;
+		}
+
+		@Override
+		public void close() {
+			if (depth == 0) return;
+			final long end = System.nanoTime();
+			final long allocated = allocatedBytes();
+			depth--;
+			final Node node = nodes[depth];
+			final long nanos = end - starts[depth];
+			final long b = allocated - bytes[depth];
+			node.nanos.add(nanos);
+			node.bytes.add(b);
+			node.calls.increment();
+			nodes[depth] = null;
+			if (cycles[depth] >= 0) { recordStep(cycles[depth], nanos, b); }
+		}
+	}
+
+	/** The root. */
+	final Node root;
+
+	/** The frames of each thread. */
+	final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+	/** The cycles, durations (in nanoseconds) and allocations of the last steps, used as circular buffers. */
+	final long[] lastCycles = new long[STEPS_KEPT], lastDurations = new long[STEPS_KEPT],
+			lastBytes = new long[STEPS_KEPT];
+
+	/** The number of steps and their total duration. */
+	long steps, stepsNanos;
+
+	/**
+	 * The statistics of the parallel scheduling of the agents of a species.
+	 */
+	static class Schedule {
+
+		/** The number of parallel steps, of tasks and the number of agents in the last step. */
+		long runs, tasks, agents;
+
+		/** The sum of the efficiencies and the lowest one. */
+		double efficiencies, worst = 1d;
+	}
+
+	/** The schedules, per species. */
+	final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+	/** The writer of the steps, or null. */
+	Writer stepsWriter;
+
+	/** The base name of the files produced, or null if the folder cannot be created. */
+	final String baseName;
+
+	/** The experiment profiled. */
+	final IExperimentPlan experiment;
+
+	/**
+	 * Instantiates a new profiler for an experiment.
+	 *
+	 * @param experiment
+	 *            the experiment
+	 */
+	public Profiler(final IExperimentPlan experiment) {
+		this.experiment = experiment;
+		root = new Node(experiment.getModel().getDescription(), null);
+		baseName = createFolder(experiment);
+		if (baseName != null) {
+			try {
+				stepsWriter = new BufferedWriter(new FileWriter(baseName + "_steps.csv"));
+				stepsWriter.write("cycle;duration (ms);allocated (bytes)\n");
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to write the steps of the profiler: " + e.getMessage());
+				stepsWriter = null;
+			}
+		}
+	}
+
+	/**
+	 * Creates the export folder.
+	 *
+	 * @param experiment
+	 *            the experiment
+	 * @return the base name of the files to produce, or null
+	 */
+	private String createFolder(final IExperimentPlan experiment) {
+		final IScope scope = experiment.getExperimentScope();
+		try {
+			Files.newFolder(scope, EXPORT_FOLDER);
+			return FileUtils.constructAbsoluteFilePath(scope, EXPORT_FOLDER + "/" + experiment.getModel().getName()
+					+ "_profile_" + Instant.now().toString().replace(':', '_'), false);
+		} catch (final GamaRuntimeException e) {
+			e.addContext("Impossible to create folder " + EXPORT_FOLDER);
+			GAMA.reportError(scope, e, false);
+			return null;
+		}
+	}
+
+	/**
+	 * Opens a frame for the symbol on the current thread. Symbols that cannot be benchmarked (e.g. regular agents) are
+	 * not profiled. The steps of the top-level agents are attributed to their species.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param symbol
+	 *            the symbol
+	 * @return the stop watch to close when the symbol has been executed
+	 */
+	public StopWatch enter(final IScope scope, final Object symbol) {
+		if (symbol instanceof IBenchmarkable ib) return frames.get().push(ib, -1);
+		if (symbol instanceof ISymbol is) return frames.get().push(is.getDescription(), -1);
+		if (symbol instanceof ITopLevelAgent agent) {
+			final long cycle = agent instanceof SimulationAgent sim ? sim.getClock().getCycle() : -1;
+			return frames.get().push(agent.getSpecies().getDescription(), cycle);
+		}
+		return StopWatch.NULL;
+	}
+
+	/**
+	 * Records a step of a simulation.
+	 *
+	 * @param cycle
+	 *            the cycle
+	 * @param nanos
+	 *            the duration
+	 * @param bytes
+	 *            the bytes allocated
+	 */
+	synchronized void recordStep(final long cycle, final long nanos, final long bytes) {
+		final int index = (int) (steps % STEPS_KEPT);
+		lastCycles[index] = cycle;
+		lastDurations[index] = nanos;
+		lastBytes[index] = bytes;
+		steps++;
+		stepsNanos += nanos;
+		if (stepsWriter != null) {
+			try {
+				stepsWriter.append(String.valueOf(cycle)).append(';').append(String.valueOf(nanos / 1000000d))
+						.append(';').append(String.valueOf(bytes)).append('\n');
+			} catch (final IOException e) {
+				stepsWriter = null;
+			}
+		}
+	}
+
+	/**
+	 * Records a parallel step of the agents of a species. The efficiency of the step is the ratio between the time
+	 * spent by the threads and the time they would have spent if all of them had been as busy as the busiest one (1
+	 * means a perfect balance).
+	 *
+	 * @param species
+	 *            the name of the species
+	 * @param agents
+	 *            the number of agents scheduled
+	 * @param tasks
+	 *            the number of tasks run
+	 * @param busy
+	 *            the time spent by each thread, in nanoseconds
+	 */
+	public void recordSchedule(final String species, final int agents, final int tasks, final AtomicLongArray busy) {
+		long max = 0, sum = 0;
+		for (int i = 0; i < busy.length(); i++) {
+			final long b = busy.get(i);
+			sum += b;
+			max = Math.max(max, b);
+		}
+		final double efficiency = max == 0 ? 1d : sum / ((double) max * Math.max(1, busy.length() - 1));
+		final Schedule schedule = schedules.computeIfAbsent(species, s -> new Schedule());
+		synchronized (schedule) {
+			schedule.runs++;
+			schedule.tasks += tasks;
+			schedule.agents = agents;
+			schedule.efficiencies += Math.min(1d, efficiency);
+			schedule.worst = Math.min(schedule.worst, efficiency);
+		}
+	}
+
+	/**
+	 * Returns a summary of the profile: the number of steps and their average duration, the last steps, the nodes of
+	 * the tree where most of the time is spent and the balance of the parallel steps of species.
+	 *
+	 * @param top
+	 *            the number of nodes to return
+	 * @return a map that can be serialized to json
+	 */
+	@SuppressWarnings ("unchecked")
+	public synchronized IMap<String, Object> getSummary(final int top) {
+		final IMap<String, Object> result = GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+		result.put("steps", steps);
+		result.put("average_step_ms", steps == 0 ? 0d : stepsNanos / 1000000d / steps);
+		final IList<Object> last = GamaListFactory.create(Types.MAP);
+		final long first = Math.max(0, steps - STEPS_KEPT);
+		for (long i = first; i < steps; i++) {
+			final int index = (int) (i % STEPS_KEPT);
+			final IMap<String, Object> step = GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+			step.put("cycle", lastCycles[index]);
+			step.put("duration_ms", lastDurations[index] / 1000000d);
+			step.put("allocated_bytes", lastBytes[index]);
+			last.add(step);
+		}
+		result.put("last_steps", last);
+		final List<Node> nodes = new ArrayList<>();
+		root.visit(nodes::add);
+		final long[] self = new long[nodes.size()];
+		final Integer[] order = new Integer[nodes.size()];
+		for (int i = 0; i < self.length; i++) {
+			self[i] = nodes.get(i).selfNanos();
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(self[b], self[a]));
+		final IList<Object> hotspots = GamaListFactory.create(Types.MAP);
+		for (int i = 0; i < Math.min(top, order.length); i++) {
+			final Node node = nodes.get(order[i]);
+			final IMap<String, Object> spot = GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+			spot.put("stack", node.stack());
+			spot.put("self_ms", self[order[i]] / 1000000d);
+			spot.put("total_ms", node.nanos.sum() / 1000000d);
+			spot.put("calls", node.calls.sum());
+			spot.put("allocated_bytes", node.bytes.sum());
+			hotspots.add(spot);
+		}
+		result.put("hotspots", hotspots);
+		final IMap<String, Object> balance = GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+		schedules.forEach((species, schedule) -> {
+			final IMap<String, Object> s = GamaMapFactory.create(Types.STRING, Types.NO_TYPE);
+			synchronized (schedule) {
+				s.put("parallel_steps", schedule.runs);
+				s.put("agents", schedule.agents);
+				s.put("average_tasks", schedule.tasks / (double) schedule.runs);
+				s.put("average_efficiency", schedule.efficiencies / schedule.runs);
+				s.put("worst_efficiency", schedule.worst);
+			}
+			balance.put(species, s);
+		});
+		result.put("schedules", balance);
+		return result;
+	}
+
+	/**
+	 * Writes the collapsed stacks of the tree.
+	 *
+	 * @param fileName
+	 *            the file name
+	 * @param allocations
+	 *            whether to write the allocations (in bytes) or the time (in microseconds)
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void writeCollapsedStacks(final String fileName, final boolean allocations) throws IOException {
+		try (Writer writer = new BufferedWriter(new FileWriter(fileName))) {
+			final IOException[] error = new IOException[1];
+			root.visit(node -> {
+				if (error[0] != null) return;
+				final long value = allocations ? node.selfBytes() : node.selfNanos() / 1000;
+				if (value <= 0) return;
+				try {
+					writer.append(node.stack()).append(' ').append(String.valueOf(value)).append('\n');
+				} catch (final IOException e) {
+					error[0] = e;
+				}
+			});
+			if (error[0] != null) throw error[0];
+		}
+	}
+
+	/**
+	 * Saves the collapsed stacks and closes the files.
+	 *
+	 * @param experiment
+	 *            the experiment
+	 */
+	public synchronized void saveAndDispose(final IExperimentPlan experiment) {
+		try {
+			if (stepsWriter != null) { stepsWriter.close(); }
+			if (baseName != null) {
+				writeCollapsedStacks(baseName + ".collapsed", false);
+				writeCollapsedStacks(baseName + "_alloc.collapsed", true);
+			}
+		} catch (final IOException e) {
+			GAMA.reportError(experiment.getExperimentScope(),
+					GamaRuntimeException.create(e, experiment.getExperimentScope()), false);
+		} finally {
+			stepsWriter = null;
+			root.children.clear();
+			schedules.clear();
+		}
+	}
+
+}
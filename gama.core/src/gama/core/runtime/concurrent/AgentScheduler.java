@@ -0,0 +1,304 @@
+/*******************************************************************************************************
+ *
+ * AgentScheduler.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.runtime.concurrent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.shape.IShape;
+import gama.core.runtime.GAMA;
+import gama.core.runtime.IScope;
+import gama.core.runtime.benchmark.Profiler;
+import gama.gaml.species.ISpecies;
+
+/**
+ * The scheduler of the agents of a population. It keeps the array of scheduled agents from one step to the next (only
+ * the positions that changed are rewritten) and, when the agents are run in parallel, the time each of them took to
+ * step during the previous cycle. The parallel tasks are then split so as to have the same estimated cost rather than
+ * the same number of agents, which balances the work when some agents are much more expensive than others (e.g. when
+ * a few of them compute paths). Load-balance statistics are reported to the profiler, if any.
+ *
+ * As with {@link ParallelAgentRunner}, all the agents are stepped even if some of them fail: since the ranges depend on
+ * the timings of the previous cycle, stopping a range at the first failure would skip a non-deterministic set of agents.
+ *
+ * Instances are not thread-safe: a population is only stepped by one thread at a time.
+ */
+public class AgentScheduler {
+
+	/** The number of tasks per thread aimed at, to let idle threads steal work. */
+	private static final int TASKS_PER_THREAD = 8;
+
+	/** The minimum estimated cost of a task, in nanoseconds, under which it is not split. */
+	private static final long MIN_TASK_NANOS = 50_000;
+
+	/** The Constant EMPTY. */
+	private static final IShape[] EMPTY = {};
+
+	/** The agents scheduled. */
+	private IShape[] agents = EMPTY;
+
+	/** The number of agents scheduled. */
+	private int count;
+
+	/** Whether the array of agents belongs to the population, in which case it must not be written. */
+	private boolean borrowed;
+
+	/** The cost of each agent during its last step (in ns), or -1 if unknown. */
+	private long[] costs = {};
+
+	/** The cumulative estimated costs. */
+	private long[] cumulative = {};
+
+	/** The mean cost of an agent (in ns), or -1 if not yet measured. */
+	private double meanCost = -1;
+
+	/**
+	 * Prepares the array of agents to schedule from a list. Agents that remain at the same position keep their cost.
+	 *
+	 * @param list
+	 *            the list
+	 * @return the array of agents (only the first {@link #size()} elements are relevant)
+	 */
+	public IShape[] prepare(final List<? extends IShape> list) {
+		final int n = list.size();
+		if (borrowed) {
+			agents = EMPTY;
+			costs = new long[0];
+			count = 0;
+			borrowed = false;
+		}
+		if (agents.length < n) { resize(Math.max(n, agents.length + (agents.length >> 1))); }
+		for (int i = 0; i < n; i++) {
+			final IShape a = list.get(i);
+			if (agents[i] != a) {
+				agents[i] = a;
+				costs[i] = -1;
+			}
+		}
+		// Avoid retaining agents that are no longer scheduled
+		if (count > n) { Arrays.fill(agents, n, count, null); }
+		count = n;
+		return agents;
+	}
+
+	/**
+	 * Prepares the scheduling of an array of agents provided by the population (e.g. the cells of a grid).
+	 *
+	 * @param array
+	 *            the array
+	 * @return the array itself
+	 */
+	public IShape[] prepare(final IShape[] array) {
+		if (array != agents) {
+			agents = array;
+			costs = new long[array.length];
+			Arrays.fill(costs, -1);
+			meanCost = -1;
+			borrowed = true;
+		}
+		count = array.length;
+		return array;
+	}
+
+	/**
+	 * Resize.
+	 *
+	 * @param size
+	 *            the size
+	 */
+	private void resize(final int size) {
+		final int old = agents.length;
+		agents = Arrays.copyOf(agents, size);
+		costs = Arrays.copyOf(costs, size);
+		Arrays.fill(costs, old, size, -1);
+	}
+
+	/**
+	 * Forgets the agents and their costs.
+	 */
+	public void clear() {
+		agents = EMPTY;
+		costs = new long[0];
+		cumulative = new long[0];
+		count = 0;
+		meanCost = -1;
+		borrowed = false;
+	}
+
+	/**
+	 * Returns the array of agents prepared (only the first {@link #size()} elements are relevant).
+	 *
+	 * @return the array
+	 */
+	public IShape[] prepared() {
+		return agents;
+	}
+
+	/**
+	 * Returns the number of agents prepared.
+	 *
+	 * @return the int
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Steps the agents prepared in parallel.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param species
+	 *            the species
+	 * @param threshold
+	 *            the minimum number of agents of a task as long as their cost is unknown
+	 */
+	public void step(final IScope scope, final ISpecies species, final int threshold) {
+		final int n = count;
+		if (n == 0) return;
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		final int parallelism = pool.getParallelism();
+		if (cumulative.length < n + 1) { cumulative = new long[agents.length + 1]; }
+		final long estimate = meanCost < 0 ? 1 : Math.max(1, (long) meanCost);
+		for (int i = 0; i < n; i++) {
+			final long c = costs[i];
+			cumulative[i + 1] = cumulative[i] + (c < 0 ? estimate : c);
+		}
+		final long total = cumulative[n];
+		final long grain = Math.max(total / ((long) parallelism * TASKS_PER_THREAD),
+				meanCost < 0 ? Math.max(1, threshold) * estimate : MIN_TASK_NANOS);
+		final Profiler profiler = GAMA.getProfiler(scope);
+		final Run run = new Run(scope, grain, profiler == null ? null : new AtomicLongArray(parallelism + 1));
+		pool.invoke(run.new Task(0, n));
+		final double measured = run.spent.sum() / (double) Math.max(1, run.stepped.sum());
+		meanCost = meanCost < 0 ? measured : (meanCost + measured) / 2;
+		if (profiler != null) { profiler.recordSchedule(species.getName(), n, run.tasks.intValue(), run.busy); }
+	}
+
+	/**
+	 * A parallel run of the agents.
+	 */
+	private class Run {
+
+		/** The scope. */
+		final IScope scope;
+
+		/** The estimated cost under which a task is not split. */
+		final long grain;
+
+		/** The number of tasks, agents stepped and the time spent. */
+		final LongAdder tasks = new LongAdder(), stepped = new LongAdder(), spent = new LongAdder();
+
+		/** The time spent by each worker (indexed by pool index, the last one for other threads), or null. */
+		final AtomicLongArray busy;
+
+		/**
+		 * Instantiates a new run.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @param grain
+		 *            the grain
+		 * @param busy
+		 *            the busy
+		 */
+		Run(final IScope scope, final long grain, final AtomicLongArray busy) {
+			this.scope = scope;
+			this.grain = grain;
+			this.busy = busy;
+		}
+
+		/**
+		 * A task stepping a range of agents.
+		 */
+		class Task extends RecursiveAction {
+
+			/** The range. */
+			final int begin, end;
+
+			/**
+			 * Instantiates a new task.
+			 *
+			 * @param begin
+			 *            the begin
+			 * @param end
+			 *            the end
+			 */
+			Task(final int begin, final int end) {
+				this.begin = begin;
+				this.end = end;
+			}
+
+			@Override
+			protected void compute() {
+				if (end - begin <= 1 || cumulative[end] - cumulative[begin] <= grain) {
+					executeRange();
+					return;
+				}
+				final int mid = split();
+				invokeAll(new Task(begin, mid), new Task(mid, end));
+			}
+
+			/**
+			 * Finds the index that splits the range in two halves of equal estimated cost.
+			 *
+			 * @return the index
+			 */
+			int split() {
+				final long half = (cumulative[begin] + cumulative[end]) / 2;
+				int lo = begin + 1, hi = end - 1;
+				while (lo < hi) {
+					final int m = lo + hi >>> 1;
+					if (cumulative[m] < half) {
+						lo = m + 1;
+					} else {
+						hi = m;
+					}
+				}
+				return lo;
+			}
+
+			/**
+			 * Steps all the agents of the range, measuring the time each of them takes.
+			 */
+			void executeRange() {
+				final IScope s = scope.copy(" - forked - ");
+				final long start = System.nanoTime();
+				long time = start;
+				int done = 0;
+				for (int i = begin; i < end; i++) {
+					final IAgent agent = (IAgent) agents[i];
+					if (agent == null || agent.dead()) { continue; }
+					s.step(agent);
+					final long now = System.nanoTime();
+					costs[i] = now - time;
+					time = now;
+					done++;
+				}
+				tasks.increment();
+				stepped.add(done);
+				spent.add(time - start);
+				if (busy != null) {
+					final int worker = Thread.currentThread() instanceof ForkJoinWorkerThread w
+							&& w.getPool() == GamaExecutorService.AGENT_PARALLEL_EXECUTOR ? w.getPoolIndex()
+									% (busy.length() - 1) : busy.length() - 1;
+					busy.addAndGet(worker, time - start);
+				}
+			}
+		}
+	}
+
+}
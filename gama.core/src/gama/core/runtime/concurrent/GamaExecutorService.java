@@ -13,6 +13,7 @@ package gama.core.runtime.concurrent;
 import static gama.core.common.preferences.GamaPreferences.create;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
@@ -96,21 +97,84 @@ public abstract class GamaExecutorService {
 					+ "[WARNING: disables reflexes and permanent displays of batch experiments]",
 			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
+	/** The Constant THREAD_POOL. */
+	public static final String THREAD_POOL = "Fixed thread pool";
+
+	/** The Constant WORK_STEALING. */
+	public static final String WORK_STEALING = "Work-stealing pool";
+
+	/** The Constant SIMULATIONS_EXECUTOR. */
+	public static final Pref<String> SIMULATIONS_EXECUTOR = create("pref_parallel_simulations_executor",
+			"Executor used to run simulations (and headless experiments) in parallel. A work-stealing pool lowers the cost of stepping many lightweight simulations",
+			THREAD_POOL, IType.STRING, true).among(THREAD_POOL, WORK_STEALING)
+					.in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant CONCURRENCY_BATCH_ASYNCHRONOUS. */
+	public static final Pref<Boolean> CONCURRENCY_BATCH_ASYNCHRONOUS = create("pref_parallel_batch_asynchronous",
+			"Make batch experiments run each simulation to its end on its own thread, instead of stepping all of them together (the outputs of the experiment are only refreshed once all the simulations are done)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant BATCH_FARM_WORKERS. */
+	public static final Pref<Integer> BATCH_FARM_WORKERS = create("pref_batch_farm_workers",
+			"Number of local headless processes used to run the simulations of batch experiments (0 to run them in GAMA itself)",
+			0, IType.INT, true).between(0, null).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant BATCH_FARM_COMMAND. */
+	public static final Pref<String> BATCH_FARM_COMMAND = create("pref_batch_farm_command",
+			"Command used to launch these processes (if empty, derived from the current one)", "", IType.STRING, true)
+					.in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant BATCH_FARM_TIMEOUT. */
+	public static final Pref<Integer> BATCH_FARM_TIMEOUT = create("pref_batch_farm_timeout",
+			"Maximum duration, in seconds, of a simulation run by these processes, after which the process is restarted (0 for no limit)",
+			3600, IType.INT, true).between(0, null).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant BATCH_FARM_JOURNAL. */
+	public static final Pref<Boolean> BATCH_FARM_JOURNAL = create("pref_batch_farm_journal",
+			"Record the simulations completed by these processes next to the model, so that an interrupted exploration resumes where it stopped",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant BATCH_FITNESS_STORE. */
+	public static final Pref<Boolean> BATCH_FITNESS_STORE = create("pref_batch_fitness_store",
+			"Remember the fitness of the simulations run by calibration experiments, next to the model, so that the solutions already evaluated are not simulated again and an interrupted calibration resumes where it stopped (only for deterministic models; delete the file after modifying the model)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
 	/** The Constant CONCURRENCY_GRID. */
 	public static final Pref<Boolean> CONCURRENCY_GRID = create("pref_parallel_grids",
-			"Make grids schedule their agents in parallel (beware that setting this to true no longer allows GAMA to ensure the reproducibility of simulations)",
+			"Make grids schedule their agents in parallel (beware that setting this to true no longer allows GAMA to ensure the reproducibility of simulations, unless the 'counter' random number generator is used)",
 			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
 	/** The Constant CONCURRENCY_SPECIES. */
 	public static final Pref<Boolean> CONCURRENCY_SPECIES = create("pref_parallel_species",
-			"Make species schedule their agents in parallel (beware that setting this to true no longer allows GAMA to ensure the reproducibility of simulations)",
+			"Make species schedule their agents in parallel (beware that setting this to true no longer allows GAMA to ensure the reproducibility of simulations, unless the 'counter' random number generator is used)",
 			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
+	/** The Constant CONCURRENCY_DIFFUSION. */
+	public static final Pref<Boolean> CONCURRENCY_DIFFUSION = create("pref_parallel_diffusion",
+			"Make diffusions compute large grids in parallel (the results remain identical to the sequential computation)",
+			true, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant CONCURRENCY_OPERATORS. */
+	public static final Pref<Boolean> CONCURRENCY_OPERATORS = create("pref_parallel_operators",
+			"Make the iterator operators (where, collect, count, sum_of, with_max_of, group_by...) evaluate their expression in parallel on large containers (the results are the same, but the expression should not have side effects)",
+			false, IType.BOOL, true).activates("pref_parallel_operators_threshold")
+					.in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant CONCURRENCY_OPERATORS_THRESHOLD. */
+	public static final Pref<Integer> CONCURRENCY_OPERATORS_THRESHOLD = create("pref_parallel_operators_threshold",
+			"Number of elements under which iterator operators are evaluated sequentially", 10000, IType.INT, true)
+					.between(1, null).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
 	/** The Constant CONCURRENCY_THRESHOLD. */
 	public static final Pref<Integer> CONCURRENCY_THRESHOLD =
 			create("pref_parallel_threshold", "Number under which agents are executed sequentially", 20, IType.INT,
 					true).between(1, null).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
+	/** The Constant CONCURRENCY_ADAPTIVE. */
+	public static final Pref<Boolean> CONCURRENCY_ADAPTIVE = create("pref_parallel_adaptive",
+			"Size the tasks used to run agents in parallel after the time they took to step in the previous cycle",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
 	/** The Constant THREADS_NUMBER. */
 	public static final Pref<Integer> THREADS_NUMBER =
 			create("pref_parallel_threads",
@@ -147,6 +211,27 @@ public abstract class GamaExecutorService {
 
 	}
 
+	/**
+	 * Whether simulations (and headless experiments) should be run by a work-stealing pool rather than by a fixed
+	 * thread pool.
+	 *
+	 * @return true, if successful
+	 */
+	public static boolean useWorkStealingForSimulations() {
+		return WORK_STEALING.equals(SIMULATIONS_EXECUTOR.getValue());
+	}
+
+	/**
+	 * Creates a work-stealing pool that reports uncaught exceptions to {@link #EXCEPTION_HANDLER}.
+	 *
+	 * @param nb
+	 *            the number of threads
+	 * @return the fork join pool
+	 */
+	public static ForkJoinPool newWorkStealingPool(final int nb) {
+		return new ForkJoinPool(nb, ForkJoinPool.defaultForkJoinWorkerThreadFactory, EXCEPTION_HANDLER, false);
+	}
+
 	/**
 	 * The Enum Caller.
 	 */
@@ -231,11 +316,35 @@ public abstract class GamaExecutorService {
 	 */
 	public static <A extends IAgent> Boolean step(final IScope scope, final IList<A> pop, final ISpecies species)
 			throws GamaRuntimeException {
+		return step(scope, pop, species, new AgentScheduler());
+	}
+
+	/**
+	 * Step, reusing the scheduler of the population to avoid copying the agents and to balance the parallel tasks
+	 * after the cost of the agents in the previous steps.
+	 *
+	 * @param <A>
+	 *            the generic type
+	 * @param scope
+	 *            the scope
+	 * @param pop
+	 *            the pop
+	 * @param species
+	 *            the species
+	 * @param scheduler
+	 *            the scheduler of the population
+	 * @return the boolean
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	public static <A extends IAgent> Boolean step(final IScope scope, final IList<A> pop, final ISpecies species,
+			final AgentScheduler scheduler) throws GamaRuntimeException {
 		final IExpression schedule = species.getSchedule();
 		final IList<? extends IAgent> agents = schedule == null ? pop : Cast.asList(scope, schedule.value(scope));
 		final int threshold =
 				getParallelism(scope, species.getConcurrency(), species.isGrid() ? Caller.GRID : Caller.SPECIES);
-		return doStep(scope, agents.toArray(new IAgent[agents.size()]), threshold, species);
+		scheduler.prepare(agents);
+		return doStep(scope, scheduler, threshold, species);
 	}
 
 	/**
@@ -255,43 +364,64 @@ public abstract class GamaExecutorService {
 	 */
 	public static <A extends IShape> Boolean step(final IScope scope, final A[] array, final ISpecies species)
 			throws GamaRuntimeException {
+		return step(scope, array, species, new AgentScheduler());
+	}
+
+	/**
+	 * Step, reusing the scheduler of the population.
+	 *
+	 * @param <A>
+	 *            the generic type
+	 * @param scope
+	 *            the scope
+	 * @param array
+	 *            the array
+	 * @param species
+	 *            the species
+	 * @param scheduler
+	 *            the scheduler of the population
+	 * @return the boolean
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	public static <A extends IShape> Boolean step(final IScope scope, final A[] array, final ISpecies species,
+			final AgentScheduler scheduler) throws GamaRuntimeException {
 		final IExpression schedule = species.getSchedule();
-		final IShape[] scheduledAgents;
 		if (schedule == null) {
-			scheduledAgents = array;
+			scheduler.prepare(array);
 		} else {
 			final List<IAgent> agents = Cast.asList(scope, schedule.value(scope));
-			scheduledAgents = agents.toArray(new IAgent[agents.size()]);
+			scheduler.prepare(agents);
 		}
 		final int threshold =
 				getParallelism(scope, species.getConcurrency(), species.isGrid() ? Caller.GRID : Caller.SPECIES);
-		return doStep(scope, scheduledAgents, threshold, species);
+		return doStep(scope, scheduler, threshold, species);
 	}
 
 	/**
 	 * Do step.
 	 *
-	 * @param <A>
-	 *            the generic type
 	 * @param scope
 	 *            the scope
-	 * @param array
-	 *            the array
+	 * @param scheduler
+	 *            the scheduler, holding the agents to step
 	 * @param threshold
 	 *            the threshold
 	 * @param species
 	 *            the species
 	 * @return the boolean
 	 */
-	private static <A extends IShape> Boolean doStep(final IScope scope, final A[] array, final int threshold,
+	private static Boolean doStep(final IScope scope, final AgentScheduler scheduler, final int threshold,
 			final ISpecies species) {
+		final IShape[] array = scheduler.prepared();
+		final int size = scheduler.size();
 		try (final StopWatch w = GAMA.benchmark(scope, species)) {
 			int concurrency = threshold;
-			if (array.length <= threshold) { concurrency = 0; }
+			if (size <= threshold) { concurrency = 0; }
 			switch (concurrency) {
 				case 0:
-					for (final A aa : array) {
-						final IAgent agent = (IAgent) aa;
+					for (int i = 0; i < size; i++) {
+						final IAgent agent = (IAgent) array[i];
 						if (agent.dead()) {
 							continue; // add this condition to avoid the activation of dead agents
 						}
@@ -299,10 +429,18 @@ public abstract class GamaExecutorService {
 					}
 					break;
 				case 1:
-					for (final A agent : array) { executeThreaded(() -> scope.step((IAgent) agent)); }
+					for (int i = 0; i < size; i++) {
+						final IAgent agent = (IAgent) array[i];
+						executeThreaded(() -> scope.step(agent));
+					}
 					break;
 				default:
-					ParallelAgentRunner.step(scope, array, threshold);
+					if (CONCURRENCY_ADAPTIVE.getValue()) {
+						scheduler.step(scope, species, threshold);
+					} else {
+						ParallelAgentRunner.step(scope, size == array.length ? array : Arrays.copyOf(array, size),
+								threshold);
+					}
 			}
 		}
 		return true;
@@ -13,18 +13,25 @@ package gama.core.runtime.concurrent;
 import static gama.core.runtime.concurrent.GamaExecutorService.EXCEPTION_HANDLER;
 import static gama.core.runtime.concurrent.GamaExecutorService.THREADS_NUMBER;
 import static gama.core.runtime.concurrent.GamaExecutorService.getParallelism;
+import static gama.core.runtime.concurrent.GamaExecutorService.newWorkStealingPool;
+import static gama.core.runtime.concurrent.GamaExecutorService.useWorkStealingForSimulations;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import gama.core.common.interfaces.IScopedStepable;
@@ -128,21 +135,47 @@ public class SimulationRunner {
 	 * Step.
 	 */
 	public void step() {
+		final ExecutorService ex = getExecutor();
+		if (ex instanceof ForkJoinPool pool) {
+			try {
+				pool.invoke(new Step(runnables.values()));
+			} catch (final CancellationException | RejectedExecutionException e) {
+				// The runner has been disposed
+			}
+			return;
+		}
 		try {
-			getExecutor().invokeAll(runnables.values());
+			ex.invokeAll(runnables.values());
 		} catch (final InterruptedException e) {
 
 		}
 
 	}
 
+	/**
+	 * Executes a task with the executor of the simulations, outside of the steps. Used to let simulations run on their
+	 * own (e.g. in asynchronous batch experiments).
+	 *
+	 * @param task
+	 *            the task
+	 */
+	public void execute(final Runnable task) {
+		getExecutor().execute(() -> {
+			activeThreads = computeNumberOfThreads();
+			task.run();
+		});
+	}
+
 	/**
 	 * Compute number of threads.
 	 *
 	 * @return the int
 	 */
 	private int computeNumberOfThreads() {
-		return getExecutor() instanceof ThreadPoolExecutor tpe ? Math.min(concurrency, tpe.getActiveCount()) : 1;
+		final ExecutorService ex = getExecutor();
+		if (ex instanceof ThreadPoolExecutor tpe) return Math.min(concurrency, tpe.getActiveCount());
+		if (ex instanceof ForkJoinPool pool) return Math.min(concurrency, pool.getActiveThreadCount());
+		return 1;
 	}
 
 	/**
@@ -151,9 +184,16 @@ public class SimulationRunner {
 	 * @return the executor
 	 */
 	protected ExecutorService getExecutor() {
-		return executor == null
-				? executor = concurrency == 0 ? newSingleThreadExecutor() : new Executor(THREADS_NUMBER.getValue())
-				: executor;
+		if (executor == null) {
+			if (concurrency == 0) {
+				executor = newSingleThreadExecutor();
+			} else if (useWorkStealingForSimulations()) {
+				executor = newWorkStealingPool(THREADS_NUMBER.getValue());
+			} else {
+				executor = new Executor(THREADS_NUMBER.getValue());
+			}
+		}
+		return executor;
 	}
 
 	/**
@@ -187,6 +227,48 @@ public class SimulationRunner {
 		return runnables.size() > 0;
 	}
 
+	/**
+	 * A step of all the simulations, run by a work-stealing pool. Instead of submitting one future per simulation and
+	 * waiting for all of them, the simulations are forked as lightweight tasks that idle workers (and the caller) can
+	 * steal. Exceptions are reported to the handler, as with the fixed thread pool, so that one failing simulation
+	 * does not prevent the others from stepping.
+	 */
+	static class Step extends RecursiveAction {
+
+		/** The callables. */
+		final Iterable<Callable<Boolean>> callables;
+
+		/**
+		 * Instantiates a new step.
+		 *
+		 * @param callables
+		 *            the callables
+		 */
+		Step(final Iterable<Callable<Boolean>> callables) {
+			this.callables = callables;
+		}
+
+		@Override
+		protected void compute() {
+			final List<RecursiveAction> tasks = new ArrayList<>();
+			for (final Callable<Boolean> callable : callables) {
+				tasks.add(new RecursiveAction() {
+
+					@Override
+					protected void compute() {
+						try {
+							callable.call();
+						} catch (final Throwable t) {
+							EXCEPTION_HANDLER.uncaughtException(Thread.currentThread(), t);
+						}
+					}
+				});
+			}
+			invokeAll(tasks);
+		}
+
+	}
+
 	/**
 	 * The Class Executor.
 	 */
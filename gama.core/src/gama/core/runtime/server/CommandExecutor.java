@@ -18,6 +18,7 @@ import static gama.core.runtime.server.ISocketCommand.EXPRESSION;
 import static gama.core.runtime.server.ISocketCommand.LOAD;
 import static gama.core.runtime.server.ISocketCommand.PAUSE;
 import static gama.core.runtime.server.ISocketCommand.PLAY;
+import static gama.core.runtime.server.ISocketCommand.PROFILE;
 import static gama.core.runtime.server.ISocketCommand.RELOAD;
 import static gama.core.runtime.server.ISocketCommand.STEP;
 import static gama.core.runtime.server.ISocketCommand.STEPBACK;
@@ -179,7 +180,8 @@ public class CommandExecutor {
 					entry(RELOAD, DefaultServerCommands::RELOAD), entry(EXPRESSION, DefaultServerCommands::EVAL),
 					entry(EVALUATE, DefaultServerCommands::EVAL), entry(EXIT, DefaultServerCommands::EXIT),
 					entry(DOWNLOAD, DefaultServerCommands::DOWNLOAD), entry(UPLOAD, DefaultServerCommands::UPLOAD),
-					entry(ASK, DefaultServerCommands::ASK), entry(VALIDATE, DefaultServerCommands::VALIDATE));
+					entry(ASK, DefaultServerCommands::ASK), entry(VALIDATE, DefaultServerCommands::VALIDATE),
+					entry(PROFILE, DefaultServerCommands::PROFILE));
 		}
 		return DEFAULT_COMMANDS;
 	}
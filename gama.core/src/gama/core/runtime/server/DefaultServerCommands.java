@@ -42,6 +42,7 @@ import gama.core.metamodel.agent.IAgent;
 import gama.core.runtime.ExecutionResult;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
+import gama.core.runtime.benchmark.Profiler;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.runtime.server.ISocketCommand.CommandException;
 import gama.core.util.IList;
@@ -343,6 +344,35 @@ public class DefaultServerCommands {
 		return new CommandResponse(GamaServerMessage.Type.CommandExecutedSuccessfully, entered, map, escaped);
 	}
 
+	/**
+	 * Profile. Returns a summary of the profile of an experiment (see
+	 * {@link gama.core.common.preferences.GamaPreferences.Experimental#PROFILER}). Accepts an optional 'top' parameter
+	 * to choose the number of hotspots returned (10 by default).
+	 *
+	 * @param server
+	 *            the server
+	 * @param socket
+	 *            the socket
+	 * @param map
+	 *            the map
+	 * @return the gama server message
+	 */
+	public static GamaServerMessage PROFILE(final GamaWebSocketServer server, final WebSocket socket,
+			final IMap<String, Object> map) {
+		IExperimentPlan plan;
+		try {
+			plan = server.retrieveExperimentPlan(socket, map);
+		} catch (CommandException e) {
+			return e.getResponse();
+		}
+		final Profiler profiler = GAMA.getProfiler(plan);
+		if (profiler == null) return new CommandResponse(GamaServerMessage.Type.UnableToExecuteRequest,
+				"This experiment is not being profiled. Enable the profiler in the preferences", map, false);
+		final Object top = map.get("top");
+		return new CommandResponse(GamaServerMessage.Type.CommandExecutedSuccessfully,
+				profiler.getSummary(top == null ? 10 : Cast.asInt(null, top)), map, false);
+	}
+
 	/**
 	 * Ask.
 	 *
@@ -142,6 +142,9 @@ public interface ISocketCommand {
 	/** The validate. This action allows to validate a GAML expression passed as a string */
 	String VALIDATE = "validate";
 
+	/** The profile. This action returns a summary of the profile of the current experiment */
+	String PROFILE = "profile";
+
 	/**
 	 * Execute.
 	 *
@@ -0,0 +1,87 @@
+/*******************************************************************************************************
+ *
+ * GamaBoolList.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util;
+
+import java.util.BitSet;
+
+import gama.gaml.types.IType;
+
+/**
+ * A list of bool whose values are stored in a bitset.
+ */
+public class GamaBoolList extends GamaPrimitiveList<Boolean> {
+
+	/** The values. */
+	private BitSet values;
+
+	/**
+	 * Instantiates a new gama bool list.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 * @param contentType
+	 *            the content type
+	 */
+	protected GamaBoolList(final int capacity, final IType contentType) {
+		super(contentType);
+		values = new BitSet(capacity);
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof Boolean;
+	}
+
+	@Override
+	protected Boolean getAt(final int index) {
+		return values.get(index);
+	}
+
+	@Override
+	protected void setAt(final int index, final Boolean value) {
+		values.set(index, value);
+	}
+
+	@Override
+	protected void ensureCapacity(final int capacity) {
+		// The bitset grows by itself
+	}
+
+	@Override
+	protected void move(final int from, final int to, final int length) {
+		if (from < to) {
+			for (int i = length - 1; i >= 0; i--) { values.set(to + i, values.get(from + i)); }
+		} else {
+			for (int i = 0; i < length; i++) { values.set(to + i, values.get(from + i)); }
+			// The bits left behind are cleared so that cardinality() only counts the values of the list
+			values.clear(to + length, from + length);
+		}
+	}
+
+	@Override
+	protected void reset() {
+		values = new BitSet();
+	}
+
+	@Override
+	protected void copyStorage() {
+		values = (BitSet) values.clone();
+	}
+
+	/**
+	 * The number of values that are true.
+	 *
+	 * @return the int
+	 */
+	public int countTrue() {
+		return values.cardinality();
+	}
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************************************
+ *
+ * GamaFloatList.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+import gama.gaml.types.IType;
+
+/**
+ * A list of float whose values are stored in an array of double.
+ */
+public class GamaFloatList extends GamaPrimitiveList<Double> {
+
+	/** The empty storage. */
+	private static final double[] EMPTY = {};
+
+	/** The values. */
+	private double[] values;
+
+	/**
+	 * Instantiates a new gama float list.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 * @param contentType
+	 *            the content type
+	 */
+	protected GamaFloatList(final int capacity, final IType contentType) {
+		super(contentType);
+		values = capacity == 0 ? EMPTY : new double[capacity];
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof Double;
+	}
+
+	@Override
+	protected Double getAt(final int index) {
+		return values[index];
+	}
+
+	@Override
+	protected void setAt(final int index, final Double value) {
+		values[index] = value;
+	}
+
+	@Override
+	protected void ensureCapacity(final int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, Math.max(4, values.length + (values.length >> 1))));
+		}
+	}
+
+	@Override
+	protected void move(final int from, final int to, final int length) {
+		System.arraycopy(values, from, values, to, length);
+	}
+
+	@Override
+	protected void reset() {
+		values = EMPTY;
+	}
+
+	@Override
+	protected void copyStorage() {
+		values = Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * The sum of the values, computed in the same order as the GAML 'sum' operator.
+	 *
+	 * @return the double
+	 */
+	public double sum() {
+		double sum = 0d;
+		for (int i = 0; i < size; i++) { sum += values[i]; }
+		return sum;
+	}
+
+	/**
+	 * Passes each value, in order, to an action, without copying or boxing them.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	public void forEachDouble(final DoubleConsumer action) {
+		for (int i = 0; i < size; i++) { action.accept(values[i]); }
+	}
+
+	/**
+	 * A copy of the values.
+	 *
+	 * @return the double[]
+	 */
+	public double[] toDoubleArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+}
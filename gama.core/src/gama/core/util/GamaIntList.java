@@ -0,0 +1,110 @@
+/*******************************************************************************************************
+ *
+ * GamaIntList.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+import gama.gaml.types.IType;
+
+/**
+ * A list of int whose values are stored in an array of int.
+ */
+public class GamaIntList extends GamaPrimitiveList<Integer> {
+
+	/** The empty storage. */
+	private static final int[] EMPTY = {};
+
+	/** The values. */
+	private int[] values;
+
+	/**
+	 * Instantiates a new gama int list.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 * @param contentType
+	 *            the content type
+	 */
+	protected GamaIntList(final int capacity, final IType contentType) {
+		super(contentType);
+		values = capacity == 0 ? EMPTY : new int[capacity];
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof Integer;
+	}
+
+	@Override
+	protected Integer getAt(final int index) {
+		return values[index];
+	}
+
+	@Override
+	protected void setAt(final int index, final Integer value) {
+		values[index] = value;
+	}
+
+	@Override
+	protected void ensureCapacity(final int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, Math.max(4, values.length + (values.length >> 1))));
+		}
+	}
+
+	@Override
+	protected void move(final int from, final int to, final int length) {
+		System.arraycopy(values, from, values, to, length);
+	}
+
+	@Override
+	protected void reset() {
+		values = EMPTY;
+	}
+
+	@Override
+	protected void copyStorage() {
+		values = Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * The sum of the values, computed like the GAML 'sum' operator (i.e. with the overflow of int).
+	 *
+	 * @return the int
+	 */
+	public int sum() {
+		int sum = 0;
+		for (int i = 0; i < size; i++) { sum += values[i]; }
+		return sum;
+	}
+
+	/**
+	 * Passes each value, in order, to an action, without copying or boxing them.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	public void forEachDouble(final DoubleConsumer action) {
+		for (int i = 0; i < size; i++) { action.accept(values[i]); }
+	}
+
+	/**
+	 * A copy of the values, as doubles.
+	 *
+	 * @return the double[]
+	 */
+	public double[] toDoubleArray() {
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i++) { result[i] = values[i]; }
+		return result;
+	}
+
+}
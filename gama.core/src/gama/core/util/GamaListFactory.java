@@ -30,6 +30,8 @@ import org.apache.commons.lang3.ArrayUtils;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
+import gama.core.common.preferences.GamaPreferences;
+import gama.core.common.preferences.Pref;
 import gama.core.runtime.IScope;
 import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.gaml.expressions.IExpression;
@@ -482,6 +484,18 @@ public class GamaListFactory {
 	 * @return the i list
 	 */
 	public static <T> IList<T> create(final IType contentType, final int size) {
+		// The preference is null if lists are created while the preferences themselves are initialized
+		final Pref<Boolean> primitives = GamaPreferences.External.PRIMITIVE_LISTS;
+		if (contentType != null && primitives != null && primitives.getValue()) {
+			switch (contentType.id()) {
+				case IType.INT:
+					return (IList<T>) new GamaIntList(size, contentType);
+				case IType.FLOAT:
+					return (IList<T>) new GamaFloatList(size, contentType);
+				case IType.BOOL:
+					return (IList<T>) new GamaBoolList(size, contentType);
+			}
+		}
 		return new GamaList<>(size, contentType);
 	}
 
@@ -0,0 +1,271 @@
+/*******************************************************************************************************
+ *
+ * GamaPrimitiveList.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import gama.core.runtime.IScope;
+import gama.core.runtime.exceptions.GamaRuntimeException;
+import gama.gaml.operators.Cast;
+import gama.gaml.types.GamaType;
+import gama.gaml.types.IContainerType;
+import gama.gaml.types.IType;
+import gama.gaml.types.Types;
+import one.util.streamex.StreamEx;
+
+/**
+ * The common ancestor of the lists that store their values in an array of primitives (or a bitset) instead of an array
+ * of boxed objects. They are created by {@link GamaListFactory} for the lists of int, float and bool.
+ *
+ * As the contract of GAML containers is not always enforced in Java (see
+ * {@link GamaListFactory#createWithoutCasting(IType, Object...)}), a value of another type (or nil) can still be stored
+ * in these lists: in that case, the list copies its values once in a list of objects and goes on using it, so that its
+ * behavior remains the one of a regular list. The subclasses only have to manage their primitive storage.
+ *
+ * @param <E>
+ *            the element type
+ */
+@SuppressWarnings ({ "unchecked", "rawtypes" })
+public abstract class GamaPrimitiveList<E> extends AbstractList<E> implements IList<E>, RandomAccess, Cloneable {
+
+	/** The type. */
+	private IContainerType type;
+
+	/** The number of values in the primitive storage. */
+	protected int size;
+
+	/** The list of objects used instead of the primitive storage once a value of another type has been stored. */
+	private ArrayList<E> boxed;
+
+	/**
+	 * Instantiates a new gama primitive list.
+	 *
+	 * @param contentType
+	 *            the content type
+	 */
+	protected GamaPrimitiveList(final IType contentType) {
+		type = Types.LIST.of(contentType);
+	}
+
+	/**
+	 * Whether a value can be stored in the primitive storage.
+	 *
+	 * @param value
+	 *            the value
+	 * @return true, if successful
+	 */
+	protected abstract boolean accepts(Object value);
+
+	/**
+	 * Returns the value stored at an index of the primitive storage.
+	 *
+	 * @param index
+	 *            the index
+	 * @return the e
+	 */
+	protected abstract E getAt(int index);
+
+	/**
+	 * Stores a value (accepted by {@link #accepts(Object)}) at an index of the primitive storage.
+	 *
+	 * @param index
+	 *            the index
+	 * @param value
+	 *            the value
+	 */
+	protected abstract void setAt(int index, E value);
+
+	/**
+	 * Makes sure that the primitive storage can hold a number of values.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 */
+	protected abstract void ensureCapacity(int capacity);
+
+	/**
+	 * Moves a range of values inside the primitive storage.
+	 *
+	 * @param from
+	 *            the index of the first value to move
+	 * @param to
+	 *            the index where it is moved
+	 * @param length
+	 *            the number of values to move
+	 */
+	protected abstract void move(int from, int to, int length);
+
+	/**
+	 * Replaces the primitive storage by an empty one (when the list is cleared or uses a list of objects instead).
+	 */
+	protected abstract void reset();
+
+	/**
+	 * Replaces the primitive storage of a freshly cloned list by a copy.
+	 */
+	protected abstract void copyStorage();
+
+	/**
+	 * Whether the values are still stored as primitives, i.e. whether the fast paths offered by the subclasses can be
+	 * used.
+	 *
+	 * @return true, if is primitive
+	 */
+	public boolean isPrimitive() { return boxed == null; }
+
+	/**
+	 * Copies the values in a list of objects, which is used from now on instead of the primitive storage.
+	 */
+	private void box() {
+		final ArrayList<E> list = new ArrayList<>(Math.max(size, 4));
+		for (int i = 0; i < size; i++) { list.add(getAt(i)); }
+		boxed = list;
+		size = 0;
+		reset();
+	}
+
+	@Override
+	public IContainerType<?> getGamlType() { return type; }
+
+	@Override
+	public int size() {
+		return boxed == null ? size : boxed.size();
+	}
+
+	@Override
+	public E get(final int index) {
+		if (boxed != null) return boxed.get(index);
+		Objects.checkIndex(index, size);
+		return getAt(index);
+	}
+
+	@Override
+	public E set(final int index, final E value) {
+		if (boxed == null && !accepts(value)) { box(); }
+		if (boxed != null) return boxed.set(index, value);
+		Objects.checkIndex(index, size);
+		final E old = getAt(index);
+		setAt(index, value);
+		return old;
+	}
+
+	@Override
+	public boolean add(final E value) {
+		add(size(), value);
+		return true;
+	}
+
+	@Override
+	public void add(final int index, final E value) {
+		if (boxed == null && !accepts(value)) { box(); }
+		modCount++;
+		if (boxed != null) {
+			boxed.add(index, value);
+			return;
+		}
+		Objects.checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+		move(index, index + 1, size - index);
+		setAt(index, value);
+		size++;
+	}
+
+	@Override
+	public E remove(final int index) {
+		modCount++;
+		if (boxed != null) return boxed.remove(index);
+		Objects.checkIndex(index, size);
+		final E old = getAt(index);
+		move(index + 1, index, size - index - 1);
+		size--;
+		return old;
+	}
+
+	@Override
+	protected void removeRange(final int fromIndex, final int toIndex) {
+		modCount++;
+		if (boxed != null) {
+			boxed.subList(fromIndex, toIndex).clear();
+			return;
+		}
+		move(toIndex, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		// A cleared list can use its primitive storage again
+		boxed = null;
+		size = 0;
+		reset();
+	}
+
+	@Override
+	public StreamEx<E> stream(final IScope scope) {
+		return StreamEx.<E> of(this);
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (other == this) return true;
+		if (!(other instanceof IList)) return false;
+		return GamaListFactory.equals(this, (IList) other);
+	}
+
+	@Override
+	public IList<E> listValue(final IScope scope, final IType contentsType, final boolean copy) {
+		if (!GamaType.requiresCasting(contentsType, getGamlType().getContentType())) {
+			if (copy) return cloneWithContentType(contentsType);
+			return this;
+		}
+		final int n = size();
+		final IList result = GamaListFactory.create(contentsType, n);
+		for (int i = 0; i < n; i++) { result.addValue(scope, get(i)); }
+		return result;
+	}
+
+	/**
+	 * Clone with content type.
+	 *
+	 * @param contentType
+	 *            the content type
+	 * @return the gama primitive list
+	 */
+	private GamaPrimitiveList<E> cloneWithContentType(final IType contentType) {
+		try {
+			final GamaPrimitiveList<E> clone = (GamaPrimitiveList<E>) super.clone();
+			clone.type = Types.LIST.of(contentType);
+			if (boxed != null) {
+				clone.boxed = new ArrayList<>(boxed);
+			} else {
+				clone.copyStorage();
+			}
+			return clone;
+		} catch (final CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+	}
+
+	@Override
+	public IList<E> copy(final IScope scope) {
+		return cloneWithContentType(type.getContentType());
+	}
+
+	@Override
+	public E getFromIndicesList(final IScope scope, final IList indices) throws GamaRuntimeException {
+		if (indices == null || indices.isEmpty()) return null;
+		return get(scope, Cast.asInt(scope, indices.get(0)));
+	}
+
+}
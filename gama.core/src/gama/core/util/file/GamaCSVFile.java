@@ -10,9 +10,13 @@
  ********************************************************************************************************/
 package gama.core.util.file;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -21,6 +25,7 @@ import gama.annotations.precompiler.GamlAnnotations.doc;
 import gama.annotations.precompiler.GamlAnnotations.example;
 import gama.annotations.precompiler.GamlAnnotations.file;
 import gama.core.common.geometry.Envelope3D;
+import gama.core.common.preferences.GamaPreferences;
 import gama.core.metamodel.shape.GamaPoint;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
@@ -28,6 +33,7 @@ import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
 import gama.core.util.IList;
 import gama.core.util.file.csv.CsvReader;
+import gama.core.util.file.csv.MappedCsvParser;
 import gama.core.util.file.csv.AbstractCSVManipulator.Letters;
 import gama.core.util.matrix.GamaFloatMatrix;
 import gama.core.util.matrix.GamaIntMatrix;
@@ -35,6 +41,7 @@ import gama.core.util.matrix.GamaObjectMatrix;
 import gama.core.util.matrix.IMatrix;
 import gama.gaml.operators.Cast;
 import gama.gaml.operators.Strings;
+import gama.gaml.statements.save.SaveWriters;
 import gama.gaml.types.GamaMatrixType;
 import gama.gaml.types.IContainerType;
 import gama.gaml.types.IType;
@@ -106,6 +113,9 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 	 */
 	public static class CSVInfo extends GamaFileMetaData {
 
+		/** The number of records used to infer the type of the contents. */
+		static final int SAMPLE_SIZE = 1000;
+
 		/** The cols. */
 		public int cols;
 
@@ -137,7 +147,7 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 		public CSVInfo(final String fileName, final long modificationStamp, final String CSVsep) {
 			super(modificationStamp);
 			try (CsvReader reader = new CsvReader(fileName)) {
-				process(reader, CSVsep);
+				process(reader, CSVsep, new File(fileName));
 			} catch (FileNotFoundException e) {}
 		}
 
@@ -150,9 +160,26 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 		 *            the CS vsep
 		 */
 		public void process(final CsvReader reader, final String CSVsep) {
+			process(reader, CSVsep, null);
+		}
+
+		/**
+		 * Process. The type of the contents is inferred from a sample of the records and, if the file can be mapped
+		 * in memory, the remaining ones are counted in parallel rather than parsed.
+		 *
+		 * @param reader
+		 *            the reader
+		 * @param CSVsep
+		 *            the CS vsep
+		 * @param file
+		 *            the file read by the reader, or null
+		 */
+		public void process(final CsvReader reader, final String CSVsep, final File file) {
 			// By default now (see #3786)
 			// reader.setTextQualifier(AbstractCSVManipulator.getDefaultQualifier());
 			boolean firstLineHasNumber = false;
+			IType sampled = null;
+			int counted = -1;
 			try {
 				// firstLine
 				final String s = reader.skipLine();
@@ -170,13 +197,30 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 					// We process the second line
 					type = processRecord(reader.getValues());
 				}
-				while (reader.readRecord()) { if (reader.columnsCount > cols) { cols = reader.columnsCount; } }
+				sampled = type;
+				final boolean secondLineHasNumber = atLeastOneNumber;
+				// Integers become floats if some of the sampled records contain floats
+				while (reader.currentRecord < SAMPLE_SIZE && reader.readRecord()) {
+					if (processRecord(reader.getValues()) == Types.FLOAT && sampled == Types.INT) {
+						sampled = Types.FLOAT;
+					}
+				}
+				atLeastOneNumber = secondLineHasNumber;
+				final MappedCsvParser parser =
+						file == null ? null : MappedCsvParser.open(file, delimiter, reader.textQualifier);
+				if (parser != null) {
+					counted = parser.getRows();
+					if (parser.getCols() > cols) { cols = parser.getCols(); }
+				} else {
+					while (reader.readRecord()) { if (reader.columnsCount > cols) { cols = reader.columnsCount; } }
+				}
 			} catch (final IOException e) {}
 			if (!type.equals(firstLineType) || !firstLineHasNumber && atLeastOneNumber) {
 				header = true;
 				cols = headers.length;
 			}
-			rows = (int) reader.currentRecord + 1;
+			if (sampled != null) { type = sampled; }
+			rows = counted >= 0 ? counted : (int) reader.currentRecord + 1;
 			reader.close();
 		}
 
@@ -617,9 +661,13 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 		return info;
 	}
 
-	@Override
-	public void fillBuffer(final IScope scope) {
-		if (getBuffer() != null) return;
+	/**
+	 * Computes the separator, type of contents, size and presence of a header that have not been specified.
+	 *
+	 * @param scope
+	 *            the scope
+	 */
+	private void computeFormat(final IScope scope) {
 		if (csvSeparator == null || contentsType == null || userSize == null) {
 			scope.getGui().getStatus().beginSubStatus(scope, "Opening file " + getName(scope));
 			final CSVInfo stats = getInfo(scope, csvSeparator);
@@ -632,6 +680,12 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 			hasHeader = hasHeader == null ? stats.header : hasHeader;
 			scope.getGui().getStatus().endSubStatus(scope, "");
 		}
+	}
+
+	@Override
+	public void fillBuffer(final IScope scope) {
+		if (getBuffer() != null) return;
+		computeFormat(scope);
 		try (CsvReader reader = new CsvReader(getPath(scope), csvSeparator.charAt(0))) {
 			reader.setTextQualifier(textQualifier);
 			if (hasHeader) {
@@ -680,7 +734,15 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 		IMatrix matrix;
 		try {
 			scope.getGui().getStatus().beginSubStatus(scope, "Reading file " + getName(scope));
-			if (t == IType.INT) {
+			final MappedCsvParser parser = t == IType.INT || t == IType.FLOAT ? openParser(scope) : null;
+			if (t == IType.INT && parser != null) {
+				matrix = new GamaIntMatrix(userSize);
+				parser.parseInts(scope, ((GamaIntMatrix) matrix).getMatrix(), matrix.getCols(scope), hasHeader ? 1 : 0);
+			} else if (t == IType.FLOAT && parser != null) {
+				matrix = new GamaFloatMatrix(userSize);
+				parser.parseDoubles(scope, ((GamaFloatMatrix) matrix).getMatrix(), matrix.getCols(scope),
+						hasHeader ? 1 : 0);
+			} else if (t == IType.INT) {
 				matrix = new GamaIntMatrix(userSize);
 				final int[] m = ((GamaIntMatrix) matrix).getMatrix();
 				int i = 0;
@@ -745,6 +807,206 @@ public class GamaCSVFile extends GamaFile<IMatrix<Object>, Object> implements IF
 		}
 	}
 
+	/**
+	 * Opens a parser that reads the file in parallel from a memory mapping, if possible.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the parser, or null if the file has to be read sequentially
+	 */
+	private MappedCsvParser openParser(final IScope scope) {
+		try {
+			return MappedCsvParser.open(getFile(scope), csvSeparator.charAt(0), textQualifier);
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Whether the contents of the file, not yet loaded, are large enough to be read row by row when used to create
+	 * agents or in loops (see {@link GamaPreferences.External#CSV_STREAMING_THRESHOLD}).
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return true, if the file should be streamed
+	 */
+	public boolean isStreamed(final IScope scope) {
+		final int threshold = GamaPreferences.External.CSV_STREAMING_THRESHOLD.getValue();
+		return getBuffer() == null && threshold > 0 && getFile(scope).length() > threshold * 1024L * 1024L;
+	}
+
+	/**
+	 * Returns an iterator over the rows of the file, read one at a time without loading the contents. The rows are
+	 * lists of the values (converted to the type of the contents) completed, like the rows of the matrix, by default
+	 * values if needed. The file is closed when the last row has been read.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the row iterator
+	 */
+	public RowIterator rowIterator(final IScope scope) {
+		SaveWriters.flush(getFile(scope));
+		computeFormat(scope);
+		try {
+			return new RowIterator(scope);
+		} catch (final IOException e) {
+			throw GamaRuntimeException.create(e, scope);
+		}
+	}
+
+	/**
+	 * Returns the cells of the file, row by row as in the matrix. When the file is streamed, the iterators returned are
+	 * {@link Closeable}: the file is closed when the last cell has been read, and should be closed by the callers that
+	 * stop before.
+	 */
+	@Override
+	public Iterable<? extends Object> iterable(final IScope scope) {
+		if (!isStreamed(scope)) return super.iterable(scope);
+		return () -> new CellIterator(rowIterator(scope));
+	}
+
+	/**
+	 * An iterator over the cells of the file, row by row.
+	 */
+	public static class CellIterator implements Iterator<Object>, Closeable {
+
+		/** The rows. */
+		final RowIterator rows;
+
+		/** The current row. */
+		IList<Object> row;
+
+		/** The index of the next cell in the current row. */
+		int index;
+
+		/**
+		 * Instantiates a new cell iterator.
+		 *
+		 * @param rows
+		 *            the rows
+		 */
+		CellIterator(final RowIterator rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (row == null || index >= row.size()) {
+				if (!rows.hasNext()) return false;
+				row = rows.next();
+				index = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			return row.get(index++);
+		}
+
+		@Override
+		public void close() {
+			rows.close();
+		}
+	}
+
+	/**
+	 * An iterator over the rows of the file.
+	 */
+	public class RowIterator implements Iterator<IList<Object>>, Closeable {
+
+		/** The scope. */
+		final IScope scope;
+
+		/** The reader. */
+		final CsvReader reader;
+
+		/** The headers, or null if the file has no header. */
+		final IList<String> rowHeaders;
+
+		/** The number of columns. */
+		final int cols;
+
+		/** Whether a record has been read and not yet returned, and whether the end has been reached. */
+		boolean ready, done;
+
+		/**
+		 * Instantiates a new row iterator.
+		 *
+		 * @param scope
+		 *            the scope
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		RowIterator(final IScope scope) throws IOException {
+			this.scope = scope;
+			reader = new CsvReader(getPath(scope), csvSeparator.charAt(0));
+			reader.setTextQualifier(textQualifier);
+			if (hasHeader) {
+				reader.readHeaders();
+				rowHeaders = GamaListFactory.createWithoutCasting(Types.STRING, reader.getHeaders());
+				cols = rowHeaders.size();
+			} else {
+				rowHeaders = null;
+				cols = (int) userSize.x;
+			}
+		}
+
+		/**
+		 * Gets the headers.
+		 *
+		 * @return the headers, or null if the file has no header
+		 */
+		public IList<String> getHeaders() { return rowHeaders; }
+
+		/**
+		 * Gets the number of columns.
+		 *
+		 * @return the cols
+		 */
+		public int getCols() { return cols; }
+
+		@Override
+		public boolean hasNext() {
+			if (!ready && !done) {
+				try {
+					ready = reader.readRecord();
+				} catch (final IOException e) {
+					ready = false;
+				}
+				if (!ready) { close(); }
+			}
+			return ready;
+		}
+
+		@Override
+		public IList<Object> next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			ready = false;
+			final String[] values = reader.getValues();
+			final int t = contentsType.id();
+			final IList<Object> row = GamaListFactory.create(contentsType, cols);
+			for (int j = 0; j < cols; j++) {
+				final String s = j < values.length ? values[j] : null;
+				if (t == IType.INT) {
+					row.add(s == null ? 0 : Cast.asInt(scope, s));
+				} else if (t == IType.FLOAT) {
+					row.add(s == null ? 0d : Cast.asFloat(scope, s));
+				} else {
+					row.add(s);
+				}
+			}
+			return row;
+		}
+
+		@Override
+		public void close() {
+			done = true;
+			reader.close();
+		}
+	}
+
 	/**
 	 * Method computeEnvelope()
 	 *
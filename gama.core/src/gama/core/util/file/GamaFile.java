@@ -35,6 +35,7 @@ import gama.dependencies.webb.WebbException;
 import gama.gaml.expressions.IExpression;
 import gama.gaml.operators.Cast;
 import gama.gaml.statements.Facets;
+import gama.gaml.statements.save.SaveWriters;
 import gama.gaml.types.IType;
 import one.util.streamex.StreamEx;
 
@@ -468,8 +469,12 @@ public abstract class GamaFile<Container extends IAddressableContainer & IModifi
 
 	@Override
 	public Container getContents(final IScope scope) throws GamaRuntimeException {
-		if (buffer == null && !exists(scope))
-			throw GamaRuntimeException.error("File " + getFile(scope).getAbsolutePath() + " does not exist", scope);
+		if (buffer == null) {
+			// The contents saved in this file during the current step may still be buffered
+			SaveWriters.flush(getFile(scope));
+			if (!exists(scope))
+				throw GamaRuntimeException.error("File " + getFile(scope).getAbsolutePath() + " does not exist", scope);
+		}
 		fillBuffer(scope);
 		return getBuffer();
 	}
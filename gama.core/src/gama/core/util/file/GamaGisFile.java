@@ -12,12 +12,16 @@ package gama.core.util.file;
 
 import static gama.core.common.geometry.GeometryUtils.GEOMETRY_FACTORY;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
 
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.locationtech.jts.geom.CoordinateFilter;
@@ -25,6 +29,7 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.Feature;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import com.google.common.cache.Cache;
@@ -41,6 +46,7 @@ import gama.core.metamodel.topology.projection.IProjection;
 import gama.core.metamodel.topology.projection.ProjectionFactory;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
+import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.Collector;
 import gama.core.util.GamaListFactory;
@@ -75,6 +81,9 @@ public abstract class GamaGisFile extends GamaGeometryFile {
 	/** The with 3 D. */
 	protected boolean with3D = false;
 
+	/** The Constant BATCH_SIZE: the number of features cleaned and projected by each task. */
+	static final int BATCH_SIZE = 1024;
+
 	// Faire les tests sur ALREADY_PROJECTED ET LE PASSER AUSSI A GIS UTILS ???
 
 	/** The CRS cache. */
@@ -152,40 +161,115 @@ public abstract class GamaGisFile extends GamaGeometryFile {
 	 *            the scope
 	 */
 	protected void readShapes(final IScope scope) {
+		try {
+			readFeatures(scope);
+		} catch (final IOException e) {
+			throw GamaRuntimeException.create(e, scope);
+		}
+	}
+
+	/**
+	 * Reads the features of the file. They are read sequentially, while their geometries are cleaned and projected in
+	 * parallel, by batches. If the file can be cached (see {@link #getCacheKey(IScope)}), the shapes are read from the
+	 * cache when it is valid, and written to it otherwise.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	protected final void readFeatures(final IScope scope) throws IOException {
 		ProgressCounter counter = new ProgressCounter(scope, "Reading " + getName(scope));
 		SimpleFeatureCollection collection = getFeatureCollection(scope);
 		computeEnvelope(scope);
-		try {
-			collection.accepts(feature -> {
-				Geometry g = (Geometry) feature.getDefaultGeometryProperty().getValue();
-				if (g != null && !g.isEmpty() /* Fix for Issue 725 && 677 */ ) {
-					if (!with3D && !g.isValid()) { g = GeometryUtils.cleanGeometry(g); }
-					g = gis.transform(g);
-					if (!with3D) {
-						g.apply(ZERO_Z);
-						g.geometryChanged();
+		final String key = getCacheKey(scope);
+		final File cache = key == null ? null : GamaShapeCache.fileOf(getFile(scope));
+		if (cache != null) {
+			final List<IShape> shapes = GamaShapeCache.read(cache, key);
+			if (shapes != null) {
+				if (!with3D) {
+					for (final IShape shape : shapes) {
+						shape.getInnerGeometry().apply(ZERO_Z);
+						shape.getInnerGeometry().geometryChanged();
 					}
-					g = multiPolygonManagement(g);
-					GamaShape gt = new GamaGisGeometry(g, feature);
-					if (gt.getInnerGeometry() != null) { getBuffer().add(gt); }
-				} else if (g == null) {
-					// See Issue 725
-					GAMA.reportError(scope,
-							GamaRuntimeException.warning(
-									"geometry could not be added as it is " + "nil: " + feature.getIdentifier(), scope),
-							false);
 				}
-			}, counter);
-		} catch (final IOException e) {
-			throw GamaRuntimeException.create(e, scope);
+				getBuffer().addAll(shapes);
+				return;
+			}
 		}
-		// finally {
-		// if (store != null) { store.dispose(); }
-		// }
-		// if (size > list.size()) {
-		// reportError(scope, warning("Problem with file " + getFile(scope) + ": only " + list.size() + " of the "
-		// + size + " geometries could be added", scope), false);
-		// }
+		final List<ForkJoinTask<List<IShape>>> tasks = new ArrayList<>();
+		final List<Feature> batch = new ArrayList<>(BATCH_SIZE);
+		final int[] indexOfGeometry = { 0 };
+		collection.accepts(feature -> {
+			Geometry g = (Geometry) feature.getDefaultGeometryProperty().getValue();
+			if (g != null && !g.isEmpty() /* Fix for Issue 725 && 677 */ ) {
+				batch.add(feature);
+				if (batch.size() == BATCH_SIZE) {
+					tasks.add(toShapes(List.copyOf(batch)));
+					batch.clear();
+				}
+			} else if (g == null) {
+				// See Issue 725
+				GAMA.reportError(scope,
+						GamaRuntimeException.warning("geometry #" + indexOfGeometry[0]
+								+ " could not be added as it is nil (identifier: " + feature.getIdentifier() + ")",
+								scope),
+						false);
+			}
+			indexOfGeometry[0]++;
+		}, counter);
+		if (!batch.isEmpty()) { tasks.add(toShapes(List.copyOf(batch))); }
+		for (final ForkJoinTask<List<IShape>> task : tasks) { getBuffer().addAll(task.join()); }
+		if (cache != null) { GamaShapeCache.write(cache, key, getBuffer()); }
+	}
+
+	/**
+	 * Submits the cleaning and projection of a batch of features, and their transformation into shapes.
+	 *
+	 * @param features
+	 *            the features
+	 * @return the task computing the shapes
+	 */
+	private ForkJoinTask<List<IShape>> toShapes(final List<Feature> features) {
+		return GamaExecutorService.AGENT_PARALLEL_EXECUTOR.submit(() -> {
+			final List<IShape> result = new ArrayList<>(features.size());
+			for (final Feature feature : features) {
+				Geometry g = clean((Geometry) feature.getDefaultGeometryProperty().getValue());
+				g = gis.transform(g);
+				if (!with3D) {
+					g.apply(ZERO_Z);
+					g.geometryChanged();
+				}
+				g = multiPolygonManagement(g);
+				GamaShape gt = new GamaGisGeometry(g, feature);
+				if (gt.getInnerGeometry() != null) { result.add(gt); }
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Cleans a geometry before it is projected. Called in parallel.
+	 *
+	 * @param g
+	 *            the geometry
+	 * @return the geometry cleaned
+	 */
+	protected Geometry clean(final Geometry g) {
+		if (!with3D && !g.isValid()) return GeometryUtils.cleanGeometry(g);
+		return g;
+	}
+
+	/**
+	 * Returns the key identifying the contents of this file, once projected, in a cache (see {@link GamaShapeCache}).
+	 * The key must change when the file or the projection change.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the cache key, or null (the default) if this file is not cached
+	 */
+	protected String getCacheKey(final IScope scope) {
+		return null;
 	}
 
 	/**
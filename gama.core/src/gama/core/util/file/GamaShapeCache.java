@@ -0,0 +1,263 @@
+/*******************************************************************************************************
+ *
+ * GamaShapeCache.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+
+import gama.core.common.geometry.GeometryUtils;
+import gama.core.metamodel.shape.GamaGisGeometry;
+import gama.core.metamodel.shape.IShape;
+import gama.core.runtime.concurrent.GamaExecutorService;
+import gama.dev.DEBUG;
+
+/**
+ * A cache of the geometries (already cleaned and projected) and attributes read from a GIS file, stored next to it so
+ * that the subsequent loads do not need to read and project the file again. The cache is identified by a key (built
+ * from the stamps of the source files and from the projection used), and is discarded if this key changes.
+ *
+ * The cache is made of a header (key, number of shapes, names of the attributes), of the values of the attributes
+ * (column by column), of the geometries themselves, in WKB, and of their offsets. These are memory-mapped and decoded
+ * in parallel when the cache is read.
+ */
+public class GamaShapeCache {
+
+	/** The Constant MAGIC. */
+	private static final long MAGIC = 0x47414D4153485031L; // "GAMASHP1"
+
+	/** The Constant BATCH_SIZE: the number of geometries decoded by each task. */
+	private static final int BATCH_SIZE = 4096;
+
+	/** The tags of the values of the attributes. */
+	private static final byte NULL = 0, STRING = 1, INT = 2, LONG = 3, DOUBLE = 4, FLOAT = 5, BOOLEAN = 6, DATE = 7,
+			SHORT = 8, DECIMAL = 9;
+
+	/**
+	 * Returns the file of the cache of a GIS file (a hidden file in the same folder).
+	 *
+	 * @param source
+	 *            the source
+	 * @return the file
+	 */
+	public static File fileOf(final File source) {
+		return new File(source.getParentFile(), "." + source.getName() + ".cache");
+	}
+
+	/**
+	 * Reads the shapes stored in a cache.
+	 *
+	 * @param cache
+	 *            the cache
+	 * @param key
+	 *            the key expected
+	 * @return the shapes, or null if the cache does not exist or does not correspond to the key
+	 */
+	public static List<IShape> read(final File cache, final String key) {
+		if (!cache.exists()) return null;
+		try (FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			if (in.readLong() != MAGIC || !key.equals(in.readUTF())) return null;
+			final int count = in.readInt();
+			final String[] names = new String[in.readInt()];
+			for (int i = 0; i < names.length; i++) { names[i] = in.readUTF(); }
+			final Object[][] columns = new Object[names.length][count];
+			for (final Object[] column : columns) {
+				for (int j = 0; j < count; j++) { column[j] = readValue(in); }
+			}
+			final ByteBuffer trailer = ByteBuffer.allocate(16);
+			channel.read(trailer, channel.size() - 16);
+			trailer.flip();
+			final long geometriesStart = trailer.getLong();
+			final long offsetsStart = trailer.getLong();
+			final LongBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, offsetsStart, (count + 1) * 8L)
+					.asLongBuffer();
+			final IShape[] shapes = new IShape[count];
+			final int batches = (count + BATCH_SIZE - 1) / BATCH_SIZE;
+			final IOException[] error = new IOException[1];
+			GamaExecutorService.executeThreaded(() -> IntStream.range(0, batches).parallel().forEach(b -> {
+				final int first = b * BATCH_SIZE;
+				final int last = Math.min(count, first + BATCH_SIZE);
+				try {
+					final long start = offsets.get(first);
+					final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, geometriesStart + start,
+							offsets.get(last) - start);
+					final WKBReader reader = new WKBReader(GeometryUtils.GEOMETRY_FACTORY);
+					for (int i = first; i < last; i++) {
+						final byte[] wkb = new byte[(int) (offsets.get(i + 1) - offsets.get(i))];
+						buffer.get(wkb);
+						final Geometry g = reader.read(wkb);
+						final IShape shape = new GamaGisGeometry(g, null);
+						for (int c = 0; c < names.length; c++) { shape.setAttribute(names[c], columns[c][i]); }
+						shapes[i] = shape;
+					}
+				} catch (final IOException e) {
+					error[0] = e;
+				} catch (final ParseException e) {
+					error[0] = new IOException(e);
+				}
+			}));
+			if (error[0] != null) throw error[0];
+			return List.of(shapes);
+		} catch (final IOException e) {
+			DEBUG.LOG("Impossible to read the cache " + cache.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the shapes in a cache. Nothing is written if the attributes of the shapes differ or contain values that
+	 * cannot be stored. The cache is first written to a temporary file, then moved.
+	 *
+	 * @param cache
+	 *            the cache
+	 * @param key
+	 *            the key
+	 * @param shapes
+	 *            the shapes
+	 */
+	public static void write(final File cache, final String key, final List<? extends IShape> shapes) {
+		final int count = shapes.size();
+		final Map<String, Object> first = count == 0 ? null : shapes.get(0).getAttributes(false);
+		final List<String> names = first == null ? List.of() : new ArrayList<>(first.keySet());
+		for (final IShape shape : shapes) {
+			final Map<String, Object> attributes = shape.getAttributes(false);
+			if ((attributes == null ? 0 : attributes.size()) != names.size()
+					|| attributes != null && !attributes.keySet().containsAll(names))
+				return;
+		}
+		File temp = null;
+		try {
+			temp = File.createTempFile(cache.getName(), null, cache.getParentFile());
+			try (FileOutputStream file = new FileOutputStream(temp);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+				out.writeLong(MAGIC);
+				out.writeUTF(key);
+				out.writeInt(count);
+				out.writeInt(names.size());
+				for (final String name : names) { out.writeUTF(name); }
+				for (final String name : names) {
+					for (final IShape shape : shapes) { writeValue(out, shape.getAttributes(false).get(name)); }
+				}
+				final WKBWriter writer = new WKBWriter(3);
+				out.flush();
+				final long geometriesStart = file.getChannel().position();
+				final long[] offsets = new long[count + 1];
+				for (int i = 0; i < count; i++) {
+					final byte[] wkb = writer.write(shapes.get(i).getInnerGeometry());
+					out.write(wkb);
+					offsets[i + 1] = offsets[i] + wkb.length;
+				}
+				out.flush();
+				final long offsetsStart = file.getChannel().position();
+				for (final long offset : offsets) { out.writeLong(offset); }
+				out.writeLong(geometriesStart);
+				out.writeLong(offsetsStart);
+			}
+			Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (final IOException e) {
+			DEBUG.LOG("Impossible to write the cache " + cache.getName() + ": " + e.getMessage());
+			if (temp != null) { temp.delete(); }
+		}
+	}
+
+	/**
+	 * Writes the value of an attribute.
+	 *
+	 * @param out
+	 *            the out
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             if the value cannot be stored
+	 */
+	private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String s) {
+			out.writeByte(STRING);
+			out.writeUTF(s);
+		} else if (value instanceof Integer i) {
+			out.writeByte(INT);
+			out.writeInt(i);
+		} else if (value instanceof Long l) {
+			out.writeByte(LONG);
+			out.writeLong(l);
+		} else if (value instanceof Double d) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(d);
+		} else if (value instanceof Float f) {
+			out.writeByte(FLOAT);
+			out.writeFloat(f);
+		} else if (value instanceof Boolean b) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean(b);
+		} else if (value instanceof Date d) {
+			out.writeByte(DATE);
+			out.writeLong(d.getTime());
+		} else if (value instanceof Short s) {
+			out.writeByte(SHORT);
+			out.writeShort(s);
+		} else if (value instanceof BigDecimal d) {
+			out.writeByte(DECIMAL);
+			out.writeUTF(d.toString());
+		} else
+			throw new IOException("attributes of type " + value.getClass().getSimpleName() + " cannot be cached");
+	}
+
+	/**
+	 * Reads the value of an attribute.
+	 *
+	 * @param in
+	 *            the in
+	 * @return the object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static Object readValue(final DataInputStream in) throws IOException {
+		final byte tag = in.readByte();
+		return switch (tag) {
+			case NULL -> null;
+			case STRING -> in.readUTF();
+			case INT -> in.readInt();
+			case LONG -> in.readLong();
+			case DOUBLE -> in.readDouble();
+			case FLOAT -> in.readFloat();
+			case BOOLEAN -> in.readBoolean();
+			case DATE -> new Date(in.readLong());
+			case SHORT -> in.readShort();
+			case DECIMAL -> new BigDecimal(in.readUTF());
+			default -> throw new IOException("Unknown tag " + tag);
+		};
+	}
+
+}
@@ -15,6 +15,7 @@ import static gama.core.runtime.exceptions.GamaRuntimeException.create;
 import static gama.core.runtime.exceptions.GamaRuntimeException.warning;
 import static org.apache.commons.lang3.StringUtils.splitByWholeSeparatorPreserveAllTokens;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -34,6 +35,7 @@ import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
 import org.geotools.util.factory.Hints;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryType;
@@ -43,6 +45,7 @@ import gama.annotations.precompiler.IConcept;
 import gama.annotations.precompiler.GamlAnnotations.doc;
 import gama.annotations.precompiler.GamlAnnotations.example;
 import gama.annotations.precompiler.GamlAnnotations.file;
+import gama.core.common.geometry.Envelope3D;
 import gama.core.common.geometry.GamaGeometryFactory;
 import gama.core.common.geometry.GeometryUtils;
 import gama.core.common.preferences.GamaPreferences;
@@ -79,6 +82,9 @@ public class GamaShapeFile extends GamaGisFile {
 		DEBUG.ON();
 	}
 
+	/** The extensions of the files composing a shapefile, used to compute the key of its cache. */
+	static final String[] SHAPEFILE_EXTENSIONS = { ".shp", ".dbf", ".shx", ".prj", ".cpg" };
+
 	// FileDataStore store;
 
 	/**
@@ -444,41 +450,12 @@ public class GamaShapeFile extends GamaGisFile {
 
 	@Override
 	protected final void readShapes(final IScope scope) {
-		ProgressCounter counter = new ProgressCounter(scope, "Reading " + getName(scope));
-		SimpleFeatureCollection collection = getFeatureCollection(scope);
-		computeEnvelope(scope);
-		int[] indexOfGeometry = { 0 };
 		try {
-			collection.accepts(feature -> {
-				Geometry g = (Geometry) feature.getDefaultGeometryProperty().getValue();
-				if (g != null && !g.isEmpty() /* Fix for Issue 725 && 677 */ ) {
-					if (!with3D && g.getNumPoints() > 2) {
-						try {
-							if (!g.isValid()) { g = GeometryUtils.cleanGeometry(g); }
-						} catch (Exception e) {
-							g = GeometryUtils.cleanGeometry(g);
-						}
-					}
-					g = gis.transform(g);
-					if (!with3D) {
-						g.apply(ZERO_Z);
-						g.geometryChanged();
-					}
-					g = multiPolygonManagement(g);
-					GamaShape gt = new GamaGisGeometry(g, feature);
-					if (gt.getInnerGeometry() != null) { getBuffer().add(gt); }
-				} else if (g == null) {
-					// See Issue 725
-					reportError(scope, warning("geometry #" + indexOfGeometry[0]
-							+ " could not be added as it is nil (identifier: " + feature.getIdentifier() + ")", scope),
-							false);
-				}
-				indexOfGeometry[0]++;
-			}, counter);
+			readFeatures(scope);
 		} catch (final Exception ex) {
 			try {
 				getBuffer().clear();
-				indexOfGeometry[0] = 0;
+				int[] indexOfGeometry = { 0 };
 				ShpFiles shp = new ShpFiles(getFile(scope).toURI().toURL());
 				try (ShapefileReader reader = new ShapefileReader(shp, false, false, GeometryUtils.GEOMETRY_FACTORY)) {
 					reader.setFlatGeometry(true);
@@ -525,6 +502,42 @@ public class GamaShapeFile extends GamaGisFile {
 
 	}
 
+	@Override
+	protected Geometry clean(final Geometry g) {
+		if (!with3D && g.getNumPoints() > 2) {
+			try {
+				if (!g.isValid()) return GeometryUtils.cleanGeometry(g);
+			} catch (Exception e) {
+				return GeometryUtils.cleanGeometry(g);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * The key is made of the sizes and dates of the files composing the shapefile, of the target CRS and of the
+	 * projection of the corners of the envelope of the file (which captures the translations and unit conversions
+	 * applied by the projection).
+	 */
+	@Override
+	protected String getCacheKey(final IScope scope) {
+		if (!GamaPreferences.External.SHAPEFILES_CACHE.getValue()) return null;
+		final File shp = getFile(scope);
+		final String base = shp.getName().substring(0, shp.getName().length() - 4);
+		final StringBuilder sb = new StringBuilder().append(with3D);
+		for (final String ext : SHAPEFILE_EXTENSIONS) {
+			final File f = new File(shp.getParentFile(), base + ext);
+			if (f.exists()) { sb.append(ext).append(f.length()).append('@').append(f.lastModified()); }
+		}
+		sb.append(String.valueOf(gis.getTargetCRS(scope)).hashCode());
+		final Envelope3D env = Envelope3D.of(getFeatureCollection(scope).getBounds());
+		final Geometry corners = gis.transform(GeometryUtils.GEOMETRY_FACTORY.createLineString(new Coordinate[] {
+				new Coordinate(env.getMinX(), env.getMinY()), new Coordinate(env.getMaxX(), env.getMaxY()) }));
+		for (final Coordinate c : corners.getCoordinates()) { sb.append(';').append(c.x).append(',').append(c.y); }
+		env.dispose();
+		return sb.toString();
+	}
+
 	@Override
 	protected SimpleFeatureCollection getFeatureCollection(final IScope scope) {
 		try {
@@ -0,0 +1,485 @@
+/*******************************************************************************************************
+ *
+ * MappedCsvParser.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.file.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import gama.core.runtime.IScope;
+import gama.core.runtime.concurrent.GamaExecutorService;
+import gama.core.util.file.csv.AbstractCSVManipulator.Letters;
+import gama.gaml.operators.Cast;
+
+/**
+ * A reader of numeric CSV files that maps them in memory and reads them in parallel. The file is cut in chunks (at line
+ * breaks); the records of each chunk are first counted, then its values are parsed directly from the bytes into a
+ * primitive array, without creating intermediate strings (except for the values that are not plain decimal numbers,
+ * which are converted like {@link CsvReader} values). Records follow the rules of {@link CsvReader}: blank lines are
+ * skipped, values are trimmed, missing values are 0.
+ *
+ * Only the files whose records do not span several lines (i.e. without line breaks inside qualified texts) and whose
+ * delimiter and qualifier are ASCII characters can be read this way: {@link #open} returns null for the others, which
+ * must then be read with {@link CsvReader}.
+ */
+public class MappedCsvParser {
+
+	/** The maximum size of a chunk (a mapping cannot exceed 2GB). */
+	private static final long MAX_CHUNK = 1L << 28;
+
+	/** The size under which a chunk is not split further. */
+	private static final long MIN_CHUNK = 1L << 20;
+
+	/** The powers of ten that are exactly represented as doubles. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Receives the values found in a chunk.
+	 */
+	@FunctionalInterface
+	private interface FieldConsumer {
+
+		/**
+		 * Accepts a value.
+		 *
+		 * @param row
+		 *            the index of the record in the chunk
+		 * @param col
+		 *            the index of the column
+		 * @param start
+		 *            the position of the first byte of the value in the chunk
+		 * @param end
+		 *            the position after the last byte of the value
+		 * @param qualified
+		 *            whether the value was surrounded by the text qualifier
+		 */
+		void accept(int row, int col, int start, int end, boolean qualified);
+	}
+
+	/** The delimiter. */
+	private final byte delimiter;
+
+	/** The qualifier, or -1 if none. */
+	private final int qualifier;
+
+	/** The chunks. */
+	private final ByteBuffer[] chunks;
+
+	/** The index of the first record of each chunk. */
+	private final int[] firstRecords;
+
+	/** The number of records and the maximum number of columns. */
+	private int rows, cols;
+
+	/**
+	 * Maps a file and counts its records and columns.
+	 *
+	 * @param file
+	 *            the file
+	 * @param delimiter
+	 *            the delimiter
+	 * @param qualifier
+	 *            the text qualifier, or null
+	 * @return the parser, or null if the file cannot be read this way
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static MappedCsvParser open(final File file, final char delimiter, final Character qualifier)
+			throws IOException {
+		if (delimiter > 127 || qualifier != null && qualifier > 127 || delimiter == Letters.SPACE
+				|| delimiter == Letters.TAB || !file.isFile() || file.length() == 0)
+			return null;
+		final MappedCsvParser parser = new MappedCsvParser(file, (byte) delimiter, qualifier == null ? -1 : qualifier);
+		return parser.count() ? parser : null;
+	}
+
+	/**
+	 * Instantiates a new parser and maps the chunks of the file.
+	 *
+	 * @param file
+	 *            the file
+	 * @param delimiter
+	 *            the delimiter
+	 * @param qualifier
+	 *            the qualifier
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private MappedCsvParser(final File file, final byte delimiter, final int qualifier) throws IOException {
+		this.delimiter = delimiter;
+		this.qualifier = qualifier;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long size = channel.size();
+			final int parallelism = GamaExecutorService.AGENT_PARALLEL_EXECUTOR.getParallelism();
+			final long n = Math.max((size + MAX_CHUNK - 1) / MAX_CHUNK,
+					Math.min(parallelism * 4L, (size + MIN_CHUNK - 1) / MIN_CHUNK));
+			final List<Long> bounds = new ArrayList<>();
+			bounds.add(skipByteOrderMark(channel));
+			for (long k = 1; k < n; k++) {
+				final long b = nextLine(channel, k * size / n);
+				if (b > bounds.get(bounds.size() - 1) && b < size) { bounds.add(b); }
+			}
+			bounds.add(size);
+			chunks = new ByteBuffer[bounds.size() - 1];
+			for (int k = 0; k < chunks.length; k++) {
+				final MappedByteBuffer m =
+						channel.map(FileChannel.MapMode.READ_ONLY, bounds.get(k), bounds.get(k + 1) - bounds.get(k));
+				chunks[k] = m;
+			}
+			firstRecords = new int[chunks.length + 1];
+		}
+	}
+
+	/**
+	 * Returns the position after the UTF-8 byte order mark, if any.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @return the position of the first character
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static long skipByteOrderMark(final FileChannel channel) throws IOException {
+		final ByteBuffer bom = ByteBuffer.allocate(3);
+		channel.read(bom, 0);
+		return bom.position() == 3 && (bom.get(0) & 0xFF) == 0xEF && (bom.get(1) & 0xFF) == 0xBB
+				&& (bom.get(2) & 0xFF) == 0xBF ? 3 : 0;
+	}
+
+	/**
+	 * Returns the position following the first line break after a position.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param from
+	 *            the position
+	 * @return the position of the next line, or the size of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static long nextLine(final FileChannel channel, final long from) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = from;
+		while (true) {
+			buffer.clear();
+			final int read = channel.read(buffer, position);
+			if (read <= 0) return channel.size();
+			for (int i = 0; i < read; i++) { if (buffer.get(i) == Letters.LF) return position + i + 1; }
+			position += read;
+		}
+	}
+
+	/**
+	 * Counts the records of each chunk, in parallel.
+	 *
+	 * @return false if a record spans several chunks
+	 */
+	private boolean count() {
+		final int[] records = new int[chunks.length];
+		final int[] columns = new int[chunks.length];
+		GamaExecutorService.executeThreaded(() -> IntStream.range(0, chunks.length).parallel().forEach(k -> {
+			final int[] max = { 0 };
+			records[k] = scan(chunks[k], (row, col, start, end, qualified) -> {
+				if (col >= max[0]) { max[0] = col + 1; }
+			});
+			columns[k] = max[0];
+		}));
+		for (int k = 0; k < chunks.length; k++) {
+			if (records[k] < 0) return false;
+			firstRecords[k + 1] = firstRecords[k] + records[k];
+			cols = Math.max(cols, columns[k]);
+		}
+		rows = firstRecords[chunks.length];
+		return true;
+	}
+
+	/**
+	 * Gets the number of records.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() { return rows; }
+
+	/**
+	 * Gets the maximum number of values in a record.
+	 *
+	 * @return the cols
+	 */
+	public int getCols() { return cols; }
+
+	/**
+	 * Parses the values as integers into a matrix stored by rows. Values beyond the dimensions of the matrix are
+	 * ignored.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param matrix
+	 *            the matrix
+	 * @param width
+	 *            the number of columns of the matrix
+	 * @param skip
+	 *            the number of records to skip (e.g. 1 for a header)
+	 */
+	public void parseInts(final IScope scope, final int[] matrix, final int width, final int skip) {
+		final int height = width == 0 ? 0 : matrix.length / width;
+		parse((chunk, k) -> (row, col, start, end, qualified) -> {
+			final int r = firstRecords[k] + row - skip;
+			if (r >= 0 && r < height && col < width) {
+				matrix[r * width + col] = parseInt(scope, chunk, start, end, qualified);
+			}
+		});
+	}
+
+	/**
+	 * Parses the values as floats into a matrix stored by rows. Values beyond the dimensions of the matrix are
+	 * ignored.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param matrix
+	 *            the matrix
+	 * @param width
+	 *            the number of columns of the matrix
+	 * @param skip
+	 *            the number of records to skip (e.g. 1 for a header)
+	 */
+	public void parseDoubles(final IScope scope, final double[] matrix, final int width, final int skip) {
+		final int height = width == 0 ? 0 : matrix.length / width;
+		parse((chunk, k) -> (row, col, start, end, qualified) -> {
+			final int r = firstRecords[k] + row - skip;
+			if (r >= 0 && r < height && col < width) {
+				matrix[r * width + col] = parseDouble(scope, chunk, start, end, qualified);
+			}
+		});
+	}
+
+	/**
+	 * Scans the chunks in parallel.
+	 *
+	 * @param consumers
+	 *            the consumer of the values of each chunk (given the chunk and its index)
+	 */
+	private void parse(final BiFunction<ByteBuffer, Integer, FieldConsumer> consumers) {
+		GamaExecutorService.executeThreaded(() -> IntStream.range(0, chunks.length).parallel().forEach(k -> {
+			scan(chunks[k], consumers.apply(chunks[k], k));
+		}));
+	}
+
+	/**
+	 * Scans the values of a chunk, following the rules of {@link CsvReader}.
+	 *
+	 * @param buf
+	 *            the chunk
+	 * @param consumer
+	 *            the consumer of the values
+	 * @return the number of records, or -1 if the chunk ends inside a qualified text
+	 */
+	private int scan(final ByteBuffer buf, final FieldConsumer consumer) {
+		final int limit = buf.limit();
+		int records = 0, col = 0, i = 0;
+		while (i < limit || col > 0) {
+			final int fieldStart = i;
+			while (i < limit && isBlank(buf.get(i))) { i++; }
+			final boolean qualified = i < limit && buf.get(i) == qualifier;
+			int start, end;
+			if (qualified) {
+				start = ++i;
+				while (true) {
+					if (i >= limit) return -1;
+					if (buf.get(i) == qualifier) {
+						if (i + 1 < limit && buf.get(i + 1) == qualifier) {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				end = i++;
+				// Junk after the closing qualifier is ignored
+				while (i < limit && !isEndOfValue(buf.get(i))) { i++; }
+			} else {
+				start = i;
+				while (i < limit && !isEndOfValue(buf.get(i))) { i++; }
+				end = i;
+				while (end > start && isBlank(buf.get(end - 1))) { end--; }
+			}
+			final boolean endOfRecord = i >= limit || buf.get(i) != delimiter;
+			// Blank lines are skipped
+			if (col > 0 || i > fieldStart || !endOfRecord) {
+				consumer.accept(records, col, start, end, qualified);
+				col++;
+				if (endOfRecord) {
+					records++;
+					col = 0;
+				}
+			}
+			if (i < limit) { i++; }
+		}
+		return records;
+	}
+
+	/**
+	 * Checks if a byte is a space or a tab.
+	 *
+	 * @param b
+	 *            the b
+	 * @return true, if is blank
+	 */
+	private static boolean isBlank(final byte b) {
+		return b == Letters.SPACE || b == Letters.TAB;
+	}
+
+	/**
+	 * Checks if a byte ends a value.
+	 *
+	 * @param b
+	 *            the b
+	 * @return true, if it is the delimiter or a line break
+	 */
+	private boolean isEndOfValue(final byte b) {
+		return b == delimiter || b == Letters.LF || b == Letters.CR;
+	}
+
+	/**
+	 * Returns the text of a value, as {@link CsvReader} would.
+	 *
+	 * @param buf
+	 *            the buf
+	 * @param start
+	 *            the start
+	 * @param end
+	 *            the end
+	 * @param qualified
+	 *            the qualified
+	 * @return the string
+	 */
+	private String text(final ByteBuffer buf, final int start, final int end, final boolean qualified) {
+		final byte[] bytes = new byte[end - start];
+		buf.get(start, bytes);
+		String s = new String(bytes, StandardCharsets.UTF_8);
+		if (qualified) {
+			final String q = String.valueOf((char) qualifier);
+			s = s.replace(q + q, q);
+		}
+		return StringUtils.trimToEmpty(s);
+	}
+
+	/**
+	 * Parses an integer, directly from the bytes if it is made of digits only.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param buf
+	 *            the buf
+	 * @param start
+	 *            the start
+	 * @param end
+	 *            the end
+	 * @param qualified
+	 *            the qualified
+	 * @return the int
+	 */
+	private int parseInt(final IScope scope, final ByteBuffer buf, final int start, final int end,
+			final boolean qualified) {
+		int i = start;
+		final boolean negative = i < end && buf.get(i) == '-';
+		if (negative) { i++; }
+		if (i < end && end - i <= 9 && !qualified) {
+			int value = 0;
+			for (; i < end; i++) {
+				final int d = buf.get(i) - '0';
+				if (d < 0 || d > 9) break;
+				value = value * 10 + d;
+			}
+			if (i == end) return negative ? -value : value;
+		}
+		return Cast.asInt(scope, text(buf, start, end, qualified));
+	}
+
+	/**
+	 * Parses a float, directly from the bytes if it is a decimal number (with an optional exponent) that can be
+	 * converted exactly.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param buf
+	 *            the buf
+	 * @param start
+	 *            the start
+	 * @param end
+	 *            the end
+	 * @param qualified
+	 *            the qualified
+	 * @return the double
+	 */
+	private double parseDouble(final IScope scope, final ByteBuffer buf, final int start, final int end,
+			final boolean qualified) {
+		int i = start;
+		final boolean negative = i < end && buf.get(i) == '-';
+		if (negative) { i++; }
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean dot = false, any = false, valid = !qualified && i < end;
+		for (; valid && i < end; i++) {
+			final byte b = buf.get(i);
+			if (b >= '0' && b <= '9') {
+				any = true;
+				if (mantissa == 0 && b == '0') {
+					if (dot) { exponent--; }
+					continue;
+				}
+				mantissa = mantissa * 10 + b - '0';
+				if (++digits > 15) { valid = false; }
+				if (dot) { exponent--; }
+			} else if (b == '.' && !dot) {
+				dot = true;
+			} else if ((b == 'e' || b == 'E') && i + 1 < end) {
+				int j = i + 1, e = 0;
+				final boolean negativeExponent = buf.get(j) == '-';
+				if (negativeExponent || buf.get(j) == '+') { j++; }
+				if (j == end || end - j > 3) {
+					valid = false;
+					break;
+				}
+				for (; j < end; j++) {
+					final int d = buf.get(j) - '0';
+					if (d < 0 || d > 9) {
+						valid = false;
+						break;
+					}
+					e = e * 10 + d;
+				}
+				exponent += negativeExponent ? -e : e;
+				i = end;
+				break;
+			} else {
+				valid = false;
+			}
+		}
+		if (valid && any && i == end && exponent >= -22 && exponent <= 22) {
+			final double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		return Cast.asFloat(scope, text(buf, start, end, qualified));
+	}
+
+}
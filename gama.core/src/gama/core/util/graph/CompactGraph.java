@@ -0,0 +1,1110 @@
+/*******************************************************************************************************
+ *
+ * CompactGraph.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gama.core.metamodel.shape.GamaPoint;
+import gama.core.metamodel.shape.IShape;
+import gama.core.runtime.concurrent.GamaExecutorService;
+import gama.core.util.graph.PathComputer.shortestPathAlgorithm;
+
+/**
+ * An immutable snapshot of a {@link GamaGraph} in compressed sparse row form: the vertices are numbered, and the arcs
+ * leaving (resp. entering) each vertex are stored contiguously in primitive arrays, along with their weights. An
+ * undirected edge gives two arcs. The snapshot is built lazily by the {@link PathComputer} and discarded when the graph
+ * changes.
+ *
+ * It provides primitive implementations of Dijkstra, bidirectional Dijkstra, A* (when the vertices are spatial) and of
+ * a contraction hierarchy (built on demand), which avoid the allocations and the pointer chasing of the object-based
+ * graph. The buffers of the searches are kept for each thread (and shared by all the snapshots, so that rebuilding a
+ * snapshot does not allocate new ones), grown when needed and reset in constant time between two searches.
+ *
+ *
+ * @param <V>
+ *            the type of the vertices
+ * @param <E>
+ *            the type of the edges
+ */
+public class CompactGraph<V, E> {
+
+	/** The vertices, by index. */
+	final Object[] vertices;
+
+	/** The indices of the vertices. */
+	final Map<Object, Integer> indices;
+
+	/** The edges, by index. */
+	final Object[] edges;
+
+	/** The arcs leaving vertex v are at indices [outOffsets[v], outOffsets[v+1]) of the out* arrays. */
+	final int[] outOffsets, outHeads, outEdges;
+
+	/** The weights of the arcs leaving the vertices. */
+	final double[] outWeights;
+
+	/** The arcs entering vertex v are at indices [inOffsets[v], inOffsets[v+1]) of the in* arrays. */
+	final int[] inOffsets, inTails, inEdges;
+
+	/** The weights of the arcs entering the vertices. */
+	final double[] inWeights;
+
+	/** The coordinates of the vertices, or null if they are not all spatial. */
+	final double[] xs, ys;
+
+	/** The factor applied to the euclidean distance so that the heuristic of A* never overestimates the weights. */
+	final double heuristicFactor;
+
+	/** Whether some weights are negative (not supported by these algorithms). */
+	final boolean negativeWeights;
+
+	/** The contraction hierarchy, built on demand. */
+	private volatile ContractionHierarchy hierarchy;
+
+	/** The buffers of the searches, for each thread. */
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	/** The number of entries (vertices times trees) above which no more shortest path trees are built. */
+	static final int TREES_BUDGET = 1 << 23;
+
+	/** The shortest path trees towards the targets requested the most, by target. */
+	private final Map<Integer, PathTree> trees = new ConcurrentHashMap<>();
+
+	/** The number of requests received by each target during the current cycle. */
+	private final Map<Integer, Integer> demand = new ConcurrentHashMap<>();
+
+	/** The cycle during which the requests are counted. */
+	private volatile long cycle = -1;
+
+	/**
+	 * Builds the snapshot of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public CompactGraph(final GamaGraph<V, E> graph) {
+		final Map<V, _Vertex<V, E>> vertexMap = graph._internalVertexMap();
+		final int n = vertexMap.size();
+		vertices = vertexMap.keySet().toArray();
+		indices = new HashMap<>(n * 4 / 3 + 1);
+		for (int i = 0; i < n; i++) { indices.put(vertices[i], i); }
+		final Map<E, _Edge<V, E>> edgeMap = graph._internalEdgeMap();
+		final boolean directed = graph.isDirected();
+		edges = new Object[edgeMap.size()];
+		final int max = directed ? edges.length : 2 * edges.length;
+		final int[] tails = new int[max], heads = new int[max], arcEdges = new int[max];
+		final double[] weights = new double[max];
+		int m = 0, e = 0;
+		boolean negative = false;
+		for (final Map.Entry<E, _Edge<V, E>> entry : edgeMap.entrySet()) {
+			final _Edge<V, E> edge = entry.getValue();
+			final int s = indices.getOrDefault(edge.getSource(), -1);
+			final int t = indices.getOrDefault(edge.getTarget(), -1);
+			edges[e] = entry.getKey();
+			if (s >= 0 && t >= 0 && s != t) {
+				final double w = edge.getWeight();
+				negative |= w < 0;
+				tails[m] = s;
+				heads[m] = t;
+				weights[m] = w;
+				arcEdges[m++] = e;
+				if (!directed) {
+					tails[m] = t;
+					heads[m] = s;
+					weights[m] = w;
+					arcEdges[m++] = e;
+				}
+			}
+			e++;
+		}
+		negativeWeights = negative;
+		outOffsets = new int[n + 1];
+		outHeads = new int[m];
+		outEdges = new int[m];
+		outWeights = new double[m];
+		sort(m, tails, heads, arcEdges, weights, outOffsets, outHeads, outEdges, outWeights);
+		inOffsets = new int[n + 1];
+		inTails = new int[m];
+		inEdges = new int[m];
+		inWeights = new double[m];
+		sort(m, heads, tails, arcEdges, weights, inOffsets, inTails, inEdges, inWeights);
+		boolean spatial = n > 0;
+		for (final Object v : vertices) {
+			if (!(v instanceof IShape)) {
+				spatial = false;
+				break;
+			}
+		}
+		if (spatial) {
+			xs = new double[n];
+			ys = new double[n];
+			for (int i = 0; i < n; i++) {
+				final GamaPoint p = ((IShape) vertices[i]).getLocation();
+				xs[i] = p.x;
+				ys[i] = p.y;
+			}
+			double factor = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < m; i++) {
+				final double d = Math.hypot(xs[tails[i]] - xs[heads[i]], ys[tails[i]] - ys[heads[i]]);
+				if (d > 0) { factor = Math.min(factor, weights[i] / d); }
+			}
+			heuristicFactor = Double.isInfinite(factor) || factor < 0 ? 0 : factor;
+		} else {
+			xs = ys = null;
+			heuristicFactor = 0;
+		}
+	}
+
+	/**
+	 * Sorts the arcs by their key (counting sort) into compressed rows.
+	 *
+	 * @param m
+	 *            the number of arcs
+	 * @param keys
+	 *            the vertices by which the arcs are sorted
+	 * @param others
+	 *            the other extremities of the arcs
+	 * @param arcEdges
+	 *            the edges of the arcs
+	 * @param weights
+	 *            the weights of the arcs
+	 * @param offsets
+	 *            the offsets to fill
+	 * @param otherResult
+	 *            the other extremities to fill
+	 * @param edgeResult
+	 *            the edges to fill
+	 * @param weightResult
+	 *            the weights to fill
+	 */
+	private static void sort(final int m, final int[] keys, final int[] others, final int[] arcEdges,
+			final double[] weights, final int[] offsets, final int[] otherResult, final int[] edgeResult,
+			final double[] weightResult) {
+		for (int i = 0; i < m; i++) { offsets[keys[i] + 1]++; }
+		for (int v = 1; v < offsets.length; v++) { offsets[v] += offsets[v - 1]; }
+		final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i = 0; i < m; i++) {
+			final int j = next[keys[i]]++;
+			otherResult[j] = others[i];
+			edgeResult[j] = arcEdges[i];
+			weightResult[j] = weights[i];
+		}
+	}
+
+	/**
+	 * Whether the snapshot can be used to compute shortest paths with this algorithm.
+	 *
+	 * @param algorithm
+	 *            the algorithm
+	 * @return true, if successful
+	 */
+	public static boolean supports(final shortestPathAlgorithm algorithm) {
+		return switch (algorithm) {
+			case Dijkstra, BidirectionalDijkstra, AStar, CHBidirectionalDijkstra -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Computes the shortest path between two vertices.
+	 *
+	 * @param algorithm
+	 *            the algorithm (see {@link #supports(shortestPathAlgorithm)})
+	 * @param source
+	 *            the source
+	 * @param target
+	 *            the target
+	 * @return the list of edges (empty if there is no path), or null if the snapshot cannot answer (unknown vertices,
+	 *         negative weights)
+	 */
+	@SuppressWarnings ("unchecked")
+	public List<E> shortestPath(final shortestPathAlgorithm algorithm, final Object source, final Object target) {
+		if (negativeWeights) return null;
+		final Integer s = indices.get(source), t = indices.get(target);
+		if (s == null || t == null) return null;
+		final Search search = new Search(BUFFERS.get());
+		return (List<E>) switch (algorithm) {
+			case Dijkstra -> search.dijkstra(s, t, false);
+			case AStar -> search.dijkstra(s, t, xs != null);
+			case BidirectionalDijkstra -> search.bidirectional(s, t);
+			case CHBidirectionalDijkstra -> search.hierarchical(getHierarchy(), s, t);
+			default -> null;
+		};
+	}
+
+	/**
+	 * Returns the contraction hierarchy, building it if needed.
+	 *
+	 * @return the hierarchy
+	 */
+	ContractionHierarchy getHierarchy() {
+		ContractionHierarchy result = hierarchy;
+		if (result == null) {
+			synchronized (this) {
+				result = hierarchy;
+				if (result == null) { hierarchy = result = new ContractionHierarchy(); }
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the shortest path between two vertices from the shortest path tree of the target, when the target is
+	 * requested by several agents. The requests are counted by target during each cycle: the tree of a target is
+	 * built as soon as it is requested twice in a cycle, and, at the beginning of a cycle, the trees of the targets
+	 * requested at least twice during the previous one are built in parallel while those of the other targets are
+	 * discarded. A single search then serves all the requests towards a target.
+	 *
+	 * @param now
+	 *            the current cycle
+	 * @param source
+	 *            the source
+	 * @param target
+	 *            the target
+	 * @return the list of edges (empty if there is no path), or null if there is no tree for this target (or if the
+	 *         snapshot cannot answer)
+	 */
+	@SuppressWarnings ("unchecked")
+	public List<E> routeTo(final long now, final Object source, final Object target) {
+		if (negativeWeights) return null;
+		final Integer s = indices.get(source), t = indices.get(target);
+		if (s == null || t == null) return null;
+		if (now != cycle) { startCycle(now); }
+		final int requests = demand.merge(t, 1, Integer::sum);
+		PathTree tree = trees.get(t);
+		if (tree == null && requests > 1 && trees.size() < maxTrees()) {
+			tree = trees.computeIfAbsent(t, PathTree::new);
+		}
+		return tree == null ? null : (List<E>) tree.pathFrom(s);
+	}
+
+	/**
+	 * Starts a new cycle: keeps (or builds, in parallel) the trees of the targets requested more than once during the
+	 * previous cycle, and forgets the others.
+	 *
+	 * @param now
+	 *            the now
+	 */
+	private synchronized void startCycle(final long now) {
+		if (now == cycle) return;
+		cycle = now;
+		final List<Integer> wanted = new ArrayList<>();
+		demand.forEach((t, requests) -> { if (requests > 1) { wanted.add(t); } });
+		demand.clear();
+		trees.keySet().retainAll(wanted);
+		final List<Integer> missing = new ArrayList<>();
+		for (final Integer t : wanted) {
+			if (trees.size() + missing.size() >= maxTrees()) { break; }
+			if (!trees.containsKey(t)) { missing.add(t); }
+		}
+		if (missing.isEmpty()) return;
+		GamaExecutorService.executeThreaded(
+				() -> missing.parallelStream().forEach(t -> trees.computeIfAbsent(t, PathTree::new)));
+	}
+
+	/**
+	 * The maximum number of trees kept.
+	 *
+	 * @return the int
+	 */
+	private int maxTrees() {
+		return Math.max(1, TREES_BUDGET / Math.max(1, vertices.length));
+	}
+
+	/**
+	 * The tree of the shortest paths from all the vertices to a target, computed by a Dijkstra search that follows the
+	 * arcs backwards.
+	 */
+	class PathTree {
+
+		/** The target. */
+		final int target;
+
+		/** The next vertex on the way to the target, for each vertex. */
+		final int[] next;
+
+		/** The edge leading to the next vertex, or -1 if the vertex cannot reach the target. */
+		final int[] via;
+
+		/**
+		 * Builds the tree.
+		 *
+		 * @param target
+		 *            the target
+		 */
+		PathTree(final int target) {
+			this.target = target;
+			final int n = vertices.length;
+			next = new int[n];
+			via = new int[n];
+			Arrays.fill(via, -1);
+			final double[] dist = new double[n];
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			final boolean[] settled = new boolean[n];
+			final Heap heap = new Heap();
+			dist[target] = 0;
+			heap.push(target, 0);
+			while (heap.size > 0) {
+				final int v = heap.pop();
+				if (settled[v]) { continue; }
+				settled[v] = true;
+				final double dv = dist[v];
+				for (int i = inOffsets[v], end = inOffsets[v + 1]; i < end; i++) {
+					final int u = inTails[i];
+					final double d = dv + inWeights[i];
+					if (!settled[u] && d < dist[u]) {
+						dist[u] = d;
+						next[u] = v;
+						via[u] = inEdges[i];
+						heap.push(u, d);
+					}
+				}
+			}
+		}
+
+		/**
+		 * The path from a vertex to the target.
+		 *
+		 * @param s
+		 *            the source
+		 * @return the list of edges (empty if the target cannot be reached)
+		 */
+		List<Object> pathFrom(final int s) {
+			if (s == target || via[s] < 0) return Collections.emptyList();
+			final List<Object> result = new ArrayList<>();
+			for (int v = s; v != target; v = next[v]) { result.add(edges[via[v]]); }
+			return result;
+		}
+	}
+
+	/**
+	 * A binary min-heap of vertices. Vertices are not updated in place but pushed again with a lower key: the entries
+	 * of the vertices already settled are skipped when they are popped.
+	 */
+	static class Heap {
+
+		/** The keys. */
+		double[] keys = new double[64];
+
+		/** The vertices. */
+		int[] nodes = new int[64];
+
+		/** The size. */
+		int size;
+
+		/**
+		 * Push.
+		 *
+		 * @param node
+		 *            the node
+		 * @param key
+		 *            the key
+		 */
+		void push(final int node, final double key) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				nodes = Arrays.copyOf(nodes, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				final int parent = i - 1 >>> 1;
+				if (keys[parent] <= key) { break; }
+				keys[i] = keys[parent];
+				nodes[i] = nodes[parent];
+				i = parent;
+			}
+			keys[i] = key;
+			nodes[i] = node;
+		}
+
+		/**
+		 * Removes the vertex with the smallest key.
+		 *
+		 * @return the vertex
+		 */
+		int pop() {
+			final int result = nodes[0];
+			final double key = keys[--size];
+			final int node = nodes[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) { break; }
+				if (child + 1 < size && keys[child + 1] < keys[child]) { child++; }
+				if (keys[child] >= key) { break; }
+				keys[i] = keys[child];
+				nodes[i] = nodes[child];
+				i = child;
+			}
+			keys[i] = key;
+			nodes[i] = node;
+			return result;
+		}
+
+		/**
+		 * The smallest key.
+		 *
+		 * @return the key, or +infinity if the heap is empty
+		 */
+		double top() {
+			return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+		}
+	}
+
+	/**
+	 * The buffers of the searches of a thread, in both directions, sized for the largest snapshot searched so far. A
+	 * vertex is reached (resp. settled) in the current search if its stamp equals (resp. is the opposite of) the number
+	 * of the search. As this number only grows, the stamps left by the searches in other snapshots are never mistaken
+	 * for those of the current one.
+	 */
+	static class Buffers {
+
+		/** The number of the last search. */
+		int current;
+
+		/** The stamps, forward and backward. */
+		int[] stampF = new int[0], stampB = new int[0];
+
+		/** The distances, forward and backward. */
+		double[] distF = new double[0], distB = new double[0];
+
+		/** The arcs (indices in the out/in arrays, or arcs of the hierarchy) by which the vertices are reached. */
+		int[] arcF = new int[0], arcB = new int[0];
+
+		/** The vertices from which the vertices are reached. */
+		int[] predF = new int[0], predB = new int[0];
+
+		/** The heaps. */
+		final Heap heapF = new Heap(), heapB = new Heap();
+
+		/**
+		 * Makes sure the buffers can hold a number of vertices.
+		 *
+		 * @param n
+		 *            the number of vertices
+		 */
+		void ensureCapacity(final int n) {
+			if (stampF.length >= n) return;
+			// Fresh stamps are 0, which is never the number of a search
+			stampF = new int[n];
+			stampB = new int[n];
+			distF = new double[n];
+			distB = new double[n];
+			arcF = new int[n];
+			arcB = new int[n];
+			predF = new int[n];
+			predB = new int[n];
+		}
+	}
+
+	/**
+	 * A search in both directions in this snapshot, using the buffers of the current thread (see {@link Buffers}).
+	 */
+	class Search {
+
+		/** The buffers. */
+		final Buffers buffers;
+
+		/** The number of the current search. */
+		int current;
+
+		/** The stamps, forward and backward. */
+		final int[] stampF, stampB;
+
+		/** The distances, forward and backward. */
+		final double[] distF, distB;
+
+		/** The arcs (indices in the out/in arrays, or arcs of the hierarchy) by which the vertices are reached. */
+		final int[] arcF, arcB;
+
+		/** The vertices from which the vertices are reached. */
+		final int[] predF, predB;
+
+		/** The heaps. */
+		final Heap heapF, heapB;
+
+		/**
+		 * Instantiates a new search.
+		 *
+		 * @param buffers
+		 *            the buffers of the current thread
+		 */
+		Search(final Buffers buffers) {
+			this.buffers = buffers;
+			buffers.ensureCapacity(vertices.length);
+			stampF = buffers.stampF;
+			stampB = buffers.stampB;
+			distF = buffers.distF;
+			distB = buffers.distB;
+			arcF = buffers.arcF;
+			arcB = buffers.arcB;
+			predF = buffers.predF;
+			predB = buffers.predB;
+			heapF = buffers.heapF;
+			heapB = buffers.heapB;
+		}
+
+		/**
+		 * Starts a new search.
+		 */
+		void start() {
+			if (++buffers.current == Integer.MAX_VALUE) {
+				Arrays.fill(stampF, 0);
+				Arrays.fill(stampB, 0);
+				buffers.current = 1;
+			}
+			current = buffers.current;
+			heapF.size = 0;
+			heapB.size = 0;
+		}
+
+		/**
+		 * Heuristic of A*.
+		 *
+		 * @param v
+		 *            the v
+		 * @param t
+		 *            the t
+		 * @return the double
+		 */
+		double heuristic(final int v, final int t) {
+			return heuristicFactor * Math.hypot(xs[v] - xs[t], ys[v] - ys[t]);
+		}
+
+		/**
+		 * Dijkstra, or A* if a heuristic is used.
+		 *
+		 * @param s
+		 *            the source
+		 * @param t
+		 *            the target
+		 * @param astar
+		 *            whether to use the heuristic
+		 * @return the list of edges
+		 */
+		List<Object> dijkstra(final int s, final int t, final boolean astar) {
+			start();
+			final int reached = current, settled = -current;
+			stampF[s] = reached;
+			distF[s] = 0;
+			predF[s] = -1;
+			heapF.push(s, 0);
+			while (heapF.size > 0) {
+				final int u = heapF.pop();
+				if (stampF[u] == settled) { continue; }
+				stampF[u] = settled;
+				if (u == t) return pathTo(t);
+				final double du = distF[u];
+				for (int i = outOffsets[u], end = outOffsets[u + 1]; i < end; i++) {
+					final int v = outHeads[i];
+					if (stampF[v] == settled) { continue; }
+					final double d = du + outWeights[i];
+					if (stampF[v] != reached || d < distF[v]) {
+						stampF[v] = reached;
+						distF[v] = d;
+						arcF[v] = i;
+						predF[v] = u;
+						heapF.push(v, astar ? d + heuristic(v, t) : d);
+					}
+				}
+			}
+			return Collections.emptyList();
+		}
+
+		/**
+		 * Bidirectional Dijkstra.
+		 *
+		 * @param s
+		 *            the source
+		 * @param t
+		 *            the target
+		 * @return the list of edges
+		 */
+		List<Object> bidirectional(final int s, final int t) {
+			if (s == t) return Collections.emptyList();
+			start();
+			final int reached = current, settled = -current;
+			stampF[s] = reached;
+			distF[s] = 0;
+			predF[s] = -1;
+			heapF.push(s, 0);
+			stampB[t] = reached;
+			distB[t] = 0;
+			predB[t] = -1;
+			heapB.push(t, 0);
+			double best = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			while (heapF.top() + heapB.top() < best) {
+				if (heapF.top() <= heapB.top()) {
+					final int u = heapF.pop();
+					if (stampF[u] == settled) { continue; }
+					stampF[u] = settled;
+					final double du = distF[u];
+					for (int i = outOffsets[u], end = outOffsets[u + 1]; i < end; i++) {
+						final int v = outHeads[i];
+						final double d = du + outWeights[i];
+						if (stampF[v] != settled && (stampF[v] != reached || d < distF[v])) {
+							stampF[v] = reached;
+							distF[v] = d;
+							arcF[v] = i;
+							predF[v] = u;
+							heapF.push(v, d);
+						}
+						if (stampB[v] == reached || stampB[v] == settled) {
+							final double total = Math.min(d, distF[v]) + distB[v];
+							if (total < best) {
+								best = total;
+								meet = v;
+							}
+						}
+					}
+				} else {
+					final int u = heapB.pop();
+					if (stampB[u] == settled) { continue; }
+					stampB[u] = settled;
+					final double du = distB[u];
+					for (int i = inOffsets[u], end = inOffsets[u + 1]; i < end; i++) {
+						final int v = inTails[i];
+						final double d = du + inWeights[i];
+						if (stampB[v] != settled && (stampB[v] != reached || d < distB[v])) {
+							stampB[v] = reached;
+							distB[v] = d;
+							arcB[v] = i;
+							predB[v] = u;
+							heapB.push(v, d);
+						}
+						if (stampF[v] == reached || stampF[v] == settled) {
+							final double total = distF[v] + Math.min(d, distB[v]);
+							if (total < best) {
+								best = total;
+								meet = v;
+							}
+						}
+					}
+				}
+			}
+			if (meet < 0) return Collections.emptyList();
+			final List<Object> result = pathTo(meet);
+			for (int v = meet; predB[v] >= 0; v = predB[v]) { result.add(edges[inEdges[arcB[v]]]); }
+			return result;
+		}
+
+		/**
+		 * The path found by the forward search.
+		 *
+		 * @param t
+		 *            the last vertex
+		 * @return the list of edges
+		 */
+		List<Object> pathTo(final int t) {
+			final List<Object> result = new ArrayList<>();
+			for (int v = t; predF[v] >= 0; v = predF[v]) { result.add(edges[outEdges[arcF[v]]]); }
+			Collections.reverse(result);
+			return result;
+		}
+
+		/**
+		 * Bidirectional search in a contraction hierarchy: both searches only follow the arcs that go up in the
+		 * hierarchy.
+		 *
+		 * @param ch
+		 *            the hierarchy
+		 * @param s
+		 *            the source
+		 * @param t
+		 *            the target
+		 * @return the list of edges
+		 */
+		List<Object> hierarchical(final ContractionHierarchy ch, final int s, final int t) {
+			if (s == t) return Collections.emptyList();
+			start();
+			final int reached = current, settled = -current;
+			stampF[s] = reached;
+			distF[s] = 0;
+			arcF[s] = -1;
+			heapF.push(s, 0);
+			stampB[t] = reached;
+			distB[t] = 0;
+			arcB[t] = -1;
+			heapB.push(t, 0);
+			double best = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			while (heapF.top() < best || heapB.top() < best) {
+				final boolean forward = heapF.top() <= heapB.top();
+				final Heap heap = forward ? heapF : heapB;
+				final int[] stamp = forward ? stampF : stampB, other = forward ? stampB : stampF;
+				final double[] dist = forward ? distF : distB, otherDist = forward ? distB : distF;
+				final int[] arc = forward ? arcF : arcB;
+				final int[] offsets = forward ? ch.upOutOffsets : ch.upInOffsets;
+				final int[] arcs = forward ? ch.upOut : ch.upIn;
+				final int u = heap.pop();
+				if (stamp[u] == settled) { continue; }
+				stamp[u] = settled;
+				final double du = dist[u];
+				if (other[u] == reached || other[u] == settled) {
+					final double total = du + otherDist[u];
+					if (total < best) {
+						best = total;
+						meet = u;
+					}
+				}
+				for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+					final int a = arcs[i];
+					final int v = forward ? ch.heads[a] : ch.tails[a];
+					final double d = du + ch.weights[a];
+					if (stamp[v] != settled && (stamp[v] != reached || d < dist[v])) {
+						stamp[v] = reached;
+						dist[v] = d;
+						arc[v] = a;
+						heap.push(v, d);
+					}
+				}
+			}
+			if (meet < 0) return Collections.emptyList();
+			final List<Object> result = new ArrayList<>();
+			final List<Integer> up = new ArrayList<>();
+			for (int v = meet; arcF[v] >= 0; v = ch.tails[arcF[v]]) { up.add(arcF[v]); }
+			for (int i = up.size() - 1; i >= 0; i--) { ch.unpack(up.get(i), result); }
+			for (int v = meet; arcB[v] >= 0; v = ch.heads[arcB[v]]) { ch.unpack(arcB[v], result); }
+			return result;
+		}
+	}
+
+	/**
+	 * A contraction hierarchy: the vertices are contracted one after the other, by increasing importance, and
+	 * shortcuts are added between their neighbours when they are on the only shortest path between them. Shortest
+	 * paths can then be found by two searches that only go up in the hierarchy.
+	 */
+	class ContractionHierarchy {
+
+		/** The maximum number of vertices settled by a search of witness paths. */
+		static final int WITNESS_LIMIT = 200;
+
+		/** The arcs (original ones and shortcuts): their extremities. */
+		int[] tails, heads;
+
+		/** The weights of the arcs. */
+		double[] weights;
+
+		/** The two arcs replaced by a shortcut, or -1 and the index of the edge for the original arcs. */
+		int[] first, second;
+
+		/** The number of arcs. */
+		int size;
+
+		/** The arcs going up in the hierarchy from each vertex, in compressed rows. */
+		final int[] upOutOffsets, upOut;
+
+		/** The arcs coming down in the hierarchy to each vertex, in compressed rows. */
+		final int[] upInOffsets, upIn;
+
+		/**
+		 * Builds the hierarchy.
+		 */
+		ContractionHierarchy() {
+			final int n = vertices.length;
+			final int m = outHeads.length;
+			tails = new int[m * 2 + 16];
+			heads = new int[tails.length];
+			weights = new double[tails.length];
+			first = new int[tails.length];
+			second = new int[tails.length];
+			final int[][] out = new int[n][], in = new int[n][];
+			final int[] outSize = new int[n], inSize = new int[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new int[Math.max(2, outOffsets[v + 1] - outOffsets[v])];
+				in[v] = new int[Math.max(2, inOffsets[v + 1] - inOffsets[v])];
+			}
+			for (int u = 0; u < n; u++) {
+				for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+					final int a = add(u, outHeads[i], outWeights[i], -1, outEdges[i]);
+					out[u][outSize[u]++] = a;
+					in[outHeads[i]][inSize[outHeads[i]]++] = a;
+				}
+			}
+			final boolean[] contracted = new boolean[n];
+			final int[] deleted = new int[n];
+			final int[] rank = new int[n];
+			final Witness witness = new Witness(n);
+			final Heap queue = new Heap();
+			for (int v = 0; v < n; v++) {
+				queue.push(v, priority(v, out, outSize, in, inSize, contracted, deleted, witness, false));
+			}
+			int order = 0;
+			while (queue.size > 0) {
+				final int v = queue.pop();
+				if (contracted[v]) { continue; }
+				final double p = priority(v, out, outSize, in, inSize, contracted, deleted, witness, false);
+				if (queue.size > 0 && p > queue.top()) {
+					queue.push(v, p);
+					continue;
+				}
+				priority(v, out, outSize, in, inSize, contracted, deleted, witness, true);
+				contracted[v] = true;
+				rank[v] = order++;
+				for (int i = 0; i < outSize[v]; i++) {
+					final int x = heads[out[v][i]];
+					deleted[x]++;
+					inSize[x] = purge(in[x], inSize[x], tails, contracted);
+				}
+				for (int i = 0; i < inSize[v]; i++) {
+					final int x = tails[in[v][i]];
+					deleted[x]++;
+					outSize[x] = purge(out[x], outSize[x], heads, contracted);
+				}
+			}
+			upOutOffsets = new int[n + 1];
+			upInOffsets = new int[n + 1];
+			for (int a = 0; a < size; a++) {
+				if (rank[heads[a]] > rank[tails[a]]) {
+					upOutOffsets[tails[a] + 1]++;
+				} else {
+					upInOffsets[heads[a] + 1]++;
+				}
+			}
+			for (int v = 1; v <= n; v++) {
+				upOutOffsets[v] += upOutOffsets[v - 1];
+				upInOffsets[v] += upInOffsets[v - 1];
+			}
+			upOut = new int[upOutOffsets[n]];
+			upIn = new int[upInOffsets[n]];
+			final int[] nextOut = Arrays.copyOf(upOutOffsets, n), nextIn = Arrays.copyOf(upInOffsets, n);
+			for (int a = 0; a < size; a++) {
+				if (rank[heads[a]] > rank[tails[a]]) {
+					upOut[nextOut[tails[a]]++] = a;
+				} else {
+					upIn[nextIn[heads[a]]++] = a;
+				}
+			}
+		}
+
+		/**
+		 * Adds an arc.
+		 *
+		 * @return the index of the arc
+		 */
+		int add(final int tail, final int head, final double weight, final int a, final int b) {
+			if (size == tails.length) {
+				final int capacity = size * 2;
+				tails = Arrays.copyOf(tails, capacity);
+				heads = Arrays.copyOf(heads, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+				first = Arrays.copyOf(first, capacity);
+				second = Arrays.copyOf(second, capacity);
+			}
+			tails[size] = tail;
+			heads[size] = head;
+			weights[size] = weight;
+			first[size] = a;
+			second[size] = b;
+			return size++;
+		}
+
+		/**
+		 * Adds a shortcut between two vertices, or replaces the one that already exists between them if it is longer.
+		 */
+		void shortcut(final int u, final int x, final double w, final int a, final int b, final int[][] out,
+				final int[] outSize, final int[][] in, final int[] inSize) {
+			for (int i = 0; i < outSize[u]; i++) {
+				final int c = out[u][i];
+				if (heads[c] == x && first[c] >= 0) {
+					if (w < weights[c]) {
+						weights[c] = w;
+						first[c] = a;
+						second[c] = b;
+					}
+					return;
+				}
+			}
+			final int c = add(u, x, w, a, b);
+			out[u] = append(out[u], outSize[u]++, c);
+			in[x] = append(in[x], inSize[x]++, c);
+		}
+
+		/**
+		 * Removes the arcs leading to (or coming from) contracted vertices from a list.
+		 *
+		 * @return the new size of the list
+		 */
+		int purge(final int[] arcs, final int length, final int[] ends, final boolean[] contracted) {
+			int kept = 0;
+			for (int i = 0; i < length; i++) {
+				if (!contracted[ends[arcs[i]]]) { arcs[kept++] = arcs[i]; }
+			}
+			return kept;
+		}
+
+		/**
+		 * Appends a value to an array, growing it if needed.
+		 *
+		 * @return the array
+		 */
+		int[] append(final int[] array, final int index, final int value) {
+			final int[] result = index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+			result[index] = value;
+			return result;
+		}
+
+		/**
+		 * Computes the priority of the contraction of a vertex (twice the number of shortcuts it requires minus the
+		 * number of arcs it removes, plus the number of its neighbours already contracted), or contracts it.
+		 *
+		 * @param contract
+		 *            whether to add the shortcuts
+		 * @return the priority
+		 */
+		double priority(final int v, final int[][] out, final int[] outSize, final int[][] in, final int[] inSize,
+				final boolean[] contracted, final int[] deleted, final Witness witness, final boolean contract) {
+			int shortcuts = 0, removed = 0;
+			double maxOut = 0;
+			for (int j = 0; j < outSize[v]; j++) {
+				final int b = out[v][j];
+				if (!contracted[heads[b]]) {
+					removed++;
+					maxOut = Math.max(maxOut, weights[b]);
+				}
+			}
+			for (int i = 0; i < inSize[v]; i++) {
+				final int a = in[v][i];
+				final int u = tails[a];
+				if (contracted[u]) { continue; }
+				removed++;
+				witness.search(u, v, weights[a] + maxOut, out, outSize, contracted);
+				for (int j = 0; j < outSize[v]; j++) {
+					final int b = out[v][j];
+					final int x = heads[b];
+					if (x == u || contracted[x]) { continue; }
+					final double w = weights[a] + weights[b];
+					if (witness.distance(x) > w) {
+						shortcuts++;
+						if (contract) { shortcut(u, x, w, a, b, out, outSize, in, inSize); }
+					}
+				}
+			}
+			return 2 * (shortcuts - removed) + deleted[v];
+		}
+
+		/**
+		 * Appends the edges of an arc (recursively unpacked if it is a shortcut) to a path.
+		 *
+		 * @param arc
+		 *            the arc
+		 * @param path
+		 *            the path
+		 */
+		void unpack(final int arc, final List<Object> path) {
+			final List<Integer> stack = new ArrayList<>();
+			stack.add(arc);
+			while (!stack.isEmpty()) {
+				final int a = stack.remove(stack.size() - 1);
+				if (first[a] < 0) {
+					path.add(edges[second[a]]);
+				} else {
+					stack.add(second[a]);
+					stack.add(first[a]);
+				}
+			}
+		}
+
+		/**
+		 * The search of witness paths: the local Dijkstra searches that check whether a shortcut is needed.
+		 */
+		class Witness {
+
+			/** The stamps. */
+			final int[] stamp;
+
+			/** The distances. */
+			final double[] dist;
+
+			/** The stamps of the vertices to reach (the neighbours of the vertex contracted). */
+			final int[] target;
+
+			/** The current search. */
+			int current;
+
+			/** The heap. */
+			final Heap heap = new Heap();
+
+			/**
+			 * Instantiates a new witness.
+			 *
+			 * @param n
+			 *            the n
+			 */
+			Witness(final int n) {
+				stamp = new int[n];
+				target = new int[n];
+				dist = new double[n];
+			}
+
+			/**
+			 * Searches the paths from a vertex that avoid the vertex being contracted, up to a distance.
+			 */
+			void search(final int s, final int avoided, final double limit, final int[][] out, final int[] outSize,
+					final boolean[] contracted) {
+				if (current >= Integer.MAX_VALUE - 2) {
+					Arrays.fill(stamp, 0);
+					Arrays.fill(target, 0);
+					current = 0;
+				}
+				current += 2;
+				final int reached = current, settled = current + 1;
+				int remaining = 0;
+				for (int j = 0; j < outSize[avoided]; j++) {
+					final int x = heads[out[avoided][j]];
+					if (x != s && !contracted[x] && target[x] != reached) {
+						target[x] = reached;
+						remaining++;
+					}
+				}
+				heap.size = 0;
+				stamp[s] = reached;
+				dist[s] = 0;
+				heap.push(s, 0);
+				int count = 0;
+				while (heap.size > 0 && heap.top() <= limit && count < WITNESS_LIMIT) {
+					final int u = heap.pop();
+					if (stamp[u] == settled) { continue; }
+					stamp[u] = settled;
+					if (target[u] == reached && --remaining == 0) { break; }
+					count++;
+					for (int i = 0; i < outSize[u]; i++) {
+						final int a = out[u][i];
+						final int v = heads[a];
+						if (v == avoided || contracted[v] || stamp[v] == settled) { continue; }
+						final double d = dist[u] + weights[a];
+						if (stamp[v] != reached || d < dist[v]) {
+							stamp[v] = reached;
+							dist[v] = d;
+							heap.push(v, d);
+						}
+					}
+				}
+			}
+
+			/**
+			 * The distance of a vertex found by the last search.
+			 *
+			 * @return the distance, or +infinity if the vertex has not been reached
+			 */
+			double distance(final int v) {
+				return stamp[v] == current || stamp[v] == current + 1 ? dist[v] : Double.POSITIVE_INFINITY;
+			}
+		}
+	}
+
+}
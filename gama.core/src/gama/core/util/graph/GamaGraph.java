@@ -985,7 +985,7 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 			return removeEdge(((GamaPair) e).first(), ((GamaPair) e).last()) != null;
 
 		if (edge == null) return false;
-		getPathComputer().incVersion();
+		getPathComputer().incVersion(e);
 		edge.removeFromVerticesAs(e);
 		edgeMap.remove(e);
 		if (generatedEdges.contains(e)) { ((IAgent) e).dispose(); }
@@ -996,10 +996,7 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 	@Override
 	public Object removeEdge(final Object v1, final Object v2) {
 		final Object edge = getEdge(v1, v2);
-		if (removeEdge(edge)) {
-			getPathComputer().incVersion();
-			return edge;
-		}
+		if (removeEdge(edge)) return edge;
 		return null;
 
 	}
@@ -1007,9 +1004,10 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 	@Override
 	public boolean removeVertex(final Object v) {
 		if (!containsVertex(v)) return false;
-		getPathComputer().incVersion();
 		final Set edges = edgesOf(v);
-		for (final Object e : edges) { removeEdge(e); }
+		// The paths that went through this vertex are invalidated with the removal of its edges
+		if (edges.isEmpty()) { getPathComputer().incVersion(); }
+		for (final Object e : edges.toArray()) { removeEdge(e); }
 
 		vertexMap.remove(v);
 		dispatchEvent(graphScope, new GraphEvent(graphScope, this, this, null, v, GraphEventType.VERTEX_REMOVED));
@@ -1019,8 +1017,13 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 	@Override
 	public void setEdgeWeight(final Object e, final double weight) {
 		if (!containsEdge(e)) return;
-		getPathComputer().incVersion();
-		getEdge(e).setWeight(weight);
+		final _Edge<V, E> edge = getEdge(e);
+		final double previous = edge.getWeight();
+		// A heavier edge only invalidates the paths that traverse it; a lighter one can shorten any path
+		if (weight > previous) {
+			getPathComputer().incVersion(e);
+		} else if (weight != previous) { getPathComputer().incVersion(); }
+		edge.setWeight(weight);
 	}
 
 	@Override
@@ -1032,8 +1035,9 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 
 	@Override
 	public Set vertexSet() {
-		getPathComputer().incVersion();
-		return vertexMap.keySet();
+		// A read-only view (as in JGraphT), so that reading the vertices does not invalidate the paths and the compact
+		// copy of the graph
+		return Collections.unmodifiableSet(vertexMap.keySet());
 	}
 
 	/**
@@ -0,0 +1,540 @@
+/*******************************************************************************************************
+ *
+ * PathCache.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import gama.core.common.preferences.GamaPreferences;
+import gama.core.util.GamaListFactory;
+import gama.core.util.GamaMapFactory;
+import gama.core.util.IList;
+import gama.core.util.IMap;
+import gama.gaml.types.IType;
+import gama.gaml.types.Types;
+
+/**
+ * A bounded cache of the shortest paths computed on a graph. Paths are not stored as lists of edges but as arrays of
+ * edge indices, the suffixes of a path sharing the array of the path itself. The size of the cache is expressed in
+ * number of stored edge indices (see {@link GamaPreferences.External#PATH_CACHE_CAPACITY}) and entries are evicted
+ * following either a LRU or a LFU policy (see {@link GamaPreferences.External#PATH_CACHE_POLICY}).
+ *
+ * Invalidation is selective and lazy: modifying an edge only stamps it with a new modification time, and a cached path
+ * is discarded when it is found to traverse an edge modified after its insertion. The edges that are no longer used by
+ * any path are forgotten from time to time (see {@link #compact()}), so that the indices of the edges do not grow
+ * without bound on long runs.
+ *
+ * @param <K>
+ *            the type of the keys (usually pairs of vertices)
+ */
+public class PathCache<K> {
+
+	/** The Constant LRU. */
+	public static final String LRU = "LRU";
+
+	/** The Constant LFU. */
+	public static final String LFU = "LFU";
+
+	/** The fixed cost, in edge indices, of an entry. */
+	private static final int ENTRY_OVERHEAD = 8;
+
+	/** The minimal number of indexed edges before the unused ones are forgotten. */
+	private static final int MIN_COMPACTION = 1024;
+
+	/**
+	 * An entry of the cache. Entries are linked together in the order of their last use (LRU policy).
+	 */
+	private static final class Entry<K> {
+
+		/** The key. */
+		final K key;
+
+		/** The paths. */
+		final int[][] paths;
+
+		/** The offset of the first edge in the first path. */
+		final int offset;
+
+		/** The time of insertion. */
+		final int stamp;
+
+		/** The cost of the entry. */
+		final int cost;
+
+		/** The number of uses. */
+		int uses;
+
+		/** The previous and next entries (LRU policy). */
+		Entry<K> previous, next;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param key
+		 *            the key
+		 * @param paths
+		 *            the paths
+		 * @param offset
+		 *            the offset
+		 * @param stamp
+		 *            the stamp
+		 */
+		Entry(final K key, final int[][] paths, final int offset, final int stamp) {
+			this.key = key;
+			this.paths = paths;
+			this.offset = offset;
+			this.stamp = stamp;
+			int c = ENTRY_OVERHEAD - offset;
+			for (final int[] p : paths) { c += p.length; }
+			cost = c;
+		}
+	}
+
+	/** The entries. */
+	private final Map<K, Entry<K>> entries = new HashMap<>();
+
+	/** The head (most recently used) and tail (least recently used) entries for the LRU policy. */
+	private Entry<K> head, tail;
+
+	/** The entries sorted by number of uses for the LFU policy. */
+	private final TreeMap<Integer, LinkedHashSet<Entry<K>>> frequencies = new TreeMap<>();
+
+	/** Whether the LFU policy is used. */
+	private boolean lfu;
+
+	/** The indices of the edges. */
+	private final Map<Object, Integer> indices = new HashMap<>();
+
+	/** The edges by index. */
+	private final List<Object> edges = new ArrayList<>();
+
+	/** The time of the last modification of each edge. */
+	private int[] modifications = new int[64];
+
+	/** The clock, incremented each time an edge is modified. */
+	private int clock;
+
+	/** The number of indexed edges above which the unused ones are forgotten. */
+	private int nextCompaction = MIN_COMPACTION;
+
+	/** The current cost of the entries. */
+	private long cost;
+
+	/** The statistics. */
+	private long hits, misses, evictions, invalidations;
+
+	/**
+	 * Instantiates a new path cache.
+	 */
+	PathCache() {
+		lfu = LFU.equals(GamaPreferences.External.PATH_CACHE_POLICY.getValue());
+	}
+
+	/**
+	 * Returns the first path stored for this key, or null if there is none (or if it is no longer valid).
+	 *
+	 * @param <E>
+	 *            the type of the edges
+	 * @param key
+	 *            the key
+	 * @param contentType
+	 *            the type of the edges
+	 * @return the path or null
+	 */
+	public synchronized <E> IList<E> getPath(final K key, final IType contentType) {
+		final Entry<K> entry = lookup(key);
+		if (entry == null || entry.paths.length == 0) return null;
+		return decode(entry.paths[0], entry.offset, contentType);
+	}
+
+	/**
+	 * Returns the paths stored for this key if there are at least k of them, null otherwise.
+	 *
+	 * @param <E>
+	 *            the type of the edges
+	 * @param key
+	 *            the key
+	 * @param k
+	 *            the number of paths required
+	 * @param contentType
+	 *            the type of the edges
+	 * @return the paths or null
+	 */
+	public synchronized <E> IList<IList<E>> getPaths(final K key, final int k, final IType contentType) {
+		final Entry<K> entry = lookup(key);
+		if (entry == null || entry.paths.length < k) return null;
+		final IList<IList<E>> result = GamaListFactory.create(Types.LIST.of(contentType), entry.paths.length);
+		for (int i = 0; i < entry.paths.length; i++) {
+			result.add(decode(entry.paths[i], i == 0 ? entry.offset : 0, contentType));
+		}
+		return result;
+	}
+
+	/**
+	 * Stores a path for this key, replacing the existing one.
+	 *
+	 * @param key
+	 *            the key
+	 * @param path
+	 *            the path
+	 */
+	public synchronized void put(final K key, final List<?> path) {
+		if (path == null || path.isEmpty()) return;
+		compactIfNeeded(path.size());
+		insert(new Entry<>(key, new int[][] { encode(path) }, 0, clock));
+	}
+
+	/**
+	 * Stores a path and all its suffixes. The suffix starting at edge i is stored under the i-th key (if not already
+	 * present), the whole path under the first one.
+	 *
+	 * @param keys
+	 *            the keys, one per edge of the path
+	 * @param path
+	 *            the path
+	 */
+	public synchronized void putWithSuffixes(final List<K> keys, final List<?> path) {
+		if (path == null || path.isEmpty()) return;
+		compactIfNeeded(path.size());
+		final int[] encoded = encode(path);
+		insert(new Entry<>(keys.get(0), new int[][] { encoded }, 0, clock));
+		for (int i = 1; i < keys.size(); i++) {
+			final K key = keys.get(i);
+			if (!contains(key)) { insert(new Entry<>(key, new int[][] { encoded }, i, clock)); }
+		}
+	}
+
+	/**
+	 * Stores a path for this key if no path is already stored for it.
+	 *
+	 * @param key
+	 *            the key
+	 * @param path
+	 *            the path
+	 */
+	public synchronized void putIfAbsent(final K key, final List<?> path) {
+		if (!contains(key)) { put(key, path); }
+	}
+
+	/**
+	 * Stores several paths for this key, replacing the existing ones.
+	 *
+	 * @param key
+	 *            the key
+	 * @param paths
+	 *            the paths
+	 */
+	public synchronized void putAll(final K key, final List<? extends List<?>> paths) {
+		if (paths.isEmpty()) return;
+		int length = 0;
+		for (final List<?> path : paths) { length += path.size(); }
+		compactIfNeeded(length);
+		final int[][] encoded = new int[paths.size()][];
+		for (int i = 0; i < encoded.length; i++) { encoded[i] = encode(paths.get(i)); }
+		insert(new Entry<>(key, encoded, 0, clock));
+	}
+
+	/**
+	 * Marks an edge as modified: all the paths traversing it will be discarded when looked up.
+	 *
+	 * @param edge
+	 *            the edge
+	 */
+	public synchronized void invalidate(final Object edge) {
+		final Integer index = indices.get(edge);
+		if (index != null) { modifications[index] = ++clock; }
+	}
+
+	/**
+	 * Removes all the paths and forgets the indices of the edges.
+	 */
+	public synchronized void clear() {
+		if (!entries.isEmpty()) { invalidations += entries.size(); }
+		entries.clear();
+		frequencies.clear();
+		head = tail = null;
+		indices.clear();
+		edges.clear();
+		modifications = new int[64];
+		nextCompaction = MIN_COMPACTION;
+		clock = 0;
+		cost = 0;
+		lfu = LFU.equals(GamaPreferences.External.PATH_CACHE_POLICY.getValue());
+	}
+
+	/**
+	 * Returns the number of paths stored.
+	 *
+	 * @return the int
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the statistics of this cache (hits, misses, hit ratio, evictions, invalidations, number of paths and
+	 * cost in edge indices).
+	 *
+	 * @return the statistics
+	 */
+	public synchronized IMap<String, Double> getStatistics() {
+		final IMap<String, Double> result = GamaMapFactory.create(Types.STRING, Types.FLOAT);
+		final long lookups = hits + misses;
+		result.put("hits", (double) hits);
+		result.put("misses", (double) misses);
+		result.put("hit_ratio", lookups == 0 ? 0d : (double) hits / lookups);
+		result.put("evictions", (double) evictions);
+		result.put("invalidations", (double) invalidations);
+		result.put("paths", (double) entries.size());
+		result.put("cost", (double) cost);
+		return result;
+	}
+
+	/**
+	 * Checks if a valid entry exists for this key, without counting it as a use.
+	 *
+	 * @param key
+	 *            the key
+	 * @return true, if successful
+	 */
+	private boolean contains(final K key) {
+		final Entry<K> entry = entries.get(key);
+		return entry != null && isValid(entry);
+	}
+
+	/**
+	 * Looks up a valid entry and updates the statistics and the eviction order.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the entry or null
+	 */
+	private Entry<K> lookup(final K key) {
+		final Entry<K> entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (!isValid(entry)) {
+			remove(entry);
+			invalidations++;
+			misses++;
+			return null;
+		}
+		hits++;
+		touch(entry);
+		return entry;
+	}
+
+	/**
+	 * Checks if no edge of the entry has been modified after its insertion.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @return true, if is valid
+	 */
+	private boolean isValid(final Entry<K> entry) {
+		if (entry.stamp == clock) return true;
+		for (int p = 0; p < entry.paths.length; p++) {
+			final int[] path = entry.paths[p];
+			for (int i = p == 0 ? entry.offset : 0; i < path.length; i++) {
+				if (modifications[path[i]] > entry.stamp) return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts an entry and evicts the least recently (or frequently) used ones if the capacity is exceeded.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void insert(final Entry<K> entry) {
+		final Entry<K> old = entries.put(entry.key, entry);
+		if (old != null) { unlink(old); }
+		link(entry);
+		final int capacity = GamaPreferences.External.PATH_CACHE_CAPACITY.getValue();
+		while (capacity > 0 && cost > capacity && !entries.isEmpty()) {
+			remove(lfu ? frequencies.firstEntry().getValue().iterator().next() : tail);
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes an entry.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void remove(final Entry<K> entry) {
+		entries.remove(entry.key);
+		unlink(entry);
+	}
+
+	/**
+	 * Adds the entry to the eviction structures.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void link(final Entry<K> entry) {
+		cost += entry.cost;
+		if (lfu) {
+			frequencies.computeIfAbsent(entry.uses, u -> new LinkedHashSet<>()).add(entry);
+		} else {
+			entry.previous = null;
+			entry.next = head;
+			if (head != null) { head.previous = entry; }
+			head = entry;
+			if (tail == null) { tail = entry; }
+		}
+	}
+
+	/**
+	 * Removes the entry from the eviction structures.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void unlink(final Entry<K> entry) {
+		cost -= entry.cost;
+		if (lfu) {
+			final LinkedHashSet<Entry<K>> set = frequencies.get(entry.uses);
+			if (set != null) {
+				set.remove(entry);
+				if (set.isEmpty()) { frequencies.remove(entry.uses); }
+			}
+		} else {
+			if (entry.previous != null) {
+				entry.previous.next = entry.next;
+			} else if (head == entry) { head = entry.next; }
+			if (entry.next != null) {
+				entry.next.previous = entry.previous;
+			} else if (tail == entry) { tail = entry.previous; }
+			entry.previous = entry.next = null;
+		}
+	}
+
+	/**
+	 * Records a use of the entry.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void touch(final Entry<K> entry) {
+		unlink(entry);
+		entry.uses++;
+		link(entry);
+	}
+
+	/**
+	 * Encodes a list of edges as an array of edge indices.
+	 *
+	 * @param path
+	 *            the path
+	 * @return the int[]
+	 */
+	private int[] encode(final List<?> path) {
+		final int[] result = new int[path.size()];
+		for (int i = 0; i < result.length; i++) {
+			final Object edge = path.get(i);
+			Integer index = indices.get(edge);
+			if (index == null) {
+				index = edges.size();
+				edges.add(edge);
+				indices.put(edge, index);
+				if (index == modifications.length) { modifications = Arrays.copyOf(modifications, index * 2); }
+			}
+			result[i] = index;
+		}
+		return result;
+	}
+
+	/**
+	 * Compacts the indices of the edges if adding new ones could make them exceed the threshold. Must be called before
+	 * encoding the paths to insert, as the compaction renumbers the edges.
+	 *
+	 * @param incoming
+	 *            the maximal number of edges that are going to be indexed
+	 */
+	private void compactIfNeeded(final int incoming) {
+		if (edges.size() + incoming > nextCompaction) { compact(); }
+	}
+
+	/**
+	 * Forgets the edges that are not traversed by any valid path, discards the invalid paths and renumbers the
+	 * remaining edges. The next compaction happens when the number of indexed edges has doubled, so that its cost is
+	 * amortized over the insertions.
+	 */
+	private void compact() {
+		for (final Entry<K> entry : new ArrayList<>(entries.values())) {
+			if (!isValid(entry)) {
+				remove(entry);
+				invalidations++;
+			}
+		}
+		final int[] renumbering = new int[edges.size()];
+		Arrays.fill(renumbering, -1);
+		final List<Object> kept = new ArrayList<>();
+		final int[] keptModifications = new int[Math.max(64, modifications.length)];
+		// The arrays of indices are shared by the suffixes of a path: each of them is renumbered only once
+		final Set<int[]> renumbered = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (final Entry<K> entry : entries.values()) {
+			for (final int[] path : entry.paths) {
+				if (!renumbered.add(path)) { continue; }
+				for (int i = 0; i < path.length; i++) {
+					final int old = path[i];
+					if (renumbering[old] < 0) {
+						renumbering[old] = kept.size();
+						keptModifications[kept.size()] = modifications[old];
+						kept.add(edges.get(old));
+					}
+					path[i] = renumbering[old];
+				}
+			}
+		}
+		edges.clear();
+		edges.addAll(kept);
+		indices.clear();
+		for (int i = 0; i < kept.size(); i++) { indices.put(kept.get(i), i); }
+		modifications = keptModifications;
+		nextCompaction = Math.max(MIN_COMPACTION, 2 * kept.size());
+	}
+
+	/**
+	 * Decodes an array of edge indices.
+	 *
+	 * @param <E>
+	 *            the type of the edges
+	 * @param path
+	 *            the path
+	 * @param offset
+	 *            the index of the first edge
+	 * @param contentType
+	 *            the type of the edges
+	 * @return the list of edges
+	 */
+	@SuppressWarnings ("unchecked")
+	private <E> IList<E> decode(final int[] path, final int offset, final IType contentType) {
+		final IList<E> result = GamaListFactory.create(contentType, path.length - offset);
+		for (int i = offset; i < path.length; i++) { result.add((E) edges.get(path[i])); }
+		return result;
+	}
+
+}
@@ -9,10 +9,10 @@
  ********************************************************************************************************/
 package gama.core.util.graph;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -36,6 +36,7 @@ import org.jgrapht.util.SupplierUtil;
 
 import com.google.common.collect.ImmutableList;
 
+import gama.core.common.preferences.GamaPreferences;
 import gama.core.metamodel.topology.graph.AStar;
 import gama.core.metamodel.topology.graph.FloydWarshallShortestPathsGAMA;
 import gama.core.metamodel.topology.graph.NBAStarPathfinder;
@@ -134,7 +135,7 @@ public class PathComputer<V, E> {
 	protected int version = 1;
 
 	/** The shortest path computed. */
-	protected Map<Pair<V, V>, IList<IList<E>>> shortestPathComputed = new ConcurrentHashMap<>();
+	protected final PathCache<Pair<V, V>> shortestPathComputed = new PathCache<>();
 
 	/** The shortest path matrix. */
 	protected GamaIntMatrix shortestPathMatrix = null;
@@ -158,6 +159,9 @@ public class PathComputer<V, E> {
 	/** The transit node routing. */
 	protected TransitNodeRoutingShortestPath<V, E> transitNodeRouting = null;
 
+	/** The compact copy of the graph used to compute the shortest paths, built lazily. */
+	protected volatile CompactGraph<V, E> compactGraph;
+
 	/** The linked J graph. */
 	protected AbstractBaseGraph<String, Object> linkedJGraph;
 
@@ -169,7 +173,7 @@ public class PathComputer<V, E> {
 	 *
 	 * @return the shortest path computed
 	 */
-	public Map<Pair<V, V>, IList<IList<E>>> getShortestPathComputed() { return shortestPathComputed; }
+	public PathCache<Pair<V, V>> getShortestPathComputed() { return shortestPathComputed; }
 
 	/**
 	 * Gets the shortest path.
@@ -181,10 +185,7 @@ public class PathComputer<V, E> {
 	 * @return the shortest path
 	 */
 	public IList<E> getShortestPath(final V s, final V t) {
-		final Pair<V, V> vp = new Pair<>(s, t);
-		final IList<IList<E>> ppc = shortestPathComputed.get(vp);
-		if (ppc == null || ppc.isEmpty()) return null;
-		return ppc.get(0);
+		return shortestPathComputed.getPath(new Pair<>(s, t), graph.getGamlType().getContentType());
 	}
 
 	/**
@@ -324,12 +325,7 @@ public class PathComputer<V, E> {
 				next = M[next];
 				vc = vn;
 			} while (previous != i);
-			final Pair vv = new Pair<>(v1, vt);
-			if (!shortestPathComputed.containsKey(vv)) {
-				final IList<IList<E>> ssp = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
-				ssp.add(edges);
-				shortestPathComputed.put(vv, ssp);
-			}
+			shortestPathComputed.putIfAbsent(new Pair<>((V) v1, vt), edges);
 			if (j == t) { edgesVertices = edges; }
 		}
 		return edgesVertices;
@@ -491,10 +487,23 @@ public class PathComputer<V, E> {
 			if (path == null) return GamaListFactory.create(graph.getGamlType().getContentType());
 			return GamaListFactory.create(scope, graph.getGamlType().getContentType(), path.getEdgeList());
 		}
-		IList<IList<E>> sp = null;
-		if (saveComputedShortestPaths) { sp = shortestPathComputed.get(new Pair<>(source, target)); }
 		IList<E> spl = null;
-		if (sp == null || sp.isEmpty() || sp.get(0).isEmpty()) {
+		if (saveComputedShortestPaths) {
+			spl = shortestPathComputed.getPath(new Pair<>(source, target), graph.getGamlType().getContentType());
+		}
+		if (spl == null && GamaPreferences.External.GRAPH_COMPACT.getValue() && CompactGraph.supports(pathFindingAlgo)) {
+			final CompactGraph<V, E> compact = getCompactGraph();
+			List<E> edges = null;
+			if (GamaPreferences.External.GRAPH_SHARED_ROUTES.getValue() && scope.getClock() != null) {
+				edges = compact.routeTo(scope.getClock().getCycle(), source, target);
+			}
+			if (edges == null) { edges = compact.shortestPath(pathFindingAlgo, source, target); }
+			if (edges != null) {
+				spl = GamaListFactory.create(scope, graph.getGamlType().getContentType(), edges);
+				if (saveComputedShortestPaths) { saveShortestPaths(spl, source, target); }
+			}
+		}
+		if (spl == null) {
 			if (pathFindingAlgo == shortestPathAlgorithm.NBAStar) {
 				final NBAStarPathfinder<V, E> p = new NBAStarPathfinder<>(graph, false);
 				spl = p.search(source, target);
@@ -532,14 +541,29 @@ public class PathComputer<V, E> {
 
 			if (saveComputedShortestPaths) { saveShortestPaths(spl, source, target); }
 
-		} else {
-			spl = GamaListFactory.create(scope, graph.getGamlType().getContentType(), sp.get(0));
 		}
 		return spl;
 	}
 
 	/**
-	 * Save shortest paths.
+	 * Returns the compact copy of the graph, building it if needed.
+	 *
+	 * @return the compact graph
+	 */
+	protected CompactGraph<V, E> getCompactGraph() {
+		CompactGraph<V, E> result = compactGraph;
+		if (result == null) {
+			synchronized (this) {
+				result = compactGraph;
+				if (result == null) { compactGraph = result = new CompactGraph<>(graph); }
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Save shortest paths. The path is stored once, and each of its suffixes is registered under the pair made of the
+	 * intermediate vertex and the target.
 	 *
 	 * @param edges
 	 *            the edges
@@ -549,26 +573,18 @@ public class PathComputer<V, E> {
 	 *            the target
 	 */
 	private void saveShortestPaths(final List<E> edges, final V source, final V target) {
+		if (edges == null || edges.isEmpty()) return;
+		final List<Pair<V, V>> keys = new ArrayList<>(edges.size());
+		keys.add(new Pair<>(source, target));
 		V s = source;
-		final IList<IList<E>> spl = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
-		spl.add(GamaListFactory.createWithoutCasting(graph.getGamlType().getContentType(), edges));
-		shortestPathComputed.put(new Pair<>(source, target), spl);
-		final List<E> edges2 = GamaListFactory.create(graph.graphScope, graph.getGamlType().getContentType(), edges);
-		for (int i = 0; i < edges.size(); i++) {
-			final E edge = edges2.remove(0);
-			if (edges2.isEmpty()) { break; }
-			// DEBUG.LOG("s : " + s + " j : " + j + " i: " + i);
+		for (int i = 0; i < edges.size() - 1; i++) {
+			final E edge = edges.get(i);
 			V nwS = (V) graph.getEdgeTarget(edge);
 			if (!graph.directed && nwS.equals(s)) { nwS = (V) graph.getEdgeSource(edge); }
-			final Pair<V, V> pp = new Pair<>(nwS, target);
-			if (!shortestPathComputed.containsKey(pp)) {
-				final IList<IList<E>> spl2 = GamaListFactory.create(graph.getGamlType().getContentType());
-				spl2.add(GamaListFactory.createWithoutCasting(graph.getGamlType().getContentType(), edges2));
-				shortestPathComputed.put(pp, spl2);
-			}
+			keys.add(new Pair<>(nwS, target));
 			s = nwS;
-
 		}
+		shortestPathComputed.putWithSuffixes(keys, edges);
 	}
 
 	/**
@@ -625,7 +641,6 @@ public class PathComputer<V, E> {
 				useLinkedGraph ? target.toString() : target, k);
 
 		if (pathsJGT == null) return GamaListFactory.create(graph.getGamlType().getContentType());
-		final IList<IList<E>> el = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
 		final IList<IList<E>> paths = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
 
 		for (final GraphPath p : pathsJGT) {
@@ -636,9 +651,8 @@ public class PathComputer<V, E> {
 				path.addAll(p.getEdgeList());
 			}
 			paths.add(path);
-			if (saveComputedShortestPaths) { el.add(path); }
 		}
-		if (saveComputedShortestPaths) { shortestPathComputed.put(new Pair<>(source, target), el); }
+		if (saveComputedShortestPaths) { shortestPathComputed.putAll(new Pair<>(source, target), paths); }
 		return paths;
 	}
 
@@ -658,15 +672,9 @@ public class PathComputer<V, E> {
 	 * @date 30 oct. 2023
 	 */
 	public IList<IList<E>> computeKBestRoutesBetween(final IScope scope, final V source, final V target, final int k) {
-		final Pair<V, V> pp = new Pair<>(source, target);
-		final IList<IList<E>> sps = shortestPathComputed.get(pp);
-		if (sps != null && sps.size() >= k) {
-			IList<IList<E>> paths = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
-			for (final IList<E> sp : sps) {
-				paths.add(GamaListFactory.create(scope, graph.getGamlType().getContentType(), sp));
-			}
-			return paths;
-		}
+		final IList<IList<E>> sps =
+				shortestPathComputed.getPaths(new Pair<>(source, target), k, graph.getGamlType().getContentType());
+		if (sps != null) return sps;
 		IList<IList<E>> paths = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
 		if (kPathFindingAlgo == kShortestPathAlgorithm.Yen) {
 			paths = geKtShortestPath(scope, new YenKShortestPath<>(graph), source, target, k, false);
@@ -743,10 +751,12 @@ public class PathComputer<V, E> {
 	public void setVersion(final int version) {
 		this.version = version;
 		shortestPathComputed.clear();
+		compactGraph = null;
 	}
 
 	/**
-	 * Inc version.
+	 * Inc version. All the cached paths are discarded: to be used when the modification of the graph can make shorter
+	 * paths appear (addition of edges or vertices, decrease of weights...)
 	 *
 	 * @author Alexis Drogoul (alexis.drogoul@ird.fr)
 	 * @date 30 oct. 2023
@@ -754,6 +764,27 @@ public class PathComputer<V, E> {
 	public void incVersion() {
 		version++;
 		shortestPathComputed.clear();
+		resetAlgorithms();
+	}
+
+	/**
+	 * Inc version after an edge has been removed or made heavier. Only the cached paths traversing this edge are
+	 * discarded, as the other ones remain the shortest.
+	 *
+	 * @param edge
+	 *            the edge
+	 */
+	public void incVersion(final Object edge) {
+		version++;
+		shortestPathComputed.invalidate(edge);
+		resetAlgorithms();
+	}
+
+	/**
+	 * Resets the algorithms that precompute data on the graph.
+	 */
+	private void resetAlgorithms() {
+		compactGraph = null;
 		contractionHierarchyBD = null;
 		transitNodeRouting = null;
 		linkedJGraph = null;
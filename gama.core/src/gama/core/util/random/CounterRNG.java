@@ -0,0 +1,183 @@
+/*******************************************************************************************************
+ *
+ * CounterRNG.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.random;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.core.common.util.RandomUtils;
+import gama.core.metamodel.agent.IAgent;
+
+/**
+ * A counter-based random number generator: the n-th number drawn in a stream is a pure function (the finalizer of
+ * SplitMix64) of the key of the stream and of n. Each agent gets its own stream at each cycle, whose key is derived from
+ * the seed of the simulation, from the identity of the agent (species, index and hosts) and from the cycle. The numbers
+ * drawn by an agent therefore depend neither on the other agents nor on the order in which agents are scheduled: the
+ * simulations are reproducible whatever the number of threads used to run them in parallel, and no lock is needed.
+ *
+ * The agent and the cycle are bound to the current thread by {@link RandomUtils#bind(IAgent, int)}, which is called
+ * each time an agent asks the scope for the random number generator. The numbers drawn outside of any agent come from
+ * a stream that only depends on the seed and the cycle.
+ */
+public class CounterRNG implements IGamaRNG {
+
+	/** The golden gamma of SplitMix64, used as the increment of the counters. */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** The key derived from the seed. */
+	private final long seedKey;
+
+	/** The number of numbers drawn in each stream during the current cycle, by identity of agent. */
+	private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+
+	/** The cycle of the counters. */
+	private volatile int cycle = Integer.MIN_VALUE;
+
+	/** The stream bound to each thread. */
+	private final ThreadLocal<Stream> streams = ThreadLocal.withInitial(Stream::new);
+
+	/** The generator returned by {@link #getRandomGenerator()}, drawing its numbers from the current stream. */
+	private final Random random = new Random() {
+
+		@Override
+		protected int next(final int bits) {
+			return (int) (nextLong() >>> 64 - bits);
+		}
+
+		@Override
+		public double nextGaussian() {
+			return CounterRNG.this.nextGaussian();
+		}
+	};
+
+	/**
+	 * The stream of an agent during a cycle.
+	 */
+	static class Stream {
+
+		/** The agent. */
+		IAgent agent;
+
+		/** The cycle. */
+		int cycle = Integer.MIN_VALUE;
+
+		/** The key. */
+		long key;
+
+		/** The counter (shared by all the threads that bind the same agent during the cycle). */
+		AtomicLong counter = new AtomicLong();
+	}
+
+	/**
+	 * Seed the RNG using the provided seed generation strategy.
+	 *
+	 * @param seedGenerator
+	 *            The seed generation strategy that will provide the seed value for this RNG.
+	 */
+	public CounterRNG(final RandomUtils seedGenerator) {
+		long value = 0;
+		for (final byte b : seedGenerator.generateSeed(8)) { value = value << 8 | b & 0xff; }
+		seedKey = mix(value);
+	}
+
+	/**
+	 * The finalizer of SplitMix64.
+	 *
+	 * @param z
+	 *            the z
+	 * @return the long
+	 */
+	private static long mix(long z) {
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+
+	/**
+	 * The identity of an agent: its species, its index and those of its hosts.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @return the long
+	 */
+	private static long identity(final IAgent agent) {
+		long id = 0;
+		for (IAgent a = agent; a != null; a = a.getHost()) {
+			id = mix(id * GOLDEN_GAMMA + a.getSpeciesName().hashCode()) + a.getIndex();
+		}
+		return id;
+	}
+
+	@Override
+	public void bind(final IAgent agent, final int now) {
+		final Stream stream = streams.get();
+		if (stream.agent == agent && stream.cycle == now) return;
+		if (now != cycle) { startCycle(now); }
+		final long id = agent == null ? 0 : identity(agent);
+		stream.agent = agent;
+		stream.cycle = now;
+		stream.key = mix(seedKey ^ mix(id + now * GOLDEN_GAMMA));
+		stream.counter = counters.computeIfAbsent(id, k -> new AtomicLong());
+	}
+
+	/**
+	 * Forgets the counters of the previous cycle.
+	 *
+	 * @param now
+	 *            the now
+	 */
+	private synchronized void startCycle(final int now) {
+		if (now == cycle) return;
+		counters.clear();
+		cycle = now;
+	}
+
+	/**
+	 * The next 64 bits of the current stream.
+	 *
+	 * @return the long
+	 */
+	public long nextLong() {
+		final Stream stream = streams.get();
+		if (stream.cycle != cycle) { bind(stream.agent, cycle); }
+		return mix(stream.key + stream.counter.incrementAndGet() * GOLDEN_GAMMA);
+	}
+
+	@Override
+	public int getUsage() { return (int) streams.get().counter.get(); }
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	@Override
+	public double nextGaussian() {
+		// Polar method of Marsaglia, without keeping the second value so that the stream has no hidden state
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+	}
+
+	@Override
+	public Random getRandomGenerator() { return random; }
+
+}
@@ -11,6 +11,8 @@ package gama.core.util.random;
 
 import java.util.Random;
 
+import gama.core.metamodel.agent.IAgent;
+
 /**
  * The Class IGamaRNG.
  */
@@ -65,4 +67,15 @@ public interface IGamaRNG {
 	 */
 	Random getRandomGenerator();
 
+	/**
+	 * Binds an agent and a cycle to the current thread, for the generators whose streams depend on them. Does nothing
+	 * by default.
+	 *
+	 * @param agent
+	 *            the agent (can be null)
+	 * @param cycle
+	 *            the cycle
+	 */
+	default void bind(final IAgent agent, final int cycle) {}
+
 }
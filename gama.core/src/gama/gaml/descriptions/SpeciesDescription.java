@@ -12,6 +12,7 @@ package gama.gaml.descriptions;
 
 import static com.google.common.collect.Iterables.transform;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -25,6 +26,7 @@ import com.google.common.collect.Iterables;
 import gama.annotations.precompiler.GamlProperties;
 import gama.annotations.precompiler.ITypeProvider;
 import gama.core.common.interfaces.ISkill;
+import gama.core.metamodel.agent.AgentAttributes;
 import gama.core.metamodel.agent.GamlAgent;
 import gama.core.metamodel.agent.IAgent;
 import gama.core.metamodel.agent.IMacroAgent;
@@ -87,6 +89,9 @@ public class SpeciesDescription extends TypeDescription {
 	/** The java base. */
 	protected Class javaBase;
 
+	/** The slots assigned to the attributes stored by the agents (computed lazily). */
+	private volatile AgentAttributes.Layout attributeLayout;
+
 	/**
 	 * Instantiates a new species description.
 	 *
@@ -188,6 +193,7 @@ public class SpeciesDescription extends TypeDescription {
 			control = null;
 		}
 		microSpecies = null;
+		attributeLayout = null;
 
 	}
 
@@ -597,6 +603,52 @@ public class SpeciesDescription extends TypeDescription {
 	@Override
 	public SpeciesDescription getParent() { return (SpeciesDescription) super.getParent(); }
 
+	/**
+	 * Returns the slots assigned to the attributes whose values are stored by the agents of this species, i.e. the
+	 * attributes that are neither computed by a getter nor by a function. The slots of the parent species are kept at
+	 * the same indices, so that the slot of an attribute is the same in a species and all its sub-species. Must only be
+	 * called once the description is complete (i.e. at runtime).
+	 *
+	 * @return the layout of the attributes
+	 */
+	public AgentAttributes.Layout getAttributeLayout() {
+		AgentAttributes.Layout result = attributeLayout;
+		if (result == null) {
+			final SpeciesDescription parent = getParent();
+			final List<String> names = new ArrayList<>();
+			if (parent != null && parent != this) {
+				final AgentAttributes.Layout inherited = parent.getAttributeLayout();
+				for (int i = 0; i < inherited.size(); i++) { names.add(inherited.nameAt(i)); }
+			}
+			for (final VariableDescription vd : getAttributes()) {
+				if (vd == null) { continue; }
+				final boolean stored = vd.getGetter() == null && !vd.hasFacet(FUNCTION);
+				final int index = names.indexOf(vd.getName());
+				if (index < 0) {
+					if (stored) { names.add(vd.getName()); }
+				} else if (!stored) {
+					// Redefined as a computed attribute: the slot is kept (to preserve the indices) but no longer used
+					names.set(index, null);
+				}
+			}
+			result = names.isEmpty() ? AgentAttributes.Layout.EMPTY : new AgentAttributes.Layout(names);
+			attributeLayout = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the slot of the attribute in the agents of this species (and its sub-species), or -1 if its value is not
+	 * stored in a slot.
+	 *
+	 * @param name
+	 *            the name of the attribute
+	 * @return the slot
+	 */
+	public int getAttributeSlot(final String name) {
+		return getAttributeLayout().indexOf(name);
+	}
+
 	@Override
 	public void inheritFromParent() {
 		final SpeciesDescription parent = getParent();
@@ -11,6 +11,9 @@
 package gama.gaml.expressions.variables;
 
 import gama.annotations.precompiler.GamlProperties;
+import gama.core.metamodel.agent.AbstractAgent;
+import gama.core.metamodel.agent.AgentAttributes;
+import gama.core.metamodel.agent.IAgent;
 import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.ICollector;
@@ -27,6 +30,15 @@ import gama.gaml.types.IType;
  */
 public class AgentVariableExpression extends VariableExpression implements IVarExpression.Agent {
 
+	/** The value of the slot when it has not yet been computed. */
+	private static final int UNKNOWN_SLOT = -2;
+
+	/**
+	 * The slot of the attribute in the agents of the species where it is defined (see
+	 * {@link SpeciesDescription#getAttributeSlot(String)}). Computed lazily, once the species is complete.
+	 */
+	private int slot = UNKNOWN_SLOT;
+
 	/**
 	 * Instantiates a new agent variable expression.
 	 *
@@ -52,7 +64,29 @@ public class AgentVariableExpression extends VariableExpression implements IVarE
 
 	@Override
 	public Object _value(final IScope scope) throws GamaRuntimeException {
-		return scope.getAgentVarValue(scope.getAgent(), getName());
+		final IAgent agent = scope.getAgent();
+		if (agent instanceof AbstractAgent aa && !scope.interrupted()) {
+			final int s = getSlot();
+			if (s >= 0) {
+				final Object v = aa.getSlot(s, getName());
+				if (v != AgentAttributes.UNSET) return v;
+			}
+		}
+		return scope.getAgentVarValue(agent, getName());
+	}
+
+	/**
+	 * Gets the slot of the attribute.
+	 *
+	 * @return the slot, or -1 if the attribute is not stored in a slot
+	 */
+	private int getSlot() {
+		if (slot == UNKNOWN_SLOT) {
+			final IDescription desc = getDefinitionDescription();
+			final SpeciesDescription sd = desc == null ? null : desc.getSpeciesContext();
+			slot = sd == null ? -1 : sd.getAttributeSlot(getName());
+		}
+		return slot;
 	}
 
 	@Override
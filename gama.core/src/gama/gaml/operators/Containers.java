@@ -13,6 +13,7 @@ import static gama.gaml.compilation.GAML.notNull;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -23,6 +24,7 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.eclipse.emf.ecore.EObject;
@@ -53,8 +55,11 @@ import gama.core.metamodel.topology.ITopology;
 import gama.core.metamodel.topology.grid.IGrid;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
+import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaColor;
+import gama.core.util.GamaFloatList;
+import gama.core.util.GamaIntList;
 import gama.core.util.GamaListFactory;
 import gama.core.util.GamaListFactory.GamaListSupplier;
 import gama.core.util.GamaMapFactory;
@@ -203,6 +208,79 @@ public class Containers {
 		return notNull(scope, c).stream(scope);
 	}
 
+	/**
+	 * Returns the elements of a container, as an array, if the iterator operators should evaluate their expression in
+	 * parallel on it, i.e. if this is enabled (see {@link GamaExecutorService#CONCURRENCY_OPERATORS}) and if the
+	 * container is large enough.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param c
+	 *            the c
+	 * @return the elements, or null if the expression should be evaluated sequentially
+	 */
+	private static Object[] elementsForParallel(final IScope scope, final IContainer c) {
+		if (c == null || !GamaExecutorService.CONCURRENCY_OPERATORS.getValue()
+				|| c.length(scope) < GamaExecutorService.CONCURRENCY_OPERATORS_THRESHOLD.getValue())
+			return null;
+		return c.stream(scope).toArray();
+	}
+
+	/**
+	 * Evaluates an expression on each element of an array, in parallel. The elements are divided into contiguous
+	 * chunks, each evaluated by a worker of the ForkJoin pool in its own copy of the scope (where 'each' is bound to
+	 * the elements in turn). The values are returned in the order of the elements, so that the operators built on them
+	 * return the same results as their sequential versions.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param elements
+	 *            the elements
+	 * @param e
+	 *            the expression
+	 * @return the values
+	 */
+	public static Object[] evaluateInParallel(final IScope scope, final Object[] elements, final IExpression e) {
+		final int n = elements.length;
+		final Object[] values = new Object[n];
+		final int chunks = Math.min(n, GamaExecutorService.THREADS_NUMBER.getValue() * 4);
+		GamaExecutorService.executeThreaded(() -> IntStream.range(0, chunks).parallel().forEach(k -> {
+			final IScope copy = scope.copy("in parallel iterator");
+			try {
+				for (int i = (int) ((long) n * k / chunks), last = (int) ((long) n * (k + 1) / chunks); i < last; i++) {
+					copy.setEach(elements[i]);
+					values[i] = e.value(copy);
+				}
+			} finally {
+				GAMA.releaseScope(copy);
+			}
+		}));
+		return values;
+	}
+
+	/**
+	 * Returns the index of the first element whose value is the greatest (or the smallest), as the 'maxBy' and 'minBy'
+	 * of streams do.
+	 *
+	 * @param values
+	 *            the values
+	 * @param max
+	 *            whether to look for the greatest value
+	 * @return the index, or -1 if there are no values
+	 */
+	private static int indexOfExtremum(final Object[] values, final boolean max) {
+		int result = -1;
+		for (int i = 0; i < values.length; i++) {
+			if (result < 0) {
+				result = i;
+			} else {
+				final int comparison = ((Comparable) values[i]).compareTo(values[result]);
+				if (max ? comparison > 0 : comparison < 0) { result = i; }
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * List of.
 	 *
@@ -1730,6 +1808,20 @@ public class Containers {
 	@test ("[1::2, 3::4, 5::6] group_by (each > 4) = [false::[2, 4], true::[6]]")
 	public static IMap group_by(final IScope scope, final IContainer c, final IExpression e) {
 		final IType ct = notNull(scope, c).getGamlType().getContentType();
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) {
+			final Object[] keys = evaluateInParallel(scope, elements, e);
+			final IMap result = asMapOf(e.getGamlType(), Types.LIST.of(ct)).get();
+			for (int i = 0; i < elements.length; i++) {
+				IList group = (IList) result.get(keys[i]);
+				if (group == null) {
+					group = listOf(ct).get();
+					result.put(keys[i], group);
+				}
+				group.add(elements[i]);
+			}
+			return result;
+		}
 		return (IMap) stream(scope, c).groupingTo(with(scope, e), asMapOf(e.getGamlType(), Types.LIST.of(ct)),
 				listOf(ct));
 	}
@@ -1974,9 +2066,22 @@ public class Containers {
 			see = { "min_of", "max_of", "product_of", "mean_of" })
 	@test ("[1,2] sum_of (each * 100 ) = 300")
 	public static Object sum_of(final IScope scope, final IContainer container, final IExpression filter) {
+		if (filter == null) {
+			// Fast paths for the lists that store their values in arrays of primitives
+			if (container instanceof GamaIntList ints && ints.isPrimitive()
+					&& ints.getGamlType().getContentType().id() == IType.INT)
+				return ints.sum();
+			if (container instanceof GamaFloatList floats && floats.isPrimitive()
+					&& floats.getGamlType().getContentType().id() == IType.FLOAT)
+				return floats.sum();
+		}
 		Stream s = stream(scope, container);
 		IType t;
-		if (filter != null) {
+		final Object[] elements = filter == null ? null : elementsForParallel(scope, container);
+		if (elements != null) {
+			s = Stream.of(evaluateInParallel(scope, elements, filter));
+			t = filter.getGamlType();
+		} else if (filter != null) {
 			s = s.map(with(scope, filter));
 			t = filter.getGamlType();
 		} else {
@@ -2119,6 +2224,16 @@ public class Containers {
 	@test ("[1,2,4,3,5,7,6,8] sort_by (each) = [1,2,3,4,5,6,7,8]")
 	@validator (ComparableValidator.class)
 	public static IList sort(final IScope scope, final IContainer c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) {
+			final Object[] keys = evaluateInParallel(scope, elements, filter);
+			final IList result = listLike(c).get();
+			final Integer[] order = IntStreamEx.range(elements.length).boxed().toArray(Integer[]::new);
+			// Arrays.sort is stable on objects, like the sorting of streams
+			Arrays.sort(order, (i, j) -> ((Comparable) keys[i]).compareTo(keys[j]));
+			for (final Integer i : order) { result.add(elements[i]); }
+			return result;
+		}
 		return (IList) stream(scope, c).sortedBy(with(scope, filter)).toCollection(listLike(c));
 	}
 
@@ -2168,6 +2283,8 @@ public class Containers {
 			see = { "first_with", "last_with" })
 	@test ("[1,2,3,4,5,6,7,8] where (each > 3) = [4, 5, 6, 7, 8] ")
 	public static IList where(final IScope scope, final IContainer c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) return where(scope, elements, listLike(c).get(), filter);
 		return (IList) stream(scope, c).filter(by(scope, filter)).toCollection(listLike(c));
 	}
 
@@ -2201,6 +2318,8 @@ public class Containers {
 	 * @return
 	 */
 	public static IList where(final IScope scope, final IList c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) return where(scope, elements, listLike(c).get(), filter);
 		return where(scope, c.iterable(scope), c.getGamlType().getContentType(), filter);
 	}
 
@@ -2228,6 +2347,26 @@ public class Containers {
 		return result;
 	}
 
+	/**
+	 * Where, evaluating the filter in parallel.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param elements
+	 *            the elements
+	 * @param result
+	 *            the list to fill
+	 * @param filter
+	 *            the filter
+	 * @return the i list
+	 */
+	private static IList where(final IScope scope, final Object[] elements, final IList result,
+			final IExpression filter) {
+		final Object[] values = evaluateInParallel(scope, elements, filter);
+		for (int i = 0; i < elements.length; i++) { if ((Boolean) values[i]) { result.add(elements[i]); } }
+		return result;
+	}
+
 	/**
 	 * Where.
 	 *
@@ -2258,6 +2397,8 @@ public class Containers {
 	 * @return
 	 */
 	public static IList where(final IScope scope, final ISpecies c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) return where(scope, elements, listLike(c).get(), filter);
 		return where(scope, c.iterable(scope), c.getGamlType().getContentType(), filter);
 	}
 
@@ -2304,6 +2445,11 @@ public class Containers {
 	@test ("[1,2,3,4,5,6,7,8] with_max_of (each ) = 8")
 	@validator (ComparableValidator.class)
 	public static Object with_max_of(final IScope scope, final IContainer c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) {
+			final int i = indexOfExtremum(evaluateInParallel(scope, elements, filter), true);
+			return i < 0 ? null : elements[i];
+		}
 		return stream(scope, c).maxBy(with(scope, filter)).orElse(null);
 	}
 
@@ -2350,6 +2496,11 @@ public class Containers {
 	@test ("[1,2,3,4,5,6,7,8] with_min_of (each )  = 1")
 	@validator (ComparableValidator.class)
 	public static Object with_min_of(final IScope scope, final IContainer c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) {
+			final int i = indexOfExtremum(evaluateInParallel(scope, elements, filter), false);
+			return i < 0 ? null : elements[i];
+		}
 		return stream(scope, c).minBy(with(scope, filter)).orElse(null);
 	}
 
@@ -2437,6 +2588,12 @@ public class Containers {
 	@test ("[1,2,4] collect (each *2) = [2,4,8]")
 	@test ("[1,2,4] collect ([2,4]) = [[2,4],[2,4],[2,4]]")
 	public static IList collect(final IScope scope, final IContainer c, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, c);
+		if (elements != null) {
+			final IList result = listOf(filter.getGamlType()).get();
+			for (final Object value : evaluateInParallel(scope, elements, filter)) { result.add(value); }
+			return result;
+		}
 		return (IList) stream(scope, c).map(with(scope, filter)).toCollection(listOf(filter.getGamlType()));
 	}
 
@@ -2513,6 +2670,12 @@ public class Containers {
 							equals = "1") },
 			see = { "group_by" })
 	public static Integer count(final IScope scope, final IContainer original, final IExpression filter) {
+		final Object[] elements = elementsForParallel(scope, original);
+		if (elements != null) {
+			int result = 0;
+			for (final Object value : evaluateInParallel(scope, elements, filter)) { if ((Boolean) value) { result++; } }
+			return result;
+		}
 		return (int) notNull(scope, original).stream(scope).filter(by(scope, filter)).count();
 	}
 
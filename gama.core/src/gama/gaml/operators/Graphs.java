@@ -1987,15 +1987,42 @@ public class Graphs {
 			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
 			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
 	@doc (
-			value = "if the second operand is true, the operand graph will store in a cache all the previously computed shortest path (the cache be cleared if the graph is modified).",
-			comment = "WARNING / side effect: this operator modifies the operand and does not create a new graph.",
-			see = { "path_between" })
+			value = "if the second operand is true, the operand graph will store in a cache the previously computed shortest paths (the paths using an edge that is removed or whose weight increases are discarded, the whole cache is cleared if the graph is otherwise modified).",
+			comment = "WARNING / side effect: this operator modifies the operand and does not create a new graph. The size and eviction policy of the cache are defined in the preferences.",
+			see = { "path_between", "path_cache_statistics" })
 	@no_test
 	public static IGraph useCacheForShortestPaths(final IGraph g, final boolean useCache) {
 		g.getPathComputer().setSaveComputedShortestPaths(useCache);
 		return g;
 	}
 
+	/**
+	 * Path cache statistics.
+	 *
+	 * @param g
+	 *            the g
+	 * @return the i map
+	 */
+	@operator (
+			value = "path_cache_statistics",
+			type = IType.MAP,
+			index_type = IType.STRING,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "returns the statistics of the shortest path cache of the operand graph, as a map with the keys 'hits', 'misses', 'hit_ratio', 'evictions', 'invalidations', 'paths' (number of paths currently stored) and 'cost' (number of edges currently stored)",
+			examples = @example (
+					value = "path_cache_statistics(my_graph)[\"hit_ratio\"]",
+					isExecutable = false),
+			see = { "use_cache", "path_between" })
+	@test ("graph g <- use_cache(as_edge_graph([{1,5}::{12,45},{12,45}::{34,56}]), true);\r\n"
+			+ "path p1 <- path_between(g, {1,5}, {34,56});\r\n" + "path p2 <- path_between(g, {1,5}, {34,56});\r\n"
+			+ "path_cache_statistics(g)[\"hits\"] > 0.0")
+	public static IMap<String, Double> pathCacheStatistics(final IGraph g) {
+		return g.getPathComputer().getShortestPathComputed().getStatistics();
+	}
+
 	/**
 	 * As directed graph.
 	 *
@@ -2070,8 +2097,8 @@ public class Graphs {
 							isExecutable = false)))
 	@no_test
 	public static IGraph withWeights(final IScope scope, final IGraph graph, final IMap weights) {
+		// The cached paths are invalidated edge by edge when the weights change
 		graph.setWeights(weights);
-		graph.getPathComputer().incVersion();
 		if (graph instanceof GamaSpatialGraph gsg) { gsg.getPathComputer().reInitPathFinder(); }
 		return graph;
 	}
@@ -2105,7 +2132,6 @@ public class Graphs {
 		final int n = edges.size();
 		if (n != weights.size()) return graph;
 		for (int i = 0; i < n; i++) { graph.setEdgeWeight(edges.get(i), Cast.asFloat(scope, weights.get(i))); }
-		graph.getPathComputer().incVersion();
 		if (graph instanceof GamaSpatialGraph gsg) { gsg.getPathComputer().reInitPathFinder(); }
 		return graph;
 	}
@@ -2628,7 +2654,7 @@ public class Graphs {
 	public static IGraph layoutForceFR(final IScope scope, final GamaGraph graph, final IShape bounds,
 			final double normalization_factor, final int maxIteration) {
 		final FRLayoutAlgorithm2D sim = new FRLayoutAlgorithm2D(maxIteration, normalization_factor,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		LayoutModel2D model = toModel(graph, bounds);
 		sim.layout(graph, model);
 		return update_loc(graph, model);
@@ -2668,7 +2694,7 @@ public class Graphs {
 	public static IGraph indexedFRLayout(final IScope scope, final GamaGraph graph, final IShape bounds,
 			final double theta, final double normalizationFactor, final int maxIteration) {
 		final IndexedFRLayoutAlgorithm2D sim = new IndexedFRLayoutAlgorithm2D(maxIteration, theta, normalizationFactor,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		LayoutModel2D model = toModel(graph, bounds);
 		sim.layout(graph, model);
 		return update_loc(graph, model);
@@ -3315,7 +3341,7 @@ public class Graphs {
 	 * vertices_specy, final ISpecies edges_species, final Integer size, final Integer m, final Boolean isSychronized) {
 	 *
 	 * BarabasiAlbertGraphGenerator gen = new BarabasiAlbertGraphGenerator<>(m, m, n,
-	 * scope.getSimulation().getRandomGenerator()); return loadGraphWithGraphstreamFromGeneratorSource(scope,
+	 * scope.getRandom()); return loadGraphWithGraphstreamFromGeneratorSource(scope,
 	 * vertices_specy, edges_species, new BarabasiAlbertGenerator(m), size - 2 // nota: in // graphstream, two // nodes
 	 * are already // created by // default., , isSychronized);
 	 *
@@ -3407,7 +3433,7 @@ public class Graphs {
 			final ISpecies edges_species) {
 
 		BarabasiAlbertGraphGenerator gen = new BarabasiAlbertGraphGenerator(initNbNodes, nbEdgesAdded, nbNodes,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		AbstractBaseGraph<String, DefaultEdge> graph = directed
 				? new DirectedMultigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true)
 				: new Multigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true);
@@ -3456,7 +3482,7 @@ public class Graphs {
 			final Integer initNbNodes, final Integer nbEdgesAdded, final Boolean directed) {
 
 		BarabasiAlbertGraphGenerator gen = new BarabasiAlbertGraphGenerator(initNbNodes, nbEdgesAdded,
-				nodes.length(scope), scope.getSimulation().getRandomGenerator().getGenerator());
+				nodes.length(scope), scope.getRandom().getGenerator());
 		AbstractBaseGraph<String, DefaultEdge> graph = directed
 				? new DirectedMultigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true)
 				: new Multigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true);
@@ -3647,7 +3673,7 @@ public class Graphs {
 			final Integer k, final Boolean directed, final ISpecies node_species, final ISpecies edges_species) {
 
 		WattsStrogatzGraphGenerator wsg = new WattsStrogatzGraphGenerator(nbNodes, k, p, false,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		AbstractBaseGraph<String, DefaultEdge> graph = directed
 				? new DirectedMultigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true)
 				: new Multigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true);
@@ -3824,7 +3850,7 @@ public class Graphs {
 			final Integer k, final Boolean directed) {
 
 		WattsStrogatzGraphGenerator wsg = new WattsStrogatzGraphGenerator(nodes.length(scope), k, p, false,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		AbstractBaseGraph<String, DefaultEdge> graph = directed
 				? new DirectedMultigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true)
 				: new Multigraph(SupplierUtil.createStringSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER, true);
@@ -4276,7 +4302,7 @@ public class Graphs {
 		}
 
 		LabelPropagationClustering clustering = new LabelPropagationClustering(graph, maxIteration,
-				scope.getSimulation().getRandomGenerator().getGenerator());
+				scope.getRandom().getGenerator());
 		Clustering clusters = clustering.getClustering();
 		IList clustersV = GamaListFactory.create(Types.LIST);
 		for (Object s : clusters.getClusters()) {
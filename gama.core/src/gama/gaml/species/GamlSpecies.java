@@ -114,6 +114,13 @@ import one.util.streamex.StreamEx;
 						optional = true,
 						doc = { @doc (
 								value = "(grid only),(true by default). Allows to specify if the agents of the grid are regular agents (like those of any other species) or minimal ones (which can't have sub-populations, can't inherit from a regular species, etc.)") }),
+				@facet (
+						name = "use_columnar_attributes",
+						type = IType.BOOL,
+						optional = true,
+						doc = { @doc (
+								value = "(regular species only),(false by default). Allows to store the attributes declared by the species in columns shared by all its agents rather than in each agent",
+								comment = "This facet, when set to true, allows to save memory for species with a large number of agents: attributes of type float, int and bool are stored in primitive arrays, which removes the boxing of their values") }),
 				@facet (
 						name = "optimizer",
 						type = IType.STRING,
@@ -10,6 +10,10 @@
  ********************************************************************************************************/
 package gama.gaml.statements;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
 import gama.annotations.precompiler.IConcept;
 import gama.annotations.precompiler.ISymbolKind;
 import gama.annotations.precompiler.GamlAnnotations.doc;
@@ -632,17 +636,26 @@ public class LoopStatement extends AbstractStatementSequence implements Breakabl
 			final Object obj = overExpression.value(scope);
 			final Iterable list = !(obj instanceof IContainer c) ? Cast.asList(scope, obj) : c.iterable(scope);
 			boolean shouldBreak = false;
-
-			for (final Object each : list) {
-				switch (loopBody(scope, each, result)) {
-					case CONTINUE:
-						continue;
-					case BREAK, RETURN, DIE, DISPOSE:
-						shouldBreak = true;
-						break;
-					default:
+			final Iterator it = list.iterator();
+			try {
+				while (it.hasNext()) {
+					switch (loopBody(scope, it.next(), result)) {
+						case CONTINUE:
+							continue;
+						case BREAK, RETURN, DIE, DISPOSE:
+							shouldBreak = true;
+							break;
+						default:
+					}
+					if (shouldBreak) { break; }
+				}
+			} finally {
+				// Some containers (e.g. the CSV files read row by row) hold resources until the end of the iteration
+				if (it instanceof Closeable c) {
+					try {
+						c.close();
+					} catch (final IOException e) {}
 				}
-				if (shouldBreak) { break; }
 			}
 			return result[0];
 		}
@@ -50,6 +50,7 @@ import gama.gaml.expressions.data.MapExpression;
 import gama.gaml.interfaces.IGamlIssue;
 import gama.gaml.operators.Cast;
 import gama.gaml.statements.SaveStatement.SaveValidator;
+import gama.gaml.statements.save.SaveWriters;
 import gama.gaml.types.GamaFileType;
 import gama.gaml.types.IType;
 import gama.gaml.types.Types;
@@ -459,6 +460,7 @@ public class SaveStatement extends AbstractStatementSequence implements IStateme
 			boolean exists = fileToSave.exists();
 			final boolean rewrite = shouldOverwrite(scope);
 			if (rewrite && exists) {
+				SaveWriters.close(fileToSave);
 				fileToSave.delete();
 				exists = false;
 			}
@@ -62,6 +62,7 @@ public class CreateFromCSVDelegate implements ICreateDelegate {
 		final GamaCSVFile source = (GamaCSVFile) input;
 		final IExpression header = statement.getHeader();
 		if (header != null) { source.forceHeader(Cast.asBool(scope, header.value(scope))); }
+		if (source.isStreamed(scope)) return createFromRows(scope, inits, max, source, statement);
 		final boolean hasHeader = source.hasHeader(scope);
 		final IMatrix<?> mat = source.getContents(scope);
 		if (mat == null || mat.isEmpty(scope)) return false;
@@ -76,22 +77,73 @@ public class CreateFromCSVDelegate implements ICreateDelegate {
 			headers = new ArrayList<>();
 			for (int j = 0; j < cols; j++) { headers.add(String.valueOf(j)); }
 		}
-		for (int i = 0; i < rows; i++) {
-			final Map<String, Object> map = GamaMapFactory.create(hasHeader ? Types.STRING : Types.INT, Types.NO_TYPE);
-			final IList vals = mat.getRow(i);
-			for (int j = 0; j < cols; j++) {
-				// see issue #3786
-				String s = clean(headers.get(j));
-				Object v = vals.get(j);
-				map.put(s, v);
+		for (int i = 0; i < rows; i++) { inits.add(createInit(scope, hasHeader, headers, mat.getRow(i), statement)); }
+		return true;
+	}
+
+	/**
+	 * Creates the initial values of the agents from the rows of a large file, read one at a time, without loading its
+	 * contents in memory.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param inits
+	 *            the inits
+	 * @param max
+	 *            the max
+	 * @param source
+	 *            the source
+	 * @param statement
+	 *            the statement
+	 * @return true, if at least one row has been read
+	 */
+	private boolean createFromRows(final IScope scope, final List<Map<String, Object>> inits, final Integer max,
+			final GamaCSVFile source, final CreateStatement statement) {
+		try (GamaCSVFile.RowIterator rows = source.rowIterator(scope)) {
+			final boolean hasHeader = rows.getHeaders() != null;
+			List<String> headers = rows.getHeaders();
+			if (!hasHeader) {
+				headers = new ArrayList<>();
+				for (int j = 0; j < rows.getCols(); j++) { headers.add(String.valueOf(j)); }
+			}
+			if (!rows.hasNext()) return false;
+			for (int i = 0; (max == null || i < max) && rows.hasNext(); i++) {
+				inits.add(createInit(scope, hasHeader, headers, rows.next(), statement));
 			}
-			// CSV attributes are mixed with the attributes of agents
-			statement.fillWithUserInit(scope, map);
-			inits.add(map);
 		}
 		return true;
 	}
 
+	/**
+	 * Creates the initial values of an agent from a row.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param hasHeader
+	 *            whether the file has a header
+	 * @param headers
+	 *            the headers (or indices of the columns)
+	 * @param vals
+	 *            the values of the row
+	 * @param statement
+	 *            the statement
+	 * @return the map
+	 */
+	@SuppressWarnings ("rawtypes")
+	private Map<String, Object> createInit(final IScope scope, final boolean hasHeader, final List<String> headers,
+			final IList vals, final CreateStatement statement) {
+		final Map<String, Object> map = GamaMapFactory.create(hasHeader ? Types.STRING : Types.INT, Types.NO_TYPE);
+		for (int j = 0; j < headers.size(); j++) {
+			// see issue #3786
+			String s = clean(headers.get(j));
+			Object v = vals.get(j);
+			map.put(s, v);
+		}
+		// CSV attributes are mixed with the attributes of agents
+		statement.fillWithUserInit(scope, map);
+		return map;
+	}
+
 	/**
 	 * Clean.
 	 *
@@ -10,11 +10,11 @@
 package gama.gaml.statements.save;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Set;
 
@@ -57,7 +57,11 @@ public class CSVSaver extends AbstractSaver {
 	public void save(final IScope scope, final IExpression item, final OutputStream os, final boolean header)
 			throws GamaRuntimeException {
 		if (os == null) return;
-		save(scope, new OutputStreamWriter(os), header, item);
+		try (Writer fw = new OutputStreamWriter(os)) {
+			save(scope, fw, header, item);
+		} catch (final IOException e) {
+			throw GamaRuntimeException.create(e, scope);
+		}
 	}
 
 	/**
@@ -80,7 +84,7 @@ public class CSVSaver extends AbstractSaver {
 	public void save(final IScope scope, final IExpression item, final File file, final String code,
 			final boolean addHeader, final String type, final Object attributesToSave)
 			throws GamaRuntimeException, IOException {
-		save(scope, new FileWriter(file, true), addHeader, item);
+		SaveWriters.append(scope, file, Charset.defaultCharset(), fw -> save(scope, fw, addHeader, item));
 	}
 
 	/**
@@ -99,7 +103,7 @@ public class CSVSaver extends AbstractSaver {
 	 */
 	private void save(final IScope scope, final Writer fw, final boolean header, final IExpression item)
 			throws GamaRuntimeException {
-		try (fw) {
+		try {
 			final IType itemType = item.getGamlType();
 			final SpeciesDescription sd;
 			if (itemType.isAgentType()) {
@@ -10,14 +10,14 @@
 package gama.gaml.statements.save;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Set;
 
 import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.file.json.Json;
+import gama.core.util.file.json.JsonValue;
 import gama.core.util.file.json.WriterConfig;
 import gama.gaml.expressions.IExpression;
 
@@ -33,8 +33,10 @@ public class JsonSaver extends AbstractSaver {
 	public void save(final IScope scope, final IExpression item, final File file, final String code,
 			final boolean addHeader, final String type, final Object attributesToSave)
 			throws GamaRuntimeException, IOException {
-		try (Writer fw = new FileWriter(file, true)) {
-			Json.getNew().valueOf(item.value(scope)).writeTo(fw, WriterConfig.PRETTY_PRINT);
+		try {
+			final JsonValue value = Json.getNew().valueOf(item.value(scope));
+			SaveWriters.append(scope, file, Charset.defaultCharset(),
+					fw -> value.writeTo(fw, WriterConfig.PRETTY_PRINT));
 		} catch (final GamaRuntimeException e) {
 			throw e;
 		} catch (final Exception e) {
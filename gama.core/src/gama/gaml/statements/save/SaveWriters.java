@@ -0,0 +1,370 @@
+/*******************************************************************************************************
+ *
+ * SaveWriters.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.gaml.statements.save;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import gama.core.common.preferences.GamaPreferences;
+import gama.core.kernel.experiment.ITopLevelAgent;
+import gama.core.kernel.root.PlatformAgent;
+import gama.core.runtime.GAMA;
+import gama.core.runtime.IExperimentStateListener.State;
+import gama.core.runtime.IScope;
+import gama.dev.DEBUG;
+
+/**
+ * The writers used by the text, CSV and JSON savers. Instead of opening, appending to and closing a file each time a
+ * 'save' statement is executed, the writers are kept open for each simulation (or experiment) and each file, their
+ * contents buffered in memory and written at the end of each step, when the experiment is paused and when the
+ * simulation is disposed. Optionally (see {@link GamaPreferences.External#SAVE_ASYNC}), this writing is done in the
+ * background, while the next step fills another buffer.
+ *
+ * Before a writer is reused, the file is checked: if it has been deleted or truncated in the meantime (for instance by
+ * a 'save' statement rewriting it), the writer is closed and a new one is opened. Before a GAMA file reads its contents,
+ * the writers kept open for its path are flushed (see {@link #flush(File)}), so that a model reading a file it has just
+ * saved sees all its contents. The files saved by the platform agent, which has no steps, are written immediately.
+ */
+public class SaveWriters {
+
+	/**
+	 * The functional interface of the actions that write to a file.
+	 */
+	@FunctionalInterface
+	public interface WriterAction {
+
+		/**
+		 * Writes to the file.
+		 *
+		 * @param writer
+		 *            the writer
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void writeTo(Writer writer) throws IOException;
+	}
+
+	/** The size (in chars) above which a buffer is written before the end of the step. */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/** The executor that writes the buffers in the background. A single thread keeps the writes in order. */
+	static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		final Thread t = new Thread(r, "Save writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/** The writers, per top-level agent and per absolute path. */
+	static final Map<ITopLevelAgent, Map<String, SaveWriter>> WRITERS = new ConcurrentHashMap<>();
+
+	static {
+		GAMA.addExperimentStateListener((experiment, state) -> {
+			if (state != State.RUNNING) { WRITERS.keySet().forEach(SaveWriters::flush); }
+		});
+	}
+
+	/**
+	 * Appends to a file, either through the writer kept open for the file by the simulation (or experiment) of the
+	 * scope, or, if this is disabled, through a writer opened and closed for this purpose.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param file
+	 *            the file
+	 * @param charset
+	 *            the charset
+	 * @param action
+	 *            the action
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static void append(final IScope scope, final File file, final Charset charset, final WriterAction action)
+			throws IOException {
+		final ITopLevelAgent root = scope.getRoot();
+		if (root == null || root instanceof PlatformAgent || !GamaPreferences.External.SAVE_BUFFERED.getValue()) {
+			try (Writer fw = new FileWriter(file, charset, true)) {
+				action.writeTo(fw);
+			}
+			return;
+		}
+		final SaveWriter writer = get(root, file, charset);
+		synchronized (writer) {
+			action.writeTo(writer);
+		}
+	}
+
+	/**
+	 * Returns the writer kept open for a file by a top-level agent, after having checked that it is still consistent
+	 * with the file.
+	 *
+	 * @param root
+	 *            the root
+	 * @param file
+	 *            the file
+	 * @param charset
+	 *            the charset
+	 * @return the save writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static SaveWriter get(final ITopLevelAgent root, final File file, final Charset charset)
+			throws IOException {
+		final Map<String, SaveWriter> writers = WRITERS.computeIfAbsent(root, r -> {
+			r.postEndAction(s -> {
+				flush(r);
+				return null;
+			});
+			r.postDisposeAction(s -> {
+				close(r);
+				return null;
+			});
+			return new ConcurrentHashMap<>();
+		});
+		final String path = file.getAbsolutePath();
+		SaveWriter writer = writers.get(path);
+		if (writer != null && (!writer.charset.equals(charset) || writer.isStale())) {
+			writers.remove(path);
+			writer.closeQuietly();
+			writer = null;
+		}
+		if (writer == null) {
+			writer = new SaveWriter(file, charset);
+			writers.put(path, writer);
+		}
+		return writer;
+	}
+
+	/**
+	 * Closes the writers kept open for a file, whatever the agent that opened them. Must be called before the file is
+	 * rewritten.
+	 *
+	 * @param file
+	 *            the file
+	 */
+	public static void close(final File file) {
+		final String path = file.getAbsolutePath();
+		for (final Map<String, SaveWriter> writers : WRITERS.values()) {
+			final SaveWriter writer = writers.remove(path);
+			if (writer != null) { writer.closeQuietly(); }
+		}
+	}
+
+	/**
+	 * Writes the buffers of the writers kept open for a file, whatever the agent that opened them, and waits for these
+	 * writes to be done. Called before the file is read.
+	 *
+	 * @param file
+	 *            the file
+	 */
+	public static void flush(final File file) {
+		if (WRITERS.isEmpty()) return;
+		final String path = file.getAbsolutePath();
+		for (final Map<String, SaveWriter> writers : WRITERS.values()) {
+			final SaveWriter writer = writers.get(path);
+			if (writer == null) { continue; }
+			try {
+				writer.flush();
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to write " + writer.file.getName() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Writes the buffers of the writers kept open by an agent.
+	 *
+	 * @param root
+	 *            the root
+	 */
+	static void flush(final ITopLevelAgent root) {
+		final Map<String, SaveWriter> writers = WRITERS.get(root);
+		if (writers == null) return;
+		final boolean async = GamaPreferences.External.SAVE_ASYNC.getValue();
+		for (final SaveWriter writer : writers.values()) {
+			try {
+				writer.commit(async);
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to write " + writer.file.getName() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Closes the writers kept open by an agent.
+	 *
+	 * @param root
+	 *            the root
+	 */
+	static void close(final ITopLevelAgent root) {
+		final Map<String, SaveWriter> writers = WRITERS.remove(root);
+		if (writers != null) { writers.values().forEach(SaveWriter::closeQuietly); }
+	}
+
+	/**
+	 * A writer that buffers its contents until it is committed. Two buffers are used: one is filled while the other
+	 * one is written.
+	 */
+	static class SaveWriter extends Writer {
+
+		/** The file. */
+		final File file;
+
+		/** The charset. */
+		final Charset charset;
+
+		/** The output, opened in append mode. */
+		final FileOutputStream output;
+
+		/** The buffer being filled. */
+		StringBuilder buffer = new StringBuilder();
+
+		/** The buffer being written (or empty). */
+		StringBuilder spare = new StringBuilder();
+
+		/** The write in progress, if any. */
+		Future<?> pending;
+
+		/** The length the file has, at least, after the writes done so far. */
+		volatile long written;
+
+		/**
+		 * Instantiates a new save writer.
+		 *
+		 * @param file
+		 *            the file
+		 * @param charset
+		 *            the charset
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		SaveWriter(final File file, final Charset charset) throws IOException {
+			this.file = file;
+			this.charset = charset;
+			output = new FileOutputStream(file, true);
+			written = output.getChannel().size();
+		}
+
+		/**
+		 * Checks if the file has been deleted or truncated by someone else.
+		 *
+		 * @return true, if is stale
+		 */
+		boolean isStale() { return !file.exists() || file.length() < written; }
+
+		@Override
+		public synchronized void write(final char[] cbuf, final int off, final int len) throws IOException {
+			buffer.append(cbuf, off, len);
+			if (buffer.length() > BUFFER_SIZE) { commit(false); }
+		}
+
+		@Override
+		public synchronized void write(final String str, final int off, final int len) throws IOException {
+			buffer.append(str, off, off + len);
+			if (buffer.length() > BUFFER_SIZE) { commit(false); }
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			commit(false);
+			await();
+		}
+
+		/**
+		 * Writes the contents of the buffer to the file, either immediately or in the background. In both cases, waits
+		 * for the previous write (if any) to be done.
+		 *
+		 * @param async
+		 *            whether to write in the background
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		synchronized void commit(final boolean async) throws IOException {
+			if (buffer.length() == 0) return;
+			await();
+			final StringBuilder full = buffer;
+			buffer = spare;
+			spare = full;
+			if (async) {
+				pending = EXECUTOR.submit(() -> {
+					drain(full);
+					return null;
+				});
+			} else {
+				drain(full);
+			}
+		}
+
+		/**
+		 * Encodes and writes a buffer, then empties it.
+		 *
+		 * @param sb
+		 *            the sb
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void drain(final StringBuilder sb) throws IOException {
+			final byte[] bytes = sb.toString().getBytes(charset);
+			sb.setLength(0);
+			output.write(bytes);
+			written += bytes.length;
+		}
+
+		/**
+		 * Waits for the write in progress, if any.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void await() throws IOException {
+			if (pending == null) return;
+			try {
+				pending.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (final ExecutionException e) {
+				throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+			} finally {
+				pending = null;
+			}
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			try {
+				commit(false);
+				await();
+			} finally {
+				output.close();
+			}
+		}
+
+		/**
+		 * Closes the writer, logging the errors.
+		 */
+		void closeQuietly() {
+			try {
+				close();
+			} catch (final IOException e) {
+				DEBUG.LOG("Impossible to write " + file.getName() + ": " + e.getMessage());
+			}
+		}
+	}
+
+}
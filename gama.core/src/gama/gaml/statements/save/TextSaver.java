@@ -10,7 +10,6 @@
 package gama.gaml.statements.save;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -97,8 +96,8 @@ public class TextSaver extends AbstractSaver {
 		Charset ch = id == ISerialisationConstants.GAMA_AGENT_IDENTIFIER
 				|| id == ISerialisationConstants.GAMA_OBJECT_IDENTIFIER
 						? ISerialisationConstants.STRING_BYTE_ARRAY_CHARSET : StandardCharsets.UTF_8;
-		try (final Writer fw = new FileWriter(file, ch, true)) {
-			fw.write(Cast.asString(scope, item.value(scope)) + Strings.LN);
+		try {
+			SaveWriters.append(scope, file, ch, fw -> fw.write(toSave + Strings.LN));
 		} catch (final GamaRuntimeException e) {
 			throw e;
 		} catch (final Exception e) {
@@ -31,6 +31,8 @@ import gama.core.common.interfaces.ISkill;
 import gama.core.common.interfaces.IVarAndActionSupport;
 import gama.core.common.util.JavaUtils;
 import gama.core.common.util.StringUtils;
+import gama.core.metamodel.agent.AbstractAgent;
+import gama.core.metamodel.agent.AgentAttributes;
 import gama.core.metamodel.agent.IAgent;
 import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
@@ -519,6 +521,9 @@ public class Variable extends Symbol implements IVariable {
 
 	/** The must notify of changes. */
 	protected boolean mustNotifyOfChanges;
+
+	/** The slot where agents store the value of this variable, or -1 if it is not stored in a slot. */
+	protected int slot = -1;
 	// private Object speciesWideValue;
 
 	/**
@@ -561,6 +566,8 @@ public class Variable extends Symbol implements IVariable {
 		setter = getDescription().getSetter();
 		if (setter != null) { sSkill = species.getSkillInstanceFor(setter.getSkillClass()); }
 		addListeners(species);
+		slot = getter == null && setter == null && functionExpression == null
+				? species.getDescription().getAttributeSlot(name) : -1;
 		mustNotifyOfChanges =
 				listeners != null && listeners.size() > 0 || onChangeExpression != null || on_changer != null;
 	}
@@ -799,6 +806,8 @@ public class Variable extends Symbol implements IVariable {
 		val = checkAmong(agent, scope, val);
 		if (setter != null) {
 			setter.run(scope, agent, sSkill == null ? agent : sSkill, val);
+		} else if (slot >= 0 && agent instanceof AbstractAgent aa) {
+			aa.setSlot(slot, name, val);
 		} else {
 			agent.setAttribute(name, val);
 		}
@@ -839,6 +848,10 @@ public class Variable extends Symbol implements IVariable {
 		// if (isSpeciesConst) { return speciesWideValue; }
 		if (getter != null) return getter.run(scope, agent, gSkill == null ? agent : gSkill);
 		if (functionExpression != null) return scope.evaluate(functionExpression, agent).getValue();
+		if (slot >= 0 && agent instanceof AbstractAgent aa) {
+			final Object v = aa.getSlot(slot, name);
+			if (v != AgentAttributes.UNSET) return v;
+		}
 		// Var not yet initialized. May happen when asking for its value while initializing an editor
 		// See Issue #2781 + Issue #3920
 		if (!agent.hasAttribute(name) && (isNotModifiable || initExpression != null && initExpression.isConst())
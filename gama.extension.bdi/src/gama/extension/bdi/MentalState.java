@@ -99,6 +99,12 @@ public class MentalState implements IValue {
 	/** The super intention. */
 	MentalState superIntention;
 
+	/** The bases that contain the mental state, created when it is first stored in one. */
+	private MentalStateBase.Owners<MentalStateBase> bases;
+
+	/** The mental states that contain this one (see {@link #getMentalState()}), if it is stored in a base. */
+	private MentalStateBase.Owners<MentalState> containers;
+
 	/**
 	 * Gets the modality.
 	 *
@@ -192,7 +198,14 @@ public class MentalState implements IValue {
 	 * @param pred
 	 *            the new predicate
 	 */
-	public void setPredicate(final Predicate pred) { this.predicate = pred; }
+	public void setPredicate(final Predicate pred) {
+		final Predicate old = predicate;
+		this.predicate = pred;
+		if (bases == null || pred == old) return;
+		if (old != null) { old.states().remove(this); }
+		if (pred != null) { pred.states().add(this); }
+		keyChanged(old == null ? null : old.getName());
+	}
 
 	/**
 	 * Sets the mental state.
@@ -200,7 +213,14 @@ public class MentalState implements IValue {
 	 * @param ment
 	 *            the new mental state
 	 */
-	public void setMentalState(final MentalState ment) { this.mental = ment; }
+	public void setMentalState(final MentalState ment) {
+		final MentalState old = mental;
+		this.mental = ment;
+		if (bases == null || ment == old) return;
+		if (old != null) { old.containers().remove(this); }
+		if (ment != null) { ment.contain(this); }
+		contentChanged();
+	}
 
 	/**
 	 * Sets the emotion.
@@ -208,7 +228,80 @@ public class MentalState implements IValue {
 	 * @param em
 	 *            the new emotion
 	 */
-	public void setEmotion(final Emotion em) { this.emo = em; }
+	public void setEmotion(final Emotion em) {
+		final boolean changed = bases != null && em != emo;
+		this.emo = em;
+		if (changed) { contentChanged(); }
+	}
+
+	/**
+	 * The bases that contain the mental state.
+	 *
+	 * @return the owners
+	 */
+	synchronized MentalStateBase.Owners<MentalStateBase> bases() {
+		if (bases == null) {
+			bases = new MentalStateBase.Owners<>();
+			containers = new MentalStateBase.Owners<>();
+			// From now on, the predicate and the nested mental state report their changes to this one
+			if (predicate != null) { predicate.states().add(this); }
+			if (mental != null) { mental.contain(this); }
+		}
+		return bases;
+	}
+
+	/**
+	 * The mental states that contain this one.
+	 *
+	 * @return the owners
+	 */
+	MentalStateBase.Owners<MentalState> containers() {
+		bases();
+		return containers;
+	}
+
+	/**
+	 * Records that the mental state is stored in a base (once more).
+	 *
+	 * @param base
+	 *            the base
+	 */
+	void attach(final MentalStateBase base) {
+		bases().add(base);
+	}
+
+	/**
+	 * Records that the mental state is contained in another one.
+	 *
+	 * @param container
+	 *            the container
+	 */
+	void contain(final MentalState container) {
+		containers().add(container);
+	}
+
+	/**
+	 * Reports a change made in place to the mental state (or to its predicate) to the bases and mental states that
+	 * contain it.
+	 */
+	void contentChanged() {
+		if (bases == null) return;
+		for (final MentalStateBase base : bases.get()) { base.stateChanged(); }
+		for (final MentalState container : containers.get()) { container.contentChanged(); }
+	}
+
+	/**
+	 * Reports that the name of the predicate of the mental state has changed to the bases and mental states that
+	 * contain it.
+	 *
+	 * @param oldName
+	 *            the name of the previous predicate
+	 */
+	void keyChanged(final String oldName) {
+		if (bases == null) return;
+		for (final MentalStateBase base : bases.get()) { base.keyChanged(this, oldName); }
+		for (final MentalState container : containers.get()) { container.contentChanged(); }
+	}
 
 	/**
 	 * Sets the strength.
@@ -0,0 +1,396 @@
+/*******************************************************************************************************
+ *
+ * MentalStateBase.java, in gama.extension.bdi, is part of the source code of the GAMA modeling and simulation platform
+ * .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.extension.bdi;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.core.runtime.IScope;
+import gama.core.util.GamaListFactory;
+import gama.core.util.IList;
+import gama.gaml.types.IContainerType;
+import gama.gaml.types.Types;
+import one.util.streamex.StreamEx;
+
+/**
+ * A base of mental states (beliefs, desires, intentions, etc.) that keeps, besides the list of its states, an index of
+ * these states by name of predicate. Each entry of the index lists the states in the order of the base, so that the
+ * searches for a predicate ({@link #candidates(List, String)}) and the membership tests ({@link #contains(Object)},
+ * {@link #indexOf(Object)}, {@link #remove(Object)}) only go through the states that share its name instead of scanning
+ * the whole base. The base is seen from GAML as a regular list of mental states.
+ *
+ * The states contained in a base know it (see {@link Owners}), and so do their predicates: when a predicate is
+ * renamed or replaced, the index of the bases concerned is updated at once, and when a state or a predicate is
+ * modified in place, the stamp of these bases changes (see {@link RuleMatcher}). The other bases are left untouched.
+ * The index is only modified under the lock of the base, as a shared predicate can be renamed by another agent.
+ */
+@SuppressWarnings ({ "unchecked", "rawtypes" })
+public class MentalStateBase extends AbstractList<MentalState> implements IList<MentalState>, RandomAccess {
+
+	/**
+	 * The objects that contain a mental state or a predicate (i.e. the bases that contain a state, or the states that
+	 * contain a predicate or another state), each one as many times as it contains it. They are weakly referenced, so
+	 * that the objects no longer used (e.g. the bases of dead agents) do not have to be removed explicitly.
+	 *
+	 * @param <T>
+	 *            the type of the owners
+	 */
+	static final class Owners<T> {
+
+		/** The references to the owners. */
+		private final List<WeakReference<T>> references = new ArrayList<>(2);
+
+		/**
+		 * Adds an owner.
+		 *
+		 * @param owner
+		 *            the owner
+		 */
+		synchronized void add(final T owner) {
+			references.add(new WeakReference<>(owner));
+		}
+
+		/**
+		 * Removes an occurrence of an owner, and the owners that have been garbage collected.
+		 *
+		 * @param owner
+		 *            the owner
+		 */
+		synchronized void remove(final T owner) {
+			boolean found = false;
+			for (int i = references.size() - 1; i >= 0; i--) {
+				final T o = references.get(i).get();
+				if (o == null) {
+					references.remove(i);
+				} else if (!found && o == owner) {
+					references.remove(i);
+					found = true;
+				}
+			}
+		}
+
+		/**
+		 * The owners still in use.
+		 *
+		 * @return a new list
+		 */
+		synchronized List<T> get() {
+			final List<T> result = new ArrayList<>(references.size());
+			for (int i = references.size() - 1; i >= 0; i--) {
+				final T o = references.get(i).get();
+				if (o == null) {
+					references.remove(i);
+				} else {
+					result.add(o);
+				}
+			}
+			return result;
+		}
+	}
+
+	/** The source of the stamps of the bases. */
+	private static final AtomicLong STAMPS = new AtomicLong();
+
+	/** The type. */
+	private static final IContainerType TYPE = Types.LIST.of(Types.get(MentalStateType.id));
+
+	/** The states. */
+	private final ArrayList<MentalState> states;
+
+	/** The states by name of predicate, in the order of the base (the states without predicate are under null). */
+	private final Map<String, List<MentalState>> byName = new HashMap<>();
+
+	/** The stamp of the base, which changes each time the base is modified and is unique among all the bases. */
+	private volatile long stamp = STAMPS.getAndAdd(1L << 32);
+
+	/**
+	 * Instantiates a new mental state base.
+	 *
+	 * @param contents
+	 *            the initial contents
+	 */
+	public MentalStateBase(final Collection<? extends MentalState> contents) {
+		states = new ArrayList<>(contents);
+		for (final MentalState state : states) {
+			attach(state);
+			bucket(keyOf(state)).add(state);
+		}
+	}
+
+	/**
+	 * The stamp of the base: two bases, or the same base at two different times, have the same stamp only if they are
+	 * the same base and neither it nor the states and predicates it contains have been modified in between.
+	 *
+	 * @return the stamp
+	 */
+	public long getStamp() { return stamp; }
+
+	/**
+	 * Records that a state of the base, or its predicate, has been modified in place.
+	 */
+	synchronized void stateChanged() {
+		stamp++;
+	}
+
+	/**
+	 * Moves a state of the base whose predicate has been renamed or replaced to its new entry in the index.
+	 *
+	 * @param state
+	 *            the state
+	 * @param oldKey
+	 *            the name of its previous predicate
+	 */
+	synchronized void keyChanged(final MentalState state, final String oldKey) {
+		final List<MentalState> old = byName.get(oldKey);
+		if (old != null) {
+			old.removeIf(s -> s == state);
+			if (old.isEmpty()) { byName.remove(oldKey); }
+		}
+		rebuild(keyOf(state));
+		stamp++;
+	}
+
+	/**
+	 * The key of a state in the index.
+	 *
+	 * @param o
+	 *            the o
+	 * @return the string
+	 */
+	private static String keyOf(final Object o) {
+		return o instanceof MentalState m && m.getPredicate() != null ? m.getPredicate().getName() : null;
+	}
+
+	/**
+	 * Records that a state belongs to the base.
+	 *
+	 * @param state
+	 *            the state
+	 */
+	private void attach(final MentalState state) {
+		if (state != null) { state.attach(this); }
+	}
+
+	/**
+	 * Records that a state no longer belongs to the base (once).
+	 *
+	 * @param state
+	 *            the state
+	 */
+	private void detach(final MentalState state) {
+		if (state != null) { state.bases().remove(this); }
+	}
+
+	/**
+	 * The entry of the index for a key, created if needed.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the list
+	 */
+	private List<MentalState> bucket(final String key) {
+		return byName.computeIfAbsent(key, k -> new ArrayList<>(2));
+	}
+
+	/**
+	 * Rebuilds the entry of the index for a key, in the order of the base.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	private void rebuild(final String key) {
+		final List<MentalState> bucket = bucket(key);
+		bucket.clear();
+		for (final MentalState state : states) { if (Objects.equals(key, keyOf(state))) { bucket.add(state); } }
+		if (bucket.isEmpty()) { byName.remove(key); }
+	}
+
+	/**
+	 * Adds a state at an index of the base to the index.
+	 *
+	 * @param index
+	 *            the index of the state in the base
+	 * @param state
+	 *            the state
+	 */
+	private void index(final int index, final MentalState state) {
+		attach(state);
+		final String key = keyOf(state);
+		if (index == states.size() - 1) {
+			bucket(key).add(state);
+		} else {
+			rebuild(key);
+		}
+	}
+
+	/**
+	 * Removes a state, which was at an index of the base, from the index.
+	 *
+	 * @param state
+	 *            the state
+	 */
+	private void unindex(final MentalState state) {
+		detach(state);
+		final String key = keyOf(state);
+		final List<MentalState> bucket = byName.get(key);
+		if (bucket == null) return;
+		int occurrences = 0;
+		for (final MentalState s : bucket) { if (s == state) { occurrences++; } }
+		if (occurrences > 1) {
+			// The occurrence removed is not known: the order of the entry is restored from the base
+			rebuild(key);
+			return;
+		}
+		bucket.removeIf(s -> s == state);
+		if (bucket.isEmpty()) { byName.remove(key); }
+	}
+
+	/**
+	 * The states whose predicate has a given name, in the order of the base.
+	 *
+	 * @param name
+	 *            the name of the predicate
+	 * @return an unmodifiable list
+	 */
+	public synchronized List<MentalState> withName(final String name) {
+		final List<MentalState> bucket = byName.get(name);
+		return bucket == null ? Collections.EMPTY_LIST : Collections.unmodifiableList(bucket);
+	}
+
+	/**
+	 * The states of a base that can have a predicate with a given name, in the order of the base: only the states whose
+	 * predicate has this name if the base is indexed, all of them otherwise.
+	 *
+	 * @param base
+	 *            the base
+	 * @param name
+	 *            the name of the predicate
+	 * @return the list
+	 */
+	public static List<MentalState> candidates(final List<MentalState> base, final String name) {
+		return base instanceof MentalStateBase indexed ? indexed.withName(name) : base;
+	}
+
+	/**
+	 * The states of a base that can have a predicate with the same name as the predicate of a given state, in the order
+	 * of the base (see {@link #candidates(List, String)}).
+	 *
+	 * @param base
+	 *            the base
+	 * @param state
+	 *            the state
+	 * @return the list
+	 */
+	public static List<MentalState> candidates(final List<MentalState> base, final MentalState state) {
+		return candidates(base, keyOf(state));
+	}
+
+	@Override
+	public IContainerType<?> getGamlType() { return TYPE; }
+
+	@Override
+	public int size() {
+		return states.size();
+	}
+
+	@Override
+	public MentalState get(final int index) {
+		return states.get(index);
+	}
+
+	@Override
+	public synchronized MentalState set(final int index, final MentalState state) {
+		final MentalState old = states.set(index, state);
+		unindex(old);
+		index(index, state);
+		stamp++;
+		return old;
+	}
+
+	@Override
+	public synchronized void add(final int index, final MentalState state) {
+		states.add(index, state);
+		index(index, state);
+		modCount++;
+		stamp++;
+	}
+
+	@Override
+	public synchronized MentalState remove(final int index) {
+		final MentalState old = states.remove(index);
+		unindex(old);
+		modCount++;
+		stamp++;
+		return old;
+	}
+
+	@Override
+	public synchronized void clear() {
+		for (final MentalState state : states) { detach(state); }
+		states.clear();
+		byName.clear();
+		modCount++;
+		stamp++;
+	}
+
+	@Override
+	public synchronized boolean contains(final Object o) {
+		final List<MentalState> bucket = byName.get(keyOf(o));
+		if (bucket == null) return false;
+		for (final MentalState state : bucket) { if (o == null ? state == null : o.equals(state)) return true; }
+		return false;
+	}
+
+	@Override
+	public synchronized int indexOf(final Object o) {
+		return contains(o) ? states.indexOf(o) : -1;
+	}
+
+	@Override
+	public synchronized int lastIndexOf(final Object o) {
+		return contains(o) ? states.lastIndexOf(o) : -1;
+	}
+
+	@Override
+	public synchronized boolean remove(final Object o) {
+		final int index = indexOf(o);
+		if (index < 0) return false;
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public StreamEx<MentalState> stream(final IScope scope) {
+		return StreamEx.of(this);
+	}
+
+	@Override
+	public IList<MentalState> copy(final IScope scope) {
+		return new MentalStateBase(states);
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (other == this) return true;
+		if (!(other instanceof IList)) return false;
+		return GamaListFactory.equals(this, (IList) other);
+	}
+
+}
@@ -293,7 +293,7 @@ public class Operators {
 					isExecutable = false))
 	@no_test
 	public static Predicate withTruth(final Predicate predicate, final Boolean truth) throws GamaRuntimeException {
-		predicate.is_true = truth;
+		predicate.setIs_True(truth);
 		return predicate;
 	}
 
@@ -347,7 +347,10 @@ public class Operators {
 					isExecutable = false))
 	@no_test
 	public static Predicate addValues(final Predicate predicate, final IMap values) throws GamaRuntimeException {
-		if (values != null && predicate != null) { predicate.getValues().putAll(values); }
+		if (values != null && predicate != null) {
+			predicate.getValues().putAll(values);
+			predicate.contentChanged();
+		}
 		return predicate;
 		/*
 		 * final Predicate temp = predicate.copy(); final Map<String, Object> tempValues = predicate.getValues(); final
@@ -2486,7 +2489,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -2526,7 +2529,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -2565,7 +2568,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -2604,7 +2607,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -2643,7 +2646,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -2683,7 +2686,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -2722,7 +2725,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -2761,7 +2764,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -2800,7 +2803,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -2840,7 +2843,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -2879,7 +2882,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -2918,7 +2921,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -2957,7 +2960,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -2997,7 +3000,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -3036,7 +3039,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -3075,7 +3078,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -3114,7 +3117,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -3154,7 +3157,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -3193,7 +3196,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -3232,7 +3235,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -3271,7 +3274,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName())) {
 					predicates.add(mental);
 				}
@@ -3312,7 +3315,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (predicateName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predicateName)) {
 				if (mental.getPredicate() != null && predicateName.equals(mental.getPredicate().getName()))
 					return mental;
 			}
@@ -3352,7 +3355,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return null;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) return mental;
 			}
 		}
@@ -3391,7 +3394,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return predicates;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { predicates.add(mental); }
 			}
 		}
@@ -3461,7 +3464,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3499,7 +3502,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("belief_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
@@ -3539,7 +3542,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3577,7 +3580,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("desire_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
@@ -3617,7 +3620,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3655,7 +3658,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("uncertainty_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
@@ -3695,7 +3698,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3733,7 +3736,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("ideal_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
@@ -3773,7 +3776,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3811,7 +3814,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("intention_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
@@ -3851,7 +3854,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (pred != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, pred.getName())) {
 				if (mental.getPredicate() != null && pred.equals(mental.getPredicate())) { result = true; }
 			}
 		}
@@ -3889,7 +3892,7 @@ public class Operators {
 		if (!(ag.getSpecies().getArchitecture() instanceof SimpleBdiArchitecture)) return result;
 		if (predName != null) {
 			final IList<MentalState> beliefs = (IList<MentalState>) ag.getAttribute("obligation_base");
-			for (final MentalState mental : beliefs) {
+			for (final MentalState mental : MentalStateBase.candidates(beliefs, predName)) {
 				if (mental.getPredicate() != null && predName.equals(mental.getPredicate().getName())) {
 					result = true;
 				}
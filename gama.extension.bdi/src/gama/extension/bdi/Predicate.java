@@ -108,6 +108,12 @@ public class Predicate implements IValue {
 	/** The no agent cause. */
 	private boolean noAgentCause = true;
 
+	/** The mental states stored in a base that refer to this predicate, created when the first one does. */
+	private MentalStateBase.Owners<MentalState> states;
+
+	/** The number of changes made in place to the predicate. */
+	private int version;
+
 	/**
 	 * Gets the name.
 	 *
@@ -200,6 +206,7 @@ public class Predicate implements IValue {
 	public void setValues(final IMap<String, Object> values) {
 		this.values = values;
 		everyPossibleValues = values == null;
+		contentChanged();
 	}
 
 	/**
@@ -208,7 +215,10 @@ public class Predicate implements IValue {
 	 * @param ist
 	 *            the new checks if is true
 	 */
-	public void setIs_True(final Boolean ist) { this.is_true = ist; }
+	public void setIs_True(final Boolean ist) {
+		this.is_true = ist;
+		contentChanged();
+	}
 
 	/**
 	 * Sets the date.
@@ -239,6 +249,34 @@ public class Predicate implements IValue {
 	public void setAgentCause(final IAgent ag) {
 		this.agentCause = ag;
 		this.noAgentCause = false;
+		contentChanged();
+	}
+
+	/**
+	 * The mental states stored in a base that refer to this predicate.
+	 *
+	 * @return the owners
+	 */
+	synchronized MentalStateBase.Owners<MentalState> states() {
+		if (states == null) { states = new MentalStateBase.Owners<>(); }
+		return states;
+	}
+
+	/**
+	 * The number of changes made in place to the predicate (see {@link RuleMatcher}).
+	 *
+	 * @return the version
+	 */
+	int getVersion() { return version; }
+
+	/**
+	 * Records a change made in place to the predicate and reports it to the mental states stored in a base that refer
+	 * to it. A predicate that is not referred to by such states (e.g. a temporary one) reports nothing.
+	 */
+	void contentChanged() {
+		version++;
+		if (states == null) return;
+		for (final MentalState state : states.get()) { state.contentChanged(); }
 	}
 
 	/**
@@ -371,8 +409,13 @@ public class Predicate implements IValue {
 	 *            the new name
 	 */
 	public void setName(final String name) {
+		final String old = this.name;
 		this.name = name;
-
+		version++;
+		// The name is the key of the predicate in the indexed bases
+		if (states != null && !Objects.equals(old, name)) {
+			for (final MentalState state : states.get()) { state.keyChanged(old); }
+		}
 	}
 
 	@Override
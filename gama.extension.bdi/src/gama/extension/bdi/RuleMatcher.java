@@ -0,0 +1,176 @@
+/*******************************************************************************************************
+ *
+ * RuleMatcher.java, in gama.extension.bdi, is part of the source code of the GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.extension.bdi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.MapMaker;
+
+import gama.core.metamodel.agent.IAgent;
+import gama.core.runtime.IScope;
+import gama.gaml.expressions.IExpression;
+import gama.gaml.expressions.IVarExpression;
+
+/**
+ * Avoids matching again and again the conditions of a rule against the mental states of an agent when nothing they
+ * depend on has changed. When a rule is found not applicable for an agent, the matcher remembers the situation: the
+ * stamps of the bases of the agent (see {@link MentalStateBase#getStamp()}) and the values of the conditions of the
+ * rule (with the number of changes made in place to the predicates they contain, see {@link Predicate#getVersion()}).
+ * As long as this situation remains the same, the rule is known to be still not applicable and is not evaluated.
+ * An applicable rule is always evaluated (and fired), as it was before.
+ *
+ * Only the rules whose conditions are constants or variables (i.e. whose evaluation has no side effect) and which do
+ * not depend on emotions (whose intensities decay in place) are matched this way. The stamp of a base changes when the
+ * base is modified, and when one of its states or of their predicates is modified in place through the setters of
+ * {@link Predicate} and {@link MentalState} or the BDI operators (e.g. {@code set_truth}, {@code add_values}). The
+ * changes made to temporary predicates (e.g. by {@code with_truth} or by the perceptions) do not change any stamp. A
+ * change made by a model directly in the map returned by the {@code values} attribute of a predicate (e.g. with
+ * {@code put}) is not seen.
+ */
+public class RuleMatcher {
+
+	/** The bases on which the conditions of the rules are tested. */
+	private static final String[] BASES = { SimpleBdiArchitecture.BELIEF_BASE, SimpleBdiArchitecture.DESIRE_BASE,
+			SimpleBdiArchitecture.UNCERTAINTY_BASE, SimpleBdiArchitecture.IDEAL_BASE,
+			SimpleBdiArchitecture.OBLIGATION_BASE };
+
+	/** The conditions of the rule. */
+	private final IExpression[] conditions;
+
+	/** The situations in which the rule has been found not applicable, by agent. */
+	private final Map<IAgent, Object[]> notApplicable = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Instantiates a new rule matcher.
+	 *
+	 * @param conditions
+	 *            the conditions
+	 */
+	private RuleMatcher(final IExpression[] conditions) {
+		this.conditions = conditions;
+	}
+
+	/**
+	 * Creates a matcher for a rule, if its conditions allow it.
+	 *
+	 * @param conditions
+	 *            the conditions of the rule on beliefs, desires, uncertainties, ideals and obligations (null if absent)
+	 * @param emotionConditions
+	 *            the conditions of the rule on emotions (null if absent)
+	 * @return the rule matcher, or null if the rule cannot be matched incrementally
+	 */
+	public static RuleMatcher create(final IExpression[] conditions, final IExpression... emotionConditions) {
+		for (final IExpression e : emotionConditions) { if (e != null) return null; }
+		final List<IExpression> used = new ArrayList<>();
+		for (final IExpression e : conditions) {
+			if (e == null) { continue; }
+			if (!e.isConst() && !(e instanceof IVarExpression)) return null;
+			used.add(e);
+		}
+		return new RuleMatcher(used.toArray(new IExpression[used.size()]));
+	}
+
+	/**
+	 * The current situation of the agent.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the situation, or null if the bases of the agent are not indexed
+	 */
+	public Object[] situation(final IScope scope) {
+		final Object[] result = new Object[BASES.length + 2 * conditions.length];
+		for (int i = 0; i < BASES.length; i++) {
+			if (!(SimpleBdiArchitecture.getBase(scope, BASES[i]) instanceof MentalStateBase base)) return null;
+			result[i] = base.getStamp();
+		}
+		for (int i = 0; i < conditions.length; i++) {
+			final Object value = conditions[i].value(scope);
+			result[BASES.length + 2 * i] = value;
+			result[BASES.length + 2 * i + 1] = versionOf(value);
+		}
+		return result;
+	}
+
+	/**
+	 * Whether the rule has been found not applicable in the same situation.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param situation
+	 *            the current situation
+	 * @return true, if the rule is still not applicable
+	 */
+	public boolean isStillNotApplicable(final IScope scope, final Object[] situation) {
+		if (situation == null) return false;
+		final Object[] previous = notApplicable.get(scope.getAgent());
+		if (previous == null) return false;
+		for (int i = 0; i < BASES.length; i++) { if (!previous[i].equals(situation[i])) return false; }
+		for (int i = BASES.length; i < situation.length; i += 2) {
+			if (!isSame(previous[i], situation[i]) || !previous[i + 1].equals(situation[i + 1])) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Remembers whether the rule has been found applicable in a situation.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param situation
+	 *            the situation (computed before the evaluation of the rule)
+	 * @param applicable
+	 *            whether the rule has been found applicable
+	 */
+	public void remember(final IScope scope, final Object[] situation, final boolean applicable) {
+		if (applicable || situation == null) {
+			notApplicable.remove(scope.getAgent());
+		} else {
+			notApplicable.put(scope.getAgent(), situation);
+		}
+	}
+
+	/**
+	 * The sum of the versions of the predicates contained in the value of a condition. As versions only increase, it
+	 * remains the same, for the same predicates, only if none of them has been modified.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the long
+	 */
+	@SuppressWarnings ("rawtypes")
+	private static Long versionOf(final Object value) {
+		if (value instanceof Predicate p) return (long) p.getVersion();
+		long result = 0;
+		if (value instanceof List list) {
+			for (final Object o : list) { if (o instanceof Predicate p) { result += p.getVersion(); } }
+		}
+		return result;
+	}
+
+	/**
+	 * Whether two values of a condition are the same objects (or lists of the same objects).
+	 *
+	 * @param a
+	 *            the a
+	 * @param b
+	 *            the b
+	 * @return true, if is same
+	 */
+	@SuppressWarnings ("rawtypes")
+	private static boolean isSame(final Object a, final Object b) {
+		if (a == b) return true;
+		if (!(a instanceof List la) || !(b instanceof List lb) || la.size() != lb.size()) return false;
+		for (int i = 0; i < la.size(); i++) { if (la.get(i) != lb.get(i)) return false; }
+		return true;
+	}
+
+}
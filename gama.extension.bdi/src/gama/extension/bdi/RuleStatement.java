@@ -519,6 +519,9 @@ public class RuleStatement extends AbstractStatement {
 	/** The lifetime. */
 	final IExpression lifetime;
 
+	/** The matcher, if the conditions of the rule can be matched incrementally. */
+	final RuleMatcher matcher;
+
 	/**
 	 * Instantiates a new rule statement.
 	 *
@@ -568,6 +571,8 @@ public class RuleStatement extends AbstractStatement {
 		lifetime = getFacet("lifetime");
 		parallel = getFacet(IKeyword.PARALLEL);
 		all = getFacet(RuleStatement.ALL);
+		matcher = RuleMatcher.create(new IExpression[] { belief, desire, uncertainty, ideal, obligation, beliefs,
+				desires, uncertainties, ideals, obligations }, emotion, emotions, threshold);
 	}
 
 	@SuppressWarnings ("unchecked")
@@ -584,6 +589,9 @@ public class RuleStatement extends AbstractStatement {
 		List<Predicate> predUncertaintyList = null;
 		List<Predicate> predIdealList = null;
 		if (when == null || Cast.asBool(scope, when.value(scope))) {
+			final Object[] situation = matcher == null ? null : matcher.situation(scope);
+			if (situation != null && matcher.isStillNotApplicable(scope, situation)) return null;
+			boolean applicable = false;
 			final MentalState tempBelief = new MentalState("Belief");
 			boolean has_belief = true;
 			if (belief != null) {
@@ -660,6 +668,7 @@ public class RuleStatement extends AbstractStatement {
 																	(Emotion) emotion.value(
 																			scope)).intensity >= (Double) threshold
 																					.value(scope)) {
+														applicable = true;
 														if (newDesire != null) {
 															if (allVal) {
 																if (predBeliefList != null) {
@@ -1380,6 +1389,7 @@ public class RuleStatement extends AbstractStatement {
 					}
 				}
 			}
+			if (matcher != null) { matcher.remember(scope, situation, applicable); }
 		}
 		return null;
 	}
@@ -18,6 +18,7 @@ import gama.annotations.precompiler.GamlAnnotations.action;
 import gama.annotations.precompiler.GamlAnnotations.arg;
 import gama.annotations.precompiler.GamlAnnotations.doc;
 import gama.annotations.precompiler.GamlAnnotations.example;
+import gama.annotations.precompiler.GamlAnnotations.setter;
 import gama.annotations.precompiler.GamlAnnotations.skill;
 import gama.annotations.precompiler.GamlAnnotations.variable;
 import gama.annotations.precompiler.GamlAnnotations.vars;
@@ -1719,6 +1720,85 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		return scope.hasArg(basename) ? scope.getListArg(basename) : (IList<MentalState>) agent.getAttribute(basename);
 	}
 
+	/**
+	 * Stores a base of mental states in an attribute of the agent, as a {@link MentalStateBase} (i.e. indexed by name
+	 * of predicate) if it is not one already.
+	 *
+	 * @param agent the agent
+	 * @param basename the basename
+	 * @param base the base
+	 */
+	private static void setBase(final IAgent agent, final String basename, final IList<MentalState> base) {
+		if (agent == null) return;
+		agent.setAttribute(basename, base == null || base instanceof MentalStateBase ? base : new MentalStateBase(base));
+	}
+
+	/**
+	 * Sets the belief base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (BELIEF_BASE)
+	public void setBeliefBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, BELIEF_BASE, base);
+	}
+
+	/**
+	 * Sets the desire base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (DESIRE_BASE)
+	public void setDesireBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, DESIRE_BASE, base);
+	}
+
+	/**
+	 * Sets the intention base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (INTENTION_BASE)
+	public void setIntentionBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, INTENTION_BASE, base);
+	}
+
+	/**
+	 * Sets the uncertainty base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (UNCERTAINTY_BASE)
+	public void setUncertaintyBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, UNCERTAINTY_BASE, base);
+	}
+
+	/**
+	 * Sets the ideal base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (IDEAL_BASE)
+	public void setIdealBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, IDEAL_BASE, base);
+	}
+
+	/**
+	 * Sets the obligation base.
+	 *
+	 * @param agent the agent
+	 * @param base the base
+	 */
+	@setter (OBLIGATION_BASE)
+	public void setObligationBase(final IAgent agent, final IList<MentalState> base) {
+		setBase(agent, OBLIGATION_BASE, base);
+	}
+
 	/**
 	 * Gets the emotion base.
 	 *
@@ -1917,7 +1997,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				createHappyForFromMentalState(scope, predicateDirect); // (seulement si le prédicat est sur une
 																		// émotion).
 			}
-			for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.BELIEF_BASE)) {
+			for (final MentalState predTest : MentalStateBase.candidates(getBase(scope, SimpleBdiArchitecture.BELIEF_BASE),
+					predicateDirect)) {
 				if (predTest.getPredicate() != null && predicateDirect.getPredicate() != null
 						&& predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
 					predTemp = predTest;
@@ -1938,7 +2019,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 			if (getBase(scope, SimpleBdiArchitecture.OBLIGATION_BASE).contains(predicateDirect)) {
 				removeFromBase(scope, predicateDirect, OBLIGATION_BASE);
 			}
-			for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE)) {
+			for (final MentalState predTest : MentalStateBase
+					.candidates(getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE), predicateDirect)) {
 				if (predTest.getPredicate() != null && predicateDirect.getPredicate() != null
 						&& predTest.getPredicate().equalsButNotTruth(predicateDirect.getPredicate())) {
 					predTemp = predTest;
@@ -2290,7 +2372,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		final Predicate predicateDirect =
 				(Predicate) (scope.hasArg(PREDICATE) ? scope.getArg(PREDICATE, PredicateType.id) : null);
 		if (predicateDirect != null) {
-			for (final MentalState mental : getBase(scope, BELIEF_BASE)) {
+			for (final MentalState mental : MentalStateBase.candidates(getBase(scope, BELIEF_BASE),
+					predicateDirect.getName())) {
 				if (mental.getPredicate() != null) {
 					if (predicateDirect.equals(mental.getPredicate())) { return mental; }
 					if (predicateDirect.equalsButNotTruth(mental.getPredicate())) { return mental; }
@@ -5624,7 +5707,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 				scope.hasArg(USE_EMOTIONS_ARCHITECTURE) ? scope.getBoolArg(USE_EMOTIONS_ARCHITECTURE)
 						: (Boolean) scope.getAgent().getAttribute(USE_EMOTIONS_ARCHITECTURE);
 		MentalState predTemp = null;
-		for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.BELIEF_BASE)) {
+		for (final MentalState predTest : MentalStateBase.candidates(getBase(scope, SimpleBdiArchitecture.BELIEF_BASE),
+				predicate)) {
 			if (predTest.getPredicate() != null && predicate.getPredicate() != null
 					&& predTest.getPredicate().equalsButNotTruth(predicate.getPredicate())) {
 				predTemp = predTest;
@@ -5633,7 +5717,8 @@ public class SimpleBdiArchitecture extends ReflexArchitecture {
 		if (predTemp != null) {
 			removeFromBase(scope, predTemp, BELIEF_BASE);
 		}
-		for (final MentalState predTest : getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE)) {
+		for (final MentalState predTest : MentalStateBase
+				.candidates(getBase(scope, SimpleBdiArchitecture.UNCERTAINTY_BASE), predicate)) {
 			if (predTest.getPredicate() != null && predicate.getPredicate() != null
 					&& predTest.getPredicate().equalsButNotTruth(predicate.getPredicate())) {
 				predTemp = predTest;
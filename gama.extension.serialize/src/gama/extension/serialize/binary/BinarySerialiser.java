@@ -11,6 +11,9 @@
 package gama.extension.serialize.binary;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,8 +31,10 @@ import gama.core.common.geometry.GeometryUtils;
 import gama.core.common.interfaces.ISerialisationConstants;
 import gama.core.metamodel.agent.AgentReference;
 import gama.core.metamodel.agent.IAgent;
+import gama.core.metamodel.agent.IMacroAgent;
 import gama.core.metamodel.agent.ISerialisedAgent;
 import gama.core.metamodel.agent.SerialisedAgent;
+import gama.core.metamodel.population.IPopulation;
 import gama.core.metamodel.population.ISerialisedPopulation;
 import gama.core.metamodel.population.SerialisedGrid;
 import gama.core.metamodel.population.SerialisedPopulation;
@@ -61,6 +66,15 @@ public class BinarySerialiser implements ISerialisationConstants {
 	/** The fst. */
 	FSTConfiguration fst;
 
+	/** The key of the chunk containing the attributes of the simulation. */
+	public static final String SIMULATION_CHUNK = "";
+
+	/** The separator between the name of the species and the index of an agent in the keys of chunks. */
+	public static final char CHUNK_SEPARATOR = '/';
+
+	/** The chunk that marks a population. */
+	static final byte[] EMPTY_CHUNK = {};
+
 	/** The in agent. */
 	boolean inAgent;
 
@@ -174,6 +188,87 @@ public class BinarySerialiser implements ISerialisationConstants {
 
 	}
 
+	/**
+	 * Saves a simulation as separate chunks of bytes, so that the chunks that do not change from one cycle to the next
+	 * can be shared: one for the attributes of the simulation (with the key {@link #SIMULATION_CHUNK}), one for each
+	 * agent of its populations (with the key "species/index"), an empty one for each population (with the name of the
+	 * species as key, so that empty populations are restored too) and one for each grid. References between agents are
+	 * saved as references.
+	 *
+	 * @param newScope
+	 *            the scope
+	 * @param sim
+	 *            the simulation
+	 * @return the chunks, by key
+	 */
+	public Map<String, byte[]> saveAgentToChunks(final IScope newScope, final IAgent sim) {
+		final SerialisedAgent whole = SerialisedAgent.of(sim, true);
+		final Map<String, byte[]> chunks = new HashMap<>();
+		inAgent = true;
+		try {
+			chunks.put(SIMULATION_CHUNK, fst.asByteArray(
+					new SerialisedAgent(whole.index(), whole.species(), whole.attributes(), Collections.EMPTY_MAP)));
+			whole.innerPopulations().forEach((name, pop) -> {
+				if (pop.isGrid()) {
+					chunks.put(name, fst.asByteArray(pop));
+				} else {
+					chunks.put(name, EMPTY_CHUNK);
+					for (final ISerialisedAgent a : pop.agents()) {
+						chunks.put(name + CHUNK_SEPARATOR + a.getIndex(), fst.asByteArray(a));
+					}
+				}
+			});
+		} finally {
+			inAgent = false;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Restores a simulation from the chunks produced by {@link #saveAgentToChunks(IScope, IAgent)}. The agents are
+	 * created (if needed) before the chunks are read, so that the references between them can be resolved.
+	 *
+	 * @param sim
+	 *            the simulation
+	 * @param chunks
+	 *            the chunks
+	 */
+	public void restoreAgentFromChunks(final IMacroAgent sim, final Map<String, byte[]> chunks) {
+		scope = sim.getScope();
+		try {
+			for (final String key : chunks.keySet()) {
+				final int i = key.indexOf(CHUNK_SEPARATOR);
+				if (i < 0) { continue; }
+				final IPopulation<? extends IAgent> pop = sim.getMicroPopulation(key.substring(0, i));
+				if (pop != null) { pop.getOrCreateAgent(scope, Integer.valueOf(key.substring(i + 1))); }
+			}
+			SerialisedAgent attributes = null;
+			final Map<String, ISerialisedPopulation> populations = new HashMap<>();
+			for (final Map.Entry<String, byte[]> entry : chunks.entrySet()) {
+				final String key = entry.getKey();
+				final byte[] bytes = entry.getValue();
+				final int i = key.indexOf(CHUNK_SEPARATOR);
+				if (SIMULATION_CHUNK.equals(key)) {
+					attributes = (SerialisedAgent) fst.asObject(bytes);
+				} else if (i >= 0) {
+					populations.computeIfAbsent(key.substring(0, i), n -> new SerialisedPopulation(n, new ArrayList<>()))
+							.agents().add((ISerialisedAgent) fst.asObject(bytes));
+				} else if (bytes.length > 0) {
+					populations.put(key, (ISerialisedPopulation) fst.asObject(bytes));
+				} else {
+					populations.computeIfAbsent(key, n -> new SerialisedPopulation(n, new ArrayList<>()));
+				}
+			}
+			if (attributes == null) return;
+			new SerialisedAgent(attributes.index(), attributes.species(), attributes.attributes(), populations)
+					.restoreAs(scope, sim);
+		} catch (Exception e) {
+			throw GamaRuntimeException.create(e, scope);
+		} finally {
+			scope = null;
+		}
+	}
+
 	/**
 	 * Register serialisers.
 	 *
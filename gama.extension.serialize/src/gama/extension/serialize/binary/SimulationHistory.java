@@ -10,106 +10,414 @@
  ********************************************************************************************************/
 package gama.extension.serialize.binary;
 
-import java.util.LinkedList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import gama.core.common.preferences.GamaPreferences;
 import gama.core.util.ByteArrayZipper;
 import gama.dev.DEBUG;
-import gama.extension.serialize.binary.SimulationHistory.SimulationHistoryNode;
 
 /**
- * The Class SimulationHistory.
+ * The history of the states of a simulation, used to step back. The states are made of chunks of bytes (see
+ * {@link BinarySerialiser#saveAgentToChunks}). Every {@link GamaPreferences.Runtime#CORE_HISTORY_KEYFRAMES} cycles, a
+ * complete state (a key frame) is recorded; in between, only the chunks that have changed (and the keys of the ones
+ * that have disappeared) are. A state is restored by replaying these deltas onto the closest key frame before it.
+ *
+ * Frames are compared, encoded and compressed in the background, in the order of their recording. When they occupy
+ * more than {@link GamaPreferences.Runtime#CORE_HISTORY_MEMORY}, the oldest ones are moved to a memory-mapped
+ * temporary file, deleted when the history is no longer used.
  */
-public class SimulationHistory extends LinkedList<SimulationHistoryNode> {
+public class SimulationHistory {
+
+	static {
+		DEBUG.ON();
+	}
+
+	/** The executor in which frames are processed (shared by all histories, in the order of their recording). */
+	static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		final Thread t = new Thread(r, "Simulation history");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/** The cleaner that deletes the files of the histories no longer used. */
+	static final Cleaner CLEANER = Cleaner.create();
 
 	/**
-	 * The Class SimulationHistoryNode.
+	 * A frame of the history.
 	 */
-	static class SimulationHistoryNode {
+	static class Frame {
+
+		/** The cycle. */
+		final long cycle;
 
-		/** The bytes. */
+		/** Whether it is a complete state. */
+		final boolean isKey;
+
+		/** The compressed bytes, or null if they have been moved to the file. */
 		byte[] bytes;
 
-		/** The cycle. */
-		long cycle;
+		/** The position and length of the bytes in the file. */
+		long offset;
+
+		/** The length. */
+		int length;
 
 		/**
-		 * Instantiates a new history node.
+		 * Instantiates a new frame.
 		 *
-		 * @author Alexis Drogoul (alexis.drogoul@ird.fr)
-		 * @param state
-		 *            the state
-		 * @date 22 oct. 2023
+		 * @param cycle
+		 *            the cycle
+		 * @param isKey
+		 *            whether it is a complete state
+		 * @param bytes
+		 *            the compressed bytes
 		 */
-		public SimulationHistoryNode(final byte[] state, final long cycle) {
-			bytes = state;
+		Frame(final long cycle, final boolean isKey, final byte[] bytes) {
 			this.cycle = cycle;
+			this.isKey = isKey;
+			this.bytes = bytes;
+			this.length = bytes.length;
+		}
+	}
+
+	/**
+	 * The file where the oldest frames are moved. Written sequentially and read through memory mappings.
+	 */
+	static class Spill implements Runnable {
+
+		/** The file. */
+		final File file;
+
+		/** The channel. */
+		final FileChannel channel;
+
+		/** The size of the useful part of the file. */
+		long size;
+
+		/**
+		 * Creates a temporary file.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		Spill() throws IOException {
+			file = File.createTempFile("gama_history_", ".bin");
+			file.deleteOnExit();
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
 		}
 
+		/**
+		 * Appends bytes.
+		 *
+		 * @param bytes
+		 *            the bytes
+		 * @return the position of the bytes in the file
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		long append(final byte[] bytes) throws IOException {
+			final long offset = size;
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) { channel.write(buffer, offset + buffer.position()); }
+			size += bytes.length;
+			return offset;
+		}
+
+		/**
+		 * Reads bytes.
+		 *
+		 * @param offset
+		 *            the offset
+		 * @param length
+		 *            the length
+		 * @return the bytes
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		byte[] read(final long offset, final int length) throws IOException {
+			final byte[] result = new byte[length];
+			channel.map(FileChannel.MapMode.READ_ONLY, offset, length).get(result);
+			return result;
+		}
+
+		/**
+		 * Forgets the end of the file (which is overwritten by the next frames rather than truncated, as it may still
+		 * be mapped).
+		 *
+		 * @param newSize
+		 *            the new size
+		 */
+		void forget(final long newSize) {
+			size = newSize;
+		}
+
+		@Override
+		public void run() {
+			try {
+				channel.close();
+			} catch (final IOException e) {}
+			file.delete();
+		}
 	}
 
-	static {
-		DEBUG.ON();
+	/** The frames, from the oldest to the most recent. */
+	private final List<Frame> frames = new ArrayList<>();
+
+	/** The index of the first frame still in memory (the previous ones are in the file). */
+	private int firstInMemory;
+
+	/** The number of bytes of the frames kept in memory. */
+	private long inMemory;
+
+	/** The file, created when needed. */
+	private Spill spill;
+
+	/** The last state recorded (or restored). Only accessed in the executor, or once it is idle. */
+	private Map<String, byte[]> last;
+
+	/** The number of frames since the last key frame. */
+	private int sinceKeyFrame;
+
+	/** The last task submitted. */
+	private volatile Future<?> pending;
+
+	/**
+	 * Records the state of the simulation at a given cycle.
+	 *
+	 * @param cycle
+	 *            the cycle
+	 * @param state
+	 *            the chunks of the state, not modified afterwards
+	 */
+	public void record(final long cycle, final Map<String, byte[]> state) {
+		pending = EXECUTOR.submit(() -> store(cycle, state));
 	}
 
-	/** The executor. */
-	final ExecutorService executor = Executors.newCachedThreadPool();
+	/**
+	 * Encodes the state as a key frame or as a delta, then adds it to the frames.
+	 *
+	 * @param cycle
+	 *            the cycle
+	 * @param state
+	 *            the state
+	 */
+	private void store(final long cycle, final Map<String, byte[]> state) {
+		final long startTime = System.nanoTime();
+		final boolean isKey =
+				last == null || sinceKeyFrame + 1 >= GamaPreferences.Runtime.CORE_HISTORY_KEYFRAMES.getValue();
+		final byte[] bytes;
+		try {
+			bytes = ByteArrayZipper.zip(encode(state, isKey ? null : last));
+		} catch (final IOException e) {
+			DEBUG.ERR("Impossible to record cycle " + cycle, e);
+			return;
+		}
+		last = state;
+		sinceKeyFrame = isKey ? 0 : sinceKeyFrame + 1;
+		synchronized (this) {
+			frames.add(new Frame(cycle, isKey, bytes));
+			inMemory += bytes.length;
+			spillIfNeeded();
+		}
+		DEBUG.OUT((isKey ? "Key frame" : "Delta") + " of cycle " + cycle + " recorded in " + bytes.length / 1000000d
+				+ "Mb in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
+	}
 
-	/** The delta. Part of https://github.com/mantlik/xdeltaencoder/tree/master to compute diffs */
-	// Delta delta = new Delta();
+	/**
+	 * Encodes the chunks that differ from the previous state, followed by the keys of the ones that have disappeared.
+	 *
+	 * @param state
+	 *            the state
+	 * @param previous
+	 *            the previous state, or null to encode a key frame
+	 * @return the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static byte[] encode(final Map<String, byte[]> state, final Map<String, byte[]> previous)
+			throws IOException {
+		final List<Map.Entry<String, byte[]>> changed = new ArrayList<>();
+		for (final Map.Entry<String, byte[]> entry : state.entrySet()) {
+			if (previous == null || !Arrays.equals(previous.get(entry.getKey()), entry.getValue())) {
+				changed.add(entry);
+			}
+		}
+		final List<String> removed = new ArrayList<>();
+		if (previous != null) {
+			for (final String key : previous.keySet()) { if (!state.containsKey(key)) { removed.add(key); } }
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(changed.size());
+			for (final Map.Entry<String, byte[]> entry : changed) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+			out.writeInt(removed.size());
+			for (final String key : removed) { out.writeUTF(key); }
+		}
+		return bytes.toByteArray();
+	}
 
-	/** The diffs. */
-	LinkedList<SimulationHistoryNode> diffs = new LinkedList<>();
+	/**
+	 * Applies a frame to a state.
+	 *
+	 * @param frame
+	 *            the compressed bytes of the frame
+	 * @param state
+	 *            the state
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void apply(final byte[] frame, final Map<String, byte[]> state) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(ByteArrayZipper.unzip(frame)))) {
+			for (int i = in.readInt(); i > 0; i--) {
+				final String key = in.readUTF();
+				final byte[] chunk = new byte[in.readInt()];
+				in.readFully(chunk);
+				state.put(key, chunk);
+			}
+			for (int i = in.readInt(); i > 0; i--) { state.remove(in.readUTF()); }
+		}
+	}
 
-	@Override
-	public void push(final SimulationHistoryNode node) {
-		// SimulationHistoryNode old = peek();
-		asyncProcess(node, System.nanoTime());
-		super.push(node);
+	/**
+	 * Moves the oldest frames to the file until the memory budget is respected. The most recent frame is always kept
+	 * in memory.
+	 */
+	private void spillIfNeeded() {
+		final long budget = GamaPreferences.Runtime.CORE_HISTORY_MEMORY.getValue() * 1024L * 1024L;
+		while (inMemory > budget && firstInMemory < frames.size() - 1) {
+			final Frame frame = frames.get(firstInMemory);
+			try {
+				if (spill == null) {
+					spill = new Spill();
+					CLEANER.register(this, spill);
+				}
+				frame.offset = spill.append(frame.bytes);
+			} catch (final IOException e) {
+				DEBUG.ERR("Impossible to write the history of the simulation to disk", e);
+				return;
+			}
+			inMemory -= frame.length;
+			frame.bytes = null;
+			firstInMemory++;
+		}
+	}
 
+	/**
+	 * Waits for the frames recorded to be processed.
+	 */
+	private void waitForPendingFrames() {
+		final Future<?> f = pending;
+		if (f == null) return;
+		try {
+			f.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException e) {
+			DEBUG.ERR("Error in the history of the simulation", e);
+		}
 	}
 
-	// /**
-	// * Async zip.
-	// *
-	// * @author Alexis Drogoul (alexis.drogoul@ird.fr)
-	// * @param newFrame
-	// * the node
-	// * @date 8 août 2023
-	// */
-	// protected void asyncProcess(final SimulationHistoryNode keyFrame, final SimulationHistoryNode newFrame,
-	// final long startTime) {
-	// if (keyFrame == null) return;
-	// executor.execute(() -> {
-	// try {
-	// byte[] diff = delta.compute(keyFrame.bytes, newFrame.bytes);
-	// SimulationHistoryNode diffNode = new SimulationHistoryNode(diff, newFrame.cycle);
-	// diffs.push(diffNode);
-	// diffNode.bytes = ByteArrayZipper.zip(diff);
-	// DEBUG.OUT("Serialised and compressed to " + diffNode.bytes.length / 1000000d + "Mb in "
-	// + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
-	// } catch (IOException e) {}
-	//
-	// });
-	// }
+	/**
+	 * Whether a state recorded before the given cycle is available.
+	 *
+	 * @param cycle
+	 *            the current cycle
+	 * @return true, if successful
+	 */
+	public boolean canStepBack(final long cycle) {
+		waitForPendingFrames();
+		synchronized (this) {
+			return !frames.isEmpty() && frames.get(0).cycle < cycle;
+		}
+	}
 
 	/**
-	 * Async process.
+	 * Forgets the states recorded at or after the given cycle and returns the most recent of the remaining ones, which
+	 * becomes the reference of the next deltas.
 	 *
-	 * @param newFrame
-	 *            the new frame
-	 * @param startTime
-	 *            the start time
+	 * @param cycle
+	 *            the current cycle
+	 * @return the chunks of the state, or null if there is none
 	 */
-	protected void asyncProcess(final SimulationHistoryNode newFrame, final long startTime) {
-		executor.execute(() -> {
-			newFrame.bytes = ByteArrayZipper.zip(newFrame.bytes);
-			DEBUG.OUT("Serialised and compressed to " + newFrame.bytes.length / 1000000d + "Mb in "
-					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
+	public Map<String, byte[]> stepBack(final long cycle) {
+		waitForPendingFrames();
+		synchronized (this) {
+			int target = frames.size() - 1;
+			while (target >= 0 && frames.get(target).cycle >= cycle) { target--; }
+			truncate(target + 1);
+			if (target < 0) {
+				last = null;
+				return null;
+			}
+			int key = target;
+			while (!frames.get(key).isKey) { key--; }
+			final Map<String, byte[]> state = new HashMap<>();
+			try {
+				for (int i = key; i <= target; i++) { apply(bytesOf(frames.get(i)), state); }
+			} catch (final IOException e) {
+				DEBUG.ERR("Impossible to restore cycle " + frames.get(target).cycle, e);
+				truncate(0);
+				last = null;
+				return null;
+			}
+			last = state;
+			sinceKeyFrame = target - key;
+			return state;
+		}
+	}
+
+	/**
+	 * Returns the compressed bytes of a frame, reading them from the file if necessary.
+	 *
+	 * @param frame
+	 *            the frame
+	 * @return the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private byte[] bytesOf(final Frame frame) throws IOException {
+		return frame.bytes != null ? frame.bytes : spill.read(frame.offset, frame.length);
+	}
 
-		});
+	/**
+	 * Removes the frames after the given number.
+	 *
+	 * @param size
+	 *            the number of frames to keep
+	 */
+	private void truncate(final int size) {
+		if (size >= frames.size()) return;
+		if (size < firstInMemory) {
+			spill.forget(frames.get(size).offset);
+			firstInMemory = size;
+		}
+		for (int i = frames.size() - 1; i >= size; i--) {
+			final Frame frame = frames.remove(i);
+			if (frame.bytes != null) { inMemory -= frame.length; }
+		}
 	}
 
 }
@@ -10,7 +10,7 @@
  ********************************************************************************************************/
 package gama.extension.serialize.binary;
 
-import java.util.LinkedList;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import gama.core.common.interfaces.ISerialisationConstants;
@@ -18,7 +18,6 @@ import gama.core.kernel.experiment.ISimulationRecorder;
 import gama.core.kernel.simulation.SimulationAgent;
 import gama.core.metamodel.agent.SerialisedAgent;
 import gama.dev.DEBUG;
-import gama.extension.serialize.binary.SimulationHistory.SimulationHistoryNode;
 
 /**
  * The Class SimulationSerialiser. Used to record, store, and retrieve simulation states
@@ -46,12 +45,8 @@ public class SimulationSerialiser implements ISimulationRecorder, ISerialisation
 	@Override
 	public void record(final SimulationAgent sim) {
 		try {
-			// long startTime = System.nanoTime();
-			byte[] state = processor.saveAgentToBytes(sim.getScope(), sim);
-			SimulationHistory history = getSimulationHistory(sim);
-			SimulationHistoryNode node = new SimulationHistoryNode(state, sim.getClock().getCycle());
-			history.push(node);
-			// asyncZip(node, startTime);
+			Map<String, byte[]> state = processor.saveAgentToChunks(sim.getScope(), sim);
+			getSimulationHistory(sim).record(sim.getClock().getCycle(), state);
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
@@ -66,7 +61,6 @@ public class SimulationSerialiser implements ISimulationRecorder, ISerialisation
 	 * @return the simulation history
 	 * @date 22 oct. 2023
 	 */
-	@SuppressWarnings ("unchecked")
 	private SimulationHistory getSimulationHistory(final SimulationAgent sim) {
 		SimulationHistory history = (SimulationHistory) sim.getAttribute(SerialisedAgent.HISTORY_KEY);
 		if (history == null) {
@@ -88,12 +82,10 @@ public class SimulationSerialiser implements ISimulationRecorder, ISerialisation
 	public void restore(final SimulationAgent sim) {
 		try {
 			synchronized (sim) {
-				LinkedList<SimulationHistoryNode> history = getSimulationHistory(sim);
-				SimulationHistoryNode node = history.pop();
-				if (node != null && node.cycle == sim.getClock().getCycle()) { node = history.pop(); }
-				if (node != null) {
+				Map<String, byte[]> state = getSimulationHistory(sim).stepBack(sim.getClock().getCycle());
+				if (state != null) {
 					long startTime = System.nanoTime();
-					processor.restoreAgentFromBytes(sim, node.bytes);
+					processor.restoreAgentFromChunks(sim, state);
 
 					DEBUG.OUT("Deserialised in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
 				}
@@ -113,7 +105,7 @@ public class SimulationSerialiser implements ISimulationRecorder, ISerialisation
 	 */
 	@Override
 	public boolean canStepBack(final SimulationAgent sim) {
-		return getSimulationHistory(sim).size() > 0;
+		return getSimulationHistory(sim).canStepBack(sim.getClock().getCycle());
 	}
 
 }
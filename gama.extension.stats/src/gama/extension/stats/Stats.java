@@ -57,6 +57,8 @@ import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.Collector;
 import gama.core.util.GamaColor;
+import gama.core.util.GamaFloatList;
+import gama.core.util.GamaIntList;
 import gama.core.util.GamaListFactory;
 import gama.core.util.GamaMapFactory;
 import gama.core.util.IContainer;
@@ -2992,6 +2994,16 @@ public class Stats {
 	 * @return the data set
 	 */
 	private static DataSet toDataSet(final IScope scope, final IContainer values) {
+		if (values instanceof GamaFloatList floats && floats.isPrimitive()) {
+			final DataSet d = new DataSet(Math.max(1, floats.size()));
+			floats.forEachDouble(d::addValue);
+			return d;
+		}
+		if (values instanceof GamaIntList ints && ints.isPrimitive()) {
+			final DataSet d = new DataSet(Math.max(1, ints.size()));
+			ints.forEachDouble(d::addValue);
+			return d;
+		}
 		final DataSet d = new DataSet(values.length(scope));
 		for (final Object o : values.iterable(scope)) {
 			if (o instanceof Number) { d.addValue(((Number) o).doubleValue()); }
@@ -3009,6 +3021,8 @@ public class Stats {
 	 * @return the double array list
 	 */
 	static DoubleArrayList toDoubleArrayList(final IScope scope, final IContainer values) {
+		final double[] primitives = toPrimitives(values);
+		if (primitives != null) return new DoubleArrayList(primitives);
 		final DoubleArrayList d = new DoubleArrayList(values.length(scope));
 		for (final Object o : values.iterable(scope)) {
 			if (o instanceof Number) { d.add(((Number) o).doubleValue()); }
@@ -3017,6 +3031,19 @@ public class Stats {
 		return d;
 	}
 
+	/**
+	 * The values of the lists of int or float that store them in arrays of primitives, without unboxing them.
+	 *
+	 * @param values
+	 *            the values
+	 * @return a copy of the values, or null if the container is not such a list
+	 */
+	private static double[] toPrimitives(final IContainer values) {
+		if (values instanceof GamaFloatList floats && floats.isPrimitive()) return floats.toDoubleArray();
+		if (values instanceof GamaIntList ints && ints.isPrimitive()) return ints.toDoubleArray();
+		return null;
+	}
+
 	/**
 	 * Mean of.
 	 *
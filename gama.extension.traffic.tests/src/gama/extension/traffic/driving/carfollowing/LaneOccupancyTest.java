@@ -0,0 +1,211 @@
+/*******************************************************************************************************
+ *
+ * LaneOccupancyTest.java, in gama.extension.traffic.tests, is part of the source code of the GAMA modeling and
+ * simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.extension.traffic.driving.carfollowing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.collections4.BidiMap;
+import org.apache.commons.collections4.OrderedBidiMap;
+import org.apache.commons.collections4.bidimap.DualTreeBidiMap;
+import org.junit.jupiter.api.Test;
+
+import gama.core.metamodel.agent.IAgent;
+
+/**
+ * Checks that {@link LaneOccupancy} behaves like the bidirectional map of vehicles and distances it replaces (the
+ * former CustomDualTreeBidiMap, reproduced here as {@link ReferenceMap}), on random sequences of insertions, moves,
+ * removals and queries.
+ */
+public class LaneOccupancyTest {
+
+	/**
+	 * The map formerly used for each lane of a road: vehicles to distances, ordered like in RoadSkill.
+	 *
+	 * @param <K>
+	 *            the key type
+	 * @param <V>
+	 *            the value type
+	 */
+	static class ReferenceMap<K, V> extends DualTreeBidiMap<K, V> {
+
+		/**
+		 * Instantiates a new reference map.
+		 *
+		 * @param normalMap
+		 *            the normal map
+		 * @param reverseMap
+		 *            the reverse map
+		 * @param inverseBidiMap
+		 *            the inverse bidi map
+		 */
+		protected ReferenceMap(final Map<K, V> normalMap, final Map<V, K> reverseMap,
+				final BidiMap<V, K> inverseBidiMap) {
+			super(normalMap, reverseMap, inverseBidiMap);
+		}
+
+		/**
+		 * Instantiates a new reference map.
+		 *
+		 * @param keyComparator
+		 *            the key comparator
+		 * @param valueComparator
+		 *            the value comparator
+		 */
+		ReferenceMap(final Comparator<? super K> keyComparator, final Comparator<? super V> valueComparator) {
+			super(keyComparator, valueComparator);
+		}
+
+		@Override
+		protected ReferenceMap<V, K> createBidiMap(final Map<V, K> normalMap, final Map<K, V> reverseMap,
+				final BidiMap<K, V> inverseMap) {
+			return new ReferenceMap<>(normalMap, reverseMap, inverseMap);
+		}
+
+		@Override
+		public K nextKey(final K key) {
+			if (containsKey(key) || size() == 0) return super.nextKey(key);
+			final K last = lastKey();
+			if (comparator().compare(key, last) > 0) return null;
+			final K next = super.nextKey(key);
+			return next == null ? last : previousKey(next);
+		}
+	}
+
+	/**
+	 * Creates a vehicle that only answers its species name and its index.
+	 *
+	 * @param index
+	 *            the index
+	 * @return the agent
+	 */
+	static IAgent vehicle(final int index) {
+		return (IAgent) Proxy.newProxyInstance(IAgent.class.getClassLoader(), new Class<?>[] { IAgent.class },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "getSpeciesName" -> "car";
+					case "getIndex" -> index;
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					case "toString" -> "car" + index;
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	/**
+	 * A random distance, drawn among a small number of values so that vehicles often share a distance.
+	 *
+	 * @param random
+	 *            the random
+	 * @return the double
+	 */
+	static double distance(final Random random) {
+		return random.nextInt(40) / 2d;
+	}
+
+	/**
+	 * Compares the lane with the reference map: contents, order and lookups around a few distances.
+	 *
+	 * @param lane
+	 *            the lane
+	 * @param map
+	 *            the map
+	 * @param vehicles
+	 *            all the vehicles
+	 * @param random
+	 *            the random
+	 */
+	static void assertSameState(final LaneOccupancy lane, final ReferenceMap<IAgent, Double> map,
+			final List<IAgent> vehicles, final Random random) {
+		final OrderedBidiMap<Double, IAgent> byDistance = map.inverseBidiMap();
+		assertEquals(byDistance.size(), lane.size());
+		int i = 0;
+		for (final Map.Entry<Double, IAgent> entry : byDistance.entrySet()) {
+			assertEquals(entry.getKey(), lane.distanceAt(i));
+			assertSame(entry.getValue(), lane.vehicleAt(i));
+			i++;
+		}
+		for (final IAgent v : vehicles) { assertEquals(map.containsKey(v), lane.contains(v)); }
+		for (int q = 0; q < 5; q++) {
+			final double d = distance(random) + (random.nextBoolean() ? 0.25 : 0);
+			final int at = lane.indexOf(d);
+			assertSame(byDistance.get(d), at < 0 ? null : lane.vehicleAt(at));
+			final int higher = lane.higherIndex(d);
+			final Double next = byDistance.nextKey(d);
+			if (next == null) {
+				assertEquals(-1, higher);
+			} else {
+				assertEquals(next, lane.distanceAt(higher));
+			}
+			final int lower = lane.lowerIndex(d);
+			final Double previous = byDistance.previousKey(d);
+			if (previous == null) {
+				assertEquals(-1, lower);
+			} else {
+				assertEquals(previous, lane.distanceAt(lower));
+			}
+		}
+	}
+
+	/**
+	 * Random sequences of insertions, moves and removals.
+	 */
+	@Test
+	public void behavesLikeTheBidirectionalMap() {
+		final Random random = new Random(42);
+		final List<IAgent> vehicles = new ArrayList<>();
+		for (int i = 0; i < 25; i++) { vehicles.add(vehicle(i)); }
+		for (int run = 0; run < 200; run++) {
+			final LaneOccupancy lane = new LaneOccupancy();
+			final ReferenceMap<IAgent, Double> map = new ReferenceMap<>((a, b) -> {
+				final int r = a.getSpeciesName().compareTo(b.getSpeciesName());
+				if (r != 0) return r;
+				return Integer.compare(a.getIndex(), b.getIndex());
+			}, Double::compare);
+			for (int step = 0; step < 300; step++) {
+				final IAgent v = vehicles.get(random.nextInt(vehicles.size()));
+				if (random.nextInt(4) == 0) {
+					assertEquals(map.remove(v) != null, lane.remove(v));
+				} else {
+					final double d = distance(random);
+					map.put(v, d);
+					lane.put(v, d);
+				}
+				assertSameState(lane, map, vehicles, random);
+			}
+			lane.clear();
+			map.clear();
+			assertSameState(lane, map, vehicles, random);
+		}
+	}
+
+	/**
+	 * Lookups in an empty lane.
+	 */
+	@Test
+	public void emptyLane() {
+		final LaneOccupancy lane = new LaneOccupancy();
+		assertEquals(0, lane.size());
+		assertEquals(-1, lane.indexOf(1));
+		assertEquals(-1, lane.lowerIndex(1));
+		assertEquals(-1, lane.higherIndex(1));
+		assertTrue(lane.isEmpty());
+		assertTrue(lane.getVehicles().isEmpty());
+	}
+
+}
@@ -18,7 +18,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import org.apache.commons.collections4.OrderedBidiMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.locationtech.jts.geom.Coordinate;
 
@@ -46,6 +45,7 @@ import gama.core.util.graph.GamaGraph;
 import gama.core.util.path.IPath;
 import gama.core.util.path.PathFactory;
 import gama.dev.DEBUG;
+import gama.extension.traffic.driving.carfollowing.LaneOccupancy;
 import gama.extension.traffic.driving.carfollowing.MOBIL;
 import gama.extension.traffic.driving.carfollowing.Utils;
 import gama.gaml.descriptions.ConstantExpressionDescription;
@@ -1889,12 +1889,11 @@ public class DrivingSkill extends MovingSkill {
 				boolean shouldRespectPriority = !onPriorityRoad && otherRoadIsPriortized;
 				// be careful of vehicles coming from the right/left side
 				if (!hasPriority && (shouldRespectPriority || rightSide && side < 0 || !rightSide && side > 0)) {
-					for (OrderedBidiMap<IAgent, Double> vehicleOrderMap : RoadSkill.getVehicleOrdering(otherInRoad)) {
+					for (LaneOccupancy lane : RoadSkill.getLaneOccupancies(otherInRoad)) {
 						// The vehicle closest to the end of the road
-						OrderedBidiMap<Double, IAgent> distMap = vehicleOrderMap.inverseBidiMap();
-						if (distMap.isEmpty()) { continue; }
-						double otherDistToNode = distMap.lastKey();
-						IAgent otherVehicle = distMap.get(otherDistToNode);
+						if (lane.isEmpty()) { continue; }
+						double otherDistToNode = lane.distanceAt(0);
+						IAgent otherVehicle = lane.vehicleAt(0);
 						if (otherVehicle == null || otherVehicle.dead()) { continue; }
 						double otherVehicleLength = getVehicleLength(otherVehicle);
 						double otherSpeed = getSpeed(otherVehicle);
@@ -2346,14 +2345,14 @@ public class DrivingSkill extends MovingSkill {
 		IAgent correctRoad = getCurrentRoad(vehicle);
 		int numLanesCorrect = RoadSkill.getNumLanes(correctRoad);
 		double dist;
-		for (int lane : oldLanes) { RoadSkill.getVehicleOrderingMap(scope, correctRoad, lane).remove(vehicle); }
+		for (int lane : oldLanes) { RoadSkill.getLaneOccupancy(scope, correctRoad, lane).remove(vehicle); }
 		for (int lane : newLanes) {
 			if (lane < numLanesCorrect) {
 				dist = newDistToCurrentTarget;
 			} else {
 				dist = RoadSkill.getTotalLength(correctRoad) - newDistToCurrentTarget;
 			}
-			RoadSkill.getVehicleOrderingMap(scope, correctRoad, lane).put(vehicle, dist);
+			RoadSkill.getLaneOccupancy(scope, correctRoad, lane).put(vehicle, dist);
 		}
 		setDistanceToCurrentTarget(vehicle, newDistToCurrentTarget);
 		setLowestLane(vehicle, newLowestLane);
@@ -2646,7 +2645,7 @@ public class DrivingSkill extends MovingSkill {
 		int numLanesOccupied = (int) driver.getAttribute(NUM_LANES_OCCUPIED);
 		for (int i = 0; i < numLanesOccupied; i += 1) {
 			int lane = lowestLane + i;
-			RoadSkill.getVehicleOrderingMap(scope, currentRoad, lane).remove(driver);
+			RoadSkill.getLaneOccupancy(scope, currentRoad, lane).remove(driver);
 		}
 		setCurrentRoad(driver, null);
 		return true;
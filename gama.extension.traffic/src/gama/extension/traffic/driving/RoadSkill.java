@@ -10,10 +10,11 @@
  ********************************************************************************************************/
 package gama.extension.traffic.driving;
 
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
-import org.apache.commons.collections4.OrderedBidiMap;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 
@@ -35,8 +36,10 @@ import gama.core.runtime.GAMA;
 import gama.core.runtime.IScope;
 import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.util.GamaListFactory;
+import gama.core.util.GamaMapFactory;
 import gama.core.util.IList;
-import gama.extension.traffic.driving.carfollowing.CustomDualTreeBidiMap;
+import gama.core.util.IMap;
+import gama.extension.traffic.driving.carfollowing.LaneOccupancy;
 import gama.gaml.operators.Containers;
 import gama.gaml.skills.Skill;
 import gama.gaml.types.IType;
@@ -139,6 +142,10 @@ public class RoadSkill extends Skill {
 	/** The Constant VEHICLE_ORDERING. */
 	public static final String VEHICLE_ORDERING = "vehicle_ordering";
 
+	/** The order in which the vehicles of a lane are listed: by species, then by index. */
+	static final Comparator<IAgent> VEHICLE_COMPARATOR =
+			Comparator.comparing(IAgent::getSpeciesName).thenComparingInt(IAgent::getIndex);
+
 	
 	/**
 	 * Gets the agents.
@@ -150,7 +157,11 @@ public class RoadSkill extends Skill {
 	@getter (ALL_AGENTS)
 	public static IList<IAgent> getAgents(final IAgent agent) {
 		IList<IAgent> res = GamaListFactory.create(Types.AGENT);
-		for (OrderedBidiMap<IAgent, Double> map : getVehicleOrdering(agent)) { res.addAll(map.keySet()); }
+		for (LaneOccupancy lane : getLaneOccupancies(agent)) {
+			List<IAgent> vehicles = lane.getVehicles();
+			vehicles.sort(VEHICLE_COMPARATOR);
+			res.addAll(vehicles);
+		}
 		return Containers.remove_duplicates(GAMA.getRuntimeScope(), res);
 	}
 
@@ -369,30 +380,45 @@ public class RoadSkill extends Skill {
 	}
 
 	/**
-	 * Gets the vehicle ordering.
+	 * Gets the occupancy of each lane of a road, stored in its vehicle ordering attribute and created when first
+	 * needed.
+	 *
+	 * @param road
+	 *            the road
+	 * @return the lane occupancies
+	 */
+	public static List<LaneOccupancy> getLaneOccupancies(final IAgent road) {
+		List<LaneOccupancy> res = (List<LaneOccupancy>) road.getAttribute(VEHICLE_ORDERING);
+		if (res.isEmpty()) {
+			for (int i = 0; i < getNumLanes(road); i += 1) { res.add(new LaneOccupancy()); }
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the vehicle ordering: for each lane, a map of the vehicles (listed by species, then by index) to their
+	 * distance to the end of the road.
 	 *
 	 * @param road
 	 *            the road
 	 * @return the vehicle ordering
 	 */
 	@getter (VEHICLE_ORDERING)
-	public static List<OrderedBidiMap<IAgent, Double>> getVehicleOrdering(final IAgent road) {
-		List<OrderedBidiMap<IAgent, Double>> res =
-				(List<OrderedBidiMap<IAgent, Double>>) road.getAttribute(VEHICLE_ORDERING);
-		if (res.isEmpty()) {
-			for (int i = 0; i < getNumLanes(road); i += 1) {
-				res.add(new CustomDualTreeBidiMap<IAgent, Double>((a, b) -> {
-					int r = a.getSpeciesName().compareTo(b.getSpeciesName());
-					if (r != 0) return r;
-					return Integer.compare(a.getIndex(), b.getIndex());
-				}, Collections.reverseOrder()));
-			}
+	public static IList<IMap<IAgent, Double>> getVehicleOrdering(final IAgent road) {
+		IList<IMap<IAgent, Double>> res = GamaListFactory.create(Types.MAP.of(Types.AGENT, Types.FLOAT));
+		for (LaneOccupancy lane : getLaneOccupancies(road)) {
+			Map<IAgent, Double> sorted = new TreeMap<>(VEHICLE_COMPARATOR);
+			for (int i = 0; i < lane.size(); i++) { sorted.put(lane.vehicleAt(i), lane.distanceAt(i)); }
+			IMap<IAgent, Double> map = GamaMapFactory.create(Types.AGENT, Types.FLOAT);
+			map.putAll(sorted);
+			res.add(map);
 		}
 		return res;
 	}
 
 	/**
-	 * Sets the vehicle ordering.
+	 * Sets the vehicle ordering from a list of maps of vehicles to their distance to the end of the road (one per
+	 * lane). An empty list resets the occupancy of the lanes.
 	 *
 	 * @param road
 	 *            the road
@@ -400,21 +426,35 @@ public class RoadSkill extends Skill {
 	 *            the list
 	 */
 	@setter (VEHICLE_ORDERING)
-	public static void setVehicleOrdering(final IAgent road, final List<OrderedBidiMap<IAgent, Double>> list) {
-		road.setAttribute(VEHICLE_ORDERING, list);
+	public static void setVehicleOrdering(final IAgent road, final List<?> list) {
+		IList<LaneOccupancy> lanes = GamaListFactory.create(Types.NO_TYPE);
+		if (list != null) {
+			for (Object o : list) {
+				LaneOccupancy lane = new LaneOccupancy();
+				if (o instanceof Map<?, ?> map) {
+					for (Map.Entry<?, ?> entry : map.entrySet()) {
+						if (entry.getKey() instanceof IAgent vehicle && entry.getValue() instanceof Number distance) {
+							lane.put(vehicle, distance.doubleValue());
+						}
+					}
+				}
+				lanes.add(lane);
+			}
+		}
+		road.setAttribute(VEHICLE_ORDERING, lanes);
 	}
 
 	/**
-	 * Helper method that allows access to the ordered maps of vehicles' longitudinal positions
+	 * Helper method that allows access to the vehicles of a lane, ordered by their longitudinal positions
 	 *
 	 * @param scope
 	 * @param correctRoad
 	 *            the road where the vehicle is supposed to be
 	 * @param lane
 	 *            the lane index
-	 * @return the ordered tree map that corresponds to a lane on a certain road
+	 * @return the occupancy of a lane on a certain road
 	 */
-	public static OrderedBidiMap<IAgent, Double> getVehicleOrderingMap(final IScope scope, final IAgent correctRoad,
+	public static LaneOccupancy getLaneOccupancy(final IScope scope, final IAgent correctRoad,
 			final int lane) {
 		int numLanesTotal = getNumLanesTotal(correctRoad);
 		if (lane >= numLanesTotal) {
@@ -437,7 +477,7 @@ public class RoadSkill extends Skill {
 			actualLane = numLanesCorrect + numLanesLinked - 1 - lane;
 		}
 
-		return getVehicleOrdering(actualRoad).get(actualLane);
+		return getLaneOccupancies(actualRoad).get(actualLane);
 	}
 
 	/**
@@ -496,7 +536,7 @@ public class RoadSkill extends Skill {
 		int segmentIdx = !violatingOneway ? 0 : getNumSegments(road) - 1;
 		for (int i = 0; i < numLanesOccupied; i += 1) {
 			int lane = lowestLane + i;
-			getVehicleOrderingMap(scope, road, lane).put(vehicle, getTotalLength(road));
+			getLaneOccupancy(scope, road, lane).put(vehicle, getTotalLength(road));
 		}
 
 		DrivingSkill.setViolatingOneway(vehicle, violatingOneway);
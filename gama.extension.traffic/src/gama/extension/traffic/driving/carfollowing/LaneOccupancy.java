@@ -0,0 +1,261 @@
+/*******************************************************************************************************
+ *
+ * LaneOccupancy.java, in gaml.extensions.traffic, is part of the source code of the
+ * GAMA modeling and simulation platform .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.extension.traffic.driving.carfollowing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gama.core.metamodel.agent.IAgent;
+
+/**
+ * The vehicles occupying a lane of a road, ordered by their distance to the end of the road. The distances are kept
+ * sorted in a primitive array (with the vehicles in a parallel array), so that the leader and the follower of a
+ * position are found by binary search, and a small open-addressing table gives the distance of each vehicle. Inserting,
+ * moving and removing a vehicle do not allocate anything (except when the arrays grow).
+ *
+ * Like the bidirectional maps it replaces, a lane holds at most one vehicle at a given distance: putting a vehicle at
+ * the distance of another one removes the latter. Distances are compared with {@link Double#compare(double, double)}.
+ */
+public class LaneOccupancy {
+
+	/** The initial capacity. */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/** The distances, in increasing order. */
+	private double[] distances = new double[INITIAL_CAPACITY];
+
+	/** The vehicles, in the order of their distances. */
+	private IAgent[] vehicles = new IAgent[INITIAL_CAPACITY];
+
+	/** The number of vehicles. */
+	private int size;
+
+	/** The keys of the table giving the distance of each vehicle (null for empty slots). */
+	private IAgent[] keys = new IAgent[INITIAL_CAPACITY * 2];
+
+	/** The values of the table giving the distance of each vehicle. */
+	private double[] values = new double[INITIAL_CAPACITY * 2];
+
+	/**
+	 * The number of vehicles.
+	 *
+	 * @return the int
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the lane is empty.
+	 *
+	 * @return true, if is empty
+	 */
+	public boolean isEmpty() { return size == 0; }
+
+	/**
+	 * The distance of the vehicle at an index.
+	 *
+	 * @param index
+	 *            the index, between 0 (the vehicle closest to the end of the road) and size() - 1
+	 * @return the distance
+	 */
+	public double distanceAt(final int index) {
+		return distances[index];
+	}
+
+	/**
+	 * The vehicle at an index.
+	 *
+	 * @param index
+	 *            the index, between 0 (the vehicle closest to the end of the road) and size() - 1
+	 * @return the vehicle
+	 */
+	public IAgent vehicleAt(final int index) {
+		return vehicles[index];
+	}
+
+	/**
+	 * The index of the vehicle at a distance.
+	 *
+	 * @param distance
+	 *            the distance
+	 * @return the index, or -1 if no vehicle is at this distance
+	 */
+	public int indexOf(final double distance) {
+		final int i = Arrays.binarySearch(distances, 0, size, distance);
+		return i < 0 ? -1 : i;
+	}
+
+	/**
+	 * The index of the closest vehicle strictly before a distance (i.e. closer to the end of the road).
+	 *
+	 * @param distance
+	 *            the distance
+	 * @return the index, or -1 if there is none
+	 */
+	public int lowerIndex(final double distance) {
+		final int i = Arrays.binarySearch(distances, 0, size, distance);
+		return (i < 0 ? -i - 1 : i) - 1;
+	}
+
+	/**
+	 * The index of the closest vehicle strictly after a distance (i.e. farther from the end of the road).
+	 *
+	 * @param distance
+	 *            the distance
+	 * @return the index, or -1 if there is none
+	 */
+	public int higherIndex(final double distance) {
+		final int i = Arrays.binarySearch(distances, 0, size, distance);
+		final int result = i < 0 ? -i - 1 : i + 1;
+		return result < size ? result : -1;
+	}
+
+	/**
+	 * Whether a vehicle is in the lane.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 * @return true, if successful
+	 */
+	public boolean contains(final IAgent vehicle) {
+		return keys[slotOf(vehicle)] != null;
+	}
+
+	/**
+	 * Puts a vehicle at a distance, moving it if it is already in the lane, and removing the vehicle that was
+	 * previously at this distance, if any.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 * @param distance
+	 *            the distance
+	 */
+	public void put(final IAgent vehicle, final double distance) {
+		remove(vehicle);
+		int i = Arrays.binarySearch(distances, 0, size, distance);
+		if (i >= 0) {
+			unmap(vehicles[i]);
+		} else {
+			i = -i - 1;
+			if (size == distances.length) {
+				distances = Arrays.copyOf(distances, size * 2);
+				vehicles = Arrays.copyOf(vehicles, size * 2);
+			}
+			System.arraycopy(distances, i, distances, i + 1, size - i);
+			System.arraycopy(vehicles, i, vehicles, i + 1, size - i);
+			size++;
+		}
+		distances[i] = distance;
+		vehicles[i] = vehicle;
+		map(vehicle, distance);
+	}
+
+	/**
+	 * Removes a vehicle.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 * @return true, if the vehicle was in the lane
+	 */
+	public boolean remove(final IAgent vehicle) {
+		final int slot = slotOf(vehicle);
+		if (keys[slot] == null) return false;
+		final int i = Arrays.binarySearch(distances, 0, size, values[slot]);
+		System.arraycopy(distances, i + 1, distances, i, size - i - 1);
+		System.arraycopy(vehicles, i + 1, vehicles, i, size - i - 1);
+		vehicles[--size] = null;
+		unmap(vehicle);
+		return true;
+	}
+
+	/**
+	 * Removes all the vehicles.
+	 */
+	public void clear() {
+		Arrays.fill(vehicles, 0, size, null);
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	/**
+	 * The vehicles, in the order of their distances.
+	 *
+	 * @return the list
+	 */
+	public List<IAgent> getVehicles() { return new ArrayList<>(Arrays.asList(vehicles).subList(0, size)); }
+
+	/**
+	 * The slot of a vehicle in the table: either the one it occupies, or the empty one where it would be added.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 * @return the slot
+	 */
+	private int slotOf(final IAgent vehicle) {
+		final int mask = keys.length - 1;
+		int slot = System.identityHashCode(vehicle) * 0x9E3779B9 >>> 1 & mask;
+		while (keys[slot] != null && keys[slot] != vehicle) { slot = slot + 1 & mask; }
+		return slot;
+	}
+
+	/**
+	 * Records the distance of a vehicle in the table, growing it if it becomes more than half full.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 * @param distance
+	 *            the distance
+	 */
+	private void map(final IAgent vehicle, final double distance) {
+		if (size * 2 > keys.length) {
+			final IAgent[] oldKeys = keys;
+			final double[] oldValues = values;
+			keys = new IAgent[oldKeys.length * 2];
+			values = new double[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					final int slot = slotOf(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+		final int slot = slotOf(vehicle);
+		keys[slot] = vehicle;
+		values[slot] = distance;
+	}
+
+	/**
+	 * Removes a vehicle from the table, shifting back the entries that follow it in its cluster.
+	 *
+	 * @param vehicle
+	 *            the vehicle
+	 */
+	private void unmap(final IAgent vehicle) {
+		final int mask = keys.length - 1;
+		int hole = slotOf(vehicle);
+		if (keys[hole] == null) return;
+		keys[hole] = null;
+		for (int slot = hole + 1 & mask; keys[slot] != null; slot = slot + 1 & mask) {
+			final int home = System.identityHashCode(keys[slot]) * 0x9E3779B9 >>> 1 & mask;
+			// the entry can be moved to the hole if its home slot is not between the hole (excluded) and itself
+			if ((slot - home & mask) >= (slot - hole & mask)) {
+				keys[hole] = keys[slot];
+				values[hole] = values[slot];
+				keys[slot] = null;
+				hole = slot;
+			}
+		}
+	}
+
+}
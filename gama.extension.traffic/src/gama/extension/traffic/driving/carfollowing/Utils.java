@@ -22,7 +22,6 @@ import static gama.extension.traffic.driving.DrivingSkill.getVehicleLength;
 import static gama.extension.traffic.driving.DrivingSkill.isViolatingOneway;
 import static gama.extension.traffic.driving.DrivingSkill.readyToCross;
 
-import org.apache.commons.collections4.OrderedBidiMap;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Triple;
 
@@ -135,17 +134,17 @@ public class Utils {
 
 			for (int i = 0; i < numLanesOccupied; i += 1) {
 				int lane = lowestLaneToCheck + i;
-				OrderedBidiMap<Double, IAgent> distMap = 
-						RoadSkill.getVehicleOrderingMap(scope, nextRoad, lane).inverseBidiMap();
+				LaneOccupancy occupancy = RoadSkill.getLaneOccupancy(scope, nextRoad, lane);
 				boolean wrongDirection = lane < numLanesNext ? false : true;
 				wrongDirection = willViolateOneway ? !wrongDirection : wrongDirection;
 
-				if (distMap.isEmpty()) {
+				if (occupancy.isEmpty()) {
 					continue;
 				}
 
-				double tmpLeaderDist = !wrongDirection ? distMap.firstKey() : distMap.lastKey();
-				IAgent tmpLeader = distMap.get(tmpLeaderDist);
+				int leaderIndex = !wrongDirection ? occupancy.size() - 1 : 0;
+				double tmpLeaderDist = occupancy.distanceAt(leaderIndex);
+				IAgent tmpLeader = occupancy.vehicleAt(leaderIndex);
 				if (tmpLeader == null || tmpLeader.dead()) {
 					continue;
 				}
@@ -223,14 +222,14 @@ public class Utils {
 				if (isLinkedLane) {
 					prevRoad = RoadSkill.getLinkedRoad(prevRoad);
 				}
-				OrderedBidiMap<Double, IAgent> distMap = 
-						RoadSkill.getVehicleOrderingMap(scope, prevRoad, lane).inverseBidiMap();
-				if (distMap.isEmpty()) {
+				LaneOccupancy occupancy = RoadSkill.getLaneOccupancy(scope, prevRoad, lane);
+				if (occupancy.isEmpty()) {
 					continue;
 				}
-				double distQuery = !isLinkedLane ? distMap.lastKey() : distMap.firstKey();
+				int followerIndex = !isLinkedLane ? 0 : occupancy.size() - 1;
+				double distQuery = occupancy.distanceAt(followerIndex);
 
-				IAgent tmpFollower = distMap.get(distQuery);
+				IAgent tmpFollower = occupancy.vehicleAt(followerIndex);
 				if (getCurrentTarget(tmpFollower) != sourceNode) {
 					// This vehicle is not following the current one, but it's going the other way
 					continue;
@@ -284,8 +283,7 @@ public class Utils {
 		boolean sameDirection = false;
 		for (int i = 0; i < numLanesOccupied; i += 1) {
 			int lane = lowestLane + i;
-			OrderedBidiMap<Double, IAgent> distMap =
-					RoadSkill.getVehicleOrderingMap(scope, road, lane).inverseBidiMap();
+			LaneOccupancy occupancy = RoadSkill.getLaneOccupancy(scope, road, lane);
 			boolean wrongDirection = lane < numRoadLanes ? false : true;
 			wrongDirection = violatingOneway ? !wrongDirection : wrongDirection;
 			double tmpDistQuery = !wrongDirection ? distToCurrentTarget : 
@@ -293,24 +291,25 @@ public class Utils {
 			
 			// Another vehicle already occupied the exact same longitudinal spot
 			// in this lane, which will lead to a crash if switch
-			if (distMap.containsKey(tmpDistQuery) && distMap.get(tmpDistQuery) != vehicle) {
-				return ImmutableTriple.of(distMap.get(tmpDistQuery), -1.0, false);
+			int same = occupancy.indexOf(tmpDistQuery);
+			if (same >= 0 && occupancy.vehicleAt(same) != vehicle) {
+				return ImmutableTriple.of(occupancy.vehicleAt(same), -1.0, false);
 			}
 			
-			Double k;
+			int k;
 			if (isLeader) {
-				k = !wrongDirection ? distMap.nextKey(tmpDistQuery)
-						: distMap.previousKey(tmpDistQuery);
+				k = !wrongDirection ? occupancy.lowerIndex(tmpDistQuery)
+						: occupancy.higherIndex(tmpDistQuery);
 			} else {
-				k = !wrongDirection ? distMap.previousKey(tmpDistQuery)
-					: distMap.nextKey(tmpDistQuery);
+				k = !wrongDirection ? occupancy.higherIndex(tmpDistQuery)
+					: occupancy.lowerIndex(tmpDistQuery);
 			}
 			// No neighbor on this lane
-			if (k == null) {
+			if (k < 0) {
 				continue;
 			} 
-			double tmpNeighborDist = k;
-			IAgent tmpNeighbor = distMap.get(tmpNeighborDist);
+			double tmpNeighborDist = occupancy.distanceAt(k);
+			IAgent tmpNeighbor = occupancy.vehicleAt(k);
 			if (tmpNeighbor == null || tmpNeighbor.dead()) {
 				continue;
 			}
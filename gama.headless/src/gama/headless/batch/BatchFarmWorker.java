@@ -0,0 +1,93 @@
+/*******************************************************************************************************
+ *
+ * BatchFarmWorker.java, in gama.headless, is part of the source code of the GAMA modeling and simulation platform
+ * .
+ *
+ * (c) 2007-2024 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, TLU, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.headless.batch;
+
+import static gama.core.kernel.batch.farm.BatchFarm.ERROR;
+import static gama.core.kernel.batch.farm.BatchFarm.ID;
+import static gama.core.kernel.batch.farm.BatchFarm.OUTPUTS;
+import static gama.core.kernel.batch.farm.BatchFarm.PARAMETERS;
+import static gama.core.kernel.batch.farm.BatchFarm.SEED;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import gama.core.kernel.batch.farm.BatchFarm;
+import gama.core.kernel.experiment.BatchAgent;
+import gama.core.kernel.experiment.IExperimentPlan;
+import gama.core.kernel.experiment.ParametersSet;
+import gama.core.runtime.IScope;
+import gama.core.util.IMap;
+import gama.core.util.file.json.Json;
+import gama.core.util.file.json.JsonObject;
+import gama.dev.DEBUG;
+
+/**
+ * A worker of a batch farm (see {@link BatchFarm}): opens the batch experiment without running its exploration, then
+ * runs the simulations sent by the farm, one after the other, and sends back their outputs. Stops when the farm
+ * closes the connection.
+ */
+public class BatchFarmWorker {
+
+	/**
+	 * Runs the worker.
+	 *
+	 * @param plan
+	 *            the batch experiment, not yet opened
+	 * @param port
+	 *            the port of the farm
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@SuppressWarnings ("unchecked")
+	public static void run(final IExperimentPlan plan, final int port) throws IOException {
+		plan.setHeadless(true);
+		plan.open();
+		if (!(plan.getAgent() instanceof BatchAgent agent))
+			throw new IOException(plan.getName() + " is not a batch experiment");
+		final IScope scope = agent.getScope();
+		final Json json = Json.getNew();
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				BufferedReader in =
+						new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				BufferedWriter out = new BufferedWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				final JsonObject request = json.parse(line).asObject();
+				final int id = request.get(ID).asInt();
+				JsonObject answer;
+				try {
+					final ParametersSet parameters = new ParametersSet();
+					parameters.putAll((Map<String, Object>) request.get(PARAMETERS).toGamlValue(scope));
+					final IMap<String, Object> outputs =
+							agent.runSimulation(parameters, request.get(SEED).asDouble());
+					answer = json.object(ID, id, OUTPUTS, outputs);
+				} catch (final Throwable e) {
+					DEBUG.ERR("Simulation " + id + " failed", e);
+					answer = json.object(ID, id, ERROR, String.valueOf(e.getMessage()));
+				}
+				out.write(answer.toString());
+				out.newLine();
+				out.flush();
+			}
+		} finally {
+			plan.dispose();
+		}
+	}
+
+}
@@ -274,7 +274,8 @@ public class ExperimentJob implements IExperimentJob {
 	public void load() throws IOException, GamaHeadlessException {
 		System.setProperty("user.dir", this.sourcePath);
 		final List<GamlCompilationError> errors = new ArrayList<>();
-		final IModel mdl = GamlModelBuilder.getDefaultInstance().compile(new File(this.sourcePath), errors, null);
+		final IModel mdl =
+				GamlModelBuilder.getDefaultInstance().compileShared(new File(this.sourcePath), errors, null);
 		this.modelName = mdl.getName();
 		this.simulator = new RichExperiment(mdl);
 	}
@@ -322,8 +323,11 @@ public class ExperimentJob implements IExperimentJob {
 	@Override
 	public void dispose() {
 		if (this.simulator != null) {
+			final IModel model = this.simulator.getModel();
 			this.simulator.dispose();
 			this.simulator = null;
+			// The description of the model can now be lent to another job
+			GamlModelBuilder.getDefaultInstance().releaseShared(model);
 		}
 		if (this.outputFile != null) {
 			this.outputFile.close();
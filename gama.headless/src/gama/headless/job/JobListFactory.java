@@ -49,20 +49,25 @@ public class JobListFactory {
 	 */
 	public static List<IExperimentJob> constructAllJobs(final String modelPath, final long[] seeds,
 			final long finalStep, final Integer numberOfCores) throws IOException, GamaHeadlessException {
-		IModel model = GamlModelBuilder.getDefaultInstance().compile(new File(modelPath), null, null);
+		IModel model = GamlModelBuilder.getDefaultInstance().compileShared(new File(modelPath), null, null);
 		Map<JobPlanExperimentID, IExperimentJob> originalJobs = new LinkedHashMap<>();
-		if (numberOfCores != null && numberOfCores > 0) {
-			for (IExperimentPlan exp : model.getExperiments()) {
-				exp.setConcurrency(GAML.getExpressionFactory().createConst(numberOfCores, Types.INT));
+		try {
+			if (numberOfCores != null && numberOfCores > 0) {
+				for (IExperimentPlan exp : model.getExperiments()) {
+					exp.setConcurrency(GAML.getExpressionFactory().createConst(numberOfCores, Types.INT));
+				}
 			}
-		}
-		for (final ExperimentDescription expD : model.getDescription().getExperiments()) {
-			if (!IKeyword.BATCH.equals(expD.getLitteral(IKeyword.TYPE))) {
-				final IExperimentJob tj = ExperimentJob.loadAndBuildJob(expD, model.getFilePath(), model);
-				// TODO AD Why 12 ??
-				tj.setSeed(12);
-				originalJobs.put(new JobPlanExperimentID(tj.getModelName(), tj.getExperimentName()), tj);
+			for (final ExperimentDescription expD : model.getDescription().getExperiments()) {
+				if (!IKeyword.BATCH.equals(expD.getLitteral(IKeyword.TYPE))) {
+					final IExperimentJob tj = ExperimentJob.loadAndBuildJob(expD, model.getFilePath(), model);
+					// TODO AD Why 12 ??
+					tj.setSeed(12);
+					originalJobs.put(new JobPlanExperimentID(tj.getModelName(), tj.getExperimentName()), tj);
+				}
 			}
+		} finally {
+			// The jobs only keep the names and values read in the model: its description can be lent to them
+			GamlModelBuilder.getDefaultInstance().releaseShared(model);
 		}
 		final List<IExperimentJob> jobs = new ArrayList<>();
 		for (final IExperimentJob locJob : originalJobs.values()) {
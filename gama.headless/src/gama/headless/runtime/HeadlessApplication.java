@@ -38,6 +38,7 @@ import com.google.inject.Injector;
 
 import gama.core.common.GamlFileExtension;
 import gama.core.common.preferences.GamaPreferences;
+import gama.core.kernel.batch.farm.BatchFarm;
 import gama.core.kernel.experiment.IExperimentPlan;
 import gama.core.kernel.model.IModel;
 import gama.core.runtime.GAMA;
@@ -47,6 +48,7 @@ import gama.core.runtime.exceptions.GamaRuntimeException;
 import gama.core.runtime.server.GamaWebSocketServer;
 import gama.dev.DEBUG;
 import gama.gaml.compilation.GamlCompilationError;
+import gama.headless.batch.BatchFarmWorker;
 import gama.headless.batch.ModelLibraryRunner;
 import gama.headless.batch.ModelLibraryTester;
 import gama.headless.batch.ModelLibraryValidator;
@@ -161,6 +163,10 @@ public class HeadlessApplication implements IApplication {
 	// -> Code still exist, but not documented nor use
 	final public static String BATCH_PARAMETER = "-batch";
 
+	/** The Constant BATCH_WORKER_PARAMETER. */
+	// -> Used by the batch farms to launch their workers
+	final public static String BATCH_WORKER_PARAMETER = BatchFarm.WORKER_OPTION;
+
 	/** The Constant GAML_PARAMETER. */
 	final public static String GAML_PARAMETER = "-gaml";
 
@@ -307,6 +313,10 @@ public class HeadlessApplication implements IApplication {
 			size = size - 3;
 			mustContainOutFolder = false;
 		}
+		if (args.contains(BATCH_WORKER_PARAMETER)) {
+			size = size - 4;
+			mustContainOutFolder = false;
+		}
 		if (args.contains(BUILD_XML_PARAMETER)) {
 			size = size - 4;
 			mustContainInFile = mustContainOutFolder = false;
@@ -406,6 +416,9 @@ public class HeadlessApplication implements IApplication {
 			ModelLibraryGenerator.start(this, args);
 		} else if (args.contains(BATCH_PARAMETER)) {
 			runBatchSimulation(args.get(args.size() - 2), args.get(args.size() - 1));
+		} else if (args.contains(BATCH_WORKER_PARAMETER)) {
+			runBatchWorker(Integer.parseInt(after(args, BATCH_WORKER_PARAMETER)), args.get(args.size() - 2),
+					args.get(args.size() - 1));
 		} else if (args.contains(GAML_PARAMETER)) {
 			runGamlSimulation(args);
 		} else if (args.contains(BUILD_XML_PARAMETER)) {
@@ -654,6 +667,36 @@ public class HeadlessApplication implements IApplication {
 		System.exit(0);
 	}
 
+	/**
+	 * Runs a worker of a batch farm: the simulations of the batch experiment are received from (and their outputs sent
+	 * back to) the GAMA listening on the port.
+	 *
+	 * @param port
+	 *            the port of the farm
+	 * @param experimentName
+	 *            the name of the batch experiment
+	 * @param pathToModel
+	 *            the path to the model
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void runBatchWorker(final int port, final String experimentName, final String pathToModel)
+			throws IOException {
+		assertIsAModelFile(pathToModel);
+		final GamlModelBuilder builder = new GamlModelBuilder(getInjector());
+		final List<GamlCompilationError> errors = new ArrayList<>();
+		final IModel mdl = builder.compile(URI.createFileURI(pathToModel), errors);
+		if (mdl == null) {
+			DEBUG.LOG("GAMA couldn't compile " + pathToModel);
+			System.exit(1);
+			return;
+		}
+		final IExperimentPlan expPlan = mdl.getExperiment(experimentName);
+		assertIsExperiment(experimentName, expPlan);
+		BatchFarmWorker.run(expPlan, port);
+		System.exit(0);
+	}
+
 	/**
 	 * Auto launch gui experiment in headless mode from a gaml file
 	 *
@@ -10,22 +10,36 @@
  ********************************************************************************************************/
 package gama.headless.runtime;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import gama.core.runtime.concurrent.GamaExecutorService;
 import gama.dev.DEBUG;
 import gama.headless.job.IExperimentJob;
 
 /**
- * The Class LocalSimulationRuntime.
+ * The Class LocalSimulationRuntime. Depending on the preferences, experiments are either run by the thread pool itself
+ * or by a work-stealing pool of the same size, created when the first experiment is submitted (and which does not
+ * follow later changes of the number of threads). In both cases, the statistics of the executor (active and completed
+ * experiments, number of tasks, from which the number of queued experiments is deduced) and its termination methods
+ * describe all the experiments submitted.
  */
 public class SimulationRuntime extends ThreadPoolExecutor implements RejectedExecutionHandler {
 
 	/** The undefined queue size. */
 	static int DEFAULT_NB_THREADS = 32;
 
+	/** The work-stealing pool, if any. */
+	private volatile ForkJoinPool workStealingPool;
+
+	/** The number of experiments submitted to and completed by the work-stealing pool. */
+	private final LongAdder stolenSubmitted = new LongAdder(), stolenCompleted = new LongAdder();
+
 	/**
 	 * Instantiates a new executor based simulation runtime.
 	 */
@@ -35,7 +49,7 @@ public class SimulationRuntime extends ThreadPoolExecutor implements RejectedExe
 	}
 
 	/**
-	 * Sets the number of threads.
+	 * Sets the number of threads. The work-stealing pool, once created, keeps its parallelism.
 	 *
 	 * @param n
 	 *            the new number of threads
@@ -52,6 +66,97 @@ public class SimulationRuntime extends ThreadPoolExecutor implements RejectedExe
 		}
 	}
 
+	/**
+	 * Gets the work-stealing pool, or null if experiments are run by this thread pool.
+	 *
+	 * @return the work-stealing pool
+	 */
+	private ForkJoinPool getWorkStealingPool() {
+		if (!GamaExecutorService.useWorkStealingForSimulations()) return null;
+		ForkJoinPool pool = workStealingPool;
+		if (pool == null) {
+			synchronized (this) {
+				pool = workStealingPool;
+				if (pool == null) {
+					pool = GamaExecutorService.newWorkStealingPool(getCorePoolSize());
+					workStealingPool = pool;
+				}
+			}
+		}
+		return pool;
+	}
+
+	@Override
+	public void execute(final Runnable command) {
+		if (isShutdown()) {
+			rejectedExecution(command, this);
+			return;
+		}
+		final ForkJoinPool pool = getWorkStealingPool();
+		if (pool == null) {
+			super.execute(command);
+		} else {
+			stolenSubmitted.increment();
+			pool.execute(() -> {
+				try {
+					command.run();
+				} finally {
+					stolenCompleted.increment();
+				}
+			});
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		final ForkJoinPool pool = workStealingPool;
+		if (pool != null) { pool.shutdown(); }
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		final List<Runnable> result = super.shutdownNow();
+		final ForkJoinPool pool = workStealingPool;
+		if (pool != null) { pool.shutdownNow(); }
+		return result;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		final ForkJoinPool pool = workStealingPool;
+		return super.isTerminated() && (pool == null || pool.isTerminated());
+	}
+
+	@Override
+	public int getActiveCount() {
+		final ForkJoinPool pool = workStealingPool;
+		return super.getActiveCount() + (pool == null ? 0 : pool.getActiveThreadCount());
+	}
+
+	@Override
+	public int getPoolSize() {
+		final ForkJoinPool pool = workStealingPool;
+		return super.getPoolSize() + (pool == null ? 0 : pool.getPoolSize());
+	}
+
+	@Override
+	public long getTaskCount() {
+		return super.getTaskCount() + stolenSubmitted.sum();
+	}
+
+	@Override
+	public long getCompletedTaskCount() {
+		return super.getCompletedTaskCount() + stolenCompleted.sum();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final ForkJoinPool pool = workStealingPool;
+		if (pool != null && !pool.awaitTermination(timeout, unit)) return false;
+		return super.awaitTermination(timeout, unit);
+	}
+
 	/**
 	 * Rejected execution.
 	 *
@@ -14,9 +14,25 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtext.resource.SynchronizedXtextResourceSet;
 
@@ -24,6 +40,7 @@ import com.google.common.collect.Iterables;
 import com.google.inject.Injector;
 
 import gama.annotations.precompiler.GamlProperties;
+import gama.core.common.preferences.GamaPreferences;
 import gama.core.kernel.model.IModel;
 import gama.dev.DEBUG;
 import gama.gaml.compilation.GamlCompilationError;
@@ -55,6 +72,106 @@ public class GamlModelBuilder implements IGamlModelBuilder {
 	/** The build resource set. */
 	private final ResourceSet buildResourceSet;
 
+	/** The maximal number of model files whose validated descriptions are kept. */
+	private static final int MAX_SHARED_MODELS = 16;
+
+	/** The maximal number of idle descriptions kept for a model file. */
+	private static final int MAX_IDLE_DESCRIPTIONS = 8;
+
+	/**
+	 * The validated descriptions shared by the jobs, indexed by the absolute path of their model file. The least
+	 * recently used model files are forgotten first. Only accessed while holding the lock of the builder.
+	 */
+	private final Map<String, SharedDescription> sharedDescriptions =
+			new LinkedHashMap<>(MAX_SHARED_MODELS, 0.75f, true) {
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, SharedDescription> eldest) {
+					return size() > MAX_SHARED_MODELS;
+				}
+			};
+
+	/**
+	 * The state of a file the descriptions have been built from: its last modification time and size, which are
+	 * compared first, and the hash of its contents, which is only computed again when they differ.
+	 *
+	 * @param modified
+	 *            the last modification time
+	 * @param size
+	 *            the size
+	 * @param hash
+	 *            the hash of the contents
+	 */
+	private record FileStamp(long modified, long size, String hash) {
+
+		/**
+		 * The current stamp of a file.
+		 *
+		 * @param path
+		 *            the path
+		 * @param previous
+		 *            the previous stamp of the file, whose hash is reused if the file looks unchanged (can be null)
+		 * @return the stamp, or null if the file cannot be read
+		 */
+		static FileStamp of(final String path, final FileStamp previous) {
+			final File file = new File(path);
+			final long modified = file.lastModified();
+			final long size = file.length();
+			if (previous != null && previous.modified == modified && previous.size == size) return previous;
+			final String hash = hashOf(path);
+			return hash == null ? null : new FileStamp(modified, size, hash);
+		}
+	}
+
+	/**
+	 * The validated descriptions of a model file, together with the stamps of the files they have been built from (the
+	 * model and its imports) and the warnings produced by their validation. As the compiled models share the
+	 * expressions of their description, a description is lent to one job at a time: the descriptions that are not
+	 * used by a job are kept in a pool, and a new one is validated when the pool is empty.
+	 */
+	private static class SharedDescription {
+
+		/** The stamps of the files, indexed by their path. */
+		final Map<String, FileStamp> stamps;
+
+		/** The warnings and infos of the validation. */
+		final List<GamlCompilationError> messages;
+
+		/** The descriptions that are not used by any job. */
+		final Deque<ModelDescription> idle = new ArrayDeque<>();
+
+		/** The descriptions built for this version of the files (weakly referenced). */
+		final Set<ModelDescription> built = Collections.newSetFromMap(new WeakHashMap<>());
+
+		/**
+		 * Instantiates a new shared description.
+		 *
+		 * @param stamps
+		 *            the stamps
+		 * @param messages
+		 *            the messages
+		 */
+		SharedDescription(final Map<String, FileStamp> stamps, final List<GamlCompilationError> messages) {
+			this.stamps = stamps;
+			this.messages = messages;
+		}
+
+		/**
+		 * Whether none of the files has changed since the descriptions were built. The contents of a file are only
+		 * hashed again if its modification time or its size have changed.
+		 *
+		 * @return true, if up to date
+		 */
+		boolean isUpToDate() {
+			for (final Map.Entry<String, FileStamp> entry : stamps.entrySet()) {
+				final FileStamp current = FileStamp.of(entry.getKey(), entry.getValue());
+				if (current == null || !current.hash().equals(entry.getValue().hash())) return false;
+				entry.setValue(current);
+			}
+			return true;
+		}
+	}
+
 	/**
 	 * A constructor that builds the resource set based on an existing injecto
 	 *
@@ -128,6 +245,108 @@ public class GamlModelBuilder implements IGamlModelBuilder {
 		return model;
 	}
 
+	/**
+	 * Compiles a file to a GAMA model, reusing the validated description built by a previous call for the same file if
+	 * neither the file nor its imports have changed since. Only the model itself (species, experiment plans, ...) is
+	 * instantiated anew, so that jobs running the same model (e.g. the replications of a headless batch) do not pay the
+	 * parsing and validation of the model each time. As the compiled model shares the expressions of the description,
+	 * a description is only lent to one job at a time: it can be reused once the job gives it back with
+	 * {@link #releaseShared(IModel)}. Falls back to {@link #compile(File, List, GamlProperties)} if
+	 * {@link GamaPreferences.Experimental#SHARED_MODEL_DESCRIPTIONS} is disabled.
+	 *
+	 * @param myFile
+	 *            the model file
+	 * @param errors
+	 *            a list that will be filled with compilation errors / warnings (can be null)
+	 * @param metaProperties
+	 *            an instance of GamlProperties that will be filled with the meta-information of the model (can be null)
+	 * @return the compiled model
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             Signals that errors occured
+	 */
+	public synchronized IModel compileShared(final File myFile, final List<GamlCompilationError> errors,
+			final GamlProperties metaProperties) throws IOException, IllegalArgumentException {
+		if (!GamaPreferences.Experimental.SHARED_MODEL_DESCRIPTIONS.getValue())
+			return compile(myFile, errors, metaProperties);
+		if (myFile == null) throw new IOException("Model file is null");
+		final String fileName = myFile.getAbsolutePath();
+		if (!myFile.exists()) throw new IOException("Model file does not exist: " + fileName);
+		SharedDescription shared = sharedDescriptions.get(fileName);
+		if (shared != null && !shared.isUpToDate()) {
+			sharedDescriptions.remove(fileName);
+			shared = null;
+		}
+		ModelDescription description = shared == null ? null : shared.idle.poll();
+		if (description == null) {
+			DEBUG.LOG(fileName + " model is being compiled...");
+			final List<GamlCompilationError> messages = new ArrayList<>();
+			final Set<String> files = new LinkedHashSet<>();
+			files.add(fileName);
+			description = buildModelDescription(URI.createFileURI(fileName), messages, files);
+			if (errors != null) { errors.addAll(messages); }
+			if (description == null) {
+				sharedDescriptions.remove(fileName);
+				DEBUG.LOG("Model not compiled because of the following compilation errors: \n"
+						+ StreamEx.of(messages).joining("\n"));
+				throw new IllegalArgumentException("Compilation errors: \n" + StreamEx.of(messages).joining("\n"));
+			}
+			if (shared == null) {
+				final Map<String, FileStamp> stamps = new LinkedHashMap<>();
+				for (final String file : files) { stamps.put(file, FileStamp.of(file, null)); }
+				// A file that cannot be read prevents the description from being shared
+				if (!stamps.containsValue(null)) {
+					shared = new SharedDescription(stamps, messages);
+					sharedDescriptions.put(fileName, shared);
+				}
+			}
+			if (shared != null) { shared.built.add(description); }
+		} else {
+			DEBUG.LOG(fileName + " model is reusing a previous compilation");
+			if (errors != null) { errors.addAll(shared.messages); }
+		}
+		final IModel model = (IModel) description.compile();
+		if (metaProperties != null) { model.getDescription().collectMetaInformation(metaProperties); }
+		return model;
+	}
+
+	/**
+	 * Gives back the description of a model obtained from {@link #compileShared(File, List, GamlProperties)} once the
+	 * job that uses it is finished, so that it can be lent to the next job compiling the same file. A description which
+	 * is not given back is simply not reused.
+	 *
+	 * @param model
+	 *            the model (can be null)
+	 */
+	public synchronized void releaseShared(final IModel model) {
+		if (model == null) return;
+		final ModelDescription description = model.getDescription();
+		for (final SharedDescription shared : sharedDescriptions.values()) {
+			if (!shared.built.contains(description)) { continue; }
+			if (!shared.idle.contains(description) && shared.idle.size() < MAX_IDLE_DESCRIPTIONS) {
+				shared.idle.push(description);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Hash of the contents of a file.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the hash, or null if the file cannot be read
+	 */
+	static String hashOf(final String path) {
+		try {
+			return HexFormat.of()
+					.formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(Paths.get(path))));
+		} catch (final IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
 	/**
 	 * Compile.
 	 *
@@ -140,7 +359,7 @@ public class GamlModelBuilder implements IGamlModelBuilder {
 	@Override
 	public IModel compile(final URI uri, final List<GamlCompilationError> errors) {
 		// We build the description and fill the errors list
-		final ModelDescription model = buildModelDescription(uri, errors);
+		final ModelDescription model = buildModelDescription(uri, errors, null);
 		// And compile it before returning it, unless it is null.
 		return model == null ? null : (IModel) model.compile();
 	}
@@ -152,9 +371,13 @@ public class GamlModelBuilder implements IGamlModelBuilder {
 	 *            the uri
 	 * @param errors
 	 *            the errors
+	 * @param files
+	 *            a collection that will be filled with the paths of the files loaded to build the description (can be
+	 *            null)
 	 * @return the model description
 	 */
-	private ModelDescription buildModelDescription(final URI uri, final List<GamlCompilationError> errors) {
+	private ModelDescription buildModelDescription(final URI uri, final List<GamlCompilationError> errors,
+			final Collection<String> files) {
 		try {
 			final GamlResource r = (GamlResource) buildResourceSet.getResource(uri, true);
 			// Syntactic errors detected, we cannot build the resource
@@ -174,6 +397,13 @@ public class GamlModelBuilder implements IGamlModelBuilder {
 			if (r.getValidationContext().hasErrors()) return null;
 			return model;
 		} finally {
+			if (files != null) {
+				// The resources loaded are the model and all its imports
+				for (final Resource resource : buildResourceSet.getResources()) {
+					final URI loaded = resource.getURI();
+					if (loaded != null && loaded.isFile()) { files.add(loaded.toFileString()); }
+				}
+			}
 			final boolean wasDeliver = buildResourceSet.eDeliver();
 			try {
 				buildResourceSet.eSetDeliver(false);